@@ -0,0 +1,48 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.AppointmentAccess;
+import com.c195.dbclientapp.model.Appointment;
+import com.c195.dbclientapp.model.AppointmentPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading appointments and mapping their rows to Appointment objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppointmentAccessBenchmark {
+
+    // One calendar month of the DataGenerator.dayCount days generated
+    private static final Instant monthStart = SeededDatabase.epoch.plusMonths(6).toInstant(ZoneOffset.UTC);
+    private static final Instant monthEnd = SeededDatabase.epoch.plusMonths(7).toInstant(ZoneOffset.UTC);
+
+    @Benchmark
+    public List<Appointment> allAppointments(SeededDatabase database) throws SQLException {
+        return AppointmentAccess.getAllAppointments();
+    }
+
+    @Benchmark
+    public AppointmentPage firstPage(SeededDatabase database) throws SQLException {
+        return AppointmentAccess.getFirstAppointmentPage(100);
+    }
+
+    @Benchmark
+    public List<Appointment> oneMonth(SeededDatabase database) throws SQLException {
+        return AppointmentAccess.getAppointmentsInRange(monthStart, monthEnd);
+    }
+}
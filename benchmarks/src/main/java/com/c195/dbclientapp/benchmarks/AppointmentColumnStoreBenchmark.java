@@ -0,0 +1,52 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.AppointmentColumnStore;
+import com.c195.dbclientapp.database.AppointmentFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ad-hoc reports answered from the columnar snapshot, which SeededDatabase reads before the trial. Compare
+ * typeCountsForYear with ReportAccessBenchmark.typeReportForYear, which counts the same appointments from the rollups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppointmentColumnStoreBenchmark {
+
+    private static final LocalDateTime yearFrom = SeededDatabase.epoch.plusDays(10).plusHours(9);
+
+    @Benchmark
+    public Map<String, Integer> typeCountsForYear(SeededDatabase database) throws SQLException {
+        AppointmentFilter filter = new AppointmentFilter();
+        filter.setStartFromUtc(yearFrom);
+        filter.setStartToUtc(yearFrom.plusYears(1));
+        return AppointmentColumnStore.getInstance().countBy(AppointmentColumnStore.TYPE, filter);
+    }
+
+    @Benchmark
+    public Map<String, Integer> monthCounts(SeededDatabase database) throws SQLException {
+        return AppointmentColumnStore.getInstance().countBy(AppointmentColumnStore.MONTH, null);
+    }
+
+    @Benchmark
+    public Map<String, Integer> contactCountsForUserQuarter(SeededDatabase database) throws SQLException {
+        AppointmentFilter filter = new AppointmentFilter();
+        filter.setStartFromUtc(yearFrom);
+        filter.setStartToUtc(yearFrom.plusMonths(3));
+        filter.setUserId(1);
+        return AppointmentColumnStore.getInstance().countBy(AppointmentColumnStore.CONTACT, filter);
+    }
+}
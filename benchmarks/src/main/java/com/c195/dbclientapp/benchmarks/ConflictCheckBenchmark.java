@@ -0,0 +1,118 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.AppointmentAccess;
+import com.c195.dbclientapp.database.AppointmentConflictIndex;
+import com.c195.dbclientapp.helper.DataGenerator;
+import com.c195.dbclientapp.model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overlap check the appointment forms run before saving, using the interval index and using a query for
+ * the customer's appointments followed by a scan of them. Both compare UTC times, and setup checks that they find the
+ * same conflicts for a sample of slots, so the two are measured on the same results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConflictCheckBenchmark {
+
+    // Slots checked by both paths in setup
+    private static final int sampleSize = 200;
+
+    private final Random random = new Random(7);
+    private int customerCount;
+
+    /**
+     * Remembers the database size and loads every customer's tree, so the index is measured warm, then checks that
+     * the index and the scan agree.
+     * @param database the seeded database
+     * @throws SQLException if a tree or the appointments cannot be loaded
+     */
+    @Setup
+    public void warmIndex(SeededDatabase database) throws SQLException {
+        customerCount = database.customerCount;
+        AppointmentConflictIndex index = AppointmentConflictIndex.getInstance();
+        index.clear();
+        for (int customerId = 1; customerId <= customerCount; customerId++) {
+            index.findCustomerConflicts(customerId, SeededDatabase.epoch, SeededDatabase.epoch, -1);
+        }
+
+        Random sample = new Random(11);
+        for (int i = 0; i < sampleSize; i++) {
+            int customerId = sample.nextInt(customerCount) + 1;
+            LocalDateTime start = randomStart(sample);
+            int indexed = index.findCustomerConflicts(customerId, start, start.plusHours(1), -1).size();
+            int scanned = scanConflicts(customerId, start, start.plusHours(1));
+            if (indexed != scanned) {
+                throw new IllegalStateException("Customer " + customerId + " at " + start + ": the index found " +
+                        indexed + " conflicts and the scan " + scanned);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Integer> intervalIndex() throws SQLException {
+        LocalDateTime start = randomStart(random);
+        return AppointmentConflictIndex.getInstance().findCustomerConflicts(random.nextInt(customerCount) + 1,
+                start, start.plusHours(1), -1);
+    }
+
+    @Benchmark
+    public int queryAndScan() throws SQLException {
+        LocalDateTime start = randomStart(random);
+        return scanConflicts(random.nextInt(customerCount) + 1, start, start.plusHours(1));
+    }
+
+    /**
+     * Counts the customer's appointments overlapping a slot by reading all of them. They are read in local time, so
+     * each is converted back to UTC to be compared with the slot as the index compares it.
+     * @param customerId the customer to check
+     * @param startUtc the start of the slot, in UTC
+     * @param endUtc the end of the slot, in UTC
+     * @return the number of overlapping appointments
+     * @throws SQLException if the appointments cannot be read
+     */
+    private static int scanConflicts(int customerId, LocalDateTime startUtc, LocalDateTime endUtc)
+            throws SQLException {
+        int conflicts = 0;
+        for (Appointment appointment : AppointmentAccess.getAppointmentsByCustomerId(customerId)) {
+            if (toUtc(appointment.getStart()).isBefore(endUtc) && startUtc.isBefore(toUtc(appointment.getEnd()))) {
+                conflicts++;
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Converts a time read in the system time zone back to UTC.
+     * @param local a time in the system time zone
+     * @return the same instant in UTC
+     */
+    private static LocalDateTime toUtc(LocalDateTime local) {
+        return local.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private static LocalDateTime randomStart(Random random) {
+        return SeededDatabase.epoch.plusDays(random.nextInt(DataGenerator.dayCount)).withHour(8 + random.nextInt(13));
+    }
+}
@@ -0,0 +1,62 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.CountryAccess;
+import com.c195.dbclientapp.database.CustomerAccess;
+import com.c195.dbclientapp.database.FirstLevelDivisionAccess;
+import com.c195.dbclientapp.model.Country;
+import com.c195.dbclientapp.model.Customer;
+import com.c195.dbclientapp.model.CustomerWithDivision;
+import com.c195.dbclientapp.model.FirstLevelDivision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures joining customers to their division and country, as the Customers screen does, both in the database and
+ * in memory from lists that are already loaded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerJoinBenchmark {
+
+    private List<Customer> customers;
+    private List<FirstLevelDivision> divisions;
+    private List<Country> countries;
+
+    /**
+     * Loads the three lists the in-memory join works from.
+     * @param database the seeded database
+     * @throws SQLException if a list cannot be read
+     */
+    @Setup
+    public void loadLists(SeededDatabase database) throws SQLException {
+        customers = CustomerAccess.getAllCustomers();
+        divisions = FirstLevelDivisionAccess.getAllDivisions();
+        countries = CountryAccess.getAllCountries();
+    }
+
+    @Benchmark
+    public List<CustomerWithDivision> joinedQuery() throws SQLException {
+        return CustomerAccess.getAllCustomersWithDivisions();
+    }
+
+    @Benchmark
+    public List<CustomerWithDivision> inMemoryJoin() {
+        return CustomerAccess.joinCustomersWithDivisions(customers, divisions, countries);
+    }
+}
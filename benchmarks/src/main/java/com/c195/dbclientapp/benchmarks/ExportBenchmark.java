@@ -0,0 +1,73 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.AppointmentAccess;
+import com.c195.dbclientapp.database.ExportResult;
+import com.c195.dbclientapp.database.RowExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures exporting every appointment to a file in a temporary directory. Compare with
+ * AppointmentAccessBenchmark.allAppointments, which reads the same rows into Appointment objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    private Path directory;
+
+    /**
+     * Creates the directory the exports are written to.
+     * @throws IOException if the directory cannot be created
+     */
+    @Setup
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("export-benchmark");
+    }
+
+    /**
+     * Deletes the exports and their directory.
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown
+    public void deleteDirectory() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public ExportResult appointmentsCsv(SeededDatabase database) throws SQLException, IOException {
+        return AppointmentAccess.exportAppointments(directory.resolve("appointments.csv"), RowExporter.CSV, false,
+                null);
+    }
+
+    @Benchmark
+    public ExportResult appointmentsJsonGzip(SeededDatabase database) throws SQLException, IOException {
+        return AppointmentAccess.exportAppointments(directory.resolve("appointments.json.gz"), RowExporter.JSON, true,
+                null);
+    }
+}
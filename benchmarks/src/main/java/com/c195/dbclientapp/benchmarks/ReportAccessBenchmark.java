@@ -0,0 +1,66 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.AppointmentReportAggregates;
+import com.c195.dbclientapp.database.ReportAccess;
+import com.c195.dbclientapp.model.CustomerReport;
+import com.c195.dbclientapp.model.MonthReport;
+import com.c195.dbclientapp.model.TypeReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregations behind the Reports screen. The type and month reports are read from the counts kept in
+ * memory; reconcileAggregates measures the grouping queries that read those counts from the database. The ForYear
+ * benchmarks read a year of the rollups, starting part way through a day so every granularity is read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportAccessBenchmark {
+
+    private static final LocalDateTime yearFrom = SeededDatabase.epoch.plusDays(10).plusHours(9);
+
+    @Benchmark
+    public List<TypeReport> typeReport(SeededDatabase database) throws SQLException {
+        return ReportAccess.getAllTypeReports();
+    }
+
+    @Benchmark
+    public List<MonthReport> monthReport(SeededDatabase database) throws SQLException {
+        return ReportAccess.getAllMonthReports();
+    }
+
+    @Benchmark
+    public AppointmentReportAggregates reconcileAggregates(SeededDatabase database) throws SQLException {
+        AppointmentReportAggregates aggregates = AppointmentReportAggregates.getInstance();
+        aggregates.reconcile();
+        return aggregates;
+    }
+
+    @Benchmark
+    public List<TypeReport> typeReportForYear(SeededDatabase database) throws SQLException {
+        return ReportAccess.getTypeReports(yearFrom, yearFrom.plusYears(1));
+    }
+
+    @Benchmark
+    public List<MonthReport> monthReportForYear(SeededDatabase database) throws SQLException {
+        return ReportAccess.getMonthReports(yearFrom, yearFrom.plusYears(1));
+    }
+
+    @Benchmark
+    public List<CustomerReport> customerReport(SeededDatabase database) throws SQLException {
+        return ReportAccess.getAllCustomerReports();
+    }
+}
@@ -0,0 +1,55 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.database.AppointmentColumnStore;
+import com.c195.dbclientapp.database.AppointmentRollups;
+import com.c195.dbclientapp.helper.DataGenerator;
+import com.c195.dbclientapp.helper.EmbeddedDatabase;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * The embedded database, filled by DataGenerator, shared by every benchmark in a trial. Override the sizes from the
+ * command line, for example with -p appointmentCount=1000000.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    // Midnight UTC on the first day generated appointments can fall on
+    public static final LocalDateTime epoch = DataGenerator.firstDay.atStartOfDay();
+
+    private static boolean open;
+
+    @Param({"1000"})
+    public int customerCount;
+
+    @Param({"10000"})
+    public int appointmentCount;
+
+    @Param({"42"})
+    public long seed;
+
+    /**
+     * Empties and fills the database before the trial's first iteration, builds the rollups and reads the
+     * columnar snapshot.
+     * @throws SQLException if the database cannot be seeded
+     */
+    @Setup
+    public void seed() throws SQLException {
+        synchronized (SeededDatabase.class) {
+            if (!open) {
+                EmbeddedDatabase.open(EmbeddedDatabase.inMemoryUrl("benchmark"));
+                open = true;
+            }
+        }
+        EmbeddedDatabase.recreateSchema();
+        DataGenerator.generate(DataGenerator.DEFAULT_DIVISION_COUNT, DataGenerator.DEFAULT_CONTACT_COUNT,
+                DataGenerator.DEFAULT_USER_COUNT, customerCount, appointmentCount, seed);
+        AppointmentRollups.getInstance().catchUp();
+        AppointmentColumnStore.getInstance().refresh();
+    }
+}
@@ -0,0 +1,55 @@
+package com.c195.dbclientapp.benchmarks;
+
+import com.c195.dbclientapp.helper.ValidateControl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the business hours check run on every appointment save. It needs no database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidateControlBenchmark {
+
+    private static final int slotCount = 1024;
+
+    private final LocalDateTime[] starts = new LocalDateTime[slotCount];
+    private final LocalDateTime[] ends = new LocalDateTime[slotCount];
+    private int next;
+
+    /**
+     * Generates a mix of slots inside and outside business hours.
+     */
+    @Setup
+    public void generateSlots() {
+        Random random = new Random(11);
+        for (int i = 0; i < slotCount; i++) {
+            starts[i] = SeededDatabase.epoch.plusDays(random.nextInt(365)).withHour(random.nextInt(24));
+            ends[i] = starts[i].plusMinutes(30L * (1 + random.nextInt(4)));
+        }
+    }
+
+    @Benchmark
+    public boolean validateBusinessHours() {
+        int slot = next++ & (slotCount - 1);
+        ValidateControl vc = new ValidateControl();
+        vc.validateBusinessHours(starts[slot], ends[slot]);
+        return vc.isInputError();
+    }
+}
@@ -0,0 +1,13 @@
+-- Secondary indexes for the client_schedule database, applied once by a DBA after the schema is created.
+
+-- Serves the appointment range filters (Start >= ? AND Start < ?) and the keyset paging order
+-- (Start, Appointment_ID); InnoDB appends the primary key to every secondary index, so Start alone covers both.
+CREATE INDEX idx_appointments_start ON client_schedule.appointments (Start);
+
+-- Serves the upcoming appointment check at login (User_ID = ? AND Start >= ? AND Start < ?), which range-scans one
+-- user's slice of the index instead of reading every appointment the user has ever had.
+CREATE INDEX idx_appointments_user_start ON client_schedule.appointments (User_ID, Start);
+
+-- Serves the rollup catch-up job, which reads the appointments changed since its last pass in (Last_Update,
+-- Appointment_ID) order.
+CREATE INDEX idx_appointments_last_update ON client_schedule.appointments (Last_Update, Appointment_ID);
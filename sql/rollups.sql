@@ -0,0 +1,33 @@
+-- Summary tables kept by AppointmentRollups, applied once by a DBA after the schema is created.
+
+-- Appointment counts per hour, day and month of their UTC start time, by type, contact, user and customer, plus the
+-- total under Dimension 'all'. Dimension_Value holds the type, or the ID of the contact, user or customer.
+CREATE TABLE client_schedule.appointment_rollups (
+    Granularity VARCHAR(5) NOT NULL,
+    Dimension VARCHAR(10) NOT NULL,
+    Bucket_Start DATETIME NOT NULL,
+    Dimension_Value VARCHAR(50) NOT NULL,
+    Total INT NOT NULL,
+    PRIMARY KEY (Granularity, Dimension, Bucket_Start, Dimension_Value)
+);
+
+-- What each appointment was last counted as, so a change can be taken out of the buckets it was counted in.
+CREATE TABLE client_schedule.appointment_rollup_rows (
+    Appointment_ID INT PRIMARY KEY,
+    Start DATETIME,
+    Type VARCHAR(50),
+    Contact_ID INT,
+    User_ID INT,
+    Customer_ID INT
+);
+
+-- How far the catch-up job has read: the (Last_Update, Appointment_ID) of the last appointment applied, and the UTC
+-- time its last complete pass started. Its row is locked while a pass applies changes, so clients take turns.
+CREATE TABLE client_schedule.rollup_state (
+    Name VARCHAR(50) PRIMARY KEY,
+    Watermark DATETIME,
+    Watermark_ID INT,
+    Checked_At DATETIME
+);
+
+INSERT INTO client_schedule.rollup_state (Name) VALUES ('appointments');
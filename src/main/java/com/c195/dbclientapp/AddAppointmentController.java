@@ -1,9 +1,8 @@
 package com.c195.dbclientapp;
 
 import com.c195.dbclientapp.database.AppointmentAccess;
-import com.c195.dbclientapp.database.ContactAccess;
-import com.c195.dbclientapp.database.CustomerAccess;
-import com.c195.dbclientapp.database.UserAccess;
+import com.c195.dbclientapp.database.AppointmentConflictIndex;
+import com.c195.dbclientapp.database.ReferenceDataCache;
 import com.c195.dbclientapp.helper.ValidateControl;
 import com.c195.dbclientapp.model.Appointment;
 import javafx.collections.FXCollections;
@@ -22,6 +21,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.function.Supplier;
 
@@ -87,17 +87,14 @@ public class AddAppointmentController implements Initializable {
      * fields are not empty, that the start time is before the end time, that the start and end times are within business
      * hours, and that the appointment does not overlap with any existing appointments for the selected customer. If all
      * of these conditions are met, it adds the appointment to the database and returns to the main calendar screen. If
-     * any of these conditions are not met, it displays an error message.
+     * any of these conditions are not met, it displays an error message. Overlaps are found with the
+     * AppointmentConflictIndex, which treats appointments as half-open ranges so that back-to-back appointments are
+     * allowed but any other overlap, including one appointment containing another, is not.
      * <br>
-     * LAMBDA EXPRESSIONS: <br>
-     * 1. The `getNewId` variable is a `Supplier` that, when called using the `get()` method, increments the idTotal
+     * LAMBDA EXPRESSION: <br>
+     * The `getNewId` variable is a `Supplier` that, when called using the `get()` method, increments the idTotal
      * variable and returns the new value. This can be more concise and readable than creating a separate method to
      * perform the same task.
-     * <br>
-     * 2. The lambda expression make the code more concise because it allows the logic for checking for overlapping
-     * appointments to be written in a single line of code, rather than having to write a separate method or block of
-     * code to do the same thing. It can also make the code easier to read because the logic is expressed in a more
-     * declarative way, rather than having to follow a sequence of control flow statements.
      *
      * @param event the event that triggered this method
      * @throws SQLException if there is an error executing the SQL statements
@@ -184,17 +181,10 @@ public class AddAppointmentController implements Initializable {
         String createdBy = LoginController.currentUser;
         String lastUpdatedBy = LoginController.currentUser;
 
-        // Check for overlapping appointments for the customer
-        ObservableList<Appointment> customerAppointments = FXCollections
-                .observableArrayList(AppointmentAccess.getAppointmentsByCustomerId(customerId));
-
-        // Lambda expression for checking for overlapping appointments
-        boolean hasOverlap = customerAppointments.stream()
-                .anyMatch(appointment ->
-                        (start.isAfter(appointment.getStart()) && start.isBefore(appointment.getEnd())) ||
-                                (end.isAfter(appointment.getStart()) && end.isBefore(appointment.getEnd())) ||
-                                (start.isEqual(appointment.getStart()) && end.isEqual(appointment.getEnd())));
-        if (hasOverlap) {
+        // Check whether the new times overlap any of the customer's appointments
+        List<Integer> conflicts = AppointmentConflictIndex.getInstance()
+                .findCustomerConflicts(customerId, startUTC, endUTC, -1);
+        if (!conflicts.isEmpty()) {
             DialogBox.displayAlert("Error",
                     "An appointment already exists at this time for this customer.");
             return;
@@ -234,23 +224,12 @@ public class AddAppointmentController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
 
-        // Populate the observable lists with the desired values
-        ObservableList<Integer> customerIdList;
-        ObservableList<Integer> contactIdList;
-        ObservableList<Integer> userIdList;
-        try {
-            customerIdList = FXCollections.observableArrayList(CustomerAccess.getAllCustomerIds());
-            contactIdList = FXCollections.observableArrayList(ContactAccess.getAllContactIds());
-            userIdList = FXCollections.observableArrayList(UserAccess.getAllUserIds());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        // Set the combo boxes' items after the combo boxes have been added to the scene
-        contactIdComboBox.setItems(contactIdList);
-        customerIdComboBox.setItems(customerIdList);
-        userIdComboBox.setItems(userIdList);
+        // Populate the combo boxes in the background
+        BackgroundLoader.loadItems(contactIdComboBox, "contactIds", ReferenceDataCache::getContactIds);
+        BackgroundLoader.loadItems(customerIdComboBox, "customerIds", ReferenceDataCache::getCustomerIds);
+        BackgroundLoader.loadItems(userIdComboBox, "userIds", ReferenceDataCache::getUserIds);
 
         // Create a list of hours
         ObservableList<String> hours = FXCollections.observableArrayList();
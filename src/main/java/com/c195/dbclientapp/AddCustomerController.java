@@ -1,14 +1,10 @@
 package com.c195.dbclientapp;
 
-import com.c195.dbclientapp.database.CountryAccess;
 import com.c195.dbclientapp.database.CustomerAccess;
-import com.c195.dbclientapp.database.FirstLevelDivisionAccess;
+import com.c195.dbclientapp.database.ReferenceDataCache;
 import com.c195.dbclientapp.helper.ValidateControl;
-import com.c195.dbclientapp.model.Country;
 import com.c195.dbclientapp.model.Customer;
-import com.c195.dbclientapp.model.FirstLevelDivision;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -38,13 +34,6 @@ public class AddCustomerController implements Initializable {
     // Create instance of ValidateControl class to use for customer validation
     ValidateControl vc = new ValidateControl();
 
-    // Declare observable list with all the division objects (used in two methods)
-    ObservableList<FirstLevelDivision> divisionList =
-            FXCollections.observableArrayList(FirstLevelDivisionAccess.getAllDivisions());
-
-    // Declare observable list with all the country objects (used in two methods)
-    ObservableList<Country> countryList = FXCollections.observableArrayList(CountryAccess.getAllCountries());
-
     // Declare all FXML controls
     @FXML
     private TextField idTxt;
@@ -64,10 +53,8 @@ public class AddCustomerController implements Initializable {
     /**
      *
      * Constructor for the AddCustomerController class.
-     * Initializes the countryList and divisionList fields by querying the database.
-     * @throws SQLException if there is an error executing the SQL statements
      */
-    public AddCustomerController() throws SQLException {
+    public AddCustomerController() {
     }
 
     /**
@@ -139,7 +126,7 @@ public class AddCustomerController implements Initializable {
 
         // Get the selected division name from the combo box
         String selectedDivisionName = divisionComboBox.getSelectionModel().getSelectedItem();
-        int divisionId = FirstLevelDivisionAccess.getDivisionId(selectedDivisionName);
+        int divisionId = ReferenceDataCache.getDivisionId(selectedDivisionName);
 
         // Set create date
         LocalDateTime createDate = LocalDateTime.now();
@@ -186,69 +173,28 @@ public class AddCustomerController implements Initializable {
     @FXML
     void OnActionCountrySelected(ActionEvent event) {
 
-        // Checks for US
+        // Show only the divisions within the selected country
         if (!(countryComboBox.getSelectionModel().isEmpty())) {
-            ObservableList<String> divisionNameList = FXCollections.observableArrayList();
-            if (countryComboBox.getSelectionModel().getSelectedItem().equals("U.S")) {
-                for (FirstLevelDivision division : divisionList) {
-                    if (division.getCountryId() == 1)
-                        divisionNameList.add(division.getDivision());
-                }
-
-                // Set combo box with US states
-                divisionComboBox.setItems(divisionNameList);
-            }
-
-            // Checks for UK
-            if (countryComboBox.getSelectionModel().getSelectedItem().equals("UK")) {
-                for (FirstLevelDivision division : divisionList) {
-                    if (division.getCountryId() == 2)
-                        divisionNameList.add(division.getDivision());
-                }
-
-                // Set combo box with UK divisions
-                divisionComboBox.setItems(divisionNameList);
-            }
-
-            // Checks for Canada
-            if (countryComboBox.getSelectionModel().getSelectedItem().equals("Canada")) {
-                for (FirstLevelDivision division : divisionList) {
-                    if (division.getCountryId() == 3)
-                        divisionNameList.add(division.getDivision());
-                }
-
-                // Set combo box with Canada divisions
-                divisionComboBox.setItems(divisionNameList);
-            }
+            String countryName = countryComboBox.getSelectionModel().getSelectedItem();
+            BackgroundLoader.load(divisionComboBox, "divisionNames." + countryName,
+                    () -> ReferenceDataCache.getDivisionNamesByCountry(countryName),
+                    divisionNames -> divisionComboBox.setItems(FXCollections.observableArrayList(divisionNames)));
         }
     }
 
     /**
      *
-     * This method is called when the Add Customer screen is first displayed. It sets the items in the division and
-     * country combo boxes by looping through the list of divisions and countries, adding their names to an observable
-     * list, and setting the combo boxes' items to the observable lists.
+     * This method is called when the Add Customer screen is first displayed. It loads the names of every division and
+     * country in the background and sets them as the items of the division and country combo boxes.
      * @param url the URL of the FXML file that was used to create the scene
      * @param resourceBundle the resource bundle that was used to localize the scene
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
 
-        // Populate the observable list with the desired values
-        ObservableList<String> divisionNameList = FXCollections.observableArrayList();
-        for (FirstLevelDivision division : divisionList) {
-            divisionNameList.add(division.getDivision());
-        }
-
-        // Populate the observable list with the desired values
-        ObservableList<String> countryNameList = FXCollections.observableArrayList();
-        for (Country country : countryList) {
-            countryNameList.add(country.getCountry());
-
-        }
-
-        // Set the combo boxes' items after the combo boxes have been added to the scene
-        divisionComboBox.setItems(divisionNameList);
-        countryComboBox.setItems(countryNameList);
+        // Populate the combo boxes with the division and country names in the background
+        BackgroundLoader.loadItems(divisionComboBox, "divisionNames", ReferenceDataCache::getDivisionNames);
+        BackgroundLoader.loadItems(countryComboBox, "countryNames", ReferenceDataCache::getCountryNames);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,344 @@
+package com.c195.dbclientapp;
+
+import com.c195.dbclientapp.database.AppointmentAccess;
+import com.c195.dbclientapp.helper.TablePopulateEvent;
+import com.c195.dbclientapp.model.Appointment;
+import com.c195.dbclientapp.model.AppointmentPage;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The AppointmentPager class feeds a TableView with appointments one page at a time. Only the first page is read when
+ * the table is opened. As the user scrolls near the bottom of the table the next page is appended, and near the top
+ * the previous page is put back, while pages that have scrolled far out of view are dropped, so the table never holds
+ * more than a fixed number of pages however many appointments there are. The page after the last one shown is
+ * prefetched in the background so that it is usually ready before the user reaches it.
+ */
+public class AppointmentPager {
+
+    // Default page size and the number of pages kept in the table at once
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    // Fraction of the scroll range at either end that triggers loading another page
+    private static final double EDGE_THRESHOLD = 0.1;
+
+    // Pages are read off the FX application thread, one at a time
+    private static final ExecutorService pageLoader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "appointment-pager");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TableView<Appointment> tableView;
+    private final int pageSize;
+    private final int maxPages;
+    private final ObservableList<Appointment> items = FXCollections.observableArrayList();
+    private final Deque<AppointmentPage> pages = new ArrayDeque<>();
+    private final ChangeListener<Number> scrollListener = (observable, oldValue, newValue) ->
+            onScroll(newValue.doubleValue());
+    private final InvalidationListener skinListener = observable -> attachToFlow();
+
+    private VirtualFlow<?> flow;
+    private CompletableFuture<AppointmentPage> prefetched;
+    private boolean hasBefore;
+    private boolean hasAfter;
+    private boolean loading;
+
+    // Incremented by start and stop so that pages loaded for an earlier run are ignored
+    private int generation;
+
+    /**
+     *
+     * @param tableView the table to feed
+     */
+    public AppointmentPager(TableView<Appointment> tableView) {
+        this(tableView, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     *
+     * @param tableView the table to feed
+     * @param pageSize the number of appointments read per query
+     * @param maxPages the number of pages kept in the table at once, at least 2
+     */
+    public AppointmentPager(TableView<Appointment> tableView, int pageSize, int maxPages) {
+        this.tableView = tableView;
+        this.pageSize = pageSize;
+        this.maxPages = Math.max(2, maxPages);
+    }
+
+    /**
+     * Loads the first page into the table in the background and then starts following the scroll position. Calling
+     * start again reloads the table from the first page.
+     */
+    public void start() {
+        start(null);
+    }
+
+    /**
+     * Loads the first page into the table in the background, timing its query, and then starts following the scroll
+     * position.
+     * @param timings records the time the first page takes to read, or null not to time it
+     */
+    public void start(LoadTimings timings) {
+        stop();
+        items.clear();
+        tableView.setItems(items);
+        int startGeneration = generation;
+        Callable<AppointmentPage> firstPage = () -> AppointmentAccess.getFirstAppointmentPage(pageSize);
+        BackgroundLoader.load(tableView, "appointments.firstPage." + pageSize,
+                timings == null ? firstPage : timings.time("appointments", firstPage), first -> {
+                    if (startGeneration == generation) {
+                        showFirstPage(first);
+                    }
+                });
+    }
+
+    /**
+     * Shows the first page and starts following the scroll position.
+     * @param first the first page of appointments
+     */
+    private void showFirstPage(AppointmentPage first) {
+        pages.add(first);
+        TablePopulateEvent event = new TablePopulateEvent(tableView.getId(), "appointments.firstPage",
+                first.getAppointments().size());
+        event.begin();
+        items.setAll(first.getAppointments());
+        event.commit();
+        hasBefore = false;
+        hasAfter = first.hasMore();
+        tableView.scrollTo(0);
+
+        // The scroll position is only available once the table has been given its skin
+        if (tableView.getSkin() != null) {
+            attachToFlow();
+        } else {
+            tableView.skinProperty().addListener(skinListener);
+        }
+        prefetchNext();
+    }
+
+    /**
+     * Stops following the scroll position and discards any page still being loaded. The table keeps its current
+     * items until it is given new ones.
+     */
+    public void stop() {
+        generation++;
+        loading = false;
+        cancelPrefetch();
+        pages.clear();
+        tableView.skinProperty().removeListener(skinListener);
+        if (flow != null) {
+            flow.positionProperty().removeListener(scrollListener);
+            flow = null;
+        }
+    }
+
+    /**
+     * Removes an appointment from the table, for example after it has been deleted.
+     * @param appointment the appointment to remove
+     */
+    public void remove(Appointment appointment) {
+        items.remove(appointment);
+
+        // The page keeps its keys, so the pages around it can still be found
+        for (AppointmentPage page : pages) {
+            if (page.getAppointments().remove(appointment)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Finds the table's VirtualFlow and listens to its scroll position.
+     */
+    private void attachToFlow() {
+        Node node = tableView.lookup(".virtual-flow");
+        if (node instanceof VirtualFlow<?> virtualFlow && virtualFlow != flow) {
+            tableView.skinProperty().removeListener(skinListener);
+            flow = virtualFlow;
+            flow.positionProperty().addListener(scrollListener);
+        }
+    }
+
+    /**
+     * Loads another page when the scroll position comes near either end of the table.
+     * @param position the scroll position, from 0 at the top to 1 at the bottom
+     */
+    private void onScroll(double position) {
+        if (loading || pages.isEmpty()) {
+            return;
+        }
+        if (position >= 1 - EDGE_THRESHOLD && hasAfter) {
+            loadNext();
+        } else if (position <= EDGE_THRESHOLD && hasBefore) {
+            loadPrevious();
+        }
+    }
+
+    /**
+     * Appends the page after the last one shown, using the prefetched page if there is one.
+     */
+    private void loadNext() {
+        loading = true;
+        CompletableFuture<AppointmentPage> next = prefetched != null ? prefetched : fetchAfter(pages.getLast());
+        prefetched = null;
+        int loadGeneration = generation;
+        next.whenComplete((page, e) -> Platform.runLater(() -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (e != null) {
+                System.out.println("Error:" + e.getMessage());
+                return;
+            }
+            appendPage(page);
+        }));
+    }
+
+    /**
+     * Puts back the page before the first one shown.
+     */
+    private void loadPrevious() {
+        loading = true;
+        AppointmentPage first = pages.getFirst();
+        int loadGeneration = generation;
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return AppointmentAccess.getAppointmentPageBefore(first.getFirstStartUtc(),
+                        first.getFirstAppointmentId(), pageSize);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, pageLoader).whenComplete((page, e) -> Platform.runLater(() -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (e != null) {
+                System.out.println("Error:" + e.getMessage());
+                return;
+            }
+            prependPage(page);
+        }));
+    }
+
+    /**
+     * Adds a page to the bottom of the table, dropping the top page if the table is full.
+     * @param page the page that follows the last one shown
+     */
+    private void appendPage(AppointmentPage page) {
+        hasAfter = page.hasMore();
+        if (page.isEmpty()) {
+            return;
+        }
+        pages.addLast(page);
+        TablePopulateEvent event = new TablePopulateEvent(tableView.getId(), "appointments.nextPage",
+                page.getAppointments().size());
+        event.begin();
+        items.addAll(page.getAppointments());
+        event.commit();
+
+        if (pages.size() > maxPages) {
+            // Keep the same rows in view while the top page is removed from under them
+            int top = firstVisibleIndex();
+            AppointmentPage dropped = pages.removeFirst();
+            items.remove(0, dropped.getAppointments().size());
+            hasBefore = true;
+            tableView.scrollTo(Math.max(0, top - dropped.getAppointments().size()));
+        }
+        prefetchNext();
+    }
+
+    /**
+     * Adds a page to the top of the table, dropping the bottom page if the table is full.
+     * @param page the page that precedes the first one shown
+     */
+    private void prependPage(AppointmentPage page) {
+        hasBefore = page.hasMore();
+        if (page.isEmpty()) {
+            return;
+        }
+        int top = firstVisibleIndex();
+        pages.addFirst(page);
+        TablePopulateEvent event = new TablePopulateEvent(tableView.getId(), "appointments.previousPage",
+                page.getAppointments().size());
+        event.begin();
+        items.addAll(0, page.getAppointments());
+        event.commit();
+
+        if (pages.size() > maxPages) {
+            // The prefetched page followed the dropped page, so it no longer fits
+            AppointmentPage dropped = pages.removeLast();
+            items.remove(items.size() - dropped.getAppointments().size(), items.size());
+            hasAfter = true;
+            cancelPrefetch();
+        }
+        tableView.scrollTo(top + page.getAppointments().size());
+    }
+
+    /**
+     * Starts reading the page after the last one shown, if there is one and it is not already being read.
+     */
+    private void prefetchNext() {
+        if (hasAfter && prefetched == null && !pages.isEmpty()) {
+            prefetched = fetchAfter(pages.getLast());
+        }
+    }
+
+    /**
+     * Discards the prefetched page.
+     */
+    private void cancelPrefetch() {
+        if (prefetched != null) {
+            prefetched.cancel(false);
+            prefetched = null;
+        }
+    }
+
+    /**
+     * Reads the page after the given page on the background thread.
+     * @param last the page to read past
+     * @return a future completed with the next page
+     */
+    private CompletableFuture<AppointmentPage> fetchAfter(AppointmentPage last) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return AppointmentAccess.getAppointmentPageAfter(last.getLastStartUtc(),
+                        last.getLastAppointmentId(), pageSize);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, pageLoader);
+    }
+
+    /**
+     *
+     * @return the index of the first row in view, or 0 if the table has not been laid out
+     */
+    private int firstVisibleIndex() {
+        if (flow == null) {
+            return 0;
+        }
+        IndexedCell<?> cell = flow.getFirstVisibleCell();
+        return cell == null ? 0 : cell.getIndex();
+    }
+}
@@ -0,0 +1,331 @@
+package com.c195.dbclientapp;
+
+import com.c195.dbclientapp.database.AppointmentAccess;
+import com.c195.dbclientapp.database.AppointmentChangeListener;
+import com.c195.dbclientapp.helper.TimingWheel;
+import com.c195.dbclientapp.i18n.Resources_en;
+import com.c195.dbclientapp.i18n.Resources_fr;
+import com.c195.dbclientapp.model.Appointment;
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The AppointmentReminders class alerts the logged-in user before each of their appointments starts, for as long as
+ * the application runs. The user's appointments starting within the lookahead, 24 hours by default, are read with the
+ * bounded query on (User_ID, Start) and a reminder for each lead time, 15 minutes by default, is placed on a timing
+ * wheel that a background thread advances every second. Every few minutes only the appointments that have come into
+ * the lookahead since the last read are added, and once an hour the whole lookahead is read again to pick up changes
+ * made by other clients; changes made in this application are applied at once through the AppointmentAccess change
+ * listener. A reminder whose time has already passed, such as one inside the 15 minutes covered by the alert at login,
+ * is not scheduled. These system properties change the timings:
+ * -Ddbclientapp.reminders.lead.minutes=15,5 reminds 15 and 5 minutes before each appointment,
+ * -Ddbclientapp.reminders.refresh.minutes=5 and -Ddbclientapp.reminders.lookahead.hours=24.
+ */
+public class AppointmentReminders {
+
+    // System properties read when the reminders start
+    public static final String leadMinutesProperty = "dbclientapp.reminders.lead.minutes";
+    public static final String refreshMinutesProperty = "dbclientapp.reminders.refresh.minutes";
+    public static final String lookaheadHoursProperty = "dbclientapp.reminders.lookahead.hours";
+
+    private static final String defaultLeadMinutes = "15";
+    private static final long defaultRefreshMinutes = 5;
+    private static final long defaultLookaheadHours = 24;
+
+    // One-second ticks on a wheel of 4096 buckets, a little over an hour per turn
+    private static final long tickMillis = 1000;
+    private static final int wheelSize = 4096;
+
+    // The whole lookahead is read again on every this many refreshes
+    private static final int fullRefreshEvery = 12;
+
+    private static Session session;
+
+    /**
+     * Starts reminding a user of their appointments, replacing any reminders for a user who logged in before.
+     * @param userId the ID of the logged-in user
+     * @param locale the locale the reminders are displayed in
+     */
+    public static synchronized void start(int userId, Locale locale) {
+        stop();
+        session = new Session(userId, locale, parseLeadMinutes(System.getProperty(leadMinutesProperty,
+                defaultLeadMinutes)), Duration.ofHours(Long.getLong(lookaheadHoursProperty, defaultLookaheadHours)));
+        session.start(Math.max(1, Long.getLong(refreshMinutesProperty, defaultRefreshMinutes)));
+    }
+
+    /**
+     * Stops the reminders. Called when the application exits.
+     */
+    public static synchronized void stop() {
+        if (session != null) {
+            session.stop();
+            session = null;
+        }
+    }
+
+    /**
+     *
+     * @param value a comma-separated list of minutes, such as "15,5"
+     * @return the lead times in minutes, or the default if the list cannot be read
+     */
+    private static long[] parseLeadMinutes(String value) {
+        try {
+            String[] parts = value.split(",");
+            long[] leads = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                leads[i] = Math.max(0, Long.parseLong(parts[i].trim()));
+            }
+            return leads;
+        } catch (NumberFormatException e) {
+            System.out.println("Error:" + leadMinutesProperty + " is not a list of minutes: " + value);
+            return new long[]{Long.parseLong(defaultLeadMinutes)};
+        }
+    }
+
+    /**
+     * Displays a reminder, on the JavaFX application thread.
+     * @param reminder the reminder that is due
+     * @param locale the locale to display it in
+     */
+    private static void display(Reminder reminder, Locale locale) {
+        String start = reminder.localStart.toString();
+        try {
+            Platform.runLater(() -> {
+                if (locale.getLanguage().equals("fr")) {
+                    Resources_fr rb = new Resources_fr();
+                    DialogBox.displayAlert(rb.getString("Upcoming Appointment"), reminder.leadMinutes > 0
+                            ? "Vous avez un rendez-vous prochain avec l'ID " + reminder.appointmentId + " à " + start +
+                            ", dans " + reminder.leadMinutes + " minutes."
+                            : "Votre rendez-vous avec l'ID " + reminder.appointmentId + " commence à " + start + ".");
+                } else {
+                    Resources_en rb = new Resources_en();
+                    DialogBox.displayAlert(rb.getString("Upcoming Appointment"), reminder.leadMinutes > 0
+                            ? "You have an upcoming appointment with ID " + reminder.appointmentId + " at " + start +
+                            ", in " + reminder.leadMinutes + " minutes."
+                            : "Your appointment with ID " + reminder.appointmentId + " starts at " + start + ".");
+                }
+            });
+        } catch (IllegalStateException e) {
+
+            // The JavaFX toolkit is not running
+            System.out.println("Reminder: appointment " + reminder.appointmentId + " at " + start);
+        }
+    }
+
+    /**
+     * The reminders for one logged-in user. Everything but the change listener methods runs on the session's own
+     * thread, which owns the timing wheel, so none of it needs locking; the listener methods hand their work to that
+     * thread.
+     */
+    private static class Session implements AppointmentChangeListener {
+        private final int userId;
+        private final Locale locale;
+        private final long[] leadMinutes;
+        private final Duration lookahead;
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final TimingWheel<Reminder> wheel = new TimingWheel<>(tickMillis, wheelSize,
+                System.currentTimeMillis());
+        private final Map<Integer, List<TimingWheel.Timeout<Reminder>>> timeouts = new HashMap<>();
+
+        // The end of the range of start times read so far, or null before the first read
+        private Instant loadedUntil;
+        private int refreshes;
+
+        /**
+         *
+         * @param userId
+         * @param locale
+         * @param leadMinutes
+         * @param lookahead
+         */
+        Session(int userId, Locale locale, long[] leadMinutes, Duration lookahead) {
+            this.userId = userId;
+            this.locale = locale;
+            this.leadMinutes = leadMinutes;
+            this.lookahead = lookahead;
+        }
+
+        /**
+         * Starts the ticks and the refreshes, and listens for appointment changes.
+         * @param refreshMinutes the minutes between refreshes
+         */
+        void start(long refreshMinutes) {
+            AppointmentAccess.addChangeListener(this);
+            scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshMinutes, TimeUnit.MINUTES);
+            scheduler.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Stops listening and stops the thread, dropping every pending reminder.
+         */
+        void stop() {
+            AppointmentAccess.removeChangeListener(this);
+            scheduler.shutdownNow();
+        }
+
+        /**
+         * Advances the wheel to the current time, displaying every reminder that has come due.
+         */
+        private void tick() {
+            wheel.advance(System.currentTimeMillis(), this::fire);
+        }
+
+        /**
+         * Reads the appointments that have come into the lookahead since the last read, or the whole lookahead again
+         * on the first refresh and every fullRefreshEvery refreshes after it.
+         */
+        private void refresh() {
+            Instant now = Instant.now();
+            if (loadedUntil == null || refreshes % fullRefreshEvery == 0) {
+                for (List<TimingWheel.Timeout<Reminder>> scheduled : timeouts.values()) {
+                    scheduled.forEach(TimingWheel.Timeout::cancel);
+                }
+                timeouts.clear();
+                loadedUntil = now;
+            }
+            refreshes++;
+
+            Instant until = now.plus(lookahead);
+            if (!until.isAfter(loadedUntil)) {
+                return;
+            }
+            try {
+                for (Appointment appointment : AppointmentAccess.getAppointmentsByUserIdInRange(userId, loadedUntil,
+                        until)) {
+                    schedule(appointment.getAppointmentId(),
+                            appointment.getStart().atZone(ZoneId.systemDefault()).toInstant());
+                }
+                loadedUntil = until;
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+
+        /**
+         * Places a reminder on the wheel for each lead time that has not yet passed, replacing any the appointment
+         * already had.
+         * @param appointmentId the ID of the appointment
+         * @param start the time the appointment starts
+         */
+        private void schedule(int appointmentId, Instant start) {
+            cancel(appointmentId);
+            long now = System.currentTimeMillis();
+            LocalDateTime localStart = LocalDateTime.ofInstant(start, ZoneId.systemDefault());
+            List<TimingWheel.Timeout<Reminder>> scheduled = new ArrayList<>(leadMinutes.length);
+            for (long lead : leadMinutes) {
+                long fireAt = start.toEpochMilli() - TimeUnit.MINUTES.toMillis(lead);
+                if (fireAt > now) {
+                    scheduled.add(wheel.schedule(new Reminder(appointmentId, localStart, lead), fireAt));
+                }
+            }
+            if (!scheduled.isEmpty()) {
+                timeouts.put(appointmentId, scheduled);
+            }
+        }
+
+        /**
+         * Removes an appointment's pending reminders.
+         * @param appointmentId the ID of the appointment
+         */
+        private void cancel(int appointmentId) {
+            List<TimingWheel.Timeout<Reminder>> scheduled = timeouts.remove(appointmentId);
+            if (scheduled != null) {
+                scheduled.forEach(TimingWheel.Timeout::cancel);
+            }
+        }
+
+        /**
+         * Displays a reminder that has come due and forgets it.
+         * @param reminder the reminder
+         */
+        private void fire(Reminder reminder) {
+            timeouts.computeIfPresent(reminder.appointmentId, (id, scheduled) -> {
+                scheduled.removeIf(timeout -> timeout.getItem() == reminder);
+                return scheduled.isEmpty() ? null : scheduled;
+            });
+            display(reminder, locale);
+        }
+
+        /**
+         * Schedules a changed appointment's reminders if it belongs to the user and starts within the range read so
+         * far; anything later is picked up when the lookahead reaches it.
+         * @param appointment the appointment as now stored, with its times in UTC
+         */
+        private void scheduleIfLoaded(Appointment appointment) {
+            Instant start = appointment.getStart().toInstant(ZoneOffset.UTC);
+            if (appointment.getUserId() == userId && loadedUntil != null && start.isBefore(loadedUntil)) {
+                schedule(appointment.getAppointmentId(), start);
+            }
+        }
+
+        /**
+         * Hands work from a listener method to the session's thread, unless the session has stopped.
+         * @param work the work
+         */
+        private void submit(Runnable work) {
+            try {
+                scheduler.execute(work);
+            } catch (RejectedExecutionException e) {
+                // The user has logged out or the application is exiting
+            }
+        }
+
+        @Override
+        public void appointmentAdded(Appointment appointment) {
+            submit(() -> scheduleIfLoaded(appointment));
+        }
+
+        @Override
+        public void appointmentUpdated(Appointment before, Appointment after) {
+            submit(() -> {
+                cancel(before.getAppointmentId());
+                scheduleIfLoaded(after);
+            });
+        }
+
+        @Override
+        public void appointmentDeleted(Appointment before) {
+            submit(() -> cancel(before.getAppointmentId()));
+        }
+    }
+
+    /**
+     * A reminder of one appointment at one lead time.
+     */
+    private static class Reminder {
+        private final int appointmentId;
+        private final LocalDateTime localStart;
+        private final long leadMinutes;
+
+        /**
+         *
+         * @param appointmentId
+         * @param localStart
+         * @param leadMinutes
+         */
+        Reminder(int appointmentId, LocalDateTime localStart, long leadMinutes) {
+            this.appointmentId = appointmentId;
+            this.localStart = localStart;
+            this.leadMinutes = leadMinutes;
+        }
+    }
+}
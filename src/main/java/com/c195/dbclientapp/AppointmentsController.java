@@ -2,8 +2,6 @@ package com.c195.dbclientapp;
 
 import com.c195.dbclientapp.database.AppointmentAccess;
 import com.c195.dbclientapp.model.Appointment;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -17,7 +15,12 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ResourceBundle;
 
 import static com.c195.dbclientapp.DialogBox.displayAlert;
@@ -64,6 +67,9 @@ public class AppointmentsController implements Initializable {
     @FXML
     private ToggleGroup toggle;
 
+    // Feeds the table one page at a time while all appointments are shown
+    private AppointmentPager appointmentPager;
+
     /**
      *
      * Event handler for the Add button. When the Add button is clicked, the scene is changed to the Add Appointment
@@ -102,8 +108,9 @@ public class AppointmentsController implements Initializable {
         Appointment selectedAppointment = appointmentTableView.getSelectionModel().getSelectedItem();
         if (selectedAppointment != null) {
             // Send selected part to UpdateAppointmentController
+            BackgroundLoader.cancelAll();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("updateAppointment.fxml"));
-            Parent root = loader.load();
+            Parent root = LoadSceneHelper.load(loader);
             UpdateAppointmentController UAppointmentController = loader.getController();
             UAppointmentController.sendAppointment(selectedAppointment);
 
@@ -144,7 +151,11 @@ public class AppointmentsController implements Initializable {
             throw new RuntimeException(e);
         }
 
-        appointmentTableView.getItems().remove(selectedAppointment);
+        if (allRadioButton.isSelected()) {
+            appointmentPager.remove(selectedAppointment);
+        } else {
+            appointmentTableView.getItems().remove(selectedAppointment);
+        }
         DialogBox.displayAlert("Confirmation", selectedAppointment.getTitle() + " of type " +
                 selectedAppointment.getType() + " has been cancelled.");
     }
@@ -152,85 +163,91 @@ public class AppointmentsController implements Initializable {
     /**
      *
      * Event handler for the 'All' radio button.
-     * When the 'All' radio button is selected, this method retrieves all appointments from the database
+     * When the 'All' radio button is selected, this method pages through all appointments in the database
      * and displays them in the table view.
      * @param event the action event that triggered the handler
-     * @throws SQLException if there is an error executing the SQL statements
      */
     @FXML
-    void allRadioButton(ActionEvent event) throws SQLException {
-        // Loads table view with all appointments
+    void allRadioButton(ActionEvent event) {
+        // Loads table view with all appointments, starting from the first page
         if (allRadioButton.isSelected()) {
-            ObservableList<Appointment> apptList = AppointmentAccess.getAllAppointments();
-            appointmentTableView.setItems(apptList);
-
+            appointmentPager.start();
         }
     }
 
     /**
      *
-     * Event handler for the monthRadioButton. When the monthRadioButton is selected, this method queries the database for
-     * all appointments that occur within the current month and sets the items in the appointmentTableView to the returned
-     * list of appointments.
+     * Event handler for the monthRadioButton. When the monthRadioButton is selected, this method queries the database in the
+     * background for all appointments that start within the user's current calendar month and sets the items in the
+     * appointmentTableView to the returned list of appointments.
      * @param event the event that triggered this method
-     * @throws SQLException if there is an error executing the SQL statements
      */
     @FXML
-    void monthRadioButton(ActionEvent event) throws SQLException {
+    void monthRadioButton(ActionEvent event) {
         // Loads table view with desired appointments
         if (monthRadioButton.isSelected()) {
-            ObservableList<Appointment> apptList = AppointmentAccess.getAllAppointmentsByMonth();
-            appointmentTableView.setItems(apptList);
+            appointmentPager.stop();
+
+            // From midnight on the first of this month to midnight on the first of next month, local time
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate firstOfMonth = LocalDate.now(zone).withDayOfMonth(1);
+            Instant from = firstOfMonth.atStartOfDay(zone).toInstant();
+            Instant to = firstOfMonth.plusMonths(1).atStartOfDay(zone).toInstant();
+
+            BackgroundLoader.loadItems(appointmentTableView, "appointments.month." + from,
+                    () -> AppointmentAccess.getAppointmentsInRange(from, to));
         }
     }
 
     /**
      *
-     * Event handler for the weekRadioButton. When the weekRadioButton is selected, this method queries the database for
-     * all appointments that occur within the current week and sets the items in the appointmentTableView to the returned
-     * list of appointments.
+     * Event handler for the weekRadioButton. When the weekRadioButton is selected, this method queries the database in the
+     * background for all appointments that start within the user's current week (Sunday through Saturday) and sets the items in the
+     * appointmentTableView to the returned list of appointments.
      * @param event the event that triggered this method
-     * @throws SQLException if there is an error executing the SQL statements
      */
     @FXML
-    void weekRadioButton(ActionEvent event) throws SQLException {
+    void weekRadioButton(ActionEvent event) {
         // Loads table view with desired appointments
         if (weekRadioButton.isSelected()) {
-            ObservableList<Appointment> apptList = AppointmentAccess.getAllAppointmentsByWeek();
-            appointmentTableView.setItems(apptList);
+            appointmentPager.stop();
+
+            // From midnight on the most recent Sunday to midnight on the following Sunday, local time
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate sunday = LocalDate.now(zone).with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+            Instant from = sunday.atStartOfDay(zone).toInstant();
+            Instant to = sunday.plusWeeks(1).atStartOfDay(zone).toInstant();
+
+            BackgroundLoader.loadItems(appointmentTableView, "appointments.week." + from,
+                    () -> AppointmentAccess.getAppointmentsInRange(from, to));
         }
     }
 
     /**
      *
      * Initializes the table view in the appointments scene.
-     * Populates the table view with a list of all appointments and sets the value of each column with the corresponding
-     * appointment property.
+     * Populates the table view with the first page of appointments and sets the value of each column with the
+     * corresponding appointment property. Further pages are loaded as the table is scrolled.
      * @param url the location used to resolve relative paths for the root object, or null if the location is not known
      * @param resourceBundle the resources used to localize the root object, or null if the root object was not localized
      */
     @Override
     public void initialize (URL url, ResourceBundle resourceBundle) {
-        try {
-            // Retrieve appointments from the database
-            ObservableList<Appointment> appointments = AppointmentAccess.getAllAppointments();
-
-            // Set up table columns
-            idCol.setCellValueFactory(new PropertyValueFactory<>("appointmentId"));
-            titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
-            descriptionCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-            locationCol.setCellValueFactory(new PropertyValueFactory<>("location"));
-            typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
-            startCol.setCellValueFactory(new PropertyValueFactory<>("start"));
-            endCol.setCellValueFactory(new PropertyValueFactory<>("end"));
-            customerCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
-            userCol.setCellValueFactory(new PropertyValueFactory<>("userId"));
-            contactCol.setCellValueFactory(new PropertyValueFactory<>("contactId"));
-
-            // Set table data
-            appointmentTableView.setItems(FXCollections.observableList(appointments));
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        LoadSceneHelper.initializeStarted();
+        // Set up table columns
+        idCol.setCellValueFactory(new PropertyValueFactory<>("appointmentId"));
+        titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
+        descriptionCol.setCellValueFactory(new PropertyValueFactory<>("description"));
+        locationCol.setCellValueFactory(new PropertyValueFactory<>("location"));
+        typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
+        startCol.setCellValueFactory(new PropertyValueFactory<>("start"));
+        endCol.setCellValueFactory(new PropertyValueFactory<>("end"));
+        customerCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
+        userCol.setCellValueFactory(new PropertyValueFactory<>("userId"));
+        contactCol.setCellValueFactory(new PropertyValueFactory<>("contactId"));
+
+        // Set table data
+        appointmentPager = new AppointmentPager(appointmentTableView);
+        appointmentPager.start();
     }
 }
@@ -0,0 +1,268 @@
+package com.c195.dbclientapp;
+
+import com.c195.dbclientapp.helper.TablePopulateEvent;
+import javafx.beans.property.ObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Control;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The BackgroundLoader class runs the queries that fill a screen off the JavaFX application thread, so a slow
+ * database shows a spinner instead of freezing the window. Each load names the control it fills. While the query runs
+ * an empty table or combo box shows a progress indicator as its placeholder, and when the query finishes the result is
+ * handed to the control on the application thread. A newer load for the same control supersedes an older one, loads
+ * with the same key that are started while one is still running share its query, and loads still running when the
+ * user navigates to another screen are cancelled. All methods must be called on the JavaFX application thread.
+ */
+public class BackgroundLoader {
+
+    // Number of queries that can run at once
+    private static final int workerCount = 4;
+
+    // Keys under which a control remembers its latest load and its own placeholder
+    private static final String latestLoadKey = "backgroundLoader.latestLoad";
+    private static final String placeholderKey = "backgroundLoader.placeholder";
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+        Thread thread = new Thread(runnable, "background-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Queries that are still running, by key
+    private static final Map<String, Load<?>> inFlight = new HashMap<>();
+
+    /**
+     * Runs a query in the background and hands its result to the control on the application thread. If a load with
+     * the same key is already running, its result is shared instead of running the query again, so the key must
+     * identify the query and its parameters.
+     * @param owner the control being filled, which shows a progress indicator while it is empty
+     * @param key identifies the query and its parameters
+     * @param query reads the data, off the application thread
+     * @param onLoaded receives the result on the application thread, unless the load was superseded or cancelled
+     * @param <T> the type of result
+     */
+    public static <T> void load(Control owner, String key, Callable<T> query, Consumer<T> onLoaded) {
+        Object token = new Object();
+        owner.getProperties().put(latestLoadKey, token);
+        showPlaceholder(owner);
+
+        @SuppressWarnings("unchecked")
+        Load<T> load = (Load<T>) inFlight.get(key);
+        if (load == null) {
+            load = start(key, query);
+        }
+        load.deliveries.add(new Delivery<>(owner, token, onLoaded));
+    }
+
+    /**
+     * Loads a list in the background and makes it the table's items. The table is emptied while the list loads, and
+     * handing it the list is recorded as a TablePopulateEvent.
+     * @param tableView the table to fill
+     * @param key identifies the query and its parameters
+     * @param query reads the list, off the application thread
+     * @param <T> the type of row
+     */
+    public static <T> void loadItems(TableView<T> tableView, String key, Callable<? extends List<T>> query) {
+        tableView.setItems(FXCollections.observableArrayList());
+        load(tableView, key, query, list -> {
+            TablePopulateEvent event = new TablePopulateEvent(tableView.getId(), key, list.size());
+            event.begin();
+            tableView.setItems(FXCollections.observableArrayList(list));
+            event.commit();
+        });
+    }
+
+    /**
+     * Loads a list in the background and makes it the combo box's items, keeping any value that was set while the list
+     * was loading.
+     * @param comboBox the combo box to fill
+     * @param key identifies the query and its parameters
+     * @param query reads the list, off the application thread
+     * @param <T> the type of item
+     */
+    public static <T> void loadItems(ComboBox<T> comboBox, String key, Callable<? extends List<T>> query) {
+        load(comboBox, key, query, list -> {
+            T value = comboBox.getValue();
+            comboBox.setItems(FXCollections.observableArrayList(list));
+            comboBox.setValue(value);
+        });
+    }
+
+    /**
+     * Runs a query in the background that is not tied to a control, such as a check whose result is shown as an alert.
+     * It is not shared with other loads and is not cancelled when the user navigates to another screen.
+     * @param query reads the data, off the application thread
+     * @param onLoaded receives the result on the application thread
+     * @param onFailed receives the exception the query threw, on the application thread
+     * @param <T> the type of result
+     */
+    public static <T> void run(Callable<T> query, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return query.call();
+            }
+        };
+        task.setOnSucceeded(event -> onLoaded.accept(task.getValue()));
+        task.setOnFailed(event -> onFailed.accept(task.getException()));
+        executor.execute(task);
+    }
+
+    /**
+     * Cancels every load that is still running. Their results are discarded when their queries finish. Called when the
+     * user navigates to another screen, before the new screen starts its own loads.
+     */
+    public static void cancelAll() {
+        for (Load<?> load : inFlight.values()) {
+            load.task.cancel(false);
+        }
+        inFlight.clear();
+    }
+
+    /**
+     * Submits a query to the workers.
+     * @param key identifies the query and its parameters
+     * @param query reads the data
+     * @param <T> the type of result
+     * @return the load, which is running or queued
+     */
+    private static <T> Load<T> start(String key, Callable<T> query) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return query.call();
+            }
+        };
+        Load<T> load = new Load<>(task);
+        task.setOnSucceeded(event -> finish(key, load, task.getValue(), null));
+        task.setOnFailed(event -> finish(key, load, null, task.getException()));
+        inFlight.put(key, load);
+        executor.execute(task);
+        return load;
+    }
+
+    /**
+     * Hands a finished load's result to every control still waiting for it, or reports its error once.
+     * @param key the load's key
+     * @param load the load that finished
+     * @param value the result, or null if the query failed
+     * @param error the exception the query threw, or null if it succeeded
+     * @param <T> the type of result
+     */
+    private static <T> void finish(String key, Load<T> load, T value, Throwable error) {
+        inFlight.remove(key, load);
+        boolean delivered = false;
+        for (Delivery<T> delivery : load.deliveries) {
+
+            // A newer load for the same control has replaced this one
+            if (delivery.owner.getProperties().get(latestLoadKey) != delivery.token) {
+                continue;
+            }
+            delivery.owner.getProperties().remove(latestLoadKey);
+            restorePlaceholder(delivery.owner);
+            if (error == null) {
+                delivery.onLoaded.accept(value);
+            }
+            delivered = true;
+        }
+
+        if (error != null && delivered) {
+            System.out.println("Error:" + error.getMessage());
+            DialogBox.displayAlert("Error", "Failed to load data: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Shows a progress indicator as the control's placeholder, remembering the placeholder it had.
+     * @param owner the control being filled
+     */
+    private static void showPlaceholder(Control owner) {
+        ObjectProperty<Node> placeholder = placeholderOf(owner);
+        if (placeholder == null || owner.getProperties().containsKey(placeholderKey)) {
+            return;
+        }
+        owner.getProperties().put(placeholderKey, placeholder.get());
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(40, 40);
+        placeholder.set(indicator);
+    }
+
+    /**
+     * Puts back the placeholder the control had before its load started.
+     * @param owner the control that was filled
+     */
+    private static void restorePlaceholder(Control owner) {
+        ObjectProperty<Node> placeholder = placeholderOf(owner);
+        if (placeholder != null && owner.getProperties().containsKey(placeholderKey)) {
+            placeholder.set((Node) owner.getProperties().remove(placeholderKey));
+        }
+    }
+
+    /**
+     *
+     * @param owner a control
+     * @return the control's placeholder property, or null if it has none
+     */
+    private static ObjectProperty<Node> placeholderOf(Control owner) {
+        if (owner instanceof TableView<?> tableView) {
+            return tableView.placeholderProperty();
+        }
+        if (owner instanceof ComboBox<?> comboBox) {
+            return comboBox.placeholderProperty();
+        }
+        return null;
+    }
+
+    /**
+     * A running query and the controls waiting for its result.
+     * @param <T> the type of result
+     */
+    private static class Load<T> {
+        private final Task<T> task;
+        private final List<Delivery<T>> deliveries = new ArrayList<>();
+
+        /**
+         *
+         * @param task
+         */
+        Load(Task<T> task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * A control waiting for a query's result.
+     * @param <T> the type of result
+     */
+    private static class Delivery<T> {
+        private final Control owner;
+        private final Object token;
+        private final Consumer<T> onLoaded;
+
+        /**
+         *
+         * @param owner
+         * @param token
+         * @param onLoaded
+         */
+        Delivery(Control owner, Object token, Consumer<T> onLoaded) {
+            this.owner = owner;
+            this.token = token;
+            this.onLoaded = onLoaded;
+        }
+    }
+}
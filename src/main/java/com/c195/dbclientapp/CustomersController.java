@@ -1,11 +1,8 @@
 package com.c195.dbclientapp;
 
 import com.c195.dbclientapp.database.AppointmentAccess;
-import com.c195.dbclientapp.database.CountryAccess;
 import com.c195.dbclientapp.database.CustomerAccess;
-import com.c195.dbclientapp.database.FirstLevelDivisionAccess;
 import com.c195.dbclientapp.model.*;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -82,15 +79,15 @@ public class CustomersController implements Initializable {
      * nothing.
      * @param event the event that triggered this method
      * @throws IOException if there is an error loading the Update Customer screen
-     * @throws SQLException if there is an error executing the SQL statements
      */
     @FXML
-    void OnActionUpdate(ActionEvent event) throws java.io.IOException, SQLException {
+    void OnActionUpdate(ActionEvent event) throws java.io.IOException {
 
         // Send selected part to updateAppointmentController
+        BackgroundLoader.cancelAll();
         FXMLLoader loader = new FXMLLoader();
         loader.setLocation(getClass().getResource("updateCustomer.fxml"));
-        loader.load();
+        LoadSceneHelper.load(loader);
         FirstLevelDivision divisionName = customerTableView.getSelectionModel().getSelectedItem().getDivision();
         Country countryName = customerTableView.getSelectionModel().getSelectedItem().getCountry();
         UpdateCustomerController UCustomerController = loader.getController();
@@ -120,7 +117,7 @@ public class CustomersController implements Initializable {
     void OnActionDelete(ActionEvent event) throws java.io.IOException {
 
         // Get the selected customer from the table view
-        ObservableList<CustomerWithDivision> customerWithDivisions = FXCollections.observableArrayList();
+        ObservableList<CustomerWithDivision> customerWithDivisions;
         Customer selectedCustomer = customerTableView.getSelectionModel().getSelectedItem().getCustomer();
 
         // If a customer is selected
@@ -140,28 +137,8 @@ public class CustomersController implements Initializable {
                         // Display alert
                         displayAlert("Success!", "Customer deleted");
 
-                        // Get the updated list of customers
-                        ObservableList<Customer> customers = CustomerAccess.getAllCustomers();
-
-                        // Get the updated list of divisions
-                        ObservableList<FirstLevelDivision> divisions = FirstLevelDivisionAccess.getAllDivisions();
-
-                        // Get the updated list of countries
-                        ObservableList<Country> countries = CountryAccess.getAllCountries();
-
-                        // Create a CustomerWithDivision object for each customer and add it to the list
-                        for (Customer customer : customers) {
-                            FirstLevelDivision division = null;
-                            Country country = null;
-                            try {
-                                division = FirstLevelDivisionAccess.getDivisionById(customer.getDivisionId());
-                                assert division != null;
-                                country = CountryAccess.getCountryById(division.getCountryId());
-                            } catch (SQLException e) {
-                                throw new RuntimeException(e);
-                            }
-                            customerWithDivisions.add(new CustomerWithDivision(customer, division, country));
-                        }
+                        // Get the updated list of customers joined to their division and country
+                        customerWithDivisions = CustomerAccess.getAllCustomersWithDivisions();
 
                         // Update the table with the updated list of CustomerWithDivision objects
                         customerTableView.setItems(customerWithDivisions);
@@ -183,45 +160,18 @@ public class CustomersController implements Initializable {
      *
      * The initialize method is called when the Customers screen is loaded. It populates the table view with a list of
      * CustomerWithDivision objects, which contain a customer object, the division object associated with that customer,
-     * and the country object associated with that division. It also sets the values of each column in the table view
-     * to the corresponding values in the CustomerWithDivision objects.
+     * and the country object associated with that division, all loaded with a single joined query. It also sets the
+     * values of each column in the table view to the corresponding values in the CustomerWithDivision objects.
      * @param url the location of the FXML file that defines the layout of the Customers screen
      * @param resourceBundle resources to be used for localization
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
 
-        // Initialize lists of items needed to populate table view
-        ObservableList<Customer> customers;
-        ObservableList<FirstLevelDivision> divisions;
-        ObservableList<Country> countries;
-        ObservableList<CustomerWithDivision> customerWithDivisions = FXCollections.observableArrayList();
-
-        // Populate lists with desired values
-        try {
-            customers = CustomerAccess.getAllCustomers();
-            divisions = FirstLevelDivisionAccess.getAllDivisions();
-            countries = CountryAccess.getAllCountries();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        // Create a CustomerWithDivision object for each customer and add it to the list
-        for (Customer customer : customers) {
-            FirstLevelDivision division = null;
-            Country country = null;
-            try {
-                division = FirstLevelDivisionAccess.getDivisionById(customer.getDivisionId());
-                assert division != null;
-                country = CountryAccess.getCountryById(division.getCountryId());
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-            customerWithDivisions.add(new CustomerWithDivision(customer, division, country));
-        }
-
-        // Populate table with customerWithDivisions list
-        customerTableView.setItems(customerWithDivisions);
+        // Load every customer with its division and country in one joined query, in the background
+        BackgroundLoader.loadItems(customerTableView, "customers.withDivisions",
+                CustomerAccess::getAllCustomersWithDivisions);
         idCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
         nameCol.setCellValueFactory(new PropertyValueFactory<>("customerName"));
         addressCol.setCellValueFactory(new PropertyValueFactory<>("address"));
@@ -1,5 +1,6 @@
 package com.c195.dbclientapp;
 
+import com.c195.dbclientapp.helper.SceneLoadEvent;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -16,20 +17,57 @@ import java.util.Objects;
  */
 public class LoadSceneHelper {
 
+    // When the controller of the FXML file being loaded started its initialize method, or 0 if it has not
+    private static long initializeStartedAt;
+
     /**
      *
-     * Loads the specified scene in the application.
+     * Loads the specified scene in the application. Any data still loading for the current scene is cancelled first.
      * @param event the action event that triggered this method
      * @param fxmlFile the name of the FXML file representing the scene to be loaded
      * @param title the title to be displayed on the window of the scene being loaded
      * @throws IOException if there is an error loading the specified scene
      */
     public static void loadScene(ActionEvent event, String fxmlFile, String title) throws IOException {
+        BackgroundLoader.cancelAll();
         Stage stage = (Stage)((Button)event.getSource()).getScene().getWindow();
-        Parent scene = FXMLLoader.load(Objects.requireNonNull(LoadSceneHelper.class.getResource(fxmlFile)));
+        Parent scene = load(new FXMLLoader(Objects.requireNonNull(LoadSceneHelper.class.getResource(fxmlFile))));
         stage.setTitle(title);
         stage.setScene(new Scene(scene));
         stage.show();
     }
 
+    /**
+     * Loads an FXML file, recording a SceneLoadEvent that splits the time between parsing the file and running its
+     * controller's initialize method.
+     * @param loader the loader, with its location set
+     * @return the root of the loaded scene graph
+     * @throws IOException if there is an error loading the file
+     */
+    public static Parent load(FXMLLoader loader) throws IOException {
+        String path = loader.getLocation().getPath();
+        SceneLoadEvent event = new SceneLoadEvent(path.substring(path.lastIndexOf('/') + 1));
+        event.begin();
+        initializeStartedAt = 0;
+        long started = System.nanoTime();
+
+        Parent root = loader.load();
+
+        long finished = System.nanoTime();
+        long initializeStarted = initializeStartedAt == 0 ? finished : initializeStartedAt;
+        Object controller = loader.getController();
+        event.setTimes(controller == null ? null : controller.getClass().getSimpleName(),
+                initializeStarted - started, finished - initializeStarted);
+        event.commit();
+        return root;
+    }
+
+    /**
+     * Called by each controller as the first statement of its initialize method, which marks the end of parsing for
+     * the scene's SceneLoadEvent.
+     */
+    public static void initializeStarted() {
+        initializeStartedAt = System.nanoTime();
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.c195.dbclientapp;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * The LoadTimings class times the queries a screen starts together through the BackgroundLoader, which runs them at
+ * the same time on its workers, each on its own pooled connection. Each query is wrapped with time before it is handed
+ * to the loader, and once the screen has started all of them whenAllLoaded says what to do with the summary. The
+ * summary gives the time from the first query being wrapped until the last one finished, which is about the time of
+ * the slowest query, next to each query's own time and their sum, which is what running them one after another would
+ * have cost. It is handed to the screen on the JavaFX application thread.
+ */
+public class LoadTimings {
+
+    private final long startedAt = System.nanoTime();
+    private final List<Timing> timings = new ArrayList<>();
+    private int pending;
+    private boolean allStarted;
+    private Consumer<String> onAllLoaded;
+
+    /**
+     * Wraps a query so that its time is recorded when it finishes, whether it succeeds or fails.
+     * @param name the name the query is given in the summary
+     * @param query the query
+     * @param <T> the type of result
+     * @return the query, timed
+     */
+    public <T> Callable<T> time(String name, Callable<T> query) {
+        Timing timing = new Timing(name);
+        synchronized (this) {
+            timings.add(timing);
+            pending++;
+        }
+        return () -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                T result = query.call();
+                failed = false;
+                return result;
+            } finally {
+                finished(timing, System.nanoTime() - start, failed);
+            }
+        };
+    }
+
+    /**
+     * Marks every query as started and sets what receives the summary once the last one has finished. Called after
+     * the last query has been wrapped.
+     * @param onAllLoaded receives the summary on the JavaFX application thread
+     */
+    public void whenAllLoaded(Consumer<String> onAllLoaded) {
+        synchronized (this) {
+            this.onAllLoaded = onAllLoaded;
+            allStarted = true;
+            if (pending > 0) {
+                return;
+            }
+        }
+        report();
+    }
+
+    /**
+     * Records a query's time, and reports the summary if it was the last query.
+     * @param timing the query's timing
+     * @param nanos the time the query took
+     * @param failed whether the query threw an exception
+     */
+    private void finished(Timing timing, long nanos, boolean failed) {
+        synchronized (this) {
+            timing.nanos = nanos;
+            timing.failed = failed;
+            pending--;
+            if (pending > 0 || !allStarted) {
+                return;
+            }
+        }
+        report();
+    }
+
+    /**
+     * Hands the summary to the screen.
+     */
+    private void report() {
+        String summary;
+        Consumer<String> receiver;
+        synchronized (this) {
+            long sum = 0;
+            StringBuilder queries = new StringBuilder();
+            for (Timing timing : timings) {
+                sum += timing.nanos;
+                queries.append(queries.length() == 0 ? "" : ", ").append(timing.name).append(' ')
+                        .append(timing.failed ? "failed after " : "").append(millis(timing.nanos));
+            }
+            summary = "Loaded in " + millis(System.nanoTime() - startedAt) + " (" + queries + "; " + millis(sum) +
+                    " one after another)";
+            receiver = onAllLoaded;
+        }
+        try {
+            Platform.runLater(() -> receiver.accept(summary));
+        } catch (IllegalStateException e) {
+
+            // The JavaFX toolkit is not running
+            receiver.accept(summary);
+        }
+    }
+
+    /**
+     *
+     * @param nanos a time in nanoseconds
+     * @return the time in milliseconds, such as "12.5 ms"
+     */
+    private static String millis(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+
+    /**
+     * The time one query took.
+     */
+    private static class Timing {
+        private final String name;
+        private long nanos;
+        private boolean failed;
+
+        /**
+         *
+         * @param name
+         */
+        Timing(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -1,22 +1,44 @@
 package com.c195.dbclientapp;
 
+import com.c195.dbclientapp.helper.AuditLogAppender;
+import com.c195.dbclientapp.helper.AuditLogArchiver;
+import com.c195.dbclientapp.helper.LoginAuditStore;
+import com.c195.dbclientapp.model.LoginAttempt;
+
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 
 
 /**
  * This class represents the log activity of successful and failed logins in the system. It writes the log message to
- * a file with the current date and time in UTC.
+ * a file with the current date and time in UTC. The messages are written by an AuditLogAppender on a background
+ * thread, so logging a login does not wait for the disk. By default the file is synced after every group of writes;
+ * -Ddbclientapp.audit.fsync.millis=N syncs at most every N milliseconds instead, and -1 leaves syncing to the operating
+ * system. The file is rotated each UTC day and whenever it reaches dbclientapp.audit.maxbytes, and the rotated
+ * segments are gzipped and listed in login_activity.manifest until they are older than dbclientapp.audit.retention.days
+ * or more than dbclientapp.audit.retention.segments are kept. Every attempt is also added to a LoginAuditStore in the
+ * login_audit directory, which answers queries by user, outcome and time without reading the text log; the first time
+ * the store is opened it imports the existing log and its segments. The store is opened on the appender's writer
+ * thread, so that import never holds up a login.
  */
 public class LogActivity {
 
+    // System properties read when the first login is logged
+    public static final String fsyncProperty = "dbclientapp.audit.fsync.millis";
+    public static final String maxBytesProperty = "dbclientapp.audit.maxbytes";
+    public static final String retentionDaysProperty = "dbclientapp.audit.retention.days";
+    public static final String retentionSegmentsProperty = "dbclientapp.audit.retention.segments";
+
+    private static final String logFile = "login_activity.txt";
+    private static final String storeDirectory = "login_audit";
+    private static final long defaultMaxBytes = 10L * 1024 * 1024;
+    private static final int defaultRetentionDays = 365;
+
+    private static AuditLogAppender appender;
+
     /**
      * Logs a successful login attempt for the given username.
      * The log message includes the current date and time in UTC and the username of the user who logged in.
@@ -24,19 +46,7 @@ public class LogActivity {
      * @param username the username of the user who logged in
      */
     public static void logSuccessfulLogin(String username) {
-        // Get the current date and time
-        LocalDateTime currentTime = LocalDateTime.now(ZoneOffset.UTC);
-        String dateTime = currentTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-
-        // Write the log message to a file
-        Path logFile = Paths.get("login_activity.txt");
-        String logMessage = String.format("%s - SUCCESSFUL login for user: %s%n", dateTime, username);
-
-        try {
-            Files.writeString(logFile, logMessage, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        getAppender().append(new LoginAttempt(LocalDateTime.now(ZoneOffset.UTC), username, true));
     }
 
     /**
@@ -44,20 +54,69 @@ public class LogActivity {
      * @param username the username of the user who attempted to login
      */
     public static void logFailedLogin(String username) {
-        // Get the current date and time
-        LocalDateTime currentTime = LocalDateTime.now();
-        currentTime = currentTime.atZone(ZoneId.systemDefault())
-                .withZoneSameInstant(ZoneId.of("UTC"))
-                .toLocalDateTime();
-        String dateTime = currentTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-
-        // Write the log message to a file
-        Path logFile = Paths.get("login_activity.txt");
-        String logMessage = String.format("%s - FAILED login for user: %s%n", dateTime, username);
-        try {
-            Files.write(logFile, logMessage.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } catch (IOException e) {
-            e.printStackTrace();
+        getAppender().append(new LoginAttempt(LocalDateTime.now(ZoneOffset.UTC), username, false));
+    }
+
+    /**
+     * Writes every logged attempt to the file and syncs it.
+     */
+    public static synchronized void flush() {
+        if (appender != null) {
+            appender.flush();
+        }
+    }
+
+    /**
+     * Writes every logged attempt to the file and closes it. Called when the application exits.
+     */
+    public static synchronized void close() {
+        if (appender != null) {
+            appender.close();
+            appender = null;
+        }
+    }
+
+    /**
+     * Waits for the appender's writer thread to open the audit store, so it must not be called on the JavaFX thread.
+     * @return the audit store, or null if it cannot be opened
+     */
+    public static LoginAuditStore getAuditStore() {
+        return getAppender().awaitStore();
+    }
+
+    /**
+     *
+     * @return the appender, which is opened the first time a login is logged
+     */
+    private static synchronized AuditLogAppender getAppender() {
+        if (appender == null) {
+            Path file = Paths.get(logFile);
+            AuditLogArchiver archiver = new AuditLogArchiver(file,
+                    Integer.getInteger(retentionDaysProperty, defaultRetentionDays),
+                    Integer.getInteger(retentionSegmentsProperty, AuditLogArchiver.KEEP_ALL));
+            appender = new AuditLogAppender(file, Long.getLong(fsyncProperty, AuditLogAppender.FSYNC_EVERY_WRITE),
+                    Long.getLong(maxBytesProperty, defaultMaxBytes), archiver, LogActivity::openAuditStore);
+        }
+        return appender;
+    }
+
+    /**
+     * Opens the audit store, importing the existing log if the store is new. Runs on the appender's writer thread
+     * before it writes anything, and before the archiver starts compressing segments left by an earlier run.
+     * @return the audit store
+     * @throws IOException if the store cannot be opened or the log cannot be imported
+     */
+    private static LoginAuditStore openAuditStore() throws IOException {
+        LoginAuditStore store = new LoginAuditStore(Paths.get(storeDirectory));
+        if (store.isCreated()) {
+            try {
+                store.importLog(Paths.get(logFile));
+                store.sync();
+            } catch (IOException e) {
+                store.close();
+                throw e;
+            }
         }
+        return store;
     }
 }
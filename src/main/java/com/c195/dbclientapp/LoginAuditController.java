@@ -0,0 +1,145 @@
+package com.c195.dbclientapp;
+
+import com.c195.dbclientapp.helper.LoginAuditStore;
+import com.c195.dbclientapp.model.LoginAttempt;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+
+/**
+ * The controller class for the Login Audit screen. It searches the logged login attempts by username, outcome and a
+ * range of UTC dates, newest first, using the LoginAuditStore's indexes, and shows how long the search took.
+ */
+public class LoginAuditController implements Initializable {
+
+    // Most attempts shown for one search
+    private static final int resultLimit = 1000;
+
+    private static final String allOutcomes = "All";
+    private static final String successfulOutcome = "Successful";
+    private static final String failedOutcome = "Failed";
+
+    // Declare all FXML controls
+    @FXML
+    private TextField userNameText;
+    @FXML
+    private ComboBox<String> outcomeComboBox;
+    @FXML
+    private DatePicker fromDatePicker;
+    @FXML
+    private DatePicker toDatePicker;
+    @FXML
+    private TableView<LoginAttempt> loginAuditTableView;
+    @FXML
+    private TableColumn<LoginAttempt, LocalDateTime> timeCol;
+    @FXML
+    private TableColumn<LoginAttempt, String> userNameCol;
+    @FXML
+    private TableColumn<LoginAttempt, String> outcomeCol;
+    @FXML
+    private Label resultLabel;
+
+    /**
+     * Event handler for the Search button. Searches the attempts matching the filters that are filled in.
+     * @param event the action event that triggered the handler
+     */
+    @FXML
+    void OnActionSearch(ActionEvent event) {
+        search();
+    }
+
+    /**
+     * Event handler for the Return button. When the Return button is clicked, the scene is changed to the main menu
+     * scene.
+     * @param event the action event that triggered the handler
+     * @throws IOException if there is an error loading the main menu scene
+     */
+    @FXML
+    void OnActionReturn(ActionEvent event) throws java.io.IOException {
+        LoadSceneHelper.loadScene(event, "mainMenu.fxml", "Main Menu");
+    }
+
+    /**
+     * Runs a search in the background and shows the number of attempts found and the time the store took.
+     */
+    private void search() {
+        String userName = userNameText.getText() == null || userNameText.getText().isBlank()
+                ? null : userNameText.getText().trim();
+        String outcome = outcomeComboBox.getValue();
+        Boolean successful = successfulOutcome.equals(outcome) ? Boolean.TRUE
+                : failedOutcome.equals(outcome) ? Boolean.FALSE : null;
+        LocalDate fromDate = fromDatePicker.getValue();
+        LocalDate toDate = toDatePicker.getValue();
+
+        // The to date is inclusive, so the search runs to the start of the next day
+        LocalDateTime from = fromDate == null ? null : fromDate.atStartOfDay();
+        LocalDateTime to = toDate == null ? null : toDate.plusDays(1).atStartOfDay();
+
+        resultLabel.setText("");
+        String key = "loginAudit:" + userName + ":" + successful + ":" + from + ":" + to;
+        BackgroundLoader.load(loginAuditTableView, key, () -> {
+            LoginAuditStore store = LogActivity.getAuditStore();
+            if (store == null) {
+                return new SearchResult(new ArrayList<>(), 0);
+            }
+            long started = System.nanoTime();
+            List<LoginAttempt> attempts = store.query(userName, successful, from, to, resultLimit);
+            return new SearchResult(attempts, System.nanoTime() - started);
+        }, result -> {
+            loginAuditTableView.setItems(FXCollections.observableArrayList(result.attempts));
+            resultLabel.setText(String.format("%d attempt%s%s in %.2f ms", result.attempts.size(),
+                    result.attempts.size() == 1 ? "" : "s", result.attempts.size() == resultLimit ? " (newest)" : "",
+                    result.nanos / 1_000_000.0));
+        });
+    }
+
+    /**
+     * Sets up the table columns and the outcome choices, and shows the most recent attempts.
+     * @param url the location used to resolve relative paths for the root object, or null if the location is not known
+     * @param resourceBundle the resources used to localize the root object, or null if the root object was not localized
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
+        timeCol.setCellValueFactory(new PropertyValueFactory<>("time"));
+        userNameCol.setCellValueFactory(new PropertyValueFactory<>("userName"));
+        outcomeCol.setCellValueFactory(new PropertyValueFactory<>("outcome"));
+        outcomeComboBox.setItems(FXCollections.observableArrayList(allOutcomes, successfulOutcome, failedOutcome));
+        outcomeComboBox.setValue(allOutcomes);
+        search();
+    }
+
+    /**
+     * The attempts a search found and how long the store took to find them.
+     */
+    private static class SearchResult {
+        private final List<LoginAttempt> attempts;
+        private final long nanos;
+
+        /**
+         *
+         * @param attempts
+         * @param nanos
+         */
+        SearchResult(List<LoginAttempt> attempts, long nanos) {
+            this.attempts = attempts;
+            this.nanos = nanos;
+        }
+    }
+}
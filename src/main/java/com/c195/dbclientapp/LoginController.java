@@ -2,10 +2,10 @@ package com.c195.dbclientapp;
 
 import com.c195.dbclientapp.database.AppointmentAccess;
 import com.c195.dbclientapp.database.LoginAccess;
+import com.c195.dbclientapp.helper.LoginThrottle;
 import com.c195.dbclientapp.i18n.Resources_en;
 import com.c195.dbclientapp.i18n.Resources_fr;
 import com.c195.dbclientapp.model.Appointment;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -16,8 +16,11 @@ import javafx.scene.control.TextField;
 
 import java.net.URL;
 import java.sql.SQLException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -25,7 +28,10 @@ import java.util.ResourceBundle;
  * A controller class for the login scene in the DBClientApp application.
  * This class handles user input and interactions with the login scene,
  * including validating user credentials and displaying alerts for upcoming
- * appointments within 15 minutes of login.
+ * appointments within 15 minutes of login, which are looked up in the
+ * background once the main menu is showing. Attempts are checked with the
+ * LoginThrottle before the database is asked, so repeated attempts are
+ * turned away without a query.
  */
 public class LoginController implements Initializable {
 
@@ -62,7 +68,8 @@ public class LoginController implements Initializable {
 
     /**
      * Event handler for the submit button. Validates the user's login credentials and displays a notification if there
-     * is an upcoming appointment within 15 minutes of login.
+     * is an upcoming appointment within 15 minutes of login. If the LoginThrottle rejects the attempt, it is logged as
+     * failed and the user is told how long to wait, without asking the database.
      * @param event the ActionEvent that triggers this method
      * @throws java.io.IOException if there is an error loading a new scene
      */
@@ -75,76 +82,50 @@ public class LoginController implements Initializable {
             String password = userPasswordTxt.getText();
             Locale locale = Locale.getDefault();
 
+            // Turn the attempt away if the username or the application is being tried too often
+            long retryMillis = LoginThrottle.checkAttempt(userName);
+            if (retryMillis > 0) {
+                LogActivity.logFailedLogin(userName);
+                long retrySeconds = (retryMillis + 999) / 1000;
+                if (locale.getLanguage().equals("fr")) {
+                    Resources_fr rb = new Resources_fr();
+                    DialogBox.displayAlert(rb.getString("Error"),
+                            String.format(rb.getString("Too many login attempts"), retrySeconds));
+                } else {
+                    Resources_en rb = new Resources_en();
+                    DialogBox.displayAlert(rb.getString("Error"),
+                            String.format(rb.getString("Too many login attempts"), retrySeconds));
+                }
+                return;
+            }
+
             // Validate the user
             int userId = LoginAccess.validateUser(userName, password);
             if (userId != -1) {
 
                 // Log successful login
+                LoginThrottle.recordSuccess(userName);
                 LogActivity.logSuccessfulLogin(userName);
 
-                // Check for appointments within 15 minutes of login
-                try {
-                    ObservableList<Appointment> appointments = AppointmentAccess.getAppointmentsByUserId(userId);
-                    boolean foundAppointment = false;
-                    for (Appointment appointment : appointments) {
-                        LocalDateTime appointmentStart = appointment.getStart();
-                        if (appointmentStart.isBefore(LocalDateTime.now().plusMinutes(15)) &&
-                                appointmentStart.isAfter(LocalDateTime.now())) {
-
-                            // There is an appointment within 15 minutes of login, so display an alert
-                            foundAppointment = true;
-                            if (locale.getLanguage().equals("fr")) {
-                                Resources_fr rb = new Resources_fr();
-                                DialogBox.displayAlert(rb.getString("Upcoming Appointment"),
-                                        "Vous avez un rendez-vous prochain avec l'ID " + appointment
-                                                .getAppointmentId() +
-                                                " à " + appointmentStart.toString() + ".");
-                            } else {
-                                Resources_en rb = new Resources_en();
-                                DialogBox.displayAlert(rb.getString("Upcoming Appointment"),
-                                        "You have an upcoming appointment with ID " + appointment
-                                                .getAppointmentId() +
-                                                " at " + appointmentStart.toString() + ".");
-                            }
-                        }
-                    }
-                    if (!foundAppointment) {
-
-                        // No appointments within 15 minutes of login, so display an alert
-                        if (locale.getLanguage().equals("fr")) {
-                            Resources_fr rb = new Resources_fr();
-                            DialogBox.displayAlert(rb.getString("No Upcoming Appointments"),
-                                    "Vous n'avez pas de rendez-vous prochain.");
-                        } else {
-                            Resources_en rb = new Resources_en();
-                            DialogBox.displayAlert(rb.getString("No Upcoming Appointments"),
-                                    "You have no upcoming appointments.");
-                        }
-                    }
-                } catch (SQLException e) {
-
-                    // An error occurred while trying to get the user's appointments, so display an alert
-                    if (locale.getLanguage().equals("fr")) {
-                        Resources_fr rb = new Resources_fr();
-                        DialogBox.displayAlert(rb.getString("Error"),
-                                "Une erreur s'est produite lors de la récupération de vos rendez-vous à venir: "
-                                        + e.getMessage());
-                    } else {
-                        Resources_en rb = new Resources_en();
-                        DialogBox.displayAlert(rb.getString("Error"),
-                                "An error occurred while trying to get your upcoming appointments: "
-                                        + e.getMessage());
-                    }
-                }
+                //record current user
+                currentUser = userName;
 
                 // Load the main menu scene if the user is valid
                 LoadSceneHelper.loadScene(event, "mainMenu.fxml", "Main Menu");
 
-                //record current user
-                currentUser = userName;
+                // Check for appointments within 15 minutes of login once the main menu is showing
+                Instant now = Instant.now();
+                BackgroundLoader.run(() -> AppointmentAccess.getAppointmentsByUserIdInRange(userId, now,
+                                now.plus(15, ChronoUnit.MINUTES)),
+                        appointments -> showUpcomingAppointments(appointments, locale),
+                        error -> showUpcomingAppointmentsError(error, locale));
+
+                // Keep reminding the user of appointments for as long as the application runs
+                AppointmentReminders.start(userId, locale);
             } else {
 
                 // Log failed login
+                LoginThrottle.recordFailure(userName);
                 LogActivity.logFailedLogin(userName);
 
                 // Get the appropriate Resources subclass based on the default locale
@@ -174,6 +155,64 @@ public class LoginController implements Initializable {
         }
     }
 
+    /**
+     * Displays an alert for each appointment starting within 15 minutes of login, or an alert saying there are none.
+     * @param appointments the user's appointments starting within 15 minutes of login
+     * @param locale the locale the alerts are displayed in
+     */
+    private static void showUpcomingAppointments(List<Appointment> appointments, Locale locale) {
+        for (Appointment appointment : appointments) {
+
+            // There is an appointment within 15 minutes of login, so display an alert
+            LocalDateTime appointmentStart = appointment.getStart();
+            if (locale.getLanguage().equals("fr")) {
+                Resources_fr rb = new Resources_fr();
+                DialogBox.displayAlert(rb.getString("Upcoming Appointment"),
+                        "Vous avez un rendez-vous prochain avec l'ID " + appointment
+                                .getAppointmentId() +
+                                " à " + appointmentStart.toString() + ".");
+            } else {
+                Resources_en rb = new Resources_en();
+                DialogBox.displayAlert(rb.getString("Upcoming Appointment"),
+                        "You have an upcoming appointment with ID " + appointment
+                                .getAppointmentId() +
+                                " at " + appointmentStart.toString() + ".");
+            }
+        }
+        if (appointments.isEmpty()) {
+
+            // No appointments within 15 minutes of login, so display an alert
+            if (locale.getLanguage().equals("fr")) {
+                Resources_fr rb = new Resources_fr();
+                DialogBox.displayAlert(rb.getString("No Upcoming Appointments"),
+                        "Vous n'avez pas de rendez-vous prochain.");
+            } else {
+                Resources_en rb = new Resources_en();
+                DialogBox.displayAlert(rb.getString("No Upcoming Appointments"),
+                        "You have no upcoming appointments.");
+            }
+        }
+    }
+
+    /**
+     * Displays an alert saying the upcoming appointments could not be read.
+     * @param error the exception the query threw
+     * @param locale the locale the alert is displayed in
+     */
+    private static void showUpcomingAppointmentsError(Throwable error, Locale locale) {
+        if (locale.getLanguage().equals("fr")) {
+            Resources_fr rb = new Resources_fr();
+            DialogBox.displayAlert(rb.getString("Error"),
+                    "Une erreur s'est produite lors de la récupération de vos rendez-vous à venir: "
+                            + error.getMessage());
+        } else {
+            Resources_en rb = new Resources_en();
+            DialogBox.displayAlert(rb.getString("Error"),
+                    "An error occurred while trying to get your upcoming appointments: "
+                            + error.getMessage());
+        }
+    }
+
     /**
      * Initializes the LoginController and sets the location label to the current location.
      * @param url the location of the current user
@@ -181,6 +220,7 @@ public class LoginController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
         try {
 
             // Set the default locale and time zone
@@ -1,6 +1,9 @@
 package com.c195.dbclientapp;
 
+import com.c195.dbclientapp.database.AppointmentRollups;
 import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.helper.LoginThrottle;
+import com.c195.dbclientapp.helper.SessionRecording;
 import com.c195.dbclientapp.i18n.Resources_fr;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -26,7 +29,7 @@ public class Main extends Application {
     @Override
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("login.fxml"));
-        Scene scene = new Scene(fxmlLoader.load());
+        Scene scene = new Scene(LoadSceneHelper.load(fxmlLoader));
 
         Locale locale = Locale.getDefault();
 
@@ -42,13 +45,24 @@ public class Main extends Application {
 
     /**
      * Opens a connection to the database and launches the application.
-     * When the application is closed, the database connection is closed.
+     * The rollup catch-up job is started once the database is open.
+     * When the application is closed, the appointment reminders and the rollup job are stopped and the database
+     * connection and the login activity log are closed.
+     * If the application was started with -Ddbclientapp.jfr.file=path, the session is recorded with Java Flight
+     * Recorder and the recording is written to that file on exit.
      *
      * @param args the command-line arguments
      */
     public static void main(String[] args) {
+        SessionRecording.start();
         JDBC.openConnection();
+        LoginThrottle.start();
+        AppointmentRollups.getInstance().start();
         launch();
+        AppointmentReminders.stop();
+        AppointmentRollups.getInstance().stop();
         JDBC.closeConnection();
+        LogActivity.close();
+        SessionRecording.stop();
     }
 }
\ No newline at end of file
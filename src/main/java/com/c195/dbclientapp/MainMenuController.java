@@ -14,7 +14,8 @@ import java.util.Objects;
 
 /**
  * The MainMenuController class is the controller for the main menu screen. It contains event handlers for the buttons
- * on the main menu screen that allow the user to navigate to the appointments, customers, or reports screens.
+ * on the main menu screen that allow the user to navigate to the appointments, customers, reports or login audit
+ * screens.
  */
 public class MainMenuController {
 
@@ -61,4 +62,15 @@ public class MainMenuController {
         LoadSceneHelper.loadScene(event, "reports.fxml", "Reports");
     }
 
+    /**
+     * The OnActionLoginAudit event handler is triggered when the user clicks the "Login Audit" button on the main menu
+     * screen. It loads the login audit screen.
+     * @param event the action event that triggered this handler
+     * @throws IOException if there is an error loading the login audit screen
+     */
+    @FXML
+    void OnActionLoginAudit(ActionEvent event) throws java.io.IOException {
+        LoadSceneHelper.loadScene(event, "loginAudit.fxml", "Login Audit");
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.c195.dbclientapp;
 
-import com.c195.dbclientapp.database.AppointmentAccess;
 import com.c195.dbclientapp.database.ReportAccess;
 import com.c195.dbclientapp.model.Appointment;
 import com.c195.dbclientapp.model.CustomerReport;
@@ -10,6 +9,7 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -61,6 +61,10 @@ public class ReportsController implements Initializable {
     private TableColumn<CustomerReport, Integer> customerReportCol;
     @FXML
     private TableColumn<CustomerReport, Integer> countryReportCol;
+    @FXML
+    private Label loadTimeLabel;
+
+    private AppointmentPager appointmentPager;
 
     /**
      * Returns to the main menu screen
@@ -69,6 +73,7 @@ public class ReportsController implements Initializable {
      */
     @FXML
     void OnActionReturn(ActionEvent event) throws java.io.IOException {
+        appointmentPager.stop();
         LoadSceneHelper.loadScene(event, "mainMenu.fxml", "Main Menu");
     }
 
@@ -80,34 +85,26 @@ public class ReportsController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            // Populate appointment table view
-            ObservableList<Appointment> appointments = getAllAppointments();
-            setAppointmentTableColumns();
-            appointmentTableView.setItems(appointments);
-
-            // Populate type report table view
-            ObservableList<TypeReport> typeReports = getAllTypeReports();
-            setTypeReportTableColumns();
-            typeTableView.setItems(typeReports);
-
-            // Populate month report table view
-            ObservableList<MonthReport> monthReports = getAllMonthReports();
-            setMonthReportTableColumns();
-            monthTableView.setItems(monthReports);
-
-            // Populate customer report table view
-            ObservableList<CustomerReport> customerReports = getAllCustomerReports();
-            setCustomerReportTableColumns();
-            CustomerReportTableView.setItems(customerReports);
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
+        LoadSceneHelper.initializeStarted();
+        LoadTimings timings = new LoadTimings();
+
+        // Populate appointment table view, one page at a time
+        setAppointmentTableColumns();
+        appointmentPager = new AppointmentPager(appointmentTableView);
+        appointmentPager.start(timings);
+
+        // Populate the report table views in the background, each as soon as its own query finishes
+        setTypeReportTableColumns();
+        BackgroundLoader.loadItems(typeTableView, "reports.type", timings.time("types", this::getAllTypeReports));
+
+        setMonthReportTableColumns();
+        BackgroundLoader.loadItems(monthTableView, "reports.month", timings.time("months", this::getAllMonthReports));
+
+        setCustomerReportTableColumns();
+        BackgroundLoader.loadItems(CustomerReportTableView, "reports.customer",
+                timings.time("customers", this::getAllCustomerReports));
 
-    private ObservableList<Appointment> getAllAppointments() throws SQLException {
-        return AppointmentAccess.getAllAppointments();
+        timings.whenAllLoaded(loadTimeLabel::setText);
     }
 
     private void setAppointmentTableColumns() {
@@ -1,9 +1,8 @@
 package com.c195.dbclientapp;
 
 import com.c195.dbclientapp.database.AppointmentAccess;
-import com.c195.dbclientapp.database.ContactAccess;
-import com.c195.dbclientapp.database.CustomerAccess;
-import com.c195.dbclientapp.database.UserAccess;
+import com.c195.dbclientapp.database.AppointmentConflictIndex;
+import com.c195.dbclientapp.database.ReferenceDataCache;
 import com.c195.dbclientapp.helper.ValidateControl;
 import com.c195.dbclientapp.model.Appointment;
 import javafx.collections.FXCollections;
@@ -20,6 +19,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
 import java.time.*;
+import java.util.List;
 import java.util.Objects;
 import java.util.ResourceBundle;
 
@@ -84,14 +84,9 @@ public class UpdateAppointmentController implements Initializable {
      * This method is called when the "Update" button is pressed on the Update Appointment form.
      * It updates the selected appointment with the new data entered in the form. If any required fields are empty
      * or if the start time is later than the end time, an error message is displayed. If the update is successful,
-     * the user is taken back to the Appointments screen.
-     * <br>
-     * LAMBDA EXPRESSION:
-     * <br>
-     * The lambda expression make the code more concise because it allows the logic for checking for overlapping
-     * appointments to be written in a single line of code, rather than having to write a separate method or block of
-     * code to do the same thing. It can also make the code easier to read because the logic is expressed in a more
-     * declarative way, rather than having to follow a sequence of control flow statements.
+     * the user is taken back to the Appointments screen. The new times are checked against the customer's other
+     * appointments with the AppointmentConflictIndex, leaving out the appointment being updated so that it cannot
+     * conflict with its own earlier times.
      * @param event The event that triggers this method.
      * @throws SQLException If there is an issue with the database connection.
      * @throws IOException If there is an issue loading the Appointments screen.
@@ -189,17 +184,10 @@ public class UpdateAppointmentController implements Initializable {
                 .withZoneSameInstant(ZoneId.of("UTC"))
                 .toLocalDateTime();
 
-        // Check for overlapping appointments for the customer
-        ObservableList<Appointment> customerAppointments = FXCollections
-                .observableArrayList(AppointmentAccess.getAppointmentsByCustomerId(customerId));
-
-        // Lambda expression for checking for overlapping appointments
-        boolean hasOverlap = customerAppointments.stream()
-                .anyMatch(appointment ->
-                        (start.isAfter(appointment.getStart()) && start.isBefore(appointment.getEnd())) ||
-                                (end.isAfter(appointment.getStart()) && end.isBefore(appointment.getEnd())) ||
-                                (start.isEqual(appointment.getStart()) && end.isEqual(appointment.getEnd())));
-        if (hasOverlap) {
+        // Check whether the new times overlap any of the customer's other appointments
+        List<Integer> conflicts = AppointmentConflictIndex.getInstance()
+                .findCustomerConflicts(customerId, startUTC, endUTC, uniqueId);
+        if (!conflicts.isEmpty()) {
             DialogBox.displayAlert("Error",
                     "An appointment already exists at this time for this customer.");
             return;
@@ -313,23 +301,12 @@ public class UpdateAppointmentController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
 
-        // Populate the observable lists with the desired values
-        ObservableList<Integer> customerIdList = null;
-        ObservableList<Integer> contactIdList = null;
-        ObservableList<Integer> userIdList = null;
-        try {
-            customerIdList = FXCollections.observableArrayList(CustomerAccess.getAllCustomerIds());
-            contactIdList = FXCollections.observableArrayList(ContactAccess.getAllContactIds());
-            userIdList = FXCollections.observableArrayList(UserAccess.getAllUserIds());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        // Set the combo boxes' items after the combo boxes have been added to the scene
-        contactIdComboBox.setItems(contactIdList);
-        customerIdComboBox.setItems(customerIdList);
-        userIdComboBox.setItems(userIdList);
+        // Populate the combo boxes in the background
+        BackgroundLoader.loadItems(contactIdComboBox, "contactIds", ReferenceDataCache::getContactIds);
+        BackgroundLoader.loadItems(customerIdComboBox, "customerIds", ReferenceDataCache::getCustomerIds);
+        BackgroundLoader.loadItems(userIdComboBox, "userIds", ReferenceDataCache::getUserIds);
 
         // Create a list of hours
         ObservableList<String> hours = FXCollections.observableArrayList();
@@ -1,14 +1,12 @@
 package com.c195.dbclientapp;
 
-import com.c195.dbclientapp.database.CountryAccess;
 import com.c195.dbclientapp.database.CustomerAccess;
-import com.c195.dbclientapp.database.FirstLevelDivisionAccess;
+import com.c195.dbclientapp.database.ReferenceDataCache;
 import com.c195.dbclientapp.helper.ValidateControl;
 import com.c195.dbclientapp.model.Country;
 import com.c195.dbclientapp.model.Customer;
 import com.c195.dbclientapp.model.FirstLevelDivision;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -38,8 +36,6 @@ public class UpdateCustomerController implements Initializable {
     ValidateControl vc = new ValidateControl();
 
     // Initializing class members
-    ObservableList<FirstLevelDivision> divisionList = null;
-    ObservableList<Country> countryList = null;
     Customer selectedCustomer = null;
 
     // Declaring FXML Controls
@@ -135,13 +131,7 @@ public class UpdateCustomerController implements Initializable {
         String phone = phoneTxt.getText();
 
         // Get division ID
-        int divisionId = -1;
-        for (FirstLevelDivision division : divisionList) {
-            if (division.getDivision().equals(divisionComboBox.getSelectionModel().getSelectedItem())) {
-                divisionId = division.getDivisionId();
-                break;
-            }
-        }
+        int divisionId = ReferenceDataCache.getDivisionId(divisionComboBox.getSelectionModel().getSelectedItem());
 
         // Assign selectedCustomer object
         Customer selectedCustomer = this.selectedCustomer;
@@ -192,10 +182,8 @@ public class UpdateCustomerController implements Initializable {
      * @param selectedCustomer the customer to be displayed
      * @param selectedDivision the division of the selected customer
      * @param selectedCountry the country of the selected customer
-     * @throws SQLException if a database error occurs
      */
-    public void sendCustomer(Customer selectedCustomer, FirstLevelDivision selectedDivision, Country selectedCountry)
-            throws SQLException {
+    public void sendCustomer(Customer selectedCustomer, FirstLevelDivision selectedDivision, Country selectedCountry) {
 
         // Assign selectedCustomer object
         this.selectedCustomer = selectedCustomer;
@@ -239,36 +227,10 @@ public class UpdateCustomerController implements Initializable {
                 lastUpdateDateLabel.setText(String.valueOf(localLastUpdate));
             }
 
-            // Set divisions list based off of the country
-            // for US
-            if (!(countryComboBox.getSelectionModel().isEmpty())) {
-                ObservableList<String> divisionNameList = FXCollections.observableArrayList();
-                if (countryComboBox.getSelectionModel().getSelectedItem().equals("U.S")) {
-                    for (FirstLevelDivision division : divisionList) {
-                        if (division.getCountryId() == 1)
-                            divisionNameList.add(division.getDivision());
-                    }
-                    divisionComboBox.setItems(divisionNameList);
-                }
-
-                // For UK
-                if (countryComboBox.getSelectionModel().getSelectedItem().equals("UK")) {
-                    for (FirstLevelDivision division : divisionList) {
-                        if (division.getCountryId() == 2)
-                            divisionNameList.add(division.getDivision());
-                    }
-                    divisionComboBox.setItems(divisionNameList);
-                }
-
-                // For Canada
-                if (countryComboBox.getSelectionModel().getSelectedItem().equals("Canada")) {
-                    for (FirstLevelDivision division : divisionList) {
-                        if (division.getCountryId() == 3)
-                            divisionNameList.add(division.getDivision());
-                    }
-                    divisionComboBox.setItems(divisionNameList);
-                }
-            }
+            // Set divisions list based off of the country, keeping the customer's division selected
+            String countryName = selectedCountry.getCountry();
+            BackgroundLoader.loadItems(divisionComboBox, "divisionNames." + countryName,
+                    () -> ReferenceDataCache.getDivisionNamesByCountry(countryName));
         }
     }
 
@@ -281,32 +243,11 @@ public class UpdateCustomerController implements Initializable {
     @FXML
     void OnActionCountrySelected(ActionEvent event) {
         // Set divisions list based off of the country
-        // for US
         if (!(countryComboBox.getSelectionModel().isEmpty())) {
-            ObservableList<String> divisionNameList = FXCollections.observableArrayList();
-            if (countryComboBox.getSelectionModel().getSelectedItem().equals("U.S")) {
-                for (FirstLevelDivision division : divisionList) {
-                    if (division.getCountryId() == 1)
-                        divisionNameList.add(division.getDivision());
-                }
-                divisionComboBox.setItems(divisionNameList);
-            }
-            // For UK
-            if (countryComboBox.getSelectionModel().getSelectedItem().equals("UK")) {
-                for (FirstLevelDivision division : divisionList) {
-                    if (division.getCountryId() == 2)
-                        divisionNameList.add(division.getDivision());
-                }
-                divisionComboBox.setItems(divisionNameList);
-            }
-            // For Canada
-            if (countryComboBox.getSelectionModel().getSelectedItem().equals("Canada")) {
-                for (FirstLevelDivision division : divisionList) {
-                    if (division.getCountryId() == 3)
-                        divisionNameList.add(division.getDivision());
-                }
-                divisionComboBox.setItems(divisionNameList);
-            }
+            String countryName = countryComboBox.getSelectionModel().getSelectedItem();
+            BackgroundLoader.load(divisionComboBox, "divisionNames." + countryName,
+                    () -> ReferenceDataCache.getDivisionNamesByCountry(countryName),
+                    divisionNames -> divisionComboBox.setItems(FXCollections.observableArrayList(divisionNames)));
         }
     }
 
@@ -318,36 +259,10 @@ public class UpdateCustomerController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        LoadSceneHelper.initializeStarted();
 
-        // Get desired list values
-        try {
-            divisionList = FXCollections.observableArrayList(FirstLevelDivisionAccess.getAllDivisions());
-            countryList = FXCollections.observableArrayList(CountryAccess.getAllCountries());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        // Populate division names in combo box
-        ObservableList<String> divisionNameList = FXCollections.observableArrayList();
-        for (FirstLevelDivision division : divisionList) {
-            divisionNameList.add(division.getDivision());
-        }
-
-        // Set list
-        divisionComboBox.setItems(divisionNameList);
-
-        // Populate country names in combo box
-        ObservableList<String> countryNameList = FXCollections.observableArrayList();
-        for (Country country : countryList) {
-            countryNameList.add(country.getCountry());
-
-        }
-
-        // Set list
-        countryComboBox.setItems(countryNameList);
-
-        // Set the combo boxes' items after the combo boxes have been added to the scene
-        divisionComboBox.setItems(divisionNameList);
-        countryComboBox.setItems(countryNameList);
+        // Populate the combo boxes with the division and country names in the background
+        BackgroundLoader.loadItems(divisionComboBox, "divisionNames", ReferenceDataCache::getDivisionNames);
+        BackgroundLoader.loadItems(countryComboBox, "countryNames", ReferenceDataCache::getCountryNames);
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,31 @@
 package com.c195.dbclientapp.database;
 
 
+import com.c195.dbclientapp.helper.BatchExecutor;
+import com.c195.dbclientapp.helper.BatchResult;
 import com.c195.dbclientapp.helper.JDBC;
 import com.c195.dbclientapp.model.Appointment;
+import com.c195.dbclientapp.model.AppointmentPage;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This abstract class provides access to the appointments table in the database. It contains methods for retrieving,
@@ -19,6 +33,34 @@ import java.time.format.DateTimeFormatter;
  */
 public abstract class AppointmentAccess {
 
+    // Notified after every committed add, update and delete
+    private static final List<AppointmentChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Write statements shared by the single-row and batched methods
+    private static final String insertSql = "INSERT INTO appointments (Title, Description, Location, Type, Start," +
+            " End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID)" +
+            " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String updateSql = "UPDATE appointments SET Title = ?, Description = ?, Location = ?," +
+            " Type = ?, Start = ?, End = ?, Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?," +
+            " Contact_ID = ? WHERE Appointment_ID = ?";
+    private static final String deleteSql = "DELETE FROM appointments WHERE Appointment_ID = ?";
+
+    /**
+     * Registers a listener to be notified after appointments are added, updated or deleted.
+     * @param listener the listener to add
+     */
+    public static void addChangeListener(AppointmentChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered change listener.
+     * @param listener the listener to remove
+     */
+    public static void removeChangeListener(AppointmentChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
     /**
      * Retrieves all appointments from the database, ordered by start time.
      *
@@ -30,36 +72,125 @@ public abstract class AppointmentAccess {
         String sql = "SELECT * FROM client_schedule.appointments ORDER BY start";
 
         // Prepare the statement and execute the query
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Create an ObservableList to store the appointments
-        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+                // Map every row to an appointment and return the list
+                return extractAppointments(rs);
+            }
+        }
+    }
 
-        // Iterate through the result set, extracting each appointment and adding it to the list
-        while (rs.next()) {
-            Appointment appointment = extractAppointmentFromResultSet(rs);
-            appointments.add(appointment);
+    /**
+     * Retrieves the first page of appointments in (Start, Appointment_ID) order.
+     * @param pageSize the maximum number of appointments to return
+     * @return an AppointmentPage holding at most pageSize appointments
+     * @throws SQLException if a database access error occurs
+     */
+    public static AppointmentPage getFirstAppointmentPage(int pageSize) throws SQLException {
+
+        // Create SQL select statement, reading one extra row to learn whether another page follows
+        String sql = "SELECT * FROM client_schedule.appointments ORDER BY Start, Appointment_ID LIMIT ?";
+
+        // Create PS with SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, pageSize + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                return extractAppointmentPage(rs, pageSize, false);
+            }
         }
+    }
 
-        // Return the list of appointments
-        return appointments;
+    /**
+     * Retrieves the page of appointments that follows the given key in (Start, Appointment_ID) order. The key is
+     * compared with the row values directly, so the query seeks into the index on Start rather than skipping over
+     * the rows before it, and costs the same for every page.
+     * @param startUtc the stored start time of the last appointment already read
+     * @param appointmentId the ID of the last appointment already read
+     * @param pageSize the maximum number of appointments to return
+     * @return an AppointmentPage holding at most pageSize appointments
+     * @throws SQLException if a database access error occurs
+     */
+    public static AppointmentPage getAppointmentPageAfter(LocalDateTime startUtc, int appointmentId, int pageSize)
+            throws SQLException {
+
+        // Create SQL select statement, written out in full because MySQL does not seek an index on a row comparison
+        String sql = "SELECT * FROM client_schedule.appointments" +
+                " WHERE Start > ? OR (Start = ? AND Appointment_ID > ?)" +
+                " ORDER BY Start, Appointment_ID LIMIT ?";
+
+        // Create PS with SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setObject(1, startUtc);
+            ps.setObject(2, startUtc);
+            ps.setInt(3, appointmentId);
+            ps.setInt(4, pageSize + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                return extractAppointmentPage(rs, pageSize, false);
+            }
+        }
     }
 
     /**
-     * Deletes an appointment from the appointments table in the database.
+     * Retrieves the page of appointments that precedes the given key in (Start, Appointment_ID) order.
+     * @param startUtc the stored start time of the first appointment already read
+     * @param appointmentId the ID of the first appointment already read
+     * @param pageSize the maximum number of appointments to return
+     * @return an AppointmentPage holding at most pageSize appointments, in ascending order
+     * @throws SQLException if a database access error occurs
+     */
+    public static AppointmentPage getAppointmentPageBefore(LocalDateTime startUtc, int appointmentId, int pageSize)
+            throws SQLException {
+
+        // Create SQL select statement, reading backwards from the key
+        String sql = "SELECT * FROM client_schedule.appointments" +
+                " WHERE Start < ? OR (Start = ? AND Appointment_ID < ?)" +
+                " ORDER BY Start DESC, Appointment_ID DESC LIMIT ?";
+
+        // Create PS with SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setObject(1, startUtc);
+            ps.setObject(2, startUtc);
+            ps.setInt(3, appointmentId);
+            ps.setInt(4, pageSize + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                return extractAppointmentPage(rs, pageSize, true);
+            }
+        }
+    }
+
+    /**
+     * Deletes an appointment from the appointments table in the database. The row is read and locked in the same
+     * transaction first, so the change listeners are told exactly what was removed.
      *
      * @param appointmentId the ID of the appointment to delete
      * @throws SQLException if a database access error occurs or the generated SQL statement does not return a result set
      */
     public static void deleteAppointment(int appointmentId) throws SQLException {
-        // Create a prepared statement with a delete SQL statement
-        String deleteSql = "DELETE FROM appointments WHERE Appointment_ID = ?";
-        PreparedStatement ps = JDBC.connection.prepareStatement(deleteSql);
+        // Create a prepared statement with the delete SQL statement
+        Appointment before;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            before = getStoredAppointment(connection, appointmentId);
+            try (PreparedStatement ps = connection.prepareStatement(deleteSql)) {
+
+                // Set the appointment ID parameter and execute the delete statement
+                ps.setInt(1, appointmentId);
+                ps.executeUpdate();
+            }
+            connection.commit();
+        }
 
-        // Set the appointment ID parameter and execute the delete statement
-        ps.setInt(1, appointmentId);
-        ps.executeUpdate();
+        // Notify listeners once the delete is committed
+        if (before != null) {
+            for (AppointmentChangeListener listener : changeListeners) {
+                listener.appointmentDeleted(before);
+            }
+        }
     }
 
     /**
@@ -71,132 +202,190 @@ public abstract class AppointmentAccess {
      */
     public static boolean addAppointment(Appointment appointment) throws SQLException {
 
-        // Define the SQL insert statement
-        String insertSql = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date," +
-                " Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID)" +
-                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        // Create a prepared statement using the insert SQL statement, returning the ID the database assigns
+        Appointment added;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
 
-        // Create a prepared statement using the insert SQL statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(insertSql);
+            // Set the values for the prepared statement
+            bindInsert(ps, appointment);
 
-        // Set the values for the prepared statement
-        ps.setString(1, appointment.getTitle());
-        ps.setString(2, appointment.getDescription());
-        ps.setString(3, appointment.getLocation());
-        ps.setString(4, appointment.getType());
-        ps.setObject(5, appointment.getStart());
-        ps.setObject(6, appointment.getEnd());
-        ps.setObject(7, appointment.getCreateDate());
-        ps.setString(8, appointment.getCreatedBy());
-        ps.setObject(9, appointment.getLastUpdate());
-        ps.setString(10, appointment.getLastUpdatedBy());
-        ps.setInt(11, appointment.getCustomerId());
-        ps.setInt(12, appointment.getUserId());
-        ps.setInt(13, appointment.getContactId());
+            // Execute statement and read back the generated ID
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                int appointmentId = keys.next() ? keys.getInt(1) : appointment.getAppointmentId();
+                added = withAppointmentId(appointment, appointmentId);
+            }
+        }
 
-        // Execute statement and return true
-        ps.executeUpdate();
+        // Notify listeners and return true
+        for (AppointmentChangeListener listener : changeListeners) {
+            listener.appointmentAdded(added);
+        }
         return true;
     }
 
     /**
-     * Updates an appointment in the database.
+     * Updates an appointment in the database. The stored row is read and locked in the same transaction first, so the
+     * change listeners are told what it replaced.
      * @param appointment the appointment to update
      * @return true if the update was successful, false otherwise
      * @throws SQLException if a database error occurs
      */
     public static boolean updateAppointment(Appointment appointment) throws SQLException {
 
-        // Define the SQL update statement
-        String updateSql = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?," +
-                " End = ?, Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?," +
-                " Contact_ID = ? WHERE Appointment_ID = ?";
-
         // Create a prepared statement using the update SQL statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(updateSql);
-
-        // Set the values for the prepared statement
-        ps.setString(1, appointment.getTitle());
-        ps.setString(2, appointment.getDescription());
-        ps.setString(3, appointment.getLocation());
-        ps.setString(4, appointment.getType());
-        ps.setObject(5, appointment.getStart());
-        ps.setObject(6, appointment.getEnd());
-        ps.setObject(7, appointment.getLastUpdate());
-        ps.setString(8, appointment.getLastUpdatedBy());
-        ps.setInt(9, appointment.getCustomerId());
-        ps.setInt(10, appointment.getUserId());
-        ps.setInt(11, appointment.getContactId());
-        ps.setInt(12, appointment.getAppointmentId());
+        Appointment before;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            before = getStoredAppointment(connection, appointment.getAppointmentId());
+            try (PreparedStatement ps = connection.prepareStatement(updateSql)) {
+
+                // Set the values for the prepared statement
+                bindUpdate(ps, appointment);
+
+                // Execute statement
+                ps.executeUpdate();
+            }
+            connection.commit();
+        }
 
-        // Execute statement and return true
-        ps.executeUpdate();
+        // Notify listeners and return true
+        if (before != null) {
+            for (AppointmentChangeListener listener : changeListeners) {
+                listener.appointmentUpdated(before, appointment);
+            }
+        }
         return true;
     }
 
     /**
-     * Retrieves a list of all appointments for the current month.
-     * @return an {@code ObservableList} of all appointments for the current month
-     * @throws SQLException if a database access error occurs or this method is called on a closed PreparedStatement
+     * Adds many appointments in one transaction, sending the inserts in batches. If any row fails, none are added.
+     * @param appointments the appointments to add, with start and end times in UTC
+     * @param batchSize the number of rows sent to the database at a time
+     * @return a BatchResult with the status and generated ID of each appointment, in iteration order
+     * @throws SQLException if a database error other than a failed row occurs
      */
-    public static ObservableList<Appointment> getAllAppointmentsByMonth() throws SQLException {
+    public static BatchResult addAppointments(Collection<Appointment> appointments, int batchSize)
+            throws SQLException {
+        BatchResult result;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            result = BatchExecutor.execute(connection, insertSql, appointments, batchSize, true,
+                    AppointmentAccess::bindInsert);
+        }
 
-        // Get the current month and year
-        LocalDateTime now = LocalDateTime.now();
-        int currentMonth = now.getMonthValue();
-        int currentYear = now.getYear();
+        // Notify listeners of each added appointment under its generated ID
+        if (result.isCommitted() && !changeListeners.isEmpty()) {
+            int row = 0;
+            for (Appointment appointment : appointments) {
+                Appointment added = withAppointmentId(appointment, result.getGeneratedKey(row++));
+                for (AppointmentChangeListener listener : changeListeners) {
+                    listener.appointmentAdded(added);
+                }
+            }
+        }
+        return result;
+    }
 
-        // Define SQL select statement
-        String sql = "SELECT * FROM client_schedule.appointments WHERE MONTH(start) AND YEAR(start) ORDER BY start;";
+    /**
+     * Updates many appointments in one transaction, sending the updates in batches. If any row fails, none are
+     * updated.
+     * @param appointments the appointments to update, with start and end times in UTC
+     * @param batchSize the number of rows sent to the database at a time
+     * @return a BatchResult with the status of each appointment, in iteration order
+     * @throws SQLException if a database error other than a failed row occurs
+     */
+    public static BatchResult updateAppointments(Collection<Appointment> appointments, int batchSize)
+            throws SQLException {
+        List<Integer> appointmentIds = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            appointmentIds.add(appointment.getAppointmentId());
+        }
 
-        // Create a prepared statement using SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        BatchResult result;
+        Map<Integer, Appointment> before;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            before = getStoredAppointmentsForListeners(connection, appointmentIds, batchSize);
+            result = BatchExecutor.execute(connection, updateSql, appointments, batchSize, false,
+                    AppointmentAccess::bindUpdate);
+        }
 
-        // Set PS values
-        ps.setInt(1, currentMonth);
-        ps.setInt(2, currentYear);
+        // Notify listeners of each updated appointment that existed
+        if (result.isCommitted()) {
+            for (Appointment appointment : appointments) {
+                Appointment stored = before.get(appointment.getAppointmentId());
+                if (stored != null) {
+                    for (AppointmentChangeListener listener : changeListeners) {
+                        listener.appointmentUpdated(stored, appointment);
+                    }
+                }
+            }
+        }
+        return result;
+    }
 
-        // Execute statement
-        ResultSet rs = ps.executeQuery();
+    /**
+     * Deletes many appointments in one transaction, sending the deletes in batches. If any row fails, none are
+     * deleted.
+     * @param appointmentIds the IDs of the appointments to delete
+     * @param batchSize the number of rows sent to the database at a time
+     * @return a BatchResult with the status of each ID, in iteration order
+     * @throws SQLException if a database error other than a failed row occurs
+     */
+    public static BatchResult deleteAppointments(Collection<Integer> appointmentIds, int batchSize)
+            throws SQLException {
+        BatchResult result;
+        Map<Integer, Appointment> before;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            before = getStoredAppointmentsForListeners(connection, appointmentIds, batchSize);
+            result = BatchExecutor.execute(connection, deleteSql, appointmentIds, batchSize, false,
+                    (ps, appointmentId) -> ps.setInt(1, appointmentId));
+        }
 
-        // Make a list of appointments and return
-        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
-        while (rs.next()) {
-            Appointment appointment = extractAppointmentFromResultSet(rs);
-            appointments.add(appointment);
+        // Notify listeners of each deleted appointment
+        if (result.isCommitted()) {
+            for (Appointment stored : before.values()) {
+                for (AppointmentChangeListener listener : changeListeners) {
+                    listener.appointmentDeleted(stored);
+                }
+            }
         }
-        return appointments;
+        return result;
     }
 
     /**
-     * Retrieves a list of all appointments that fall within the current week (Sunday through Saturday).
-     * @return an {@link ObservableList} of {@link Appointment} objects representing the appointments in the current
-     * week
-     * @throws SQLException if there is an issue executing the SQL query
+     * Retrieves the appointments that start within the half-open range [from, to), ordered by start time. The bounds
+     * are converted to the stored UTC values up front and compared with Start directly, so the query can range-scan
+     * an index on Start instead of evaluating a function on every row.
+     * @param from the earliest start time to include
+     * @param to the start time to stop before
+     * @return an ObservableList of the appointments starting within the range
+     * @throws SQLException if a database access error occurs
      */
-    public static ObservableList<Appointment> getAllAppointmentsByWeek() throws SQLException {
+    public static ObservableList<Appointment> getAppointmentsInRange(Instant from, Instant to) throws SQLException {
 
-        // Create a SQL select statement
-        String sql = "SELECT *\n" +
-                "FROM client_schedule.appointments\n" +
-                "WHERE WEEK(start) = WEEK(CURDATE())\n" +
-                "AND YEAR(start) = YEAR(CURDATE())\n";
+        // Define SQL select statement
+        String sql = "SELECT * FROM client_schedule.appointments WHERE Start >= ? AND Start < ?" +
+                " ORDER BY Start, Appointment_ID";
 
-        // Create a PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        // Create a prepared statement using SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        // Execute query
-        ResultSet rs = ps.executeQuery();
+            // Set PS values to the bounds in UTC, the time zone the appointments are stored in
+            ps.setObject(1, LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+            ps.setObject(2, LocalDateTime.ofInstant(to, ZoneOffset.UTC));
 
-        // Initialize list of appointments
-        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+            // Execute statement
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Add appointments to list and return
-        while (rs.next()) {
-            Appointment appointment = extractAppointmentFromResultSet(rs);
-            appointments.add(appointment);
+                // Map every row to an appointment and return the list
+                return extractAppointments(rs);
+            }
         }
-        return appointments;
     }
 
     /**
@@ -211,23 +400,19 @@ public abstract class AppointmentAccess {
         String sql = "SELECT * FROM client_schedule.appointments WHERE Customer_ID = ? ORDER BY start;";
 
         // Create PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Set PS value
-        ps.setInt(1, customer);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        // Execute statement
-        ResultSet rs = ps.executeQuery();
+            // Set PS value
+            ps.setInt(1, customer);
 
-        // Create list of appointments
-        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+            // Execute statement
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Add appointments to list and return
-        while (rs.next()) {
-            Appointment appointment = extractAppointmentFromResultSet(rs);
-            appointments.add(appointment);
+                // Map every row to an appointment and return the list
+                return extractAppointments(rs);
+            }
         }
-        return appointments;
     }
 
     /**
@@ -243,76 +428,390 @@ public abstract class AppointmentAccess {
         String sql = "SELECT * FROM client_schedule.appointments WHERE User_ID = ? ORDER BY start;";
 
         // Create PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        // Set PS value
-        ps.setInt(1, user);
+            // Set PS value
+            ps.setInt(1, user);
 
-        // Execute query
-        ResultSet rs = ps.executeQuery();
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Create list of appointments
-        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+                // Map every row to an appointment and return the list
+                return extractAppointments(rs);
+            }
+        }
+    }
 
-        // Add appointments to list and return
-        while (rs.next()) {
-            Appointment appointment = extractAppointmentFromResultSet(rs);
-            appointments.add(appointment);
+    /**
+     * Retrieves a user's appointments that start within the half-open range [from, to), ordered by start time. The
+     * bounds are compared with the stored UTC values directly, so the query range-scans the index on (User_ID, Start)
+     * and reads only the matching rows, however many appointments the user has had.
+     * @param user the ID of the user
+     * @param from the earliest start time to include
+     * @param to the start time to stop before
+     * @return an ObservableList of the user's appointments starting within the range
+     * @throws SQLException if a database access error occurs
+     */
+    public static ObservableList<Appointment> getAppointmentsByUserIdInRange(int user, Instant from, Instant to)
+            throws SQLException {
+
+        // Define SQL select statement
+        String sql = "SELECT * FROM client_schedule.appointments WHERE User_ID = ? AND Start >= ? AND Start < ?" +
+                " ORDER BY Start, Appointment_ID";
+
+        // Create a prepared statement using SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Set PS values to the user and the bounds in UTC, the time zone the appointments are stored in
+            ps.setInt(1, user);
+            ps.setObject(2, LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+            ps.setObject(3, LocalDateTime.ofInstant(to, ZoneOffset.UTC));
+
+            // Execute statement
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Map every row to an appointment and return the list
+                return extractAppointments(rs);
+            }
+        }
+    }
+
+    /**
+     * Writes the appointments a filter selects to a CSV or JSON file, in (Start, Appointment_ID) order, streaming the
+     * rows from the database to the file without creating an Appointment for any of them, so any number of rows can
+     * be exported in the same memory. Times are written in UTC, as stored.
+     * @param file the file to write, replaced if it exists
+     * @param format RowExporter.CSV or RowExporter.JSON
+     * @param gzip true to compress the file with gzip
+     * @param filter the conditions, or null to export every appointment
+     * @return the number of rows and bytes written and the throughput
+     * @throws SQLException if a database access error occurs
+     * @throws IOException if the file cannot be written
+     */
+    public static ExportResult exportAppointments(Path file, String format, boolean gzip, AppointmentFilter filter)
+            throws SQLException, IOException {
+
+        // Create SQL select statement with a condition for each filter value set
+        StringBuilder sql = new StringBuilder("SELECT * FROM client_schedule.appointments WHERE 1 = 1");
+        List<Object> values = new ArrayList<>();
+        if (filter != null) {
+            addCondition(sql, values, " AND Start >= ?", filter.getStartFromUtc());
+            addCondition(sql, values, " AND Start < ?", filter.getStartToUtc());
+            addCondition(sql, values, " AND Type = ?", filter.getType());
+            addCondition(sql, values, " AND Location = ?", filter.getLocation());
+            addCondition(sql, values, " AND Created_By = ?", filter.getCreatedBy());
+            addCondition(sql, values, " AND Customer_ID = ?", filter.getCustomerId());
+            addCondition(sql, values, " AND User_ID = ?", filter.getUserId());
+            addCondition(sql, values, " AND Contact_ID = ?", filter.getContactId());
+        }
+        sql.append(" ORDER BY Start, Appointment_ID");
+
+        // The connection is held until the last row has been written
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = RowExporter.prepareStreaming(connection, sql.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                ps.setObject(i + 1, values.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return RowExporter.export(rs, file, format, gzip);
+            }
+        }
+    }
+
+    /**
+     * Appends a condition to a query if its value is set.
+     * @param sql the query being built
+     * @param values the values of the conditions appended so far
+     * @param condition the condition, with one parameter
+     * @param value the value of the parameter, or null to leave the condition out
+     */
+    private static void addCondition(StringBuilder sql, List<Object> values, String condition, Object value) {
+        if (value != null) {
+            sql.append(condition);
+            values.add(value);
         }
-        return appointments;
     }
 
     /**
-     * Extracts an appointment object from the provided ResultSet.
+     * Reads an appointment as stored, with its start and end times left in UTC, and locks the row for the rest of the
+     * caller's transaction.
+     * @param connection the connection whose transaction the row is read in
+     * @param appointmentId the ID of the appointment to read
+     * @return the stored appointment, or null if there is no appointment with that ID
+     * @throws SQLException if a database access error occurs
+     */
+    private static Appointment getStoredAppointment(Connection connection, int appointmentId) throws SQLException {
+        String sql = "SELECT * FROM client_schedule.appointments WHERE Appointment_ID = ? FOR UPDATE";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, appointmentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? extractStoredAppointment(rs, new AppointmentColumns(rs)) : null;
+            }
+        }
+    }
+
+    /**
+     * Reads and locks the stored appointments with the given IDs, in groups of up to groupSize IDs per query, so that
+     * the change listeners can be told what a batched update or delete replaced. Nothing is read when no listener is
+     * registered.
+     * @param connection the connection whose transaction the rows are read in
+     * @param appointmentIds the IDs of the appointments to read
+     * @param groupSize the largest number of IDs put in one query
+     * @return the stored appointments that exist, keyed by ID
+     * @throws SQLException if a database access error occurs
+     */
+    private static Map<Integer, Appointment> getStoredAppointmentsForListeners(Connection connection,
+                                                                               Collection<Integer> appointmentIds,
+                                                                               int groupSize) throws SQLException {
+        Map<Integer, Appointment> stored = new HashMap<>();
+        if (changeListeners.isEmpty()) {
+            return stored;
+        }
+        List<Integer> ids = new ArrayList<>(appointmentIds);
+        int step = Math.max(1, groupSize);
+        for (int from = 0; from < ids.size(); from += step) {
+            List<Integer> group = ids.subList(from, Math.min(ids.size(), from + step));
+            String sql = "SELECT * FROM client_schedule.appointments WHERE Appointment_ID IN (" +
+                    String.join(", ", Collections.nCopies(group.size(), "?")) + ") FOR UPDATE";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < group.size(); i++) {
+                    ps.setInt(i + 1, group.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    AppointmentColumns columns = new AppointmentColumns(rs);
+                    while (rs.next()) {
+                        Appointment appointment = extractStoredAppointment(rs, columns);
+                        stored.put(appointment.getAppointmentId(), appointment);
+                    }
+                }
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Extracts an appointment from the current row with its start and end times left in UTC, as stored.
      * @param rs the ResultSet to extract the appointment from
+     * @param columns the column indexes resolved for this ResultSet
      * @return the extracted appointment
      * @throws SQLException if a database access error occurs
      */
-    private static Appointment extractAppointmentFromResultSet(ResultSet rs) throws SQLException {
-
-        // Create DateTimeFormatter object for converting string from DB into LocalDateTime object
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        // Get strings from SQL query and store them in respective variables
-        int appointmentId = rs.getInt("Appointment_ID");
-        String title = rs.getString("Title");
-        String description = rs.getString("Description");
-        String location = rs.getString("Location");
-        String type = rs.getString("Type");
-
-        // Convert start and end times to local time zone
-        LocalDateTime start = LocalDateTime.parse(rs.getString("Start"), formatter)
-                .atZone(ZoneId.of("UTC"))
-                .withZoneSameInstant(ZoneId.systemDefault())
-                .toLocalDateTime();
-        LocalDateTime end = LocalDateTime.parse(rs.getString("End"), formatter)
-                .atZone(ZoneId.of("UTC"))
-                .withZoneSameInstant(ZoneId.systemDefault())
-                .toLocalDateTime();
-        LocalDateTime createDate = LocalDateTime.parse(rs.getString("Create_Date"), formatter);
-        String createdBy = rs.getString("Created_By");
-        LocalDateTime lastUpdate = LocalDateTime.parse(rs.getString("Last_Update"), formatter);
-        String lastUpdatedBy = rs.getString("Last_Updated_By");
-        int customerId = rs.getInt("Customer_ID");
-        int userId = rs.getInt("User_ID");
-        int contactId = rs.getInt("Contact_ID");
-
-        // Create and return new appointment object
+    private static Appointment extractStoredAppointment(ResultSet rs, AppointmentColumns columns)
+            throws SQLException {
+        return new Appointment(
+                rs.getInt(columns.appointmentId),
+                rs.getString(columns.title),
+                rs.getString(columns.description),
+                rs.getString(columns.location),
+                rs.getString(columns.type),
+                RowDecoder.getLocalDateTime(rs, columns.start),
+                RowDecoder.getLocalDateTime(rs, columns.end),
+                RowDecoder.getLocalDateTime(rs, columns.createDate),
+                rs.getString(columns.createdBy),
+                RowDecoder.getLocalDateTime(rs, columns.lastUpdate),
+                rs.getString(columns.lastUpdatedBy),
+                rs.getInt(columns.customerId),
+                rs.getInt(columns.userId),
+                rs.getInt(columns.contactId)
+        );
+    }
+
+    /**
+     * Sets the parameters of the insert statement from an appointment.
+     * @param ps the insert statement
+     * @param appointment the appointment to insert
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindInsert(PreparedStatement ps, Appointment appointment) throws SQLException {
+        ps.setString(1, appointment.getTitle());
+        ps.setString(2, appointment.getDescription());
+        ps.setString(3, appointment.getLocation());
+        ps.setString(4, appointment.getType());
+        ps.setObject(5, appointment.getStart());
+        ps.setObject(6, appointment.getEnd());
+        ps.setObject(7, appointment.getCreateDate());
+        ps.setString(8, appointment.getCreatedBy());
+        ps.setObject(9, appointment.getLastUpdate());
+        ps.setString(10, appointment.getLastUpdatedBy());
+        ps.setInt(11, appointment.getCustomerId());
+        ps.setInt(12, appointment.getUserId());
+        ps.setInt(13, appointment.getContactId());
+    }
+
+    /**
+     * Sets the parameters of the update statement from an appointment.
+     * @param ps the update statement
+     * @param appointment the appointment to update
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindUpdate(PreparedStatement ps, Appointment appointment) throws SQLException {
+        ps.setString(1, appointment.getTitle());
+        ps.setString(2, appointment.getDescription());
+        ps.setString(3, appointment.getLocation());
+        ps.setString(4, appointment.getType());
+        ps.setObject(5, appointment.getStart());
+        ps.setObject(6, appointment.getEnd());
+        ps.setObject(7, appointment.getLastUpdate());
+        ps.setString(8, appointment.getLastUpdatedBy());
+        ps.setInt(9, appointment.getCustomerId());
+        ps.setInt(10, appointment.getUserId());
+        ps.setInt(11, appointment.getContactId());
+        ps.setInt(12, appointment.getAppointmentId());
+    }
+
+    /**
+     * Copies an appointment under a different ID, used once the database has assigned the real one.
+     * @param appointment the appointment to copy
+     * @param appointmentId the ID to give the copy
+     * @return the copy
+     */
+    private static Appointment withAppointmentId(Appointment appointment, int appointmentId) {
         return new Appointment(
                 appointmentId,
-                title,
-                description,
-                location,
-                type,
-                start,
-                end,
-                createDate,
-                createdBy,
-                lastUpdate,
-                lastUpdatedBy,
-                customerId,
-                userId,
-                contactId
+                appointment.getTitle(),
+                appointment.getDescription(),
+                appointment.getLocation(),
+                appointment.getType(),
+                appointment.getStart(),
+                appointment.getEnd(),
+                appointment.getCreateDate(),
+                appointment.getCreatedBy(),
+                appointment.getLastUpdate(),
+                appointment.getLastUpdatedBy(),
+                appointment.getCustomerId(),
+                appointment.getUserId(),
+                appointment.getContactId()
+        );
+    }
+
+    /**
+     * Extracts every remaining row of the provided ResultSet as an appointment. Column indexes are resolved once,
+     * before the first row, and each row is then read by position.
+     * @param rs the ResultSet to extract the appointments from
+     * @return an ObservableList of the extracted appointments
+     * @throws SQLException if a database access error occurs
+     */
+    private static ObservableList<Appointment> extractAppointments(ResultSet rs) throws SQLException {
+        AppointmentColumns columns = new AppointmentColumns(rs);
+        List<Appointment> appointments = new ArrayList<>();
+        while (rs.next()) {
+            appointments.add(extractAppointmentFromResultSet(rs, columns));
+        }
+        return FXCollections.observableList(appointments);
+    }
+
+    /**
+     * Extracts up to pageSize rows of the provided ResultSet as a page, recording the stored start time and ID of the
+     * first and last rows as the page keys.
+     * @param rs the ResultSet to extract the appointments from, holding at most pageSize + 1 rows
+     * @param pageSize the number of rows that make up a full page
+     * @param descending true if the rows were read in descending order and must be reversed
+     * @return the extracted AppointmentPage
+     * @throws SQLException if a database access error occurs
+     */
+    private static AppointmentPage extractAppointmentPage(ResultSet rs, int pageSize, boolean descending)
+            throws SQLException {
+        AppointmentColumns columns = new AppointmentColumns(rs);
+        List<Appointment> appointments = new ArrayList<>(pageSize);
+        LocalDateTime firstStart = null;
+        LocalDateTime lastStart = null;
+        boolean hasMore = false;
+        while (rs.next()) {
+
+            // The extra row only tells us that another page exists
+            if (appointments.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            lastStart = RowDecoder.getLocalDateTime(rs, columns.start);
+            if (firstStart == null) {
+                firstStart = lastStart;
+            }
+            appointments.add(extractAppointmentFromResultSet(rs, columns));
+        }
+
+        if (appointments.isEmpty()) {
+            return new AppointmentPage(appointments, null, 0, null, 0, false);
+        }
+        int firstId = appointments.get(0).getAppointmentId();
+        int lastId = appointments.get(appointments.size() - 1).getAppointmentId();
+        if (descending) {
+            Collections.reverse(appointments);
+            return new AppointmentPage(appointments, lastStart, lastId, firstStart, firstId, hasMore);
+        }
+        return new AppointmentPage(appointments, firstStart, firstId, lastStart, lastId, hasMore);
+    }
+
+    /**
+     * Extracts an appointment object from the current row of the provided ResultSet.
+     * @param rs the ResultSet to extract the appointment from
+     * @param columns the column indexes resolved for this ResultSet
+     * @return the extracted appointment
+     * @throws SQLException if a database access error occurs
+     */
+    private static Appointment extractAppointmentFromResultSet(ResultSet rs, AppointmentColumns columns)
+            throws SQLException {
+
+        // Start and end are stored in UTC and converted to the local time zone; the audit dates are kept as stored
+        return new Appointment(
+                rs.getInt(columns.appointmentId),
+                rs.getString(columns.title),
+                rs.getString(columns.description),
+                rs.getString(columns.location),
+                rs.getString(columns.type),
+                RowDecoder.getUtcAsLocal(rs, columns.start),
+                RowDecoder.getUtcAsLocal(rs, columns.end),
+                RowDecoder.getLocalDateTime(rs, columns.createDate),
+                rs.getString(columns.createdBy),
+                RowDecoder.getLocalDateTime(rs, columns.lastUpdate),
+                rs.getString(columns.lastUpdatedBy),
+                rs.getInt(columns.customerId),
+                rs.getInt(columns.userId),
+                rs.getInt(columns.contactId)
         );
     }
+
+    /**
+     * The positions of the appointment columns in a ResultSet, looked up by name once per ResultSet.
+     */
+    private static class AppointmentColumns {
+        private final int appointmentId;
+        private final int title;
+        private final int description;
+        private final int location;
+        private final int type;
+        private final int start;
+        private final int end;
+        private final int createDate;
+        private final int createdBy;
+        private final int lastUpdate;
+        private final int lastUpdatedBy;
+        private final int customerId;
+        private final int userId;
+        private final int contactId;
+
+        /**
+         *
+         * @param rs the ResultSet whose columns should be resolved
+         * @throws SQLException if a column is missing
+         */
+        AppointmentColumns(ResultSet rs) throws SQLException {
+            appointmentId = rs.findColumn("Appointment_ID");
+            title = rs.findColumn("Title");
+            description = rs.findColumn("Description");
+            location = rs.findColumn("Location");
+            type = rs.findColumn("Type");
+            start = rs.findColumn("Start");
+            end = rs.findColumn("End");
+            createDate = rs.findColumn("Create_Date");
+            createdBy = rs.findColumn("Created_By");
+            lastUpdate = rs.findColumn("Last_Update");
+            lastUpdatedBy = rs.findColumn("Last_Updated_By");
+            customerId = rs.findColumn("Customer_ID");
+            userId = rs.findColumn("User_ID");
+            contactId = rs.findColumn("Contact_ID");
+        }
+    }
 }
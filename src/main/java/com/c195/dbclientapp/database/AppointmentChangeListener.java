@@ -0,0 +1,30 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.model.Appointment;
+
+/**
+ * A listener notified by AppointmentAccess after an appointment has been added, updated or deleted and the change has
+ * been committed. The appointments passed to a listener carry their start and end times in UTC, as stored in the
+ * database. Listeners are called on the thread that made the change and should return quickly.
+ */
+public interface AppointmentChangeListener {
+
+    /**
+     * Called after an appointment has been added.
+     * @param appointment the new appointment, with the ID generated by the database
+     */
+    void appointmentAdded(Appointment appointment);
+
+    /**
+     * Called after an appointment has been updated.
+     * @param before the appointment as it was stored before the update
+     * @param after the appointment as it is now stored
+     */
+    void appointmentUpdated(Appointment before, Appointment after);
+
+    /**
+     * Called after an appointment has been deleted.
+     * @param before the appointment as it was stored before it was deleted
+     */
+    void appointmentDeleted(Appointment before);
+}
@@ -0,0 +1,1034 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A column-oriented snapshot of the appointments for ad-hoc reports, answered in memory instead of by the database.
+ * Each column the reports filter or group on is held in its own primitive array, one entry per appointment: the IDs,
+ * the start and end times as UTC epoch seconds, and the type, location and creator as codes into a dictionary of the
+ * distinct values, so a million appointments take tens of megabytes where Appointment objects would take hundreds. A
+ * query first marks the selected appointments in a bitmap, one condition at a time with a tight loop over one array,
+ * and then counts the marked appointments by the value of another column.
+ * <p>
+ * The snapshot is read in full the first time it is queried and then kept up to date by the changes made through
+ * AppointmentAccess. Changes made by other clients are picked up when a query finds the last refresh older than
+ * -Ddbclientapp.columns.refresh.seconds, 60 by default: the appointments whose Last_Update is newer than the last
+ * refresh are read again, and if the number of appointments no longer matches the IDs are read to find those deleted.
+ */
+public class AppointmentColumnStore implements AppointmentChangeListener {
+
+    // System property read when the class is first used
+    public static final String refreshSecondsProperty = "dbclientapp.columns.refresh.seconds";
+
+    // Dimensions countBy groups on
+    public static final String TYPE = "type";
+    public static final String LOCATION = "location";
+    public static final String CREATED_BY = "createdBy";
+    public static final String CUSTOMER = "customer";
+    public static final String USER = "user";
+    public static final String CONTACT = "contact";
+    public static final String MONTH = "month";
+
+    private static final long refreshNanos = TimeUnit.SECONDS.toNanos(Long.getLong(refreshSecondsProperty, 60));
+
+    // Changes stamped up to this long before the previous refresh started are read again, as in AppointmentRollups
+    private static final long overlapMinutes = 5;
+
+    private static final int fetchSize = 5000;
+    private static final int initialCapacity = 1024;
+
+    // Stands for a missing start or end time, which no range selects
+    private static final long noTime = Long.MIN_VALUE;
+
+    private static final String rowColumns = "SELECT Appointment_ID, Type, Location, Start, End, Created_By," +
+            " Customer_ID, User_ID, Contact_ID, Last_Update FROM client_schedule.appointments";
+
+    private static final AppointmentColumnStore instance = new AppointmentColumnStore();
+
+    static {
+        AppointmentAccess.addChangeListener(instance);
+    }
+
+    private Columns columns = new Columns(initialCapacity);
+    private boolean loaded = false;
+    private boolean refreshing = false;
+    private long refreshedAt;
+
+    // Incremented by every change, so a refresh can tell whether changes were made while it read
+    private long changeCount;
+
+    // The (Last_Update, Appointment_ID) of the newest change read, and the UTC time the last refresh started
+    private LocalDateTime cursorUpdate;
+    private int cursorId = Integer.MIN_VALUE;
+    private LocalDateTime lastRefreshStartedAt;
+
+    /**
+     * The snapshot is shared by the whole application; use getInstance.
+     */
+    private AppointmentColumnStore() {}
+
+    /**
+     *
+     * @return the shared snapshot, registered with AppointmentAccess
+     */
+    public static AppointmentColumnStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Counts the appointments a filter selects.
+     * @param filter the conditions, or null to count every appointment
+     * @return the number of appointments selected
+     * @throws SQLException if the snapshot has to be read or refreshed and cannot be
+     */
+    public int count(AppointmentFilter filter) throws SQLException {
+        refreshIfDue();
+        synchronized (this) {
+            int count = 0;
+            for (long word : columns.select(filter)) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Counts the appointments a filter selects by the value of one column.
+     * @param dimension TYPE, LOCATION, CREATED_BY, CUSTOMER, USER, CONTACT or MONTH
+     * @param filter the conditions, or null to count every appointment
+     * @return the number of appointments for each value with any, ordered by value; IDs are given as text and months
+     * as their name and year, such as "January 2024", oldest first. Appointments without a value are not counted.
+     * @throws SQLException if the snapshot has to be read or refreshed and cannot be
+     */
+    public Map<String, Integer> countBy(String dimension, AppointmentFilter filter) throws SQLException {
+        refreshIfDue();
+        synchronized (this) {
+            long[] selection = columns.select(filter);
+            switch (dimension) {
+                case TYPE:
+                    return countCodes(selection, columns.typeCodes, columns.types);
+                case LOCATION:
+                    return countCodes(selection, columns.locationCodes, columns.locations);
+                case CREATED_BY:
+                    return countCodes(selection, columns.createdByCodes, columns.createdBys);
+                case CUSTOMER:
+                    return countIds(selection, columns.customerIds);
+                case USER:
+                    return countIds(selection, columns.userIds);
+                case CONTACT:
+                    return countIds(selection, columns.contactIds);
+                case MONTH:
+                    return countMonths(selection, columns.starts);
+                default:
+                    throw new IllegalArgumentException("Unknown dimension: " + dimension);
+            }
+        }
+    }
+
+    /**
+     * Lists the IDs of the appointments a filter selects, which can then be read in full from AppointmentAccess.
+     * @param filter the conditions, or null to select every appointment
+     * @param limit the most IDs to return
+     * @return the IDs, in no particular order
+     * @throws SQLException if the snapshot has to be read or refreshed and cannot be
+     */
+    public int[] getIds(AppointmentFilter filter, int limit) throws SQLException {
+        refreshIfDue();
+        synchronized (this) {
+            long[] selection = columns.select(filter);
+            int[] ids = new int[Math.max(0, limit)];
+            int found = 0;
+            for (int w = 0; w < selection.length && found < ids.length; w++) {
+                long word = selection[w];
+                while (word != 0 && found < ids.length) {
+                    ids[found++] = columns.ids[(w << 6) + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                }
+            }
+            return Arrays.copyOf(ids, found);
+        }
+    }
+
+    /**
+     *
+     * @return the number of appointments in the snapshot
+     */
+    public synchronized int size() {
+        return columns.liveCount;
+    }
+
+    /**
+     *
+     * @return roughly how many bytes of heap the snapshot's arrays and dictionaries take
+     */
+    public synchronized long getMemoryBytes() {
+        return columns.memoryBytes();
+    }
+
+    /**
+     * Brings the snapshot up to date with the database: reads every appointment the first time, and after that the
+     * appointments changed since the last refresh, and the IDs of every appointment if some appear to have been
+     * deleted by another client.
+     * @throws SQLException if a database access error occurs
+     */
+    public void refresh() throws SQLException {
+        LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC);
+        long changesBefore;
+        boolean full;
+        LocalDateTime fromUpdate = null;
+        int fromId = Integer.MIN_VALUE;
+        synchronized (this) {
+            changesBefore = changeCount;
+            full = !loaded;
+            if (!full) {
+                LocalDateTime reread = lastRefreshStartedAt.minusMinutes(overlapMinutes);
+                if (cursorUpdate != null && cursorUpdate.isBefore(reread)) {
+                    fromUpdate = cursorUpdate;
+                    fromId = cursorId;
+                } else {
+                    fromUpdate = reread;
+                }
+            }
+        }
+
+        if (full) {
+            load(startedAt, changesBefore);
+            return;
+        }
+
+        // Read outside the lock so queries and changes made meanwhile are not held up
+        List<Row> changed = new ArrayList<>();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(rowColumns +
+                     " WHERE Last_Update > ? OR (Last_Update = ? AND Appointment_ID > ?)" +
+                     " ORDER BY Last_Update, Appointment_ID")) {
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, fromUpdate);
+            ps.setObject(2, fromUpdate);
+            ps.setInt(3, fromId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    changed.add(readRow(rs));
+                }
+            }
+        }
+        long[] countAndSum = readCountAndIdSum();
+
+        boolean deletedElsewhere;
+        synchronized (this) {
+            for (Row row : changed) {
+                columns.put(row);
+                moveCursor(row.lastUpdate, row.appointmentId);
+            }
+            lastRefreshStartedAt = startedAt;
+            deletedElsewhere = columns.liveCount != countAndSum[0] || columns.idSum != countAndSum[1];
+        }
+        if (deletedElsewhere) {
+            int[] ids = readIds();
+            synchronized (this) {
+                // A change made while the IDs were read could be lost, so leave it to the next refresh
+                if (changeCount == changesBefore) {
+                    columns.retain(ids);
+                }
+            }
+        }
+        synchronized (this) {
+            refreshedAt = changeCount == changesBefore ? System.nanoTime() : System.nanoTime() - refreshNanos;
+        }
+    }
+
+    /**
+     * Adds the new appointment to the snapshot.
+     * @param appointment the new appointment, with the ID generated by the database
+     */
+    @Override
+    public synchronized void appointmentAdded(Appointment appointment) {
+        changeCount++;
+        if (loaded) {
+            columns.put(Row.of(appointment));
+        }
+    }
+
+    /**
+     * Replaces the appointment's values in the snapshot.
+     * @param before the appointment as it was stored before the update
+     * @param after the appointment as it is now stored
+     */
+    @Override
+    public synchronized void appointmentUpdated(Appointment before, Appointment after) {
+        changeCount++;
+        if (loaded) {
+            columns.put(Row.of(after));
+        }
+    }
+
+    /**
+     * Removes the deleted appointment from the snapshot.
+     * @param before the appointment as it was stored before it was deleted
+     */
+    @Override
+    public synchronized void appointmentDeleted(Appointment before) {
+        changeCount++;
+        if (loaded) {
+            columns.remove(before.getAppointmentId());
+        }
+    }
+
+    /**
+     * Reads or refreshes the snapshot if it has not been read yet or was last refreshed too long ago. Only one thread
+     * reads at a time: until the snapshot has first been read the others wait for it, and after that they answer from
+     * the snapshot held while it is refreshed.
+     * @throws SQLException if a database access error occurs
+     */
+    private void refreshIfDue() throws SQLException {
+        synchronized (this) {
+            while (refreshing && !loaded) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while the appointment snapshot was read", e);
+                }
+            }
+            if (refreshing || loaded && System.nanoTime() - refreshedAt < refreshNanos) {
+                return;
+            }
+            refreshing = true;
+        }
+        try {
+            refresh();
+        } finally {
+            synchronized (this) {
+                refreshing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads every appointment into new columns and puts them in place of the old ones.
+     * @param startedAt the UTC time the refresh started
+     * @param changesBefore the change count when the refresh started
+     * @throws SQLException if a database access error occurs
+     */
+    private void load(LocalDateTime startedAt, long changesBefore) throws SQLException {
+        Columns loading = new Columns(initialCapacity);
+        LocalDateTime newestUpdate = null;
+        int newestId = Integer.MIN_VALUE;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(rowColumns)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Row row = readRow(rs);
+                    loading.put(row);
+                    if (row.lastUpdate != null && (newestUpdate == null || row.lastUpdate.isAfter(newestUpdate) ||
+                            row.lastUpdate.equals(newestUpdate) && row.appointmentId > newestId)) {
+                        newestUpdate = row.lastUpdate;
+                        newestId = row.appointmentId;
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            columns = loading;
+            loaded = true;
+            cursorUpdate = null;
+            cursorId = Integer.MIN_VALUE;
+            moveCursor(newestUpdate, newestId);
+            lastRefreshStartedAt = startedAt;
+
+            // Changes made while reading may be missing, so refresh again on the next query
+            refreshedAt = changeCount == changesBefore ? System.nanoTime() : System.nanoTime() - refreshNanos;
+        }
+    }
+
+    /**
+     * Moves the refresh cursor forward to a change, unless it is already past it.
+     * @param lastUpdate the Last_Update of the change, or null
+     * @param appointmentId the ID of the appointment changed
+     */
+    private void moveCursor(LocalDateTime lastUpdate, int appointmentId) {
+        if (lastUpdate != null && (cursorUpdate == null || lastUpdate.isAfter(cursorUpdate) ||
+                lastUpdate.equals(cursorUpdate) && appointmentId > cursorId)) {
+            cursorUpdate = lastUpdate;
+            cursorId = appointmentId;
+        }
+    }
+
+    /**
+     *
+     * @return the number of appointments in the database and the sum of their IDs
+     * @throws SQLException if a database access error occurs
+     */
+    private static long[] readCountAndIdSum() throws SQLException {
+
+        // Create SQL select statement
+        String sql = "SELECT COUNT(*), SUM(Appointment_ID) FROM client_schedule.appointments";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+
+    /**
+     *
+     * @return the ID of every appointment in the database, in ascending order
+     * @throws SQLException if a database access error occurs
+     */
+    private static int[] readIds() throws SQLException {
+
+        // Create SQL select statement
+        String sql = "SELECT Appointment_ID FROM client_schedule.appointments ORDER BY Appointment_ID";
+        int[] ids = new int[initialCapacity];
+        int count = 0;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = rs.getInt(1);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Reads the columns of rowColumns.
+     * @param rs the result set positioned on a row
+     * @return the row
+     * @throws SQLException if a column cannot be read
+     */
+    private static Row readRow(ResultSet rs) throws SQLException {
+        return new Row(rs.getInt(1), rs.getString(2), rs.getString(3),
+                toEpochSecond(RowDecoder.getLocalDateTime(rs, 4)), toEpochSecond(RowDecoder.getLocalDateTime(rs, 5)),
+                rs.getString(6), rs.getInt(7), rs.getInt(8), rs.getInt(9), RowDecoder.getLocalDateTime(rs, 10));
+    }
+
+    /**
+     *
+     * @param utc a UTC date and time, or null
+     * @return the epoch second, or noTime
+     */
+    private static long toEpochSecond(LocalDateTime utc) {
+        return utc == null ? noTime : utc.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Counts the selected appointments by a dictionary-encoded column.
+     * @param selection the selected rows
+     * @param codes the column
+     * @param dictionary the column's values
+     * @return the number of appointments for each value, ordered by value
+     */
+    private static Map<String, Integer> countCodes(long[] selection, int[] codes, Dictionary dictionary) {
+        int[] counts = new int[dictionary.size()];
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            while (word != 0) {
+                int code = codes[(w << 6) + Long.numberOfTrailingZeros(word)];
+                if (code >= 0) {
+                    counts[code]++;
+                }
+                word &= word - 1;
+            }
+        }
+        Map<String, Integer> totals = new TreeMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                totals.put(dictionary.value(code), counts[code]);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Counts the selected appointments by an ID column. The counts are kept by an IdIndex from each distinct ID to its
+     * position in the counts, so the memory taken depends on how many IDs there are rather than how large they are.
+     * @param selection the selected rows
+     * @param ids the column
+     * @return the number of appointments for each ID, in ascending order of ID
+     */
+    private static Map<String, Integer> countIds(long[] selection, int[] ids) {
+        IdIndex positions = new IdIndex(initialCapacity);
+        int[] distinctIds = new int[initialCapacity];
+        int[] counts = new int[initialCapacity];
+        int distinct = 0;
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            while (word != 0) {
+                int id = ids[(w << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+                int position = positions.get(id);
+                if (position < 0) {
+                    if (distinct == counts.length) {
+                        distinctIds = Arrays.copyOf(distinctIds, distinct * 2);
+                        counts = Arrays.copyOf(counts, distinct * 2);
+                    }
+                    position = distinct++;
+                    positions.put(id, position);
+                    distinctIds[position] = id;
+                }
+                counts[position]++;
+            }
+        }
+        int[] sortedIds = Arrays.copyOf(distinctIds, distinct);
+        Arrays.sort(sortedIds);
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        for (int id : sortedIds) {
+            totals.put(String.valueOf(id), counts[positions.get(id)]);
+        }
+        return totals;
+    }
+
+    /**
+     * Counts the selected appointments by the month of their start time.
+     * @param selection the selected rows
+     * @param starts the start times
+     * @return the number of appointments for each month, oldest first
+     */
+    private static Map<String, Integer> countMonths(long[] selection, long[] starts) {
+        TreeMap<Integer, int[]> counts = new TreeMap<>();
+        int lastMonth = Integer.MIN_VALUE;
+        int[] lastCount = null;
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            while (word != 0) {
+                long start = starts[(w << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+                if (start == noTime) {
+                    continue;
+                }
+
+                // Appointments near each other in the columns tend to fall in the same month
+                int month = monthOf(start);
+                if (month != lastMonth) {
+                    lastMonth = month;
+                    lastCount = counts.computeIfAbsent(month, key -> new int[1]);
+                }
+                lastCount[0]++;
+            }
+        }
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        counts.forEach((month, count) -> totals.put(Month.of(Math.floorMod(month, 12) + 1)
+                .getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + Math.floorDiv(month, 12), count[0]));
+        return totals;
+    }
+
+    /**
+     * Finds the month of an epoch second without creating a date, using the days-to-civil-date arithmetic of the
+     * proleptic Gregorian calendar.
+     * @param epochSecond a UTC epoch second
+     * @return the month as year * 12 + month - 1
+     */
+    private static int monthOf(long epochSecond) {
+        long days = Math.floorDiv(epochSecond, 86_400L) + 719_468L;
+        long era = Math.floorDiv(days, 146_097L);
+        long dayOfEra = days - era * 146_097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /**
+     * Clears the selected rows whose value is outside a range.
+     * @param selection the selected rows
+     * @param column the column
+     * @param rows the number of rows
+     * @param from the lowest value kept
+     * @param to the value below which values are kept
+     */
+    private static void keepRange(long[] selection, long[] column, int rows, long from, long to) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int end = Math.min(64, rows - base);
+            long keep = 0;
+            for (int bit = 0; bit < end; bit++) {
+                long value = column[base + bit];
+                keep |= (value >= from & value < to ? 1L : 0L) << bit;
+            }
+            selection[w] &= keep;
+        }
+    }
+
+    /**
+     * Clears the selected rows whose value is not the one given.
+     * @param selection the selected rows
+     * @param column the column
+     * @param rows the number of rows
+     * @param value the value kept
+     */
+    private static void keepEqual(long[] selection, int[] column, int rows, int value) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            int end = Math.min(64, rows - base);
+            long keep = 0;
+            for (int bit = 0; bit < end; bit++) {
+                keep |= (column[base + bit] == value ? 1L : 0L) << bit;
+            }
+            selection[w] &= keep;
+        }
+    }
+
+    /**
+     * The columns themselves. Rows are appended as appointments are added and updated in place; a deleted row is
+     * cleared from the bitmap of live rows and its space reused when more than half the rows are dead.
+     */
+    private static class Columns {
+        private final Dictionary types = new Dictionary();
+        private final Dictionary locations = new Dictionary();
+        private final Dictionary createdBys = new Dictionary();
+        private IdIndex index;
+        private int rows;
+        private int liveCount;
+        private long idSum;
+        private int[] ids;
+        private long[] starts;
+        private long[] ends;
+        private int[] typeCodes;
+        private int[] locationCodes;
+        private int[] createdByCodes;
+        private int[] customerIds;
+        private int[] userIds;
+        private int[] contactIds;
+        private long[] live;
+
+        /**
+         *
+         * @param capacity the number of rows to make room for
+         */
+        Columns(int capacity) {
+            index = new IdIndex(capacity);
+            ids = new int[capacity];
+            starts = new long[capacity];
+            ends = new long[capacity];
+            typeCodes = new int[capacity];
+            locationCodes = new int[capacity];
+            createdByCodes = new int[capacity];
+            customerIds = new int[capacity];
+            userIds = new int[capacity];
+            contactIds = new int[capacity];
+            live = new long[(capacity + 63) >>> 6];
+        }
+
+        /**
+         * Adds an appointment, or replaces its values if it is already held.
+         * @param row the appointment
+         */
+        void put(Row row) {
+            int at = index.get(row.appointmentId);
+            if (at < 0) {
+                if (rows == ids.length) {
+                    grow(rows + (rows >> 1) + 1);
+                }
+                at = rows++;
+                index.put(row.appointmentId, at);
+                ids[at] = row.appointmentId;
+            }
+            starts[at] = row.start;
+            ends[at] = row.end;
+            typeCodes[at] = types.encode(row.type);
+            locationCodes[at] = locations.encode(row.location);
+            createdByCodes[at] = createdBys.encode(row.createdBy);
+            customerIds[at] = row.customerId;
+            userIds[at] = row.userId;
+            contactIds[at] = row.contactId;
+            if ((live[at >>> 6] & 1L << at) == 0) {
+                live[at >>> 6] |= 1L << at;
+                liveCount++;
+                idSum += row.appointmentId;
+            }
+        }
+
+        /**
+         * Removes an appointment, if it is held.
+         * @param appointmentId the ID of the appointment
+         */
+        void remove(int appointmentId) {
+            int at = index.get(appointmentId);
+            if (at < 0 || (live[at >>> 6] & 1L << at) == 0) {
+                return;
+            }
+            markDead(at);
+            compactIfSparse();
+        }
+
+        /**
+         * Removes every appointment whose ID is not in a list. The rows are compacted only once all of them have been
+         * checked, since compacting moves rows the loop has not reached yet.
+         * @param sortedIds the IDs of the appointments to keep, in ascending order
+         */
+        void retain(int[] sortedIds) {
+            for (int at = 0; at < rows; at++) {
+                if ((live[at >>> 6] & 1L << at) != 0 && Arrays.binarySearch(sortedIds, ids[at]) < 0) {
+                    markDead(at);
+                }
+            }
+            compactIfSparse();
+        }
+
+        /**
+         * Clears a live row from the bitmap and the counts.
+         * @param at the row
+         */
+        private void markDead(int at) {
+            live[at >>> 6] &= ~(1L << at);
+            liveCount--;
+            idSum -= ids[at];
+        }
+
+        /**
+         * Compacts the rows if more than half of them are dead.
+         */
+        private void compactIfSparse() {
+            if (rows > initialCapacity && liveCount < rows / 2) {
+                compact();
+            }
+        }
+
+        /**
+         * Marks the rows a filter selects.
+         * @param filter the conditions, or null to select every row
+         * @return a bitmap with a bit set for each selected row
+         */
+        long[] select(AppointmentFilter filter) {
+            long[] selection = Arrays.copyOf(live, (rows + 63) >>> 6);
+            if (filter == null) {
+                return selection;
+            }
+            if (filter.getStartFromUtc() != null || filter.getStartToUtc() != null) {
+                keepRange(selection, starts, rows,
+                        filter.getStartFromUtc() == null ? noTime + 1 : toEpochSecond(filter.getStartFromUtc()),
+                        filter.getStartToUtc() == null ? Long.MAX_VALUE : toEpochSecond(filter.getStartToUtc()));
+            }
+            keepCode(selection, typeCodes, types, filter.getType());
+            keepCode(selection, locationCodes, locations, filter.getLocation());
+            keepCode(selection, createdByCodes, createdBys, filter.getCreatedBy());
+            if (filter.getCustomerId() != null) {
+                keepEqual(selection, customerIds, rows, filter.getCustomerId());
+            }
+            if (filter.getUserId() != null) {
+                keepEqual(selection, userIds, rows, filter.getUserId());
+            }
+            if (filter.getContactId() != null) {
+                keepEqual(selection, contactIds, rows, filter.getContactId());
+            }
+            return selection;
+        }
+
+        /**
+         * Clears the selected rows whose dictionary-encoded value is not the one given.
+         * @param selection the selected rows
+         * @param codes the column
+         * @param dictionary the column's values
+         * @param value the value kept, or null to keep every row
+         */
+        private void keepCode(long[] selection, int[] codes, Dictionary dictionary, String value) {
+            if (value == null) {
+                return;
+            }
+            int code = dictionary.code(value);
+            if (code < 0) {
+                Arrays.fill(selection, 0);
+            } else {
+                keepEqual(selection, codes, rows, code);
+            }
+        }
+
+        /**
+         *
+         * @return roughly how many bytes of heap the arrays and dictionaries take
+         */
+        long memoryBytes() {
+            long arrays = 4L * (ids.length + typeCodes.length + locationCodes.length + createdByCodes.length +
+                    customerIds.length + userIds.length + contactIds.length) +
+                    8L * (starts.length + ends.length + live.length) + index.memoryBytes();
+            return arrays + types.memoryBytes() + locations.memoryBytes() + createdBys.memoryBytes();
+        }
+
+        /**
+         * Makes room for more rows.
+         * @param capacity the number of rows to make room for
+         */
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            locationCodes = Arrays.copyOf(locationCodes, capacity);
+            createdByCodes = Arrays.copyOf(createdByCodes, capacity);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            contactIds = Arrays.copyOf(contactIds, capacity);
+            live = Arrays.copyOf(live, (capacity + 63) >>> 6);
+        }
+
+        /**
+         * Moves the live rows together, dropping the dead ones, and indexes them again.
+         */
+        private void compact() {
+            int kept = 0;
+            for (int at = 0; at < rows; at++) {
+                if ((live[at >>> 6] & 1L << at) == 0) {
+                    continue;
+                }
+                ids[kept] = ids[at];
+                starts[kept] = starts[at];
+                ends[kept] = ends[at];
+                typeCodes[kept] = typeCodes[at];
+                locationCodes[kept] = locationCodes[at];
+                createdByCodes[kept] = createdByCodes[at];
+                customerIds[kept] = customerIds[at];
+                userIds[kept] = userIds[at];
+                contactIds[kept] = contactIds[at];
+                kept++;
+            }
+            rows = kept;
+            Arrays.fill(live, 0);
+            index = new IdIndex(Math.max(initialCapacity, kept));
+            for (int at = 0; at < kept; at++) {
+                live[at >>> 6] |= 1L << at;
+                index.put(ids[at], at);
+            }
+        }
+    }
+
+    /**
+     * The distinct values of a text column, each given a code in the order it was first seen.
+     */
+    private static class Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         *
+         * @param value a value, or null
+         * @return the value's code, given one if it is new, or -1 for null
+         */
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        /**
+         *
+         * @param value a value
+         * @return the value's code, or -1 if no row has had it
+         */
+        int code(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        /**
+         *
+         * @param code a code
+         * @return the value with that code
+         */
+        String value(int code) {
+            return values.get(code);
+        }
+
+        /**
+         *
+         * @return the number of values
+         */
+        int size() {
+            return values.size();
+        }
+
+        /**
+         *
+         * @return roughly how many bytes of heap the values and the map to their codes take
+         */
+        long memoryBytes() {
+            long bytes = 0;
+            for (String value : values) {
+                bytes += 100 + 2L * value.length();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Finds the row holding an appointment ID: an open-addressing hash table of primitive ints, which takes a
+     * fraction of the heap a HashMap of boxed keys and values would.
+     */
+    private static class IdIndex {
+        private int[] keys;
+        private int[] rows;
+        private int size;
+
+        /**
+         *
+         * @param capacity the number of IDs to make room for
+         */
+        IdIndex(int capacity) {
+            int slots = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1) * 2;
+            keys = new int[slots];
+            rows = new int[slots];
+            Arrays.fill(rows, -1);
+        }
+
+        /**
+         *
+         * @param id an appointment ID
+         * @return the row holding it, or -1
+         */
+        int get(int id) {
+            int mask = keys.length - 1;
+            for (int slot = slot(id, mask); rows[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == id) {
+                    return rows[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Records the row holding an appointment ID that is not yet indexed.
+         * @param id the appointment ID
+         * @param row the row
+         */
+        void put(int id, int row) {
+            if ((size + 1) * 2 > keys.length) {
+                int[] oldKeys = keys;
+                int[] oldRows = rows;
+                keys = new int[oldKeys.length * 2];
+                rows = new int[oldKeys.length * 2];
+                Arrays.fill(rows, -1);
+                size = 0;
+                for (int slot = 0; slot < oldKeys.length; slot++) {
+                    if (oldRows[slot] >= 0) {
+                        put(oldKeys[slot], oldRows[slot]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = slot(id, mask);
+            while (rows[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = id;
+            rows[slot] = row;
+            size++;
+        }
+
+        /**
+         *
+         * @return how many bytes of heap the table takes
+         */
+        long memoryBytes() {
+            return 8L * keys.length;
+        }
+
+        /**
+         *
+         * @param id an appointment ID
+         * @param mask the number of slots less one
+         * @return the slot the search for the ID starts at
+         */
+        private static int slot(int id, int mask) {
+            int hash = id * 0x9E3779B9;
+            return (hash ^ hash >>> 16) & mask;
+        }
+    }
+
+    /**
+     * The columns of one appointment, as read from the database or passed to a listener.
+     */
+    private static class Row {
+        private final int appointmentId;
+        private final String type;
+        private final String location;
+        private final long start;
+        private final long end;
+        private final String createdBy;
+        private final int customerId;
+        private final int userId;
+        private final int contactId;
+        private final LocalDateTime lastUpdate;
+
+        /**
+         *
+         * @param appointmentId
+         * @param type
+         * @param location
+         * @param start
+         * @param end
+         * @param createdBy
+         * @param customerId
+         * @param userId
+         * @param contactId
+         * @param lastUpdate
+         */
+        Row(int appointmentId, String type, String location, long start, long end, String createdBy, int customerId,
+            int userId, int contactId, LocalDateTime lastUpdate) {
+            this.appointmentId = appointmentId;
+            this.type = type;
+            this.location = location;
+            this.start = start;
+            this.end = end;
+            this.createdBy = createdBy;
+            this.customerId = customerId;
+            this.userId = userId;
+            this.contactId = contactId;
+            this.lastUpdate = lastUpdate;
+        }
+
+        /**
+         *
+         * @param appointment an appointment passed to a listener, with its times in UTC
+         * @return its columns
+         */
+        static Row of(Appointment appointment) {
+            return new Row(appointment.getAppointmentId(), appointment.getType(), appointment.getLocation(),
+                    toEpochSecond(appointment.getStart()), toEpochSecond(appointment.getEnd()),
+                    appointment.getCreatedBy(), appointment.getCustomerId(), appointment.getUserId(),
+                    appointment.getContactId(), appointment.getLastUpdate());
+        }
+    }
+}
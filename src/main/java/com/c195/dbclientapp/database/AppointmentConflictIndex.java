@@ -0,0 +1,280 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.helper.IntervalTree;
+import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory index of appointment times used to detect scheduling conflicts. Appointments are kept in one interval
+ * tree per customer, per contact and per user, so finding the appointments that overlap a time slot costs
+ * O(log n + k) instead of a query and a scan of every appointment the customer has. A tree is loaded from the database
+ * the first time it is needed and is then kept up to date by listening to the changes made through AppointmentAccess.
+ * All times are the UTC start and end times stored in the database, and appointments conflict when their half-open
+ * [start, end) ranges overlap, so back-to-back appointments do not conflict.
+ */
+public class AppointmentConflictIndex implements AppointmentChangeListener {
+
+    private static final AppointmentConflictIndex instance = new AppointmentConflictIndex();
+
+    static {
+        AppointmentAccess.addChangeListener(instance);
+    }
+
+    private final Map<Integer, IntervalTree> byCustomer = new HashMap<>();
+    private final Map<Integer, IntervalTree> byContact = new HashMap<>();
+    private final Map<Integer, IntervalTree> byUser = new HashMap<>();
+
+    // The stored times and owners of every appointment held in any loaded tree, keyed by appointment ID
+    private final Map<Integer, IndexedAppointment> indexed = new HashMap<>();
+
+    /**
+     * The index is shared by the whole application; use getInstance.
+     */
+    private AppointmentConflictIndex() {}
+
+    /**
+     *
+     * @return the shared index, registered with AppointmentAccess
+     */
+    public static AppointmentConflictIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * Finds the customer's appointments that overlap the given time slot.
+     * @param customerId the customer to check
+     * @param startUtc the start of the slot, in UTC
+     * @param endUtc the end of the slot, in UTC
+     * @param excludeAppointmentId an appointment to ignore, such as the one being updated, or -1 for none
+     * @return the IDs of the overlapping appointments, empty if there is no conflict
+     * @throws SQLException if the customer's appointments have to be loaded and cannot be
+     */
+    public synchronized List<Integer> findCustomerConflicts(int customerId, LocalDateTime startUtc,
+                                                            LocalDateTime endUtc, int excludeAppointmentId)
+            throws SQLException {
+        return findConflicts(byCustomer, "Customer_ID", customerId, startUtc, endUtc, excludeAppointmentId);
+    }
+
+    /**
+     * Finds the contact's appointments that overlap the given time slot.
+     * @param contactId the contact to check
+     * @param startUtc the start of the slot, in UTC
+     * @param endUtc the end of the slot, in UTC
+     * @param excludeAppointmentId an appointment to ignore, such as the one being updated, or -1 for none
+     * @return the IDs of the overlapping appointments, empty if there is no conflict
+     * @throws SQLException if the contact's appointments have to be loaded and cannot be
+     */
+    public synchronized List<Integer> findContactConflicts(int contactId, LocalDateTime startUtc,
+                                                           LocalDateTime endUtc, int excludeAppointmentId)
+            throws SQLException {
+        return findConflicts(byContact, "Contact_ID", contactId, startUtc, endUtc, excludeAppointmentId);
+    }
+
+    /**
+     * Finds the user's appointments that overlap the given time slot.
+     * @param userId the user to check
+     * @param startUtc the start of the slot, in UTC
+     * @param endUtc the end of the slot, in UTC
+     * @param excludeAppointmentId an appointment to ignore, such as the one being updated, or -1 for none
+     * @return the IDs of the overlapping appointments, empty if there is no conflict
+     * @throws SQLException if the user's appointments have to be loaded and cannot be
+     */
+    public synchronized List<Integer> findUserConflicts(int userId, LocalDateTime startUtc, LocalDateTime endUtc,
+                                                        int excludeAppointmentId) throws SQLException {
+        return findConflicts(byUser, "User_ID", userId, startUtc, endUtc, excludeAppointmentId);
+    }
+
+    /**
+     * Drops every loaded tree, so each one is read from the database again when next needed.
+     */
+    public synchronized void clear() {
+        byCustomer.clear();
+        byContact.clear();
+        byUser.clear();
+        indexed.clear();
+    }
+
+    /**
+     * Adds the new appointment to the trees that are loaded for its customer, contact and user.
+     * @param appointment the new appointment, with the ID generated by the database
+     */
+    @Override
+    public synchronized void appointmentAdded(Appointment appointment) {
+        add(new IndexedAppointment(appointment));
+    }
+
+    /**
+     * Moves the appointment to its new times and owners in every loaded tree.
+     * @param before the appointment as it was stored before the update
+     * @param after the appointment as it is now stored
+     */
+    @Override
+    public synchronized void appointmentUpdated(Appointment before, Appointment after) {
+        remove(after.getAppointmentId());
+        add(new IndexedAppointment(after));
+    }
+
+    /**
+     * Removes the appointment from every loaded tree.
+     * @param before the appointment as it was stored before it was deleted
+     */
+    @Override
+    public synchronized void appointmentDeleted(Appointment before) {
+        remove(before.getAppointmentId());
+    }
+
+    /**
+     * Looks up the overlaps in one owner's tree, loading the tree first if needed.
+     */
+    private List<Integer> findConflicts(Map<Integer, IntervalTree> trees, String ownerColumn, int ownerId,
+                                        LocalDateTime startUtc, LocalDateTime endUtc, int excludeAppointmentId)
+            throws SQLException {
+        IntervalTree tree = trees.get(ownerId);
+        if (tree == null) {
+            tree = load(trees, ownerColumn, ownerId);
+        }
+        List<Integer> conflicts = new ArrayList<>();
+        tree.findOverlaps(toEpochSecond(startUtc), toEpochSecond(endUtc), excludeAppointmentId, conflicts);
+        return conflicts;
+    }
+
+    /**
+     * Reads one owner's appointments and builds their tree.
+     * @param trees the trees for the owner's kind
+     * @param ownerColumn the column naming the owner, Customer_ID, Contact_ID or User_ID
+     * @param ownerId the owner whose appointments should be read
+     * @return the loaded tree
+     * @throws SQLException if a database access error occurs
+     */
+    private IntervalTree load(Map<Integer, IntervalTree> trees, String ownerColumn, int ownerId)
+            throws SQLException {
+
+        // Create SQL select statement reading only the columns the index needs
+        String sql = "SELECT Appointment_ID, Start, End, Customer_ID, Contact_ID, User_ID" +
+                " FROM client_schedule.appointments WHERE " + ownerColumn + " = ?";
+
+        IntervalTree tree = new IntervalTree();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, ownerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    IndexedAppointment appointment = new IndexedAppointment(
+                            rs.getInt(1),
+                            toEpochSecond(RowDecoder.getLocalDateTime(rs, 2)),
+                            toEpochSecond(RowDecoder.getLocalDateTime(rs, 3)),
+                            rs.getInt(4),
+                            rs.getInt(5),
+                            rs.getInt(6)
+                    );
+                    tree.insert(appointment.start, appointment.end, appointment.appointmentId);
+
+                    // The appointment may already sit in another kind of tree under its current times
+                    indexed.put(appointment.appointmentId, appointment);
+                }
+            }
+        }
+        trees.put(ownerId, tree);
+        return tree;
+    }
+
+    /**
+     * Inserts an appointment into whichever of its trees are loaded. A tree that is not loaded yet will read the
+     * appointment from the database when it is.
+     */
+    private void add(IndexedAppointment appointment) {
+        remove(appointment.appointmentId);
+        boolean held = insertIfLoaded(byCustomer, appointment.customerId, appointment);
+        held |= insertIfLoaded(byContact, appointment.contactId, appointment);
+        held |= insertIfLoaded(byUser, appointment.userId, appointment);
+        if (held) {
+            indexed.put(appointment.appointmentId, appointment);
+        }
+    }
+
+    /**
+     * Removes an appointment from every loaded tree that holds it.
+     */
+    private void remove(int appointmentId) {
+        IndexedAppointment appointment = indexed.remove(appointmentId);
+        if (appointment == null) {
+            return;
+        }
+        removeIfLoaded(byCustomer, appointment.customerId, appointment);
+        removeIfLoaded(byContact, appointment.contactId, appointment);
+        removeIfLoaded(byUser, appointment.userId, appointment);
+    }
+
+    private static boolean insertIfLoaded(Map<Integer, IntervalTree> trees, int ownerId,
+                                          IndexedAppointment appointment) {
+        IntervalTree tree = trees.get(ownerId);
+        if (tree == null) {
+            return false;
+        }
+        tree.insert(appointment.start, appointment.end, appointment.appointmentId);
+        return true;
+    }
+
+    private static void removeIfLoaded(Map<Integer, IntervalTree> trees, int ownerId,
+                                       IndexedAppointment appointment) {
+        IntervalTree tree = trees.get(ownerId);
+        if (tree != null) {
+            tree.remove(appointment.start, appointment.appointmentId);
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime utc) {
+        return utc.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * The stored times and owners of an appointment held in the index.
+     */
+    private static class IndexedAppointment {
+        private final int appointmentId;
+        private final long start;
+        private final long end;
+        private final int customerId;
+        private final int contactId;
+        private final int userId;
+
+        /**
+         *
+         * @param appointmentId
+         * @param start
+         * @param end
+         * @param customerId
+         * @param contactId
+         * @param userId
+         */
+        IndexedAppointment(int appointmentId, long start, long end, int customerId, int contactId, int userId) {
+            this.appointmentId = appointmentId;
+            this.start = start;
+            this.end = end;
+            this.customerId = customerId;
+            this.contactId = contactId;
+            this.userId = userId;
+        }
+
+        /**
+         *
+         * @param appointment an appointment whose start and end times are in UTC
+         */
+        IndexedAppointment(Appointment appointment) {
+            this(appointment.getAppointmentId(), toEpochSecond(appointment.getStart()),
+                    toEpochSecond(appointment.getEnd()), appointment.getCustomerId(), appointment.getContactId(),
+                    appointment.getUserId());
+        }
+    }
+}
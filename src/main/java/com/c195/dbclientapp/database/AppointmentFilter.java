@@ -0,0 +1,146 @@
+package com.c195.dbclientapp.database;
+
+import java.time.LocalDateTime;
+
+/**
+ * The conditions AppointmentColumnStore queries and AppointmentAccess.exportAppointments select appointments by.
+ * Every condition left unset matches every appointment, and an appointment must meet all the conditions that are set.
+ */
+public class AppointmentFilter {
+    private LocalDateTime startFromUtc;
+    private LocalDateTime startToUtc;
+    private String type;
+    private String location;
+    private String createdBy;
+    private Integer customerId;
+    private Integer userId;
+    private Integer contactId;
+
+    /**
+     *
+     * @return the earliest start time selected, in UTC, or null
+     */
+    public LocalDateTime getStartFromUtc() {
+        return startFromUtc;
+    }
+
+    /**
+     *
+     * @param startFromUtc the earliest start time selected, in UTC, or null for no lower bound
+     */
+    public void setStartFromUtc(LocalDateTime startFromUtc) {
+        this.startFromUtc = startFromUtc;
+    }
+
+    /**
+     *
+     * @return the start time before which appointments are selected, in UTC, or null
+     */
+    public LocalDateTime getStartToUtc() {
+        return startToUtc;
+    }
+
+    /**
+     *
+     * @param startToUtc the start time before which appointments are selected, in UTC, or null for no upper bound
+     */
+    public void setStartToUtc(LocalDateTime startToUtc) {
+        this.startToUtc = startToUtc;
+    }
+
+    /**
+     *
+     * @return the type selected, or null
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     *
+     * @param type the type selected, or null for every type
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     *
+     * @return the location selected, or null
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     *
+     * @param location the location selected, or null for every location
+     */
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    /**
+     *
+     * @return the user name of the creator selected, or null
+     */
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    /**
+     *
+     * @param createdBy the user name of the creator selected, or null for every creator
+     */
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    /**
+     *
+     * @return the customer ID selected, or null
+     */
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     *
+     * @param customerId the customer ID selected, or null for every customer
+     */
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    /**
+     *
+     * @return the user ID selected, or null
+     */
+    public Integer getUserId() {
+        return userId;
+    }
+
+    /**
+     *
+     * @param userId the user ID selected, or null for every user
+     */
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    /**
+     *
+     * @return the contact ID selected, or null
+     */
+    public Integer getContactId() {
+        return contactId;
+    }
+
+    /**
+     *
+     * @param contactId the contact ID selected, or null for every contact
+     */
+    public void setContactId(Integer contactId) {
+        this.contactId = contactId;
+    }
+}
@@ -0,0 +1,285 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Appointment;
+import com.c195.dbclientapp.model.MonthReport;
+import com.c195.dbclientapp.model.TypeReport;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The appointment counts behind the type and month reports, kept in memory so the Reports screen reads one entry per
+ * group instead of grouping every appointment. The counts are read from the database the first time they are needed
+ * and are then kept up to date by listening to the changes made through AppointmentAccess. Changes made by other
+ * clients are picked up by reconciling with the database when the counts are read and the last reconciliation is
+ * older than -Ddbclientapp.reports.reconcile.minutes, 10 minutes by default; a difference found then is printed as an
+ * error. Months are the calendar months of the UTC start times, as stored, counted separately for each year.
+ */
+public class AppointmentReportAggregates implements AppointmentChangeListener {
+
+    // System property read when the class is first used
+    public static final String reconcileProperty = "dbclientapp.reports.reconcile.minutes";
+
+    private static final long reconcileNanos = TimeUnit.MINUTES.toNanos(Long.getLong(reconcileProperty, 10));
+
+    private static final AppointmentReportAggregates instance = new AppointmentReportAggregates();
+
+    static {
+        AppointmentAccess.addChangeListener(instance);
+    }
+
+    // Appointments per type, and per month as year * 12 + month - 1
+    private Map<String, Integer> countsByType = new HashMap<>();
+    private TreeMap<Integer, Integer> countsByMonth = new TreeMap<>();
+
+    private boolean loaded = false;
+    private boolean reconciling = false;
+    private long reconciledAt;
+
+    // Incremented by every change, so a reconciliation can tell whether changes were made while it read
+    private long changeCount;
+
+    /**
+     * The aggregates are shared by the whole application; use getInstance.
+     */
+    private AppointmentReportAggregates() {}
+
+    /**
+     *
+     * @return the shared aggregates, registered with AppointmentAccess
+     */
+    public static AppointmentReportAggregates getInstance() {
+        return instance;
+    }
+
+    /**
+     * Lists the number of appointments of each type, ordered by type.
+     * @return an ObservableList of TypeReport objects
+     * @throws SQLException if the counts have to be read or reconciled and cannot be
+     */
+    public ObservableList<TypeReport> getTypeReports() throws SQLException {
+        reconcileIfDue();
+        synchronized (this) {
+            ObservableList<TypeReport> typeReports = FXCollections.observableArrayList();
+            new TreeMap<>(countsByType).forEach((type, total) -> typeReports.add(new TypeReport(total, type)));
+            return typeReports;
+        }
+    }
+
+    /**
+     * Lists the number of appointments starting in each month, such as "January 2024", oldest first.
+     * @return an ObservableList of MonthReport objects
+     * @throws SQLException if the counts have to be read or reconciled and cannot be
+     */
+    public ObservableList<MonthReport> getMonthReports() throws SQLException {
+        reconcileIfDue();
+        synchronized (this) {
+            ObservableList<MonthReport> monthReports = FXCollections.observableArrayList();
+            countsByMonth.forEach((month, total) -> monthReports.add(new MonthReport(monthName(month), total)));
+            return monthReports;
+        }
+    }
+
+    /**
+     * Reads the counts from the database, replacing those held. Counts that differ from the ones held are printed as an
+     * error, as they mean the database was changed by something other than AppointmentAccess.
+     * @throws SQLException if a database access error occurs
+     */
+    public void reconcile() throws SQLException {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changeCount;
+        }
+
+        // Read outside the lock so changes made meanwhile are not held up by the queries
+        Map<String, Integer> types = readTypeCounts();
+        TreeMap<Integer, Integer> months = readMonthCounts();
+
+        synchronized (this) {
+            if (loaded) {
+                int differing = countDiffering(countsByType, types) + countDiffering(countsByMonth, months);
+                if (differing > 0) {
+                    System.out.println("Error:Report aggregates corrected, " + differing +
+                            " groups differed from the database");
+                }
+            }
+            countsByType = types;
+            countsByMonth = months;
+            loaded = true;
+
+            // A change made while reading may be counted twice or not at all, so reconcile again on the next read
+            reconciledAt = changeCount == changesBefore ? System.nanoTime() : System.nanoTime() - reconcileNanos;
+        }
+    }
+
+    /**
+     * Counts the new appointment.
+     * @param appointment the new appointment, with the ID generated by the database
+     */
+    @Override
+    public synchronized void appointmentAdded(Appointment appointment) {
+        changeCount++;
+        count(appointment, 1);
+    }
+
+    /**
+     * Moves the appointment from the groups of its old type and month to those of its new ones.
+     * @param before the appointment as it was stored before the update
+     * @param after the appointment as it is now stored
+     */
+    @Override
+    public synchronized void appointmentUpdated(Appointment before, Appointment after) {
+        changeCount++;
+        count(before, -1);
+        count(after, 1);
+    }
+
+    /**
+     * Stops counting the deleted appointment.
+     * @param before the appointment as it was stored before it was deleted
+     */
+    @Override
+    public synchronized void appointmentDeleted(Appointment before) {
+        changeCount++;
+        count(before, -1);
+    }
+
+    /**
+     * Reads the counts if they have not been read yet or were last reconciled too long ago. Only one thread reads at
+     * a time: the type and month reports are loaded together, so until the counts have first been read the other
+     * waits for them, and after that it answers from the counts held while they are reconciled.
+     * @throws SQLException if a database access error occurs
+     */
+    private void reconcileIfDue() throws SQLException {
+        synchronized (this) {
+            while (reconciling && !loaded) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while the report counts were read", e);
+                }
+            }
+            if (reconciling || loaded && System.nanoTime() - reconciledAt < reconcileNanos) {
+                return;
+            }
+            reconciling = true;
+        }
+        try {
+            reconcile();
+        } finally {
+            synchronized (this) {
+                reconciling = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Adds an appointment to, or takes it from, the counts of its type and month, if the counts have been read.
+     * @param appointment the appointment, with its times in UTC
+     * @param delta 1 to add, -1 to take away
+     */
+    private void count(Appointment appointment, int delta) {
+        if (!loaded) {
+            return;
+        }
+        if (appointment.getType() != null) {
+            countsByType.merge(appointment.getType(), delta, (total, change) -> total + change == 0 ? null
+                    : total + change);
+        }
+        LocalDateTime start = appointment.getStart();
+        if (start != null) {
+            countsByMonth.merge(start.getYear() * 12 + start.getMonthValue() - 1, delta,
+                    (total, change) -> total + change == 0 ? null : total + change);
+        }
+    }
+
+    /**
+     *
+     * @param month a month as year * 12 + month - 1
+     * @return the month's name and year, such as "January 2024"
+     */
+    private static String monthName(int month) {
+        return Month.of(month % 12 + 1).getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + month / 12;
+    }
+
+    /**
+     *
+     * @param held the counts held
+     * @param read the counts read from the database
+     * @param <K> the type of group
+     * @return the number of groups whose counts differ, counting a group missing from either as differing
+     */
+    private static <K> int countDiffering(Map<K, Integer> held, Map<K, Integer> read) {
+        int differing = 0;
+        for (Map.Entry<K, Integer> entry : held.entrySet()) {
+            if (!entry.getValue().equals(read.get(entry.getKey()))) {
+                differing++;
+            }
+        }
+        for (K group : read.keySet()) {
+            if (!held.containsKey(group)) {
+                differing++;
+            }
+        }
+        return differing;
+    }
+
+    /**
+     * Reads the number of appointments of each type.
+     * @return the counts by type
+     * @throws SQLException if a database access error occurs
+     */
+    private static Map<String, Integer> readTypeCounts() throws SQLException {
+
+        // Create SQL select statement
+        String sql = "SELECT Type, COUNT(*) AS Total FROM client_schedule.appointments" +
+                " WHERE Type IS NOT NULL GROUP BY Type";
+
+        Map<String, Integer> counts = new HashMap<>();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getInt(2));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Reads the number of appointments starting in each month of each year.
+     * @return the counts by month, as year * 12 + month - 1
+     * @throws SQLException if a database access error occurs
+     */
+    private static TreeMap<Integer, Integer> readMonthCounts() throws SQLException {
+
+        // Create SQL select statement
+        String sql = "SELECT YEAR(Start), MONTH(Start), COUNT(*)" +
+                " FROM client_schedule.appointments WHERE Start IS NOT NULL GROUP BY YEAR(Start), MONTH(Start)";
+
+        TreeMap<Integer, Integer> counts = new TreeMap<>();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getInt(1) * 12 + rs.getInt(2) - 1, rs.getInt(3));
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,865 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The AppointmentRollups class keeps the appointment_rollups summary table of sql/rollups.sql: the number of
+ * appointments starting in each UTC hour, day and month, by type, contact, user and customer and in total. A report
+ * over a date range then reads whole months, whole days at either end of them and whole hours at either end of those,
+ * a few hundred rollup rows at most for each value reported, instead of every appointment in the range.
+ * <p>
+ * A catch-up job, started with the application, applies the appointments changed since its last pass in
+ * (Last_Update, Appointment_ID) order, every minute by default and straight after a change made through
+ * AppointmentAccess. What each appointment was counted as is kept in appointment_rollup_rows, so a change is taken out
+ * of the buckets it was counted in and reading an appointment again changes nothing. Last_Update is written by the
+ * clients, so changes stamped up to -Ddbclientapp.rollups.overlap.minutes, 5 by default, before the previous pass
+ * started are read again in case a slow commit or another client's clock put them behind it. Deleted appointments
+ * leave nothing to read: those deleted through AppointmentAccess are taken out on the next pass, and once an hour the
+ * job looks for any others. The first pass builds the table from every appointment, and setting Watermark to NULL in
+ * rollup_state has the next pass read every appointment again. A pass locks the rollup_state row while it applies
+ * each chunk, so clients running the job at the same time take turns.
+ */
+public class AppointmentRollups implements AppointmentChangeListener {
+
+    // System properties read when the job starts
+    public static final String catchUpMinutesProperty = "dbclientapp.rollups.catchup.minutes";
+    public static final String overlapMinutesProperty = "dbclientapp.rollups.overlap.minutes";
+
+    // Bucket sizes, as stored in the Granularity column
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+    public static final String MONTH = "MONTH";
+
+    // What appointments are counted by, as stored in the Dimension column; ALL counts every appointment under ""
+    public static final String ALL = "all";
+    public static final String TYPE = "type";
+    public static final String CONTACT = "contact";
+    public static final String USER = "user";
+    public static final String CUSTOMER = "customer";
+
+    private static final long defaultCatchUpMinutes = 1;
+    private static final long defaultOverlapMinutes = 5;
+
+    // Appointments applied per transaction, and deleted IDs looked up per query
+    private static final int chunkSize = 5000;
+    private static final int deletedGroupSize = 1000;
+
+    private static final long sweepNanos = TimeUnit.HOURS.toNanos(1);
+    private static final String stateName = "appointments";
+
+    // Before any start time or Last_Update, and before any ID
+    private static final LocalDateTime minDateTime = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final int minId = Integer.MIN_VALUE;
+
+    // SQLState of a missing table, when sql/rollups.sql has not been applied
+    private static final String tableNotFoundState = "42S02";
+
+    // Each appointment with what it was last counted as, if anything
+    private static final String changeColumns = "SELECT a.Appointment_ID, a.Start, a.Type, a.Contact_ID, a.User_ID," +
+            " a.Customer_ID, a.Last_Update, r.Appointment_ID, r.Start, r.Type, r.Contact_ID, r.User_ID, r.Customer_ID" +
+            " FROM client_schedule.appointments a LEFT JOIN client_schedule.appointment_rollup_rows r" +
+            " ON r.Appointment_ID = a.Appointment_ID";
+    private static final String buildSql = changeColumns +
+            " WHERE a.Start > ? OR (a.Start = ? AND a.Appointment_ID > ?) ORDER BY a.Start, a.Appointment_ID LIMIT ?";
+    private static final String changesSql = changeColumns +
+            " WHERE a.Last_Update > ? OR (a.Last_Update = ? AND a.Appointment_ID > ?)" +
+            " ORDER BY a.Last_Update, a.Appointment_ID LIMIT ?";
+    private static final String deletedSql = "SELECT r.Appointment_ID, r.Start, r.Type, r.Contact_ID, r.User_ID," +
+            " r.Customer_ID FROM client_schedule.appointment_rollup_rows r LEFT JOIN client_schedule.appointments a" +
+            " ON a.Appointment_ID = r.Appointment_ID WHERE a.Appointment_ID IS NULL";
+
+    private static final String addRollupSql = "INSERT INTO client_schedule.appointment_rollups" +
+            " (Granularity, Dimension, Bucket_Start, Dimension_Value, Total) VALUES (?, ?, ?, ?, ?)" +
+            " ON DUPLICATE KEY UPDATE Total = Total + VALUES(Total)";
+    private static final String deleteEmptyRollupSql = "DELETE FROM client_schedule.appointment_rollups" +
+            " WHERE Granularity = ? AND Dimension = ? AND Bucket_Start = ? AND Dimension_Value = ? AND Total = 0";
+    private static final String storeCountedSql = "INSERT INTO client_schedule.appointment_rollup_rows" +
+            " (Appointment_ID, Start, Type, Contact_ID, User_ID, Customer_ID) VALUES (?, ?, ?, ?, ?, ?)" +
+            " ON DUPLICATE KEY UPDATE Start = VALUES(Start), Type = VALUES(Type), Contact_ID = VALUES(Contact_ID)," +
+            " User_ID = VALUES(User_ID), Customer_ID = VALUES(Customer_ID)";
+    private static final String forgetCountedSql = "DELETE FROM client_schedule.appointment_rollup_rows" +
+            " WHERE Appointment_ID = ?";
+
+    private static final AppointmentRollups instance = new AppointmentRollups();
+
+    // Held while a pass runs, apart from the lock on starting and stopping so listeners are never kept waiting
+    private final Object passLock = new Object();
+    private final AtomicBoolean catchUpRequested = new AtomicBoolean();
+    private final Set<Integer> deletedIds = new HashSet<>();
+
+    private volatile ScheduledExecutorService scheduler;
+    private long overlapMinutes = defaultOverlapMinutes;
+    private boolean swept = false;
+    private long sweptAt;
+
+    /**
+     * The rollups are shared by the whole application; use getInstance.
+     */
+    private AppointmentRollups() {}
+
+    /**
+     *
+     * @return the shared rollups
+     */
+    public static AppointmentRollups getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts the catch-up job, which makes its first pass at once, and listens for appointment changes. The job is not
+     * started if -Ddbclientapp.rollups.catchup.minutes is 0.
+     */
+    public synchronized void start() {
+        long catchUpMinutes = Long.getLong(catchUpMinutesProperty, defaultCatchUpMinutes);
+        if (scheduler != null || catchUpMinutes <= 0) {
+            return;
+        }
+        overlapMinutes = Math.max(0, Long.getLong(overlapMinutesProperty, defaultOverlapMinutes));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-rollups");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AppointmentAccess.addChangeListener(this);
+        scheduler.scheduleWithFixedDelay(this::runCatchUp, 0, catchUpMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the catch-up job. A pass that is running is interrupted and its current chunk rolled back, to be applied
+     * again by the next pass. Called when the application exits.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            AppointmentAccess.removeChangeListener(this);
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Applies every appointment changed or deleted since the last pass, or builds the rollups from every appointment
+     * if they have never been built.
+     * @return the number of appointments whose counts changed
+     * @throws SQLException if a database access error occurs
+     */
+    public int catchUp() throws SQLException {
+        synchronized (passLock) {
+            LocalDateTime passStartedAt = LocalDateTime.now(ZoneOffset.UTC);
+            int applied = 0;
+
+            List<Integer> deleted;
+            synchronized (deletedIds) {
+                deleted = new ArrayList<>(deletedIds);
+                deletedIds.clear();
+            }
+            try {
+                for (int from = 0; from < deleted.size(); from += deletedGroupSize) {
+                    applied += removeDeleted(deleted.subList(from, Math.min(deleted.size(), from + deletedGroupSize)));
+                }
+            } catch (SQLException e) {
+                synchronized (deletedIds) {
+                    deletedIds.addAll(deleted);
+                }
+                throw e;
+            }
+            if (!swept || System.nanoTime() - sweptAt >= sweepNanos) {
+                applied += removeDeleted(null);
+                swept = true;
+                sweptAt = System.nanoTime();
+            }
+
+            State state;
+            try (Connection connection = JDBC.getConnection()) {
+                state = readState(connection, false);
+            }
+            if (state.watermark == null) {
+                applied += build();
+            } else {
+                // Changes stamped after the previous pass started minus the overlap are read again
+                LocalDateTime reread = (state.checkedAt == null ? passStartedAt : state.checkedAt)
+                        .minusMinutes(overlapMinutes);
+                applied += state.watermark.isBefore(reread)
+                        ? applyPass(changesSql, state.watermark, state.watermarkId, true)
+                        : applyPass(changesSql, reread, minId, true);
+            }
+            markChecked(passStartedAt);
+            return applied;
+        }
+    }
+
+    /**
+     * Counts the appointments starting in a range by one dimension.
+     * @param dimension TYPE, CONTACT, USER, CUSTOMER or ALL
+     * @param fromUtc the start of the range, in UTC, widened to the start of its hour
+     * @param toUtc the end of the range, exclusive, in UTC, widened to the end of its hour
+     * @return the number of appointments for each value of the dimension, such as each type, ordered by value
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Integer> getTotals(String dimension, LocalDateTime fromUtc, LocalDateTime toUtc)
+            throws SQLException {
+        Map<String, Integer> totals = new TreeMap<>();
+        read(dimension, fromUtc, toUtc, (bucketStart, value, total) -> totals.merge(value, total, Integer::sum));
+        return totals;
+    }
+
+    /**
+     * Counts the appointments starting in each month of a range.
+     * @param fromUtc the start of the range, in UTC, widened to the start of its hour
+     * @param toUtc the end of the range, exclusive, in UTC, widened to the end of its hour
+     * @return the number of appointments for each month with any, by the first day of the month, oldest first
+     * @throws SQLException if a database access error occurs
+     */
+    public TreeMap<LocalDateTime, Integer> getMonthTotals(LocalDateTime fromUtc, LocalDateTime toUtc)
+            throws SQLException {
+        TreeMap<LocalDateTime, Integer> totals = new TreeMap<>();
+        read(ALL, fromUtc, toUtc, (bucketStart, value, total) -> totals.merge(monthStart(bucketStart), total,
+                Integer::sum));
+        return totals;
+    }
+
+    /**
+     * Takes the deleted appointment out of the rollups on the next pass, which is requested at once.
+     * @param before the appointment as it was stored before it was deleted
+     */
+    @Override
+    public void appointmentDeleted(Appointment before) {
+        synchronized (deletedIds) {
+            deletedIds.add(before.getAppointmentId());
+        }
+        requestCatchUp();
+    }
+
+    /**
+     * Requests a pass, which reads the new appointment by its Last_Update.
+     * @param appointment the new appointment
+     */
+    @Override
+    public void appointmentAdded(Appointment appointment) {
+        requestCatchUp();
+    }
+
+    /**
+     * Requests a pass, which reads the updated appointment by its Last_Update.
+     * @param before the appointment as it was stored before the update
+     * @param after the appointment as it is now stored
+     */
+    @Override
+    public void appointmentUpdated(Appointment before, Appointment after) {
+        requestCatchUp();
+    }
+
+    /**
+     * Runs a pass on the job's thread, unless one is already waiting to run.
+     */
+    private void requestCatchUp() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && catchUpRequested.compareAndSet(false, true)) {
+            try {
+                current.execute(() -> {
+                    catchUpRequested.set(false);
+                    runCatchUp();
+                });
+            } catch (RejectedExecutionException e) {
+                // The application is exiting
+                catchUpRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Makes a pass for the job, printing any error. If the rollup tables do not exist the job is stopped.
+     */
+    private void runCatchUp() {
+        try {
+            catchUp();
+        } catch (SQLException e) {
+            if (tableNotFoundState.equals(e.getSQLState())) {
+                System.out.println("Rollups disabled, apply sql/rollups.sql to keep them: " + e.getMessage());
+                stop();
+            } else {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Builds the rollups from every appointment with a start time, in start order so that each chunk fills few
+     * buckets, and then sets the watermark to the newest change made before the build began. Anything changed during
+     * the build is read by the next pass.
+     * @return the number of appointments whose counts changed
+     * @throws SQLException if a database access error occurs
+     */
+    private int build() throws SQLException {
+        LocalDateTime newest = minDateTime;
+        int newestId = minId;
+
+        // Create SQL select statement
+        String sql = "SELECT Last_Update, Appointment_ID FROM client_schedule.appointments" +
+                " WHERE Last_Update IS NOT NULL ORDER BY Last_Update DESC, Appointment_ID DESC LIMIT 1";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                newest = RowDecoder.getLocalDateTime(rs, 1);
+                newestId = rs.getInt(2);
+            }
+        }
+
+        int applied = applyPass(buildSql, minDateTime, minId, false);
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                readState(connection, true);
+                advanceWatermark(connection, newest, newestId);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Reads appointments in keyset order from a position, a chunk per transaction, and applies each to the rollups.
+     * @param sql buildSql or changesSql
+     * @param fromKey the key the appointments are read after, a start time or a Last_Update
+     * @param fromId the appointment ID the appointments are read after, among those with fromKey
+     * @param advance true to move the watermark past each chunk
+     * @return the number of appointments whose counts changed
+     * @throws SQLException if a database access error occurs
+     */
+    private int applyPass(String sql, LocalDateTime fromKey, int fromId, boolean advance) throws SQLException {
+        LocalDateTime key = fromKey;
+        int id = fromId;
+        int applied = 0;
+        while (true) {
+            int read = 0;
+            try (Connection connection = JDBC.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    readState(connection, true);
+                    List<Counted> before = new ArrayList<>();
+                    List<Counted> after = new ArrayList<>();
+                    LocalDateTime lastUpdate = null;
+                    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                        ps.setObject(1, key);
+                        ps.setObject(2, key);
+                        ps.setInt(3, id);
+                        ps.setInt(4, chunkSize);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                Counted now = readCounted(rs, 1);
+                                lastUpdate = RowDecoder.getLocalDateTime(rs, 7);
+                                before.add(rs.getObject(8) == null ? null : readCounted(rs, 8));
+                                after.add(now);
+                                key = advance ? lastUpdate : now.start;
+                                id = now.appointmentId;
+                                read++;
+                            }
+                        }
+                    }
+                    applied += apply(connection, before, after);
+                    if (advance && read > 0) {
+                        advanceWatermark(connection, lastUpdate, id);
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+            if (read < chunkSize) {
+                return applied;
+            }
+        }
+    }
+
+    /**
+     * Takes deleted appointments out of the rollups.
+     * @param ids the IDs of appointments deleted through AppointmentAccess, or null to look for every deleted one
+     * @return the number of appointments taken out
+     * @throws SQLException if a database access error occurs
+     */
+    private int removeDeleted(List<Integer> ids) throws SQLException {
+        String sql = ids == null ? deletedSql : deletedSql + " AND r.Appointment_ID IN (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                readState(connection, true);
+                List<Counted> before = new ArrayList<>();
+                List<Counted> after = new ArrayList<>();
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    for (int i = 0; ids != null && i < ids.size(); i++) {
+                        ps.setInt(i + 1, ids.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            before.add(readCounted(rs, 1));
+                            after.add(null);
+                        }
+                    }
+                }
+                int applied = apply(connection, before, after);
+                connection.commit();
+                return applied;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Moves appointments from the buckets they were counted in to the buckets they belong in now, and records what
+     * they are now counted as. Appointments counted as they are now are left alone.
+     * @param connection the connection whose transaction the changes are written in
+     * @param before what each appointment was counted as, or null if it was not counted
+     * @param after what each appointment is now, or null if it has been deleted
+     * @return the number of appointments whose counts changed
+     * @throws SQLException if a database access error occurs
+     */
+    private static int apply(Connection connection, List<Counted> before, List<Counted> after) throws SQLException {
+        Map<RollupKey, Integer> deltas = new HashMap<>();
+        List<Counted> stored = new ArrayList<>();
+        List<Counted> forgotten = new ArrayList<>();
+        for (int i = 0; i < before.size(); i++) {
+            Counted old = before.get(i);
+            Counted now = after.get(i);
+            if (old != null && old.sameAs(now)) {
+                continue;
+            }
+            if (old != null) {
+                count(deltas, old, -1);
+            }
+            if (now != null) {
+                count(deltas, now, 1);
+                stored.add(now);
+            } else {
+                forgotten.add(old);
+            }
+        }
+        if (stored.isEmpty() && forgotten.isEmpty()) {
+            return 0;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(storeCountedSql)) {
+            for (Counted counted : stored) {
+                ps.setInt(1, counted.appointmentId);
+                ps.setObject(2, counted.start);
+                ps.setString(3, counted.type);
+                ps.setObject(4, counted.contactId);
+                ps.setObject(5, counted.userId);
+                ps.setObject(6, counted.customerId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(forgetCountedSql)) {
+            for (Counted counted : forgotten) {
+                ps.setInt(1, counted.appointmentId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // Buckets that lost appointments and are left empty are removed
+        List<RollupKey> shrunk = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(addRollupSql)) {
+            for (Map.Entry<RollupKey, Integer> delta : deltas.entrySet()) {
+                if (delta.getValue() == 0) {
+                    continue;
+                }
+                delta.getKey().bind(ps);
+                ps.setInt(5, delta.getValue());
+                ps.addBatch();
+                if (delta.getValue() < 0) {
+                    shrunk.add(delta.getKey());
+                }
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(deleteEmptyRollupSql)) {
+            for (RollupKey key : shrunk) {
+                key.bind(ps);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return stored.size() + forgotten.size();
+    }
+
+    /**
+     * Adds an appointment's contribution to every bucket it falls in, or takes it away.
+     * @param deltas the change to each bucket
+     * @param counted the appointment
+     * @param delta 1 to add, -1 to take away
+     */
+    private static void count(Map<RollupKey, Integer> deltas, Counted counted, int delta) {
+        if (counted.start == null) {
+            return;
+        }
+        LocalDateTime hour = counted.start.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime day = counted.start.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime month = monthStart(counted.start);
+        String[] dimensions = {ALL, TYPE, CONTACT, USER, CUSTOMER};
+        String[] values = {"", counted.type, toValue(counted.contactId), toValue(counted.userId),
+                toValue(counted.customerId)};
+        for (int i = 0; i < dimensions.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            deltas.merge(new RollupKey(HOUR, dimensions[i], hour, values[i]), delta, Integer::sum);
+            deltas.merge(new RollupKey(DAY, dimensions[i], day, values[i]), delta, Integer::sum);
+            deltas.merge(new RollupKey(MONTH, dimensions[i], month, values[i]), delta, Integer::sum);
+        }
+    }
+
+    /**
+     * Reads the rollup rows that together cover a range: whole months, whole days at either end of them and whole
+     * hours at either end of those.
+     * @param dimension the dimension to read
+     * @param fromUtc the start of the range, in UTC
+     * @param toUtc the end of the range, exclusive, in UTC
+     * @param rows receives each rollup row
+     * @throws SQLException if a database access error occurs
+     */
+    private static void read(String dimension, LocalDateTime fromUtc, LocalDateTime toUtc, RollupRowConsumer rows)
+            throws SQLException {
+        // Create SQL select statement, run once per piece so each reads one range of the primary key
+        String sql = "SELECT Bucket_Start, Dimension_Value, Total FROM client_schedule.appointment_rollups" +
+                " WHERE Granularity = ? AND Dimension = ? AND Bucket_Start >= ? AND Bucket_Start < ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (Piece piece : cover(fromUtc, toUtc)) {
+                ps.setString(1, piece.granularity);
+                ps.setString(2, dimension);
+                ps.setObject(3, piece.from);
+                ps.setObject(4, piece.to);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows.accept(RowDecoder.getLocalDateTime(rs, 1), rs.getString(2), rs.getInt(3));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a range into the fewest buckets that cover it, widening it to whole hours.
+     * @param fromUtc the start of the range
+     * @param toUtc the end of the range, exclusive
+     * @return the pieces, each a run of buckets of one granularity
+     */
+    private static List<Piece> cover(LocalDateTime fromUtc, LocalDateTime toUtc) {
+        List<Piece> pieces = new ArrayList<>();
+        LocalDateTime from = fromUtc.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = toUtc.truncatedTo(ChronoUnit.HOURS);
+        if (to.isBefore(toUtc)) {
+            to = to.plusHours(1);
+        }
+        if (!from.isBefore(to)) {
+            return pieces;
+        }
+
+        LocalDateTime dayFrom = from.truncatedTo(ChronoUnit.DAYS);
+        if (dayFrom.isBefore(from)) {
+            dayFrom = dayFrom.plusDays(1);
+        }
+        LocalDateTime dayTo = to.truncatedTo(ChronoUnit.DAYS);
+        if (!dayFrom.isBefore(dayTo)) {
+            addPiece(pieces, HOUR, from, to);
+            return pieces;
+        }
+        addPiece(pieces, HOUR, from, dayFrom);
+        addPiece(pieces, HOUR, dayTo, to);
+
+        LocalDateTime monthFrom = monthStart(dayFrom);
+        if (monthFrom.isBefore(dayFrom)) {
+            monthFrom = monthFrom.plusMonths(1);
+        }
+        LocalDateTime monthTo = monthStart(dayTo);
+        if (!monthFrom.isBefore(monthTo)) {
+            addPiece(pieces, DAY, dayFrom, dayTo);
+            return pieces;
+        }
+        addPiece(pieces, DAY, dayFrom, monthFrom);
+        addPiece(pieces, DAY, monthTo, dayTo);
+        addPiece(pieces, MONTH, monthFrom, monthTo);
+        return pieces;
+    }
+
+    /**
+     * Adds a piece to a cover unless it is empty.
+     * @param pieces the pieces so far
+     * @param granularity the size of the piece's buckets
+     * @param from the start of the piece
+     * @param to the end of the piece, exclusive
+     */
+    private static void addPiece(List<Piece> pieces, String granularity, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            pieces.add(new Piece(granularity, from, to));
+        }
+    }
+
+    /**
+     * Reads the catch-up state, locking its row for the rest of the transaction if asked.
+     * @param connection the connection to read on
+     * @param lock true to lock the row, which makes other clients' passes wait
+     * @return the state
+     * @throws SQLException if the row is missing or a database access error occurs
+     */
+    private static State readState(Connection connection, boolean lock) throws SQLException {
+
+        // Create SQL select statement
+        String sql = "SELECT Watermark, Watermark_ID, Checked_At FROM client_schedule.rollup_state WHERE Name = ?" +
+                (lock ? " FOR UPDATE" : "");
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, stateName);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("rollup_state has no row named " + stateName);
+                }
+                return new State(RowDecoder.getLocalDateTime(rs, 1), rs.getInt(2),
+                        RowDecoder.getLocalDateTime(rs, 3));
+            }
+        }
+    }
+
+    /**
+     * Moves the watermark forward to an appointment, unless it is already past it.
+     * @param connection the connection whose transaction holds the state row
+     * @param lastUpdate the appointment's Last_Update
+     * @param appointmentId the appointment's ID
+     * @throws SQLException if a database access error occurs
+     */
+    private static void advanceWatermark(Connection connection, LocalDateTime lastUpdate, int appointmentId)
+            throws SQLException {
+        String sql = "UPDATE client_schedule.rollup_state SET Watermark = ?, Watermark_ID = ? WHERE Name = ?" +
+                " AND (Watermark IS NULL OR Watermark < ? OR (Watermark = ? AND Watermark_ID < ?))";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setObject(1, lastUpdate);
+            ps.setInt(2, appointmentId);
+            ps.setString(3, stateName);
+            ps.setObject(4, lastUpdate);
+            ps.setObject(5, lastUpdate);
+            ps.setInt(6, appointmentId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Records when the pass that has just finished started, which sets how far back the next pass reads again.
+     * @param passStartedAt the UTC time the pass started
+     * @throws SQLException if a database access error occurs
+     */
+    private static void markChecked(LocalDateTime passStartedAt) throws SQLException {
+        String sql = "UPDATE client_schedule.rollup_state SET Checked_At = ? WHERE Name = ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setObject(1, passStartedAt);
+            ps.setString(2, stateName);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads the counted columns of an appointment, which are in the order of appointment_rollup_rows.
+     * @param rs the result set positioned on a row
+     * @param first the index of the Appointment_ID column
+     * @return what the appointment is counted as
+     * @throws SQLException if a column cannot be read
+     */
+    private static Counted readCounted(ResultSet rs, int first) throws SQLException {
+        return new Counted(rs.getInt(first), RowDecoder.getLocalDateTime(rs, first + 1), rs.getString(first + 2),
+                (Integer) rs.getObject(first + 3), (Integer) rs.getObject(first + 4),
+                (Integer) rs.getObject(first + 5));
+    }
+
+    /**
+     *
+     * @param id an ID, or null
+     * @return the ID as a dimension value, or null
+     */
+    private static String toValue(Integer id) {
+        return id == null ? null : id.toString();
+    }
+
+    /**
+     *
+     * @param dateTime a date and time
+     * @return midnight on the first day of its month
+     */
+    private static LocalDateTime monthStart(LocalDateTime dateTime) {
+        return dateTime.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * Receives rollup rows as they are read.
+     */
+    private interface RollupRowConsumer {
+
+        /**
+         *
+         * @param bucketStart the start of the row's bucket
+         * @param value the row's dimension value
+         * @param total the number of appointments in the bucket with that value
+         */
+        void accept(LocalDateTime bucketStart, String value, int total);
+    }
+
+    /**
+     * The catch-up state stored in rollup_state.
+     */
+    private static class State {
+        private final LocalDateTime watermark;
+        private final int watermarkId;
+        private final LocalDateTime checkedAt;
+
+        /**
+         *
+         * @param watermark
+         * @param watermarkId
+         * @param checkedAt
+         */
+        State(LocalDateTime watermark, int watermarkId, LocalDateTime checkedAt) {
+            this.watermark = watermark;
+            this.watermarkId = watermarkId;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    /**
+     * What an appointment is counted as: the columns the rollups are grouped by.
+     */
+    private static class Counted {
+        private final int appointmentId;
+        private final LocalDateTime start;
+        private final String type;
+        private final Integer contactId;
+        private final Integer userId;
+        private final Integer customerId;
+
+        /**
+         *
+         * @param appointmentId
+         * @param start
+         * @param type
+         * @param contactId
+         * @param userId
+         * @param customerId
+         */
+        Counted(int appointmentId, LocalDateTime start, String type, Integer contactId, Integer userId,
+                Integer customerId) {
+            this.appointmentId = appointmentId;
+            this.start = start;
+            this.type = type;
+            this.contactId = contactId;
+            this.userId = userId;
+            this.customerId = customerId;
+        }
+
+        /**
+         *
+         * @param other what the appointment is counted as now, or null if it has been deleted
+         * @return true if the appointment falls in the same buckets as before
+         */
+        boolean sameAs(Counted other) {
+            return other != null && Objects.equals(start, other.start) && Objects.equals(type, other.type) &&
+                    Objects.equals(contactId, other.contactId) && Objects.equals(userId, other.userId) &&
+                    Objects.equals(customerId, other.customerId);
+        }
+    }
+
+    /**
+     * A bucket of one granularity, dimension and value: the primary key of appointment_rollups.
+     */
+    private static class RollupKey {
+        private final String granularity;
+        private final String dimension;
+        private final LocalDateTime bucketStart;
+        private final String value;
+
+        /**
+         *
+         * @param granularity
+         * @param dimension
+         * @param bucketStart
+         * @param value
+         */
+        RollupKey(String granularity, String dimension, LocalDateTime bucketStart, String value) {
+            this.granularity = granularity;
+            this.dimension = dimension;
+            this.bucketStart = bucketStart;
+            this.value = value;
+        }
+
+        /**
+         * Sets the first four parameters of addRollupSql or deleteEmptyRollupSql.
+         * @param ps the statement
+         * @throws SQLException if a parameter cannot be set
+         */
+        void bind(PreparedStatement ps) throws SQLException {
+            ps.setString(1, granularity);
+            ps.setString(2, dimension);
+            ps.setObject(3, bucketStart);
+            ps.setString(4, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RollupKey key && granularity.equals(key.granularity) &&
+                    dimension.equals(key.dimension) && bucketStart.equals(key.bucketStart) && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, dimension, bucketStart, value);
+        }
+    }
+
+    /**
+     * A run of buckets of one granularity, from the bucket starting at from up to the one starting at to.
+     */
+    private static class Piece {
+        private final String granularity;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        /**
+         *
+         * @param granularity
+         * @param from
+         * @param to
+         */
+        Piece(String granularity, LocalDateTime from, LocalDateTime to) {
+            this.granularity = granularity;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
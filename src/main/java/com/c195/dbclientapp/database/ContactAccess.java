@@ -1,9 +1,11 @@
 package com.c195.dbclientapp.database;
 
 import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Contact;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -25,19 +27,49 @@ public abstract class ContactAccess {
         String sql = "SELECT * FROM contacts";
 
         // Create PS statement with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        // Execute query
-        ResultSet rs = ps.executeQuery();
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Create list of contact ID's
-        ObservableList<Integer> contactIdList = FXCollections.observableArrayList();
+                // Create list of contact ID's
+                ObservableList<Integer> contactIdList = FXCollections.observableArrayList();
 
-        // Add them to list and return
-        while (rs.next()) {
-            int customerId = rs.getInt("Contact_ID");
-            contactIdList.add(customerId);
+                // Add them to list and return
+                while (rs.next()) {
+                    int customerId = rs.getInt("Contact_ID");
+                    contactIdList.add(customerId);
+                }
+                return contactIdList;
+            }
+        }
+    }
+
+    /**
+     * Returns every contact stored in the database.
+     * @return an ObservableList of Contact objects
+     * @throws SQLException if a database access error occurs
+     */
+    public static ObservableList<Contact> getAllContacts() throws SQLException {
+
+        // Create SQL select statement
+        String sql = "SELECT Contact_ID, Contact_Name, Email FROM contacts";
+
+        // Create PS statement with SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Add each contact to the list and return
+                ObservableList<Contact> contacts = FXCollections.observableArrayList();
+                while (rs.next()) {
+                    contacts.add(new Contact(rs.getInt(1), rs.getString(2), rs.getString(3)));
+                }
+                return contacts;
+            }
         }
-        return contactIdList;
     }
 }
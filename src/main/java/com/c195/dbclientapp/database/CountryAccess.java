@@ -5,11 +5,10 @@ import com.c195.dbclientapp.model.Country;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * The CountryAccess class provides methods for interacting with the countries table in the database.
@@ -27,40 +26,23 @@ public abstract class CountryAccess {
         String sql = "SELECT * FROM client_schedule.countries;";
 
         // Create PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
-
-        // Create list of countries
-        ObservableList<Country> countries = FXCollections.observableArrayList();
-
-        // Add countries to list
-        while (rs.next()) {
-
-            // Create formatter for LocalDateTime objects
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-            // Store query results in variables
-            int countryId = rs.getInt("Country_ID");
-            String countryName = rs.getString("Country");
-            LocalDateTime createDate = LocalDateTime.parse(rs.getString("Create_Date"), formatter);
-            String createdBy = rs.getString("Created_By");
-            LocalDateTime lastUpdate = LocalDateTime.parse(rs.getString("Last_Update"), formatter);
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-
-            // Create new country object with those variables and return
-            Country country = new Country (
-                    countryId,
-                    countryName,
-                    createDate,
-                    createdBy,
-                    lastUpdate,
-                    lastUpdatedBy
-            );
-            countries.add(country);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Create list of countries
+                ObservableList<Country> countries = FXCollections.observableArrayList();
+
+                // Add countries to list
+                int[] columns = resolveColumns(rs);
+                while (rs.next()) {
+                    countries.add(extractCountryFromResultSet(rs, columns));
+                }
+                return countries;
+            }
         }
-        return countries;
     }
 
     /**
@@ -71,31 +53,51 @@ public abstract class CountryAccess {
      */
     public static Country getCountryById(int id) throws SQLException {
         String sql = "SELECT * FROM client_schedule.countries WHERE Country_ID = ?;";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setInt(1, id);
-        ResultSet rs = ps.executeQuery();
-        Country country = null;
-        while (rs.next()) {
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                Country country = null;
+                if (rs.next()) {
+                    country = extractCountryFromResultSet(rs, resolveColumns(rs));
+                }
+                return country;
+            }
+        }
+    }
 
-            int countryId = rs.getInt("Country_ID");
-            String countryName = rs.getString("Country");
-            LocalDateTime createDate = LocalDateTime.parse(rs.getString("Create_Date"), formatter);
-            String createdBy = rs.getString("Created_By");
-            LocalDateTime lastUpdate = LocalDateTime.parse(rs.getString("Last_Update"), formatter);
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
+    /**
+     * Looks up the positions of the country columns once per ResultSet.
+     * @param rs the ResultSet to resolve
+     * @return the column indexes in the order read by extractCountryFromResultSet
+     * @throws SQLException if a column is missing
+     */
+    private static int[] resolveColumns(ResultSet rs) throws SQLException {
+        return new int[]{
+                rs.findColumn("Country_ID"),
+                rs.findColumn("Country"),
+                rs.findColumn("Create_Date"),
+                rs.findColumn("Created_By"),
+                rs.findColumn("Last_Update"),
+                rs.findColumn("Last_Updated_By")
+        };
+    }
 
-            country = new Country (
-                    countryId,
-                    countryName,
-                    createDate,
-                    createdBy,
-                    lastUpdate,
-                    lastUpdatedBy
-            );
-            
-        }
-        return country;
+    /**
+     * Extracts a country from the current row, reading the date columns natively.
+     * @param rs the ResultSet positioned on a country row
+     * @param columns the column indexes from resolveColumns
+     * @return the extracted Country
+     * @throws SQLException if a database access error occurs
+     */
+    private static Country extractCountryFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return new Country(
+                rs.getInt(columns[0]),
+                rs.getString(columns[1]),
+                RowDecoder.getLocalDateTime(rs, columns[2]),
+                rs.getString(columns[3]),
+                RowDecoder.getLocalDateTime(rs, columns[4]),
+                rs.getString(columns[5])
+        );
     }
 }
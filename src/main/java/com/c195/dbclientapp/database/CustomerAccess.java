@@ -1,21 +1,39 @@
 package com.c195.dbclientapp.database;
 
+import com.c195.dbclientapp.helper.BatchExecutor;
+import com.c195.dbclientapp.helper.BatchResult;
 import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Country;
 import com.c195.dbclientapp.model.Customer;
+import com.c195.dbclientapp.model.CustomerWithDivision;
+import com.c195.dbclientapp.model.FirstLevelDivision;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Abstract class containing methods for accessing and modifying customer data in the database.
  */
 public abstract class CustomerAccess {
 
+    // Write statements shared by the single-row and batched methods
+    private static final String insertSql = "INSERT INTO customers (Customer_ID, Customer_Name, Address, Postal_Code," +
+            " Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID)" +
+            " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String updateSql = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?," +
+            " Phone = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
+    private static final String deleteSql = "DELETE FROM customers WHERE Customer_ID = ?";
+
     /**
      * Retrieves a list of all customers from the database.
      * @return an ObservableList of Customer objects
@@ -27,48 +45,192 @@ public abstract class CustomerAccess {
         String sql = "SELECT * FROM customers";
 
         // Create PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
-
-        // Create list of customers
-        ObservableList<Customer> customers = FXCollections.observableArrayList();
-
-        // Add customers to list
-        while (rs.next()) {
-
-            // Create formatter to convert the appropriate query results into LocalDateTime objects
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-            // Store query results in variables
-            int customerId = rs.getInt("Customer_ID");
-            String name = rs.getString("Customer_Name");
-            String address = rs.getString("Address");
-            String postalCode = rs.getString("Postal_Code");
-            String phone = rs.getString("Phone");
-            LocalDateTime createDate = LocalDateTime.parse(rs.getString("Create_Date"), formatter);
-            String createdBy = rs.getString("Created_By");
-            LocalDateTime lastUpdate = LocalDateTime.parse(rs.getString("Last_Update"), formatter);
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int divisionId = rs.getInt("Division_ID");
-
-            // Create new customer object with SQL results, add to list, and return
-            Customer customer = new Customer(
-                    customerId,
-                    name,
-                    address,
-                    postalCode,
-                    phone,
-                    createDate,
-                    createdBy,
-                    lastUpdate,
-                    lastUpdatedBy,
-                    divisionId
-            );
-            customers.add(customer);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Create list of customers
+                ObservableList<Customer> customers = FXCollections.observableArrayList();
+
+                // Add customers to list
+                int[] columns = resolveColumns(rs);
+                while (rs.next()) {
+                    customers.add(extractCustomerFromResultSet(rs, columns));
+                }
+                return customers;
+            }
+        }
+    }
+
+    /**
+     * Retrieves every customer together with its first level division and country in a single joined query. Customers
+     * that share a division or country share the same FirstLevelDivision and Country objects.
+     * @return an ObservableList of CustomerWithDivision objects
+     * @throws SQLException if there is an error executing the SQL statement
+     */
+    public static ObservableList<CustomerWithDivision> getAllCustomersWithDivisions() throws SQLException {
+
+        // Create SQL select statement joining customers to their division and country
+        String sql = """
+                SELECT c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Create_Date,
+                       c.Created_By, c.Last_Update, c.Last_Updated_By, c.Division_ID,
+                       d.Division, d.Create_Date AS Division_Create_Date, d.Created_By AS Division_Created_By,
+                       d.Last_Update AS Division_Last_Update, d.Last_Updated_By AS Division_Last_Updated_By,
+                       d.Country_ID,
+                       co.Country, co.Create_Date AS Country_Create_Date, co.Created_By AS Country_Created_By,
+                       co.Last_Update AS Country_Last_Update, co.Last_Updated_By AS Country_Last_Updated_By
+                FROM customers c
+                INNER JOIN first_level_divisions d ON c.Division_ID = d.Division_ID
+                INNER JOIN countries co ON d.Country_ID = co.Country_ID
+                ORDER BY c.Customer_ID""";
+
+        // Create PS with SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Divisions and countries repeat across rows, so build each one only once
+                Map<Integer, FirstLevelDivision> divisions = new HashMap<>();
+                Map<Integer, Country> countries = new HashMap<>();
+
+                // Create list of customers with their division and country
+                ObservableList<CustomerWithDivision> customers = FXCollections.observableArrayList();
+                // Columns are read by their position in the select list above
+                while (rs.next()) {
+                    int divisionId = rs.getInt(10);
+                    int countryId = rs.getInt(16);
+
+                    Country country = countries.get(countryId);
+                    if (country == null) {
+                        country = new Country(
+                                countryId,
+                                rs.getString(17),
+                                RowDecoder.getLocalDateTime(rs, 18),
+                                rs.getString(19),
+                                RowDecoder.getLocalDateTime(rs, 20),
+                                rs.getString(21)
+                        );
+                        countries.put(countryId, country);
+                    }
+
+                    FirstLevelDivision division = divisions.get(divisionId);
+                    if (division == null) {
+                        division = new FirstLevelDivision(
+                                divisionId,
+                                rs.getString(11),
+                                RowDecoder.getLocalDateTime(rs, 12),
+                                rs.getString(13),
+                                RowDecoder.getLocalDateTime(rs, 14),
+                                rs.getString(15),
+                                countryId
+                        );
+                        divisions.put(divisionId, division);
+                    }
+
+                    Customer customer = new Customer(
+                            rs.getInt(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            rs.getString(4),
+                            rs.getString(5),
+                            RowDecoder.getLocalDateTime(rs, 6),
+                            rs.getString(7),
+                            RowDecoder.getLocalDateTime(rs, 8),
+                            rs.getString(9),
+                            divisionId
+                    );
+                    customers.add(new CustomerWithDivision(customer, division, country));
+                }
+                return customers;
+            }
+        }
+    }
+
+    /**
+     * Looks up the positions of the customer columns once per ResultSet.
+     * @param rs the ResultSet to resolve
+     * @return the column indexes in the order read by extractCustomerFromResultSet
+     * @throws SQLException if a column is missing
+     */
+    private static int[] resolveColumns(ResultSet rs) throws SQLException {
+        return new int[]{
+                rs.findColumn("Customer_ID"),
+                rs.findColumn("Customer_Name"),
+                rs.findColumn("Address"),
+                rs.findColumn("Postal_Code"),
+                rs.findColumn("Phone"),
+                rs.findColumn("Create_Date"),
+                rs.findColumn("Created_By"),
+                rs.findColumn("Last_Update"),
+                rs.findColumn("Last_Updated_By"),
+                rs.findColumn("Division_ID")
+        };
+    }
+
+    /**
+     * Extracts a customer from the current row, reading the date columns natively.
+     * @param rs the ResultSet positioned on a customer row
+     * @param columns the column indexes from resolveColumns
+     * @return the extracted Customer
+     * @throws SQLException if a database access error occurs
+     */
+    private static Customer extractCustomerFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return new Customer(
+                rs.getInt(columns[0]),
+                rs.getString(columns[1]),
+                rs.getString(columns[2]),
+                rs.getString(columns[3]),
+                rs.getString(columns[4]),
+                RowDecoder.getLocalDateTime(rs, columns[5]),
+                rs.getString(columns[6]),
+                RowDecoder.getLocalDateTime(rs, columns[7]),
+                rs.getString(columns[8]),
+                rs.getInt(columns[9])
+        );
+    }
+
+    /**
+     * Joins customers to their division and country in memory, for callers that already hold all three lists. Builds
+     * a hash index on division ID and country ID, so the join costs one lookup per customer instead of a query.
+     * Customers whose division or country is not in the given lists are left out, matching the inner join used by
+     * getAllCustomersWithDivisions.
+     * @param customers the customers to join
+     * @param divisions all first level divisions
+     * @param countries all countries
+     * @return an ObservableList of CustomerWithDivision objects in the same order as customers
+     */
+    public static ObservableList<CustomerWithDivision> joinCustomersWithDivisions(List<Customer> customers,
+                                                                                 List<FirstLevelDivision> divisions,
+                                                                                 List<Country> countries) {
+
+        // Build hash indexes on the smaller sides of the join
+        Map<Integer, FirstLevelDivision> divisionsById = new HashMap<>(divisions.size() * 2);
+        for (FirstLevelDivision division : divisions) {
+            divisionsById.put(division.getDivisionId(), division);
+        }
+        Map<Integer, Country> countriesById = new HashMap<>(countries.size() * 2);
+        for (Country country : countries) {
+            countriesById.put(country.getCountryId(), country);
+        }
+
+        // Probe the indexes once per customer
+        ObservableList<CustomerWithDivision> customerWithDivisions = FXCollections.observableArrayList();
+        for (Customer customer : customers) {
+            FirstLevelDivision division = divisionsById.get(customer.getDivisionId());
+            if (division == null) {
+                continue;
+            }
+            Country country = countriesById.get(division.getCountryId());
+            if (country == null) {
+                continue;
+            }
+            customerWithDivisions.add(new CustomerWithDivision(customer, division, country));
         }
-        return customers;
+        return customerWithDivisions;
     }
 
     /**
@@ -82,20 +244,47 @@ public abstract class CustomerAccess {
         String sql = "SELECT * FROM customers";
 
         // Create PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Initialize list of customer ID's
+                ObservableList<Integer> customerIdList = FXCollections.observableArrayList();
+
+                // Add ID's to list and return
+                while (rs.next()) {
+                    int customerId = rs.getInt("Customer_ID");
+                    customerIdList.add(customerId);
+                }
+                return customerIdList;
+            }
+        }
+    }
 
-        // Execute query
-        ResultSet rs = ps.executeQuery();
+    /**
+     * Writes every customer to a CSV or JSON file in ID order, streaming the rows from the database to the file
+     * without creating a Customer for any of them.
+     * @param file the file to write, replaced if it exists
+     * @param format RowExporter.CSV or RowExporter.JSON
+     * @param gzip true to compress the file with gzip
+     * @return the number of rows and bytes written and the throughput
+     * @throws SQLException if there is an error executing the SQL statement
+     * @throws IOException if the file cannot be written
+     */
+    public static ExportResult exportCustomers(Path file, String format, boolean gzip)
+            throws SQLException, IOException {
 
-        // Initialize list of customer ID's
-        ObservableList<Integer> customerIdList = FXCollections.observableArrayList();
+        // Create SQL select statement
+        String sql = "SELECT * FROM customers ORDER BY Customer_ID";
 
-        // Add ID's to list and return
-        while (rs.next()) {
-            int customerId = rs.getInt("Customer_ID");
-            customerIdList.add(customerId);
+        // The connection is held until the last row has been written
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = RowExporter.prepareStreaming(connection, sql);
+             ResultSet rs = ps.executeQuery()) {
+            return RowExporter.export(rs, file, format, gzip);
         }
-        return customerIdList;
     }
 
     /**
@@ -105,17 +294,17 @@ public abstract class CustomerAccess {
      */
     public static void deleteCustomer(int customerId) throws SQLException {
 
-        // Create the DELETE SQL statement
-        String deleteSql = "DELETE FROM customers WHERE Customer_ID = ?";
-
         // Create a prepared statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(deleteSql);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(deleteSql)) {
 
-        // Set the customerId parameter
-        ps.setInt(1, customerId);
+            // Set the customerId parameter
+            ps.setInt(1, customerId);
 
-        // Execute the DELETE statement
-        ps.executeUpdate();
+            // Execute the DELETE statement
+            ps.executeUpdate();
+        }
+        ReferenceDataCache.invalidateCustomers();
     }
 
     /**
@@ -126,15 +315,95 @@ public abstract class CustomerAccess {
      */
     public static boolean addCustomer(Customer customer) throws SQLException {
 
-        // Create the INSERT SQL statement
-        String insertSql = "INSERT INTO customers (Customer_ID, Customer_Name, Address, Postal_Code, Phone," +
-                " Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID)" +
-                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        // Create a prepared statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(insertSql)) {
+
+            // Set the parameters for the prepared statement using the getter methods of the Customer object
+            bindInsert(ps, customer);
+
+            // Execute the INSERT statement and return the result
+            boolean added = ps.executeUpdate() > 0;
+            ReferenceDataCache.invalidateCustomers();
+            return added;
+        }
+    }
 
+    /**
+     * Updates an existing customer in the database based on the provided Customer object.
+     * @param customer the Customer object to update in the database
+     * @return true if the customer was updated successfully, false if the customer does not exist in the database
+     * @throws SQLException if there is an error executing the SQL statement
+     */
+    public static boolean updateCustomer(Customer customer) throws SQLException {
         // Create a prepared statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(insertSql);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(updateSql)) {
+
+            // Set the parameters for the prepared statement using the getter methods of the Customer object
+            bindUpdate(ps, customer);
+
+            // Execute the UPDATE statement and return
+            ps.executeUpdate();
+            ReferenceDataCache.invalidateCustomers();
+            return true;
+        }
+    }
+
+    /**
+     * Adds many customers in one transaction, sending the inserts in batches. If any row fails, none are added.
+     * @param customers the customers to add
+     * @param batchSize the number of rows sent to the database at a time
+     * @return a BatchResult with the status of each customer, in iteration order
+     * @throws SQLException if a database error other than a failed row occurs
+     */
+    public static BatchResult addCustomers(Collection<Customer> customers, int batchSize) throws SQLException {
+        BatchResult result = BatchExecutor.execute(insertSql, customers, batchSize, CustomerAccess::bindInsert);
+        if (result.isCommitted()) {
+            ReferenceDataCache.invalidateCustomers();
+        }
+        return result;
+    }
+
+    /**
+     * Updates many customers in one transaction, sending the updates in batches. If any row fails, none are updated.
+     * @param customers the customers to update
+     * @param batchSize the number of rows sent to the database at a time
+     * @return a BatchResult with the status of each customer, in iteration order
+     * @throws SQLException if a database error other than a failed row occurs
+     */
+    public static BatchResult updateCustomers(Collection<Customer> customers, int batchSize) throws SQLException {
+        BatchResult result = BatchExecutor.execute(updateSql, customers, batchSize, CustomerAccess::bindUpdate);
+        if (result.isCommitted()) {
+            ReferenceDataCache.invalidateCustomers();
+        }
+        return result;
+    }
+
+    /**
+     * Deletes many customers in one transaction, sending the deletes in batches. If any row fails, for example because
+     * the customer still has appointments, none are deleted.
+     * @param customerIds the IDs of the customers to delete
+     * @param batchSize the number of rows sent to the database at a time
+     * @return a BatchResult with the status of each ID, in iteration order
+     * @throws SQLException if a database error other than a failed row occurs
+     */
+    public static BatchResult deleteCustomers(Collection<Integer> customerIds, int batchSize) throws SQLException {
+        BatchResult result = BatchExecutor.execute(deleteSql, customerIds, batchSize,
+                (ps, customerId) -> ps.setInt(1, customerId));
+        if (result.isCommitted()) {
+            ReferenceDataCache.invalidateCustomers();
+        }
+        return result;
+    }
 
-        // Set the parameters for the prepared statement using the getter methods of the Customer object
+    /**
+     * Sets the parameters of the insert statement from a customer.
+     * @param ps the insert statement
+     * @param customer the customer to insert
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindInsert(PreparedStatement ps, Customer customer) throws SQLException {
         ps.setInt(1, customer.getCustomerId());
         ps.setString(2, customer.getCustomerName());
         ps.setString(3, customer.getAddress());
@@ -145,26 +414,15 @@ public abstract class CustomerAccess {
         ps.setObject(8, customer.getLastUpdate());
         ps.setString(9, customer.getLastUpdatedBy());
         ps.setInt(10, customer.getDivisionId());
-
-        // Execute the INSERT statement and return the result
-        return ps.executeUpdate() > 0;
     }
 
     /**
-     * Updates an existing customer in the database based on the provided Customer object.
-     * @param customer the Customer object to update in the database
-     * @return true if the customer was updated successfully, false if the customer does not exist in the database
-     * @throws SQLException if there is an error executing the SQL statement
+     * Sets the parameters of the update statement from a customer.
+     * @param ps the update statement
+     * @param customer the customer to update
+     * @throws SQLException if a parameter cannot be set
      */
-    public static boolean updateCustomer(Customer customer) throws SQLException {
-        // Create the UPDATE SQL statement
-        String updateSql = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?," +
-                " Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
-
-        // Create a prepared statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(updateSql);
-
-        // Set the parameters for the prepared statement using the getter methods of the Customer object
+    private static void bindUpdate(PreparedStatement ps, Customer customer) throws SQLException {
         ps.setString(1, customer.getCustomerName());
         ps.setString(2, customer.getAddress());
         ps.setString(3, customer.getPostalCode());
@@ -173,9 +431,5 @@ public abstract class CustomerAccess {
         ps.setString(6, customer.getLastUpdatedBy());
         ps.setInt(7, customer.getDivisionId());
         ps.setInt(8, customer.getCustomerId());
-
-        // Execute the UPDATE statement and return
-        ps.executeUpdate();
-        return true;
     }
 }
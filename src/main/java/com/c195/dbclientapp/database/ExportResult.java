@@ -0,0 +1,94 @@
+package com.c195.dbclientapp.database;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of an export written by RowExporter: how many rows were written, how many bytes they took before and
+ * after compression, and how long it took, from which the throughput is worked out.
+ */
+public class ExportResult {
+    private final Path file;
+    private final long rowCount;
+    private final long byteCount;
+    private final long fileBytes;
+    private final long nanos;
+
+    /**
+     *
+     * @param file
+     * @param rowCount
+     * @param byteCount
+     * @param fileBytes
+     * @param nanos
+     */
+    public ExportResult(Path file, long rowCount, long byteCount, long fileBytes, long nanos) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.byteCount = byteCount;
+        this.fileBytes = fileBytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     *
+     * @return file, the file written
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     *
+     * @return rowCount, the number of rows written, not counting the CSV header
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     *
+     * @return byteCount, the number of bytes of CSV or JSON written, before any compression
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     *
+     * @return fileBytes, the size of the file written, after any compression
+     */
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     *
+     * @return nanos, the time from running the query to closing the file
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     *
+     * @return the number of rows written per second
+     */
+    public double getRowsPerSecond() {
+        return nanos == 0 ? 0 : rowCount * 1e9 / nanos;
+    }
+
+    /**
+     *
+     * @return the number of megabytes of CSV or JSON written per second, before any compression
+     */
+    public double getMegabytesPerSecond() {
+        return nanos == 0 ? 0 : byteCount * 1e3 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Exported %d rows to %s: %.1f MB (%.1f MB on disk) in %.1f s, %.0f rows/s, %.1f MB/s",
+                rowCount, file.getFileName(), byteCount / 1e6, fileBytes / 1e6, nanos / 1e9, getRowsPerSecond(),
+                getMegabytesPerSecond());
+    }
+}
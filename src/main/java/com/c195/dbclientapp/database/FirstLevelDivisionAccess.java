@@ -5,11 +5,10 @@ import com.c195.dbclientapp.model.FirstLevelDivision;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * A class for accessing the `first_level_divisions` table in the database.
@@ -27,40 +26,21 @@ public abstract class FirstLevelDivisionAccess {
         String sql = "SELECT * FROM client_schedule.first_level_divisions;";
 
         // Create PS with SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
-
-        // Initialize divisions list and add divisions
-        ObservableList<FirstLevelDivision> divisions = FXCollections.observableArrayList();
-        while (rs.next()) {
-
-            // Create formatter for LocalDateTime objects
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-            // Add results to respective variables
-            int divisionId = rs.getInt("Division_ID");
-            String divisionName = rs.getString("Division");
-            LocalDateTime createDate = LocalDateTime.parse(rs.getString("Create_Date"), formatter);
-            String createdBy = rs.getString("Created_By");
-            LocalDateTime lastUpdate = LocalDateTime.parse(rs.getString("Last_Update"), formatter);
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int countryId = rs.getInt("Country_ID");
-
-            // Create new division, add to list, and return list
-            FirstLevelDivision division = new FirstLevelDivision(
-                    divisionId,
-                    divisionName,
-                    createDate,
-                    createdBy,
-                    lastUpdate,
-                    lastUpdatedBy,
-                    countryId
-            );
-            divisions.add(division);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Initialize divisions list and add divisions
+                ObservableList<FirstLevelDivision> divisions = FXCollections.observableArrayList();
+                int[] columns = resolveColumns(rs);
+                while (rs.next()) {
+                    divisions.add(extractDivisionFromResultSet(rs, columns));
+                }
+                return divisions;
+            }
         }
-        return divisions;
     }
 
     /**
@@ -73,16 +53,19 @@ public abstract class FirstLevelDivisionAccess {
 
         // Query the first_level_division table to get the divisionId for the selected division name
         String sql = "SELECT Division_ID FROM client_schedule.first_level_divisions WHERE division = ?;";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setString(1, selectedDivisionName);
-        ResultSet rs = ps.executeQuery();
-
-        // Get the divisionId from the result set
-        int divisionId = 0;
-        if (rs.next()) {
-            divisionId = rs.getInt("Division_ID");
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, selectedDivisionName);
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Get the divisionId from the result set
+                int divisionId = 0;
+                if (rs.next()) {
+                    divisionId = rs.getInt("Division_ID");
+                }
+                return divisionId;
+            }
         }
-        return divisionId;
     }
 
 
@@ -98,36 +81,59 @@ public abstract class FirstLevelDivisionAccess {
         String sql = "SELECT * FROM client_schedule.first_level_divisions WHERE Division_ID = ?";
 
         // Create PS using SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Add value to PS
-        ps.setInt(1, divisionId);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
-
-        // Create a division object with result set
-        if (rs.next()) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-            String divisionName = rs.getString("Division");
-            LocalDateTime createDate = LocalDateTime.parse(rs.getString("Create_Date"), formatter);
-            String createdBy = rs.getString("Created_By");
-            LocalDateTime lastUpdate = LocalDateTime.parse(rs.getString("Last_Update"), formatter);
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int countryId = rs.getInt("Country_ID");
-
-            return new FirstLevelDivision(
-                    divisionId,
-                    divisionName,
-                    createDate,
-                    createdBy,
-                    lastUpdate,
-                    lastUpdatedBy,
-                    countryId
-            );
-        } else {
-            return null;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Add value to PS
+            ps.setInt(1, divisionId);
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Create a division object with result set
+                if (rs.next()) {
+                    return extractDivisionFromResultSet(rs, resolveColumns(rs));
+                } else {
+                    return null;
+                }
+            }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Looks up the positions of the division columns once per ResultSet.
+     * @param rs the ResultSet to resolve
+     * @return the column indexes in the order read by extractDivisionFromResultSet
+     * @throws SQLException if a column is missing
+     */
+    private static int[] resolveColumns(ResultSet rs) throws SQLException {
+        return new int[]{
+                rs.findColumn("Division_ID"),
+                rs.findColumn("Division"),
+                rs.findColumn("Create_Date"),
+                rs.findColumn("Created_By"),
+                rs.findColumn("Last_Update"),
+                rs.findColumn("Last_Updated_By"),
+                rs.findColumn("Country_ID")
+        };
+    }
+
+    /**
+     * Extracts a division from the current row, reading the date columns natively.
+     * @param rs the ResultSet positioned on a division row
+     * @param columns the column indexes from resolveColumns
+     * @return the extracted FirstLevelDivision
+     * @throws SQLException if a database access error occurs
+     */
+    private static FirstLevelDivision extractDivisionFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return new FirstLevelDivision(
+                rs.getInt(columns[0]),
+                rs.getString(columns[1]),
+                RowDecoder.getLocalDateTime(rs, columns[2]),
+                rs.getString(columns[3]),
+                RowDecoder.getLocalDateTime(rs, columns[4]),
+                rs.getString(columns[5]),
+                rs.getInt(columns[6])
+        );
+    }
+}
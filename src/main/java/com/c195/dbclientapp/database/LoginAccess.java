@@ -2,6 +2,7 @@ package com.c195.dbclientapp.database;
 
 import com.c195.dbclientapp.helper.JDBC;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -23,18 +24,21 @@ public abstract class LoginAccess {
 
         // Select only the columns that are needed
         String sql = "SELECT User_ID FROM client_schedule.users WHERE User_Name = ? AND Password = ?";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setString(1, username);
-        ps.setString(2, password);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, username);
+            ps.setString(2, password);
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Check if there is at least one matching user
-        if (rs.next()) {
-            int userId = rs.getInt("User_ID");
-            return userId;
-        } else {
-        // Return -1 to indicate that no matching user was found
-        return -1;
+                // Check if there is at least one matching user
+                if (rs.next()) {
+                    int userId = rs.getInt("User_ID");
+                    return userId;
+                } else {
+                // Return -1 to indicate that no matching user was found
+                return -1;
+                }
+            }
         }
     }
 
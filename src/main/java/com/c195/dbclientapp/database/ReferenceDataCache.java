@@ -0,0 +1,415 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.Contact;
+import com.c195.dbclientapp.model.Country;
+import com.c195.dbclientapp.model.Customer;
+import com.c195.dbclientapp.model.FirstLevelDivision;
+import com.c195.dbclientapp.model.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A read-through cache of the reference data the forms are filled from: countries, first level divisions, contacts,
+ * users and customer IDs. Each table is read the first time it is asked for and then served from memory, with hash
+ * indexes from ID to object and from name to ID. Once the time to live has passed, the next request revalidates every
+ * loaded table with a single query that reads each table's row count and latest Last_Update (or highest ID, for
+ * contacts, which have no Last_Update), and only the tables whose values have changed are read again. The invalidate
+ * methods drop a table immediately; the access classes call them after writing to a cached table.
+ */
+public abstract class ReferenceDataCache {
+
+    // How long loaded tables are trusted before they are revalidated
+    private static final long ttlMillis = 300_000;
+
+    private static final Table<Country> countries = new Table<>("countries", "Last_Update",
+            CountryAccess::getAllCountries, Country::getCountryId, Country::getCountry);
+    private static final Table<FirstLevelDivision> divisions = new Table<>("first_level_divisions", "Last_Update",
+            FirstLevelDivisionAccess::getAllDivisions, FirstLevelDivision::getDivisionId,
+            FirstLevelDivision::getDivision);
+    private static final Table<Contact> contacts = new Table<>("contacts", "Contact_ID",
+            ContactAccess::getAllContacts, Contact::getContactId, Contact::getContactName);
+    private static final Table<User> users = new Table<>("users", "Last_Update",
+            UserAccess::getAllUsers, User::getUserId, User::getUserName);
+    private static final Table<Customer> customers = new Table<>("customers", "Last_Update",
+            CustomerAccess::getAllCustomers, Customer::getCustomerId, Customer::getCustomerName);
+    private static final List<Table<?>> tables = List.of(countries, divisions, contacts, users, customers);
+
+    // Divisions grouped by country, rebuilt whenever the divisions are read again
+    private static Map<Integer, List<FirstLevelDivision>> divisionsByCountry = Collections.emptyMap();
+    private static List<FirstLevelDivision> divisionsByCountrySource;
+
+    // System.nanoTime of the last load or revalidation
+    private static long validatedAt;
+
+    /**
+     *
+     * @return every country
+     * @throws SQLException if the countries have to be read and cannot be
+     */
+    public static synchronized List<Country> getCountries() throws SQLException {
+        return fresh(countries).rows;
+    }
+
+    /**
+     *
+     * @param countryId the ID of the country
+     * @return the country with that ID, or null if there is none
+     * @throws SQLException if the countries have to be read and cannot be
+     */
+    public static synchronized Country getCountry(int countryId) throws SQLException {
+        return fresh(countries).byId.get(countryId);
+    }
+
+    /**
+     *
+     * @param countryName the name of the country
+     * @return the ID of the country with that name, or -1 if there is none
+     * @throws SQLException if the countries have to be read and cannot be
+     */
+    public static synchronized int getCountryId(String countryName) throws SQLException {
+        return fresh(countries).idByName.getOrDefault(countryName, -1);
+    }
+
+    /**
+     *
+     * @return every first level division
+     * @throws SQLException if the divisions have to be read and cannot be
+     */
+    public static synchronized List<FirstLevelDivision> getDivisions() throws SQLException {
+        return fresh(divisions).rows;
+    }
+
+    /**
+     *
+     * @param divisionId the ID of the division
+     * @return the division with that ID, or null if there is none
+     * @throws SQLException if the divisions have to be read and cannot be
+     */
+    public static synchronized FirstLevelDivision getDivision(int divisionId) throws SQLException {
+        return fresh(divisions).byId.get(divisionId);
+    }
+
+    /**
+     *
+     * @param divisionName the name of the division
+     * @return the ID of the division with that name, or -1 if there is none
+     * @throws SQLException if the divisions have to be read and cannot be
+     */
+    public static synchronized int getDivisionId(String divisionName) throws SQLException {
+        return fresh(divisions).idByName.getOrDefault(divisionName, -1);
+    }
+
+    /**
+     *
+     * @param countryId the ID of the country
+     * @return the divisions within that country, empty if there are none
+     * @throws SQLException if the divisions have to be read and cannot be
+     */
+    public static synchronized List<FirstLevelDivision> getDivisionsByCountry(int countryId) throws SQLException {
+        List<FirstLevelDivision> rows = fresh(divisions).rows;
+        if (divisionsByCountrySource != rows) {
+            Map<Integer, List<FirstLevelDivision>> grouped = new HashMap<>();
+            for (FirstLevelDivision division : rows) {
+                grouped.computeIfAbsent(division.getCountryId(), id -> new ArrayList<>()).add(division);
+            }
+            grouped.replaceAll((id, list) -> Collections.unmodifiableList(list));
+            divisionsByCountry = grouped;
+            divisionsByCountrySource = rows;
+        }
+        return divisionsByCountry.getOrDefault(countryId, Collections.emptyList());
+    }
+
+    /**
+     *
+     * @return the name of every country
+     * @throws SQLException if the countries have to be read and cannot be
+     */
+    public static synchronized List<String> getCountryNames() throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (Country country : fresh(countries).rows) {
+            names.add(country.getCountry());
+        }
+        return names;
+    }
+
+    /**
+     *
+     * @return the name of every first level division
+     * @throws SQLException if the divisions have to be read and cannot be
+     */
+    public static synchronized List<String> getDivisionNames() throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (FirstLevelDivision division : fresh(divisions).rows) {
+            names.add(division.getDivision());
+        }
+        return names;
+    }
+
+    /**
+     *
+     * @param countryName the name of the country
+     * @return the names of the divisions within that country, empty if there is no such country
+     * @throws SQLException if the countries or divisions have to be read and cannot be
+     */
+    public static synchronized List<String> getDivisionNamesByCountry(String countryName) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (FirstLevelDivision division : getDivisionsByCountry(getCountryId(countryName))) {
+            names.add(division.getDivision());
+        }
+        return names;
+    }
+
+    /**
+     *
+     * @return every contact
+     * @throws SQLException if the contacts have to be read and cannot be
+     */
+    public static synchronized List<Contact> getContacts() throws SQLException {
+        return fresh(contacts).rows;
+    }
+
+    /**
+     *
+     * @return the ID of every contact
+     * @throws SQLException if the contacts have to be read and cannot be
+     */
+    public static synchronized List<Integer> getContactIds() throws SQLException {
+        return fresh(contacts).ids;
+    }
+
+    /**
+     *
+     * @param contactName the name of the contact
+     * @return the ID of the contact with that name, or -1 if there is none
+     * @throws SQLException if the contacts have to be read and cannot be
+     */
+    public static synchronized int getContactId(String contactName) throws SQLException {
+        return fresh(contacts).idByName.getOrDefault(contactName, -1);
+    }
+
+    /**
+     *
+     * @return the ID of every user
+     * @throws SQLException if the users have to be read and cannot be
+     */
+    public static synchronized List<Integer> getUserIds() throws SQLException {
+        return fresh(users).ids;
+    }
+
+    /**
+     *
+     * @param userName the name of the user
+     * @return the ID of the user with that name, or -1 if there is none
+     * @throws SQLException if the users have to be read and cannot be
+     */
+    public static synchronized int getUserId(String userName) throws SQLException {
+        return fresh(users).idByName.getOrDefault(userName, -1);
+    }
+
+    /**
+     *
+     * @return the ID of every customer
+     * @throws SQLException if the customers have to be read and cannot be
+     */
+    public static synchronized List<Integer> getCustomerIds() throws SQLException {
+        return fresh(customers).ids;
+    }
+
+    /**
+     * Drops the cached countries.
+     */
+    public static synchronized void invalidateCountries() {
+        countries.invalidate();
+    }
+
+    /**
+     * Drops the cached divisions.
+     */
+    public static synchronized void invalidateDivisions() {
+        divisions.invalidate();
+    }
+
+    /**
+     * Drops the cached contacts.
+     */
+    public static synchronized void invalidateContacts() {
+        contacts.invalidate();
+    }
+
+    /**
+     * Drops the cached users.
+     */
+    public static synchronized void invalidateUsers() {
+        users.invalidate();
+    }
+
+    /**
+     * Drops the cached customers.
+     */
+    public static synchronized void invalidateCustomers() {
+        customers.invalidate();
+    }
+
+    /**
+     * Drops every cached table.
+     */
+    public static synchronized void invalidateAll() {
+        for (Table<?> table : tables) {
+            table.invalidate();
+        }
+    }
+
+    /**
+     * Makes sure a table is loaded and has been validated within the time to live.
+     * @param table the table that is about to be read
+     * @param <T> the type of row the table holds
+     * @return the table
+     * @throws SQLException if the table has to be revalidated or read and cannot be
+     */
+    private static <T> Table<T> fresh(Table<T> table) throws SQLException {
+        long now = System.nanoTime();
+        if (table.isLoaded() && now - validatedAt < ttlMillis * 1_000_000) {
+            return table;
+        }
+
+        // Revalidate every loaded table in one round trip and drop the ones that have changed
+        Map<Table<?>, String> versions = readVersions();
+        for (Table<?> loaded : tables) {
+            if (loaded.isLoaded() && !loaded.version.equals(versions.get(loaded))) {
+                loaded.invalidate();
+            }
+        }
+        if (!table.isLoaded()) {
+            table.load(versions.get(table));
+        }
+        validatedAt = now;
+        return table;
+    }
+
+    /**
+     * Reads the row count and the latest version column value of every table in one query.
+     * @return a version string for each table, which changes whenever the table's contents are likely to have changed
+     * @throws SQLException if a database access error occurs
+     */
+    private static Map<Table<?>, String> readVersions() throws SQLException {
+
+        // Create SQL select statement with two scalar subqueries per table
+        List<String> columns = new ArrayList<>();
+        for (Table<?> table : tables) {
+            columns.add("(SELECT COUNT(*) FROM client_schedule." + table.tableName + ")");
+            columns.add("(SELECT MAX(" + table.versionColumn + ") FROM client_schedule." + table.tableName + ")");
+        }
+        String sql = "SELECT " + String.join(", ", columns);
+
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            Map<Table<?>, String> versions = new HashMap<>();
+            if (rs.next()) {
+                int column = 1;
+                for (Table<?> table : tables) {
+                    versions.put(table, rs.getString(column) + "|" + rs.getString(column + 1));
+                    column += 2;
+                }
+            }
+            return versions;
+        }
+    }
+
+    /**
+     * Reads every row of a reference table.
+     * @param <T> the type of row
+     */
+    @FunctionalInterface
+    private interface Loader<T> {
+        List<T> load() throws SQLException;
+    }
+
+    /**
+     * One cached table: its rows, its indexes, and the version it was read at.
+     * @param <T> the type of row
+     */
+    private static class Table<T> {
+        private final String tableName;
+        private final String versionColumn;
+        private final Loader<T> loader;
+        private final ToIntFunction<T> idOf;
+        private final Function<T, String> nameOf;
+
+        private List<T> rows;
+        private List<Integer> ids;
+        private Map<Integer, T> byId;
+        private Map<String, Integer> idByName;
+        private String version;
+
+        /**
+         *
+         * @param tableName
+         * @param versionColumn
+         * @param loader
+         * @param idOf
+         * @param nameOf
+         */
+        Table(String tableName, String versionColumn, Loader<T> loader, ToIntFunction<T> idOf,
+              Function<T, String> nameOf) {
+            this.tableName = tableName;
+            this.versionColumn = versionColumn;
+            this.loader = loader;
+            this.idOf = idOf;
+            this.nameOf = nameOf;
+        }
+
+        /**
+         *
+         * @return true if the rows are in memory
+         */
+        boolean isLoaded() {
+            return rows != null;
+        }
+
+        /**
+         * Reads the rows and builds the indexes. Where two rows share a name, the name maps to the first one.
+         * @param version the version the table was at when the rows were read
+         * @throws SQLException if the rows cannot be read
+         */
+        void load(String version) throws SQLException {
+            List<T> loaded = loader.load();
+            List<Integer> loadedIds = new ArrayList<>(loaded.size());
+            Map<Integer, T> loadedById = new HashMap<>(loaded.size() * 2);
+            Map<String, Integer> loadedIdByName = new HashMap<>(loaded.size() * 2);
+            for (T row : loaded) {
+                int id = idOf.applyAsInt(row);
+                loadedIds.add(id);
+                loadedById.put(id, row);
+                loadedIdByName.putIfAbsent(nameOf.apply(row), id);
+            }
+            this.rows = Collections.unmodifiableList(new ArrayList<>(loaded));
+            this.ids = Collections.unmodifiableList(loadedIds);
+            this.byId = loadedById;
+            this.idByName = loadedIdByName;
+            this.version = version == null ? "" : version;
+        }
+
+        /**
+         * Forgets the rows so they are read again on the next request.
+         */
+        void invalidate() {
+            rows = null;
+            ids = null;
+            byId = null;
+            idByName = null;
+            version = null;
+        }
+    }
+}
@@ -7,9 +7,13 @@ import com.c195.dbclientapp.model.TypeReport;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.Locale;
 
 /**
  * Provides methods for generating reports from the database.
@@ -17,61 +21,54 @@ import java.sql.SQLException;
 public abstract class ReportAccess {
 
     /**
-     * Retrieves a list of type reports from the database.
+     * Retrieves the number of appointments of each type, from the counts kept by AppointmentReportAggregates.
      * @return an ObservableList of TypeReport objects
-     * @throws SQLException if there is an error executing the SQL statement
+     * @throws SQLException if the counts have to be read or reconciled and there is an error executing the SQL
      */
     public static ObservableList<TypeReport> getAllTypeReports() throws SQLException {
+        return AppointmentReportAggregates.getInstance().getTypeReports();
+    }
 
-        // Create SQL select statement
-        String sql = "SELECT Type, COUNT(Type) as Total FROM client_schedule.appointments GROUP BY Type";
-
-        // Create PS with select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
+    /**
+     * Retrieves the number of appointments starting in each month of each year, from the counts kept by
+     * AppointmentReportAggregates.
+     * @return an ObservableList of MonthReport objects, oldest month first
+     * @throws SQLException if the counts have to be read or reconciled and there is an error executing the SQL
+     */
+    public static ObservableList<MonthReport> getAllMonthReports() throws SQLException {
+        return AppointmentReportAggregates.getInstance().getMonthReports();
+    }
 
-        // Initialize TypeReport list
+    /**
+     * Retrieves the number of appointments of each type starting in a range, from the rollups kept by
+     * AppointmentRollups.
+     * @param fromUtc the start of the range, in UTC, widened to the start of its hour
+     * @param toUtc the end of the range, exclusive, in UTC, widened to the end of its hour
+     * @return an ObservableList of TypeReport objects, ordered by type
+     * @throws SQLException if there is an error executing the SQL statement
+     */
+    public static ObservableList<TypeReport> getTypeReports(LocalDateTime fromUtc, LocalDateTime toUtc)
+            throws SQLException {
         ObservableList<TypeReport> typeReports = FXCollections.observableArrayList();
-
-        // Add results to list and return
-        while (rs.next()) {
-            String type = rs.getString("Type");
-            int total = rs.getInt("Total");
-            TypeReport typeReport = new TypeReport(total, type);
-            typeReports.add(typeReport);
-        }
+        AppointmentRollups.getInstance().getTotals(AppointmentRollups.TYPE, fromUtc, toUtc)
+                .forEach((type, total) -> typeReports.add(new TypeReport(total, type)));
         return typeReports;
     }
 
     /**
-     * Retrieves a list of month reports from the database.
-     * @return an ObservableList of MonthReport objects
+     * Retrieves the number of appointments starting in each month of a range, from the rollups kept by
+     * AppointmentRollups.
+     * @param fromUtc the start of the range, in UTC, widened to the start of its hour
+     * @param toUtc the end of the range, exclusive, in UTC, widened to the end of its hour
+     * @return an ObservableList of MonthReport objects, such as "January 2024", oldest month first
      * @throws SQLException if there is an error executing the SQL statement
      */
-    public static ObservableList<MonthReport> getAllMonthReports() throws SQLException {
-
-        // Create SQL select statement
-        String sql = "SELECT MONTHNAME(Start) as Month," +
-                " COUNT(*) as Total FROM client_schedule.appointments GROUP BY Month";
-
-        // Create PS with select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
-
-        // Initialize monthReports list
+    public static ObservableList<MonthReport> getMonthReports(LocalDateTime fromUtc, LocalDateTime toUtc)
+            throws SQLException {
         ObservableList<MonthReport> monthReports = FXCollections.observableArrayList();
-
-        // Add results to list and return
-        while (rs.next()) {
-            String month = rs.getString("Month");
-            int total = rs.getInt("Total");
-            MonthReport monthReport = new MonthReport(month, total);
-            monthReports.add(monthReport);
-        }
+        AppointmentRollups.getInstance().getMonthTotals(fromUtc, toUtc).forEach((month, total) -> monthReports.add(
+                new MonthReport(month.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " +
+                        month.getYear(), total)));
         return monthReports;
     }
 
@@ -90,22 +87,25 @@ public abstract class ReportAccess {
                 ON c.Division_ID = fld.Division_ID""";
 
         // Create PS with select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-
-        // Execute query
-        ResultSet rs = ps.executeQuery();
-
-        // Initialize customerReports list
-        ObservableList<CustomerReport> customerReports = FXCollections.observableArrayList();
-
-        // Add results to list and return
-        while (rs.next()) {
-            int customerId = rs.getInt("Customer_ID");
-            int countryId = rs.getInt("Country_ID");
-            CustomerReport customerReport = new CustomerReport(customerId, countryId);
-            customerReports.add(customerReport);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Initialize customerReports list
+                ObservableList<CustomerReport> customerReports = FXCollections.observableArrayList();
+
+                // Add results to list and return
+                while (rs.next()) {
+                    int customerId = rs.getInt("Customer_ID");
+                    int countryId = rs.getInt("Country_ID");
+                    CustomerReport customerReport = new CustomerReport(customerId, countryId);
+                    customerReports.add(customerReport);
+                }
+                return customerReports;
+            }
         }
-        return customerReports;
     }
 
 }
@@ -0,0 +1,37 @@
+package com.c195.dbclientapp.database;
+
+import com.c195.dbclientapp.helper.UtcConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Shared helpers for decoding result set rows. Date-time columns are read natively as LocalDateTime instead of being
+ * fetched as strings and parsed, and the access classes resolve their column indexes once per result set so that each
+ * row is read by position.
+ */
+public abstract class RowDecoder {
+
+    /**
+     * Reads a DATETIME or TIMESTAMP column as a LocalDateTime without any time zone conversion.
+     * @param rs the result set positioned on a row
+     * @param column the column index
+     * @return the column value, or null if it is SQL NULL
+     * @throws SQLException if the column cannot be read
+     */
+    public static LocalDateTime getLocalDateTime(ResultSet rs, int column) throws SQLException {
+        return rs.getObject(column, LocalDateTime.class);
+    }
+
+    /**
+     * Reads a DATETIME or TIMESTAMP column stored in UTC and converts it to the user's local time zone.
+     * @param rs the result set positioned on a row
+     * @param column the column index
+     * @return the column value in local time, or null if it is SQL NULL
+     * @throws SQLException if the column cannot be read
+     */
+    public static LocalDateTime getUtcAsLocal(ResultSet rs, int column) throws SQLException {
+        return UtcConverter.toLocal(rs.getObject(column, LocalDateTime.class));
+    }
+}
@@ -0,0 +1,451 @@
+package com.c195.dbclientapp.database;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the rows of a query to a CSV or JSON file as they are read, so an export of any size holds one row and one
+ * buffer in memory. The query is run forward-only and read-only, and rows are fetched from the server in batches
+ * rather than all at once; each row is encoded as UTF-8 into a buffer that is written to a FileChannel, through gzip
+ * if asked, whenever it fills. The file is written under a temporary name and renamed once complete, so a failed
+ * export leaves no partial file behind. The result gives the rows and bytes written and the throughput.
+ * <p>
+ * CSV files start with a header row of column names and quote values as RFC 4180 describes. JSON files hold an array
+ * with one object per row, on a line of its own. Dates and times are written in ISO 8601, such as
+ * 2024-01-05T14:00:00Z, in UTC as they are stored.
+ */
+public abstract class RowExporter {
+
+    // Formats the file can be written in
+    public static final String CSV = "csv";
+    public static final String JSON = "json";
+
+    // Rows fetched from the server at a time by drivers that read result sets in batches
+    private static final int fetchSize = 10_000;
+
+    private static final int bufferSize = 64 * 1024;
+
+    // Kinds of column, each written differently
+    private static final int textColumn = 0;
+    private static final int integerColumn = 1;
+    private static final int decimalColumn = 2;
+    private static final int booleanColumn = 3;
+    private static final int dateTimeColumn = 4;
+
+    /**
+     * Prepares a query to be read forward-only, with a fetch size that streams its rows rather than reading them all
+     * into memory. MySQL Connector/J only streams a result set, row by row, when the fetch size is Integer.MIN_VALUE;
+     * other drivers fetch the given number of rows at a time.
+     * @param connection the connection to run the query on, held until the export is written
+     * @param sql the query
+     * @return the prepared statement
+     * @throws SQLException if a database access error occurs
+     */
+    public static PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+        ps.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+        return ps;
+    }
+
+    /**
+     * Writes every row of a result set to a file.
+     * @param rs the result set, positioned before its first row
+     * @param file the file to write, replaced if it exists
+     * @param format CSV or JSON
+     * @param gzip true to compress the file with gzip
+     * @return the number of rows and bytes written and the time taken
+     * @throws SQLException if a row cannot be read
+     * @throws IOException if the file cannot be written
+     */
+    public static ExportResult export(ResultSet rs, Path file, String format, boolean gzip)
+            throws SQLException, IOException {
+        if (!CSV.equals(format) && !JSON.equals(format)) {
+            throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+        boolean json = JSON.equals(format);
+        long startedAt = System.nanoTime();
+
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        int[] kinds = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metaData.getColumnLabel(i + 1);
+            kinds[i] = kindOf(metaData.getColumnType(i + 1));
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows = 0;
+        Output output = null;
+        try {
+            output = new Output(FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING), gzip);
+            StringBuilder line = new StringBuilder(256);
+            if (json) {
+                output.write(line.append("[\n"));
+            } else {
+                for (int i = 0; i < columnCount; i++) {
+                    appendCsvText(line.append(i == 0 ? "" : ","), names[i]);
+                }
+                output.write(line.append("\r\n"));
+            }
+
+            while (rs.next()) {
+                line.setLength(0);
+                if (json) {
+                    appendJsonRow(line.append(rows == 0 ? "" : ",\n"), rs, names, kinds);
+                } else {
+                    appendCsvRow(line, rs, kinds);
+                    line.append("\r\n");
+                }
+                output.write(line);
+                rows++;
+            }
+            if (json) {
+                line.setLength(0);
+                output.write(line.append(rows == 0 ? "]\n" : "\n]\n"));
+            }
+            output.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException | IOException | RuntimeException e) {
+            if (output != null) {
+                output.closeQuietly();
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        return new ExportResult(file, rows, output.byteCount, Files.size(file), System.nanoTime() - startedAt);
+    }
+
+    /**
+     *
+     * @param sqlType the column's type, from java.sql.Types
+     * @return the kind of column, which says how its values are written
+     */
+    private static int kindOf(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return integerColumn;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return decimalColumn;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return booleanColumn;
+            case Types.TIMESTAMP:
+                return dateTimeColumn;
+            default:
+                return textColumn;
+        }
+    }
+
+    /**
+     * Appends a row as CSV, without the line ending.
+     * @param line the line being built
+     * @param rs the result set positioned on the row
+     * @param kinds the kind of each column
+     * @throws SQLException if a column cannot be read
+     */
+    private static void appendCsvRow(StringBuilder line, ResultSet rs, int[] kinds) throws SQLException {
+        for (int i = 0; i < kinds.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            int column = i + 1;
+            switch (kinds[i]) {
+                case integerColumn:
+                    long number = rs.getLong(column);
+                    if (!rs.wasNull()) {
+                        line.append(number);
+                    }
+                    break;
+                case decimalColumn:
+                    BigDecimal decimal = rs.getBigDecimal(column);
+                    if (decimal != null) {
+                        line.append(decimal.toPlainString());
+                    }
+                    break;
+                case booleanColumn:
+                    boolean flag = rs.getBoolean(column);
+                    if (!rs.wasNull()) {
+                        line.append(flag);
+                    }
+                    break;
+                case dateTimeColumn:
+                    LocalDateTime dateTime = RowDecoder.getLocalDateTime(rs, column);
+                    if (dateTime != null) {
+                        appendDateTime(line, dateTime);
+                    }
+                    break;
+                default:
+                    String text = rs.getString(column);
+                    if (text != null) {
+                        appendCsvText(line, text);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Appends a row as a JSON object, leaving out null values.
+     * @param line the line being built
+     * @param rs the result set positioned on the row
+     * @param names the name of each column
+     * @param kinds the kind of each column
+     * @throws SQLException if a column cannot be read
+     */
+    private static void appendJsonRow(StringBuilder line, ResultSet rs, String[] names, int[] kinds)
+            throws SQLException {
+        line.append('{');
+        boolean first = true;
+        for (int i = 0; i < kinds.length; i++) {
+            int column = i + 1;
+            int start = line.length();
+            appendJsonText(line.append(first ? "" : ","), names[i]).append(':');
+            boolean written;
+            switch (kinds[i]) {
+                case integerColumn:
+                    long number = rs.getLong(column);
+                    written = !rs.wasNull();
+                    if (written) {
+                        line.append(number);
+                    }
+                    break;
+                case decimalColumn:
+                    BigDecimal decimal = rs.getBigDecimal(column);
+                    written = decimal != null;
+                    if (written) {
+                        line.append(decimal.toPlainString());
+                    }
+                    break;
+                case booleanColumn:
+                    boolean flag = rs.getBoolean(column);
+                    written = !rs.wasNull();
+                    if (written) {
+                        line.append(flag);
+                    }
+                    break;
+                case dateTimeColumn:
+                    LocalDateTime dateTime = RowDecoder.getLocalDateTime(rs, column);
+                    written = dateTime != null;
+                    if (written) {
+                        appendDateTime(line.append('"'), dateTime).append('"');
+                    }
+                    break;
+                default:
+                    String text = rs.getString(column);
+                    written = text != null;
+                    if (written) {
+                        appendJsonText(line, text);
+                    }
+            }
+            if (written) {
+                first = false;
+            } else {
+                line.setLength(start);
+            }
+        }
+        line.append('}');
+    }
+
+    /**
+     * Appends a CSV field, quoted if it holds a comma, quote or line break.
+     * @param line the line being built
+     * @param text the field
+     */
+    private static void appendCsvText(StringBuilder line, String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            line.append(c);
+            if (c == '"') {
+                line.append('"');
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Appends a JSON string, escaping quotes, backslashes and control characters.
+     * @param line the line being built
+     * @param text the string
+     * @return the line
+     */
+    private static StringBuilder appendJsonText(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        return line.append('"');
+    }
+
+    /**
+     * Appends a UTC date and time in ISO 8601, to the second, without creating a formatter or string.
+     * @param line the line being built
+     * @param utc the date and time, in UTC
+     * @return the line
+     */
+    private static StringBuilder appendDateTime(StringBuilder line, LocalDateTime utc) {
+        int year = utc.getYear();
+        if (year >= 0 && year < 1000) {
+            line.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        line.append(year).append('-');
+        appendTwoDigits(line, utc.getMonthValue()).append('-');
+        appendTwoDigits(line, utc.getDayOfMonth()).append('T');
+        appendTwoDigits(line, utc.getHour()).append(':');
+        appendTwoDigits(line, utc.getMinute()).append(':');
+        return appendTwoDigits(line, utc.getSecond()).append('Z');
+    }
+
+    /**
+     *
+     * @param line the line being built
+     * @param value a number from 0 to 99
+     * @return the line, with the number appended as two digits
+     */
+    private static StringBuilder appendTwoDigits(StringBuilder line, int value) {
+        return line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * The file being written: a buffer the rows are encoded into, written to the file's channel, or to a gzip stream
+     * over it, each time it fills.
+     */
+    private static class Output {
+        private final FileChannel file;
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private long byteCount;
+
+        /**
+         *
+         * @param file the open file
+         * @param gzip true to compress what is written
+         * @throws IOException if the gzip header cannot be written
+         */
+        Output(FileChannel file, boolean gzip) throws IOException {
+            this.file = file;
+            this.channel = gzip
+                    ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), bufferSize))
+                    : file;
+        }
+
+        /**
+         * Encodes text into the buffer, writing the buffer out whenever it fills.
+         * @param text the text
+         * @throws IOException if the file cannot be written
+         */
+        void write(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, true);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isError()) {
+                    result.throwException();
+                } else {
+                    break;
+                }
+            }
+            encoder.reset();
+        }
+
+        /**
+         * Writes out what remains in the buffer, finishes the gzip stream if there is one, and closes the file.
+         * @throws IOException if the file cannot be written
+         */
+        void close() throws IOException {
+            drain();
+            channel.close();
+            file.close();
+        }
+
+        /**
+         * Closes the file after an error, printing any further error rather than throwing it.
+         */
+        void closeQuietly() {
+            try {
+                channel.close();
+                file.close();
+            } catch (IOException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+
+        /**
+         * Writes the buffer's contents to the channel and empties it.
+         * @throws IOException if the file cannot be written
+         */
+        private void drain() throws IOException {
+            buffer.flip();
+            byteCount += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
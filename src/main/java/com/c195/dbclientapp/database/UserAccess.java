@@ -1,9 +1,11 @@
 package com.c195.dbclientapp.database;
 
 import com.c195.dbclientapp.helper.JDBC;
+import com.c195.dbclientapp.model.User;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -25,19 +27,50 @@ public abstract class UserAccess {
         String sql = "SELECT * FROM users";
 
         // Create a PS with the SQL select statement
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        // Execute the query
-        ResultSet rs = ps.executeQuery();
+            // Execute the query
+            try (ResultSet rs = ps.executeQuery()) {
 
-        // Initialize userIdList
-        ObservableList<Integer> userIdList = FXCollections.observableArrayList();
+                // Initialize userIdList
+                ObservableList<Integer> userIdList = FXCollections.observableArrayList();
 
-        // Add results to list and return
-        while (rs.next()) {
-            int userId = rs.getInt("User_ID");
-            userIdList.add(userId);
+                // Add results to list and return
+                while (rs.next()) {
+                    int userId = rs.getInt("User_ID");
+                    userIdList.add(userId);
+                }
+                return userIdList;
+            }
+        }
+    }
+
+    /**
+     * Returns every user stored in the database. Passwords are not read, so each user's password is null.
+     * @return an ObservableList of User objects
+     * @throws SQLException if a database access error occurs
+     */
+    public static ObservableList<User> getAllUsers() throws SQLException {
+
+        // Create SQL select statement, leaving out the password column
+        String sql = "SELECT User_ID, User_Name, Create_Date, Created_By, Last_Update, Last_Updated_By FROM users";
+
+        // Create a PS with the SQL select statement
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            // Execute the query
+            try (ResultSet rs = ps.executeQuery()) {
+
+                // Add each user to the list and return
+                ObservableList<User> users = FXCollections.observableArrayList();
+                while (rs.next()) {
+                    users.add(new User(rs.getInt(1), rs.getString(2), null, rs.getDate(3), rs.getString(4),
+                            rs.getTimestamp(5), rs.getString(6)));
+                }
+                return users;
+            }
         }
-        return userIdList;
     }
 }
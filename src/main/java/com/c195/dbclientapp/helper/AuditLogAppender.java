@@ -0,0 +1,402 @@
+package com.c195.dbclientapp.helper;
+
+import com.c195.dbclientapp.model.LoginAttempt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends login attempts to the login activity file from a background thread, so a login never waits for the disk.
+ * Callers hand each attempt to a lock-free ring buffer and return at once. A single writer thread holds the file open,
+ * drains every attempt that is waiting, formats them and writes them in one call, then syncs the file according to the
+ * fsync interval: after every such group, at most once per interval, or never, leaving it to the operating system. A
+ * burst of attempts therefore costs one write and at most one sync. Everything still buffered is written and synced
+ * when the appender is closed, which also happens from a shutdown hook if the application exits without closing it.
+ * When given an AuditLogArchiver, the writer also rotates the file before an attempt that would take it past the
+ * maximum segment size or that falls on a later UTC day than the file's first attempt, and hands the rotated segment
+ * to the archiver, which compresses it in the background. The active file therefore stays small and holds one day at
+ * most. When given a way to open a LoginAuditStore, the writer opens it before writing anything, so a store that
+ * imports the existing log does not hold up the caller; attempts wait in the ring buffer meanwhile. Only then does it
+ * start the archiver, which would otherwise compress segments the import is reading. From then on the writer adds each
+ * attempt to the store as well, and syncs it along with the file.
+ */
+public final class AuditLogAppender {
+
+    // Sync after every group of writes, or never sync explicitly
+    public static final long FSYNC_EVERY_WRITE = 0;
+    public static final long FSYNC_NEVER = -1;
+
+    // Attempts that can wait for the writer before callers have to wait for it instead
+    private static final int bufferCapacity = 4096;
+
+    // Bytes formatted before they are written in one call
+    private static final int writeBufferSize = 64 * 1024;
+
+    // How long the writer sleeps when there is nothing to write, unless woken by a new attempt
+    private static final long idleParkNanos = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private static final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path file;
+    private final long fsyncIntervalMillis;
+    private final long maxSegmentBytes;
+    private final AuditLogArchiver archiver;
+    private final Callable<LoginAuditStore> storeOpener;
+    private final CompletableFuture<LoginAuditStore> storeOpened = new CompletableFuture<>();
+    private final MpscRingBuffer<LoginAttempt> buffer = new MpscRingBuffer<>(bufferCapacity);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(writeBufferSize);
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final Object flushLock = new Object();
+
+    // Opened by the writer thread, which is the only thread to use it
+    private LoginAuditStore store;
+    private FileChannel channel;
+    private boolean unsynced = false;
+    private long lastSyncNanos = System.nanoTime();
+
+    // Size of the active file including bytes not yet written, and the UTC day of its first attempt
+    private long segmentBytes;
+    private LocalDate segmentDay;
+
+    // Size at which the next rotation is tried, pushed back one segment's worth after a rotation fails
+    private long rotateAtBytes;
+
+    // Attempts written to the file, by the writer thread; callers of flush wait for this to catch up
+    private volatile long writtenCount;
+    private volatile boolean syncRequested = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Opens the file for appending, creating it if needed, and starts the writer thread. The file is never rotated.
+     * @param file the login activity file
+     * @param fsyncIntervalMillis FSYNC_EVERY_WRITE, FSYNC_NEVER, or the most time a written attempt may go unsynced
+     */
+    public AuditLogAppender(Path file, long fsyncIntervalMillis) {
+        this(file, fsyncIntervalMillis, 0, null, null);
+    }
+
+    /**
+     * Opens the file for appending, creating it if needed, and starts the writer thread.
+     * @param file the login activity file
+     * @param fsyncIntervalMillis FSYNC_EVERY_WRITE, FSYNC_NEVER, or the most time a written attempt may go unsynced
+     * @param maxSegmentBytes the size past which the file is rotated, or 0 to rotate only by day
+     * @param archiver receives the rotated segments, or null to never rotate; started by the writer thread
+     * @param storeOpener opens, on the writer thread, the store that also receives every attempt, or null for none
+     */
+    public AuditLogAppender(Path file, long fsyncIntervalMillis, long maxSegmentBytes, AuditLogArchiver archiver,
+                            Callable<LoginAuditStore> storeOpener) {
+        this.file = file;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.rotateAtBytes = maxSegmentBytes;
+        this.archiver = archiver;
+        this.storeOpener = storeOpener;
+        LocalDateTime firstTime = AuditLogArchiver.readFirstTime(file);
+        segmentDay = firstTime == null ? null : firstTime.toLocalDate();
+        openChannel();
+        writer = new Thread(this::run, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        shutdownHook = new Thread(this::close, "audit-log-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues an attempt to be written. Returns at once unless the buffer is full, in which case the caller waits for
+     * the writer to make room rather than losing the attempt.
+     * @param attempt the login attempt
+     */
+    public void append(LoginAttempt attempt) {
+        if (closed) {
+            System.out.println("Error:Login activity log is closed, attempt by " + attempt.getUserName() +
+                    " not recorded");
+            return;
+        }
+        while (!buffer.offer(attempt)) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Waits until every attempt queued before this call has been written and synced to the file.
+     */
+    public void flush() {
+        long target = buffer.getOfferedCount();
+        syncRequested = true;
+        LockSupport.unpark(writer);
+        synchronized (flushLock) {
+            while (writtenCount < target && writer.isAlive()) {
+                try {
+                    flushLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes and syncs everything still buffered, stops the writer thread and closes the file. Calling it again has no
+     * effect.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (archiver != null) {
+            archiver.close();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down
+            }
+        }
+    }
+
+    /**
+     * Waits for the writer thread to open the store, which takes a while the first time, when the existing log is
+     * imported.
+     * @return the store, or null if there is none or it could not be opened
+     */
+    public LoginAuditStore awaitStore() {
+        return storeOpened.join();
+    }
+
+    /**
+     *
+     * @return the file the attempts are written to
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * The writer thread's loop: write whatever is waiting as one group, sync if due, and sleep when idle. The store
+     * and the archiver are opened first, while attempts wait in the ring buffer.
+     */
+    private void run() {
+        openStore();
+        if (archiver != null) {
+            archiver.start();
+        }
+        while (true) {
+            // Read before draining, so attempts queued before close are still written
+            boolean stopping = closed;
+            boolean flushing = syncRequested;
+            if (flushing) {
+                syncRequested = false;
+            }
+            int drained = buffer.drain(this::encode, bufferCapacity);
+            if (drained > 0) {
+                writeBuffered();
+            }
+            syncIfDue(stopping || flushing);
+            if (drained > 0 || flushing) {
+                synchronized (flushLock) {
+                    writtenCount += drained;
+                    flushLock.notifyAll();
+                }
+            }
+            if (drained == 0) {
+                if (stopping && buffer.isEmpty()) {
+                    break;
+                }
+                LockSupport.parkNanos(this, unsynced && fsyncIntervalMillis > 0
+                        ? Math.min(idleParkNanos, TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis))
+                        : idleParkNanos);
+            }
+        }
+        closeChannel();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Opens the store, if there is one, and hands it to anyone waiting in awaitStore.
+     */
+    private void openStore() {
+        if (storeOpener != null) {
+            try {
+                store = storeOpener.call();
+            } catch (Exception e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+        storeOpened.complete(store);
+    }
+
+    /**
+     * Formats an attempt into the write buffer, writing the buffer out first if the line does not fit, and rotating
+     * the file first if the line belongs in a new segment. Also adds the attempt to the store, if there is one.
+     * @param attempt the login attempt
+     */
+    private void encode(LoginAttempt attempt) {
+        String line = timeFormatter.format(attempt.getTime()) + " - " + attempt.getOutcome() + " login for user: " +
+                attempt.getUserName() + System.lineSeparator();
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        LocalDate day = attempt.getTime().toLocalDate();
+        if (archiver != null && segmentBytes > 0 && (segmentDay != null && !day.equals(segmentDay) ||
+                maxSegmentBytes > 0 && segmentBytes + bytes.length > rotateAtBytes)) {
+            writeBuffered();
+            rotate(day);
+        }
+        if (segmentDay == null) {
+            segmentDay = day;
+        }
+        segmentBytes += bytes.length;
+        if (bytes.length > writeBuffer.remaining()) {
+            writeBuffered();
+        }
+        if (bytes.length > writeBuffer.capacity()) {
+            write(ByteBuffer.wrap(bytes));
+        } else {
+            writeBuffer.put(bytes);
+        }
+        if (store != null) {
+            try {
+                store.append(attempt);
+            } catch (IOException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the formatted lines in the write buffer to the file, and the store's buffered records to the store.
+     */
+    private void writeBuffered() {
+        writeBuffer.flip();
+        write(writeBuffer);
+        writeBuffer.clear();
+        if (store != null) {
+            try {
+                store.flush();
+            } catch (IOException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes bytes to the file, reporting and dropping them if the file cannot be written.
+     * @param bytes the bytes to write
+     */
+    private void write(ByteBuffer bytes) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            unsynced = true;
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs the file if anything has been written since the last sync and the fsync interval says it is time.
+     * @param force true to sync regardless of the interval, for flush and close
+     */
+    private void syncIfDue(boolean force) {
+        if (channel == null || !unsynced) {
+            return;
+        }
+        boolean due = force || fsyncIntervalMillis == FSYNC_EVERY_WRITE || (fsyncIntervalMillis > 0 &&
+                System.nanoTime() - lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis));
+        if (!due) {
+            return;
+        }
+        try {
+            channel.force(false);
+            if (store != null) {
+                store.sync();
+            }
+            unsynced = false;
+            lastSyncNanos = System.nanoTime();
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs and closes the active file, moves it to a new segment for the archiver, and starts a new active file. If
+     * the file cannot be moved, writing carries on in the same file and the next try waits for the next day or for
+     * another segment's worth of bytes, rather than being made on every line.
+     * @param day the UTC day of the attempt that triggered the rotation
+     */
+    private void rotate(LocalDate day) {
+        syncIfDue(true);
+        closeChannel();
+        Path segment = archiver.nextSegmentPath();
+        try {
+            Files.move(file, segment, StandardCopyOption.ATOMIC_MOVE);
+            archiver.archive(segment);
+            segmentBytes = 0;
+            segmentDay = null;
+            openChannel();
+            rotateAtBytes = maxSegmentBytes;
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+            segmentDay = day;
+            openChannel();
+            rotateAtBytes = segmentBytes + maxSegmentBytes;
+        }
+    }
+
+    /**
+     * Opens the active file for appending, creating it if needed.
+     */
+    private void openChannel() {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            segmentBytes = channel.size();
+        } catch (IOException e) {
+            channel = null;
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the file after the writer has stopped.
+     */
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.c195.dbclientapp.helper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses and keeps track of the segments the AuditLogAppender rotates out of the login activity file. Each
+ * rotated segment is gzipped on a background thread and recorded in a manifest next to the log, one line per segment
+ * giving its file, the times of its first and last attempts, its number of attempts and its compressed size, so tools
+ * can find the segments covering a time range without opening them. Segments older than the retention period, or
+ * beyond the maximum number kept, are deleted. A segment left uncompressed by an earlier run is compressed when the
+ * archiver starts.
+ */
+public class AuditLogArchiver {
+
+    // Keep segments forever, or keep any number of them
+    public static final int KEEP_ALL = 0;
+
+    private static final String manifestSuffix = ".manifest";
+    private static final String segmentSuffix = ".txt";
+    private static final String compressedSuffix = ".txt.gz";
+    private static final String manifestHeader = "# file\tfirst\tlast\tentries\tbytes";
+
+    // Log lines start with their time in UTC
+    private static final DateTimeFormatter lineTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int lineTimeLength = 19;
+    private static final DateTimeFormatter segmentNameFormatter = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final String baseName;
+    private final int retentionDays;
+    private final int maxSegments;
+    private final Path manifestFile;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-log-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only read and written on the compressor thread
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * Prepares to archive the segments of a login activity file. Nothing is read or compressed until start is called.
+     * @param activeFile the login activity file whose segments are archived, such as login_activity.txt
+     * @param retentionDays the number of days a segment is kept after its last attempt, or KEEP_ALL
+     * @param maxSegments the most segments kept, or KEEP_ALL
+     */
+    public AuditLogArchiver(Path activeFile, int retentionDays, int maxSegments) {
+        Path parent = activeFile.toAbsolutePath().getParent();
+        String fileName = activeFile.getFileName().toString();
+        this.directory = parent;
+        this.baseName = fileName.endsWith(segmentSuffix)
+                ? fileName.substring(0, fileName.length() - segmentSuffix.length())
+                : fileName;
+        this.retentionDays = retentionDays;
+        this.maxSegments = maxSegments;
+        this.manifestFile = directory.resolve(baseName + manifestSuffix);
+    }
+
+    /**
+     * Reads the manifest and, in the background, compresses any segment an earlier run left behind and applies the
+     * retention limits.
+     */
+    public void start() {
+        compressor.execute(this::recover);
+    }
+
+    /**
+     * Chooses a new, unused name for a segment being rotated out of the active file.
+     * @return the path to move the active file to
+     */
+    public Path nextSegmentPath() {
+        String stamp = LocalDateTime.now(ZoneOffset.UTC).format(segmentNameFormatter);
+        Path path = directory.resolve(baseName + "-" + stamp + segmentSuffix);
+        for (int i = 2; Files.exists(path) || Files.exists(compressedPath(path)); i++) {
+            path = directory.resolve(baseName + "-" + stamp + "-" + i + segmentSuffix);
+        }
+        return path;
+    }
+
+    /**
+     * Queues a rotated segment to be compressed, recorded in the manifest and subjected to the retention limits.
+     * @param segment the rotated segment, as named by nextSegmentPath
+     */
+    public void archive(Path segment) {
+        compressor.execute(() -> {
+            compress(segment);
+            applyRetention();
+            writeManifest();
+        });
+    }
+
+    /**
+     * Waits for queued segments to be compressed, then stops the background thread. A segment still uncompressed
+     * after a few seconds is compressed the next time an archiver starts.
+     */
+    public void close() {
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     *
+     * @return the manifest file
+     */
+    public Path getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * Lists the segments rotated out of a login activity file, compressed or not, oldest first.
+     * @param activeFile the login activity file, such as login_activity.txt
+     * @return the segments in the order they were rotated
+     */
+    public static List<Path> listSegments(Path activeFile) {
+        Path directory = activeFile.toAbsolutePath().getParent();
+        String fileName = activeFile.getFileName().toString();
+        String prefix = (fileName.endsWith(segmentSuffix)
+                ? fileName.substring(0, fileName.length() - segmentSuffix.length())
+                : fileName) + "-";
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(segmentSuffix) || name.endsWith(compressedSuffix)) {
+                    found.add(file);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+
+        // Names are the rotation time, then -2, -3 and so on for segments rotated in the same second
+        found.sort(Comparator.comparing((Path file) -> segmentStamp(file, prefix))
+                .thenComparingInt(file -> segmentCounter(file, prefix)));
+        return found;
+    }
+
+    /**
+     * Reads the time of the first attempt in a log file.
+     * @param file a login activity file or uncompressed segment
+     * @return the time in UTC, or null if the file is empty, missing or does not start with a time
+     */
+    public static LocalDateTime readFirstTime(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parseLineTime(reader.readLine());
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the time of the last attempt in a log file, looking only at the end of the file.
+     * @param file a login activity file or uncompressed segment
+     * @return the time in UTC, or null if the file is empty, missing or does not end with a complete line
+     */
+    public static LocalDateTime readLastTime(Path file) {
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            long length = in.length();
+            int tailLength = (int) Math.min(length, 4096);
+            byte[] tail = new byte[tailLength];
+            in.seek(length - tailLength);
+            in.readFully(tail);
+            String text = new String(tail, StandardCharsets.UTF_8).stripTrailing();
+            return parseLineTime(text.substring(text.lastIndexOf('\n') + 1));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     *
+     * @param line a log line
+     * @return the time the line starts with, or null if it does not start with one
+     */
+    private static LocalDateTime parseLineTime(String line) {
+        if (line == null || line.length() < lineTimeLength) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(line.substring(0, lineTimeLength), lineTimeFormatter);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the manifest, drops entries whose file is gone, and compresses segments left uncompressed by an earlier
+     * run, which may have stopped between rotating a segment and compressing it.
+     */
+    private void recover() {
+        readManifest();
+        segments.removeIf(segment -> !Files.exists(directory.resolve(segment.file)));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, baseName + "-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                } else if (name.endsWith(segmentSuffix)) {
+                    if (Files.exists(compressedPath(file))) {
+                        Files.delete(file);
+                    } else {
+                        compress(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+        applyRetention();
+        writeManifest();
+    }
+
+    /**
+     * Gzips a segment next to itself, records it and deletes the uncompressed file.
+     * @param segment the uncompressed segment
+     */
+    private void compress(Path segment) {
+        Path compressed = compressedPath(segment);
+        Path temp = directory.resolve(compressed.getFileName() + ".tmp");
+        LocalDateTime first = readFirstTime(segment);
+        LocalDateTime last = readLastTime(segment);
+        long entries = 0;
+        try {
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                byte[] chunk = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    out.write(chunk, 0, read);
+                    for (int i = 0; i < read; i++) {
+                        if (chunk[i] == '\n') {
+                            entries++;
+                        }
+                    }
+                }
+            }
+            Files.move(temp, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            segments.add(new Segment(compressed.getFileName().toString(), first, last, entries, Files.size(compressed)));
+            writeManifest();
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the oldest segments beyond the maximum number kept, and any whose last attempt is older than the
+     * retention period.
+     */
+    private void applyRetention() {
+        segments.sort(Comparator.comparing((Segment segment) -> segment.first,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minusDays(retentionDays);
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.get(0);
+            boolean tooMany = maxSegments != KEEP_ALL && segments.size() > maxSegments;
+            boolean tooOld = retentionDays != KEEP_ALL && oldest.last != null && oldest.last.isBefore(cutoff);
+            if (!tooMany && !tooOld) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(directory.resolve(oldest.file));
+            } catch (IOException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+            segments.remove(0);
+        }
+    }
+
+    /**
+     * Reads the manifest into the segment list, if there is one.
+     */
+    private void readManifest() {
+        segments.clear();
+        if (!Files.exists(manifestFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(manifestFile, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t");
+                if (line.startsWith("#") || fields.length != 5) {
+                    continue;
+                }
+                segments.add(new Segment(fields[0], parseLineTime(fields[1]), parseLineTime(fields[2]),
+                        Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the manifest with the current segment list, oldest first.
+     */
+    private void writeManifest() {
+        segments.sort(Comparator.comparing((Segment segment) -> segment.first,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        StringBuilder manifest = new StringBuilder(manifestHeader).append('\n');
+        for (Segment segment : segments) {
+            manifest.append(segment.file).append('\t')
+                    .append(segment.first == null ? "-" : lineTimeFormatter.format(segment.first)).append('\t')
+                    .append(segment.last == null ? "-" : lineTimeFormatter.format(segment.last)).append('\t')
+                    .append(segment.entries).append('\t')
+                    .append(segment.bytes).append('\n');
+        }
+        try {
+            Path temp = directory.resolve(manifestFile.getFileName() + ".tmp");
+            Files.writeString(temp, manifest, StandardCharsets.UTF_8);
+            Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     *
+     * @param segment a segment file
+     * @param prefix the active file's name without its suffix, followed by a hyphen
+     * @return the rotation time in the segment's name
+     */
+    private static String segmentStamp(Path segment, String prefix) {
+        String name = segment.getFileName().toString();
+        return name.substring(prefix.length(), Math.min(name.length(), prefix.length() + 15));
+    }
+
+    /**
+     *
+     * @param segment a segment file
+     * @param prefix the active file's name without its suffix, followed by a hyphen
+     * @return the segment's number among those rotated in the same second, starting at 1
+     */
+    private static int segmentCounter(Path segment, String prefix) {
+        String name = segment.getFileName().toString();
+        int start = prefix.length() + 15;
+        int end = name.indexOf(segmentSuffix, prefix.length());
+        try {
+            return end > start + 1 && name.charAt(start) == '-' ? Integer.parseInt(name.substring(start + 1, end)) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     *
+     * @param segment an uncompressed segment
+     * @return the path of its compressed copy
+     */
+    private static Path compressedPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - segmentSuffix.length()) + compressedSuffix);
+    }
+
+    /**
+     * One line of the manifest.
+     */
+    private static class Segment {
+        private final String file;
+        private final LocalDateTime first;
+        private final LocalDateTime last;
+        private final long entries;
+        private final long bytes;
+
+        /**
+         *
+         * @param file
+         * @param first
+         * @param last
+         * @param entries
+         * @param bytes
+         */
+        Segment(String file, LocalDateTime first, LocalDateTime last, long entries, long bytes) {
+            this.file = file;
+            this.first = first;
+            this.last = last;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.c195.dbclientapp.helper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a batched PreparedStatement from one item of the collection being written.
+ * @param <T> the type of item being written
+ */
+@FunctionalInterface
+public interface BatchBinder<T> {
+
+    /**
+     * Sets every parameter of the statement for one row.
+     * @param ps the statement to bind, which is added to the batch afterwards
+     * @param item the item to write
+     * @throws SQLException if a parameter cannot be set
+     */
+    void bind(PreparedStatement ps, T item) throws SQLException;
+}
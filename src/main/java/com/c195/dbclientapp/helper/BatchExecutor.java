@@ -0,0 +1,124 @@
+package com.c195.dbclientapp.helper;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Runs one SQL statement for every item of a collection using JDBC batching. Rows are sent to the database in groups
+ * of batchSize with addBatch and executeBatch, and the whole collection is written in one transaction, so it is either
+ * written completely or not at all. With rewriteBatchedStatements enabled on the MySQL URL, the driver sends each
+ * group of inserts as a single multi-row INSERT.
+ */
+public abstract class BatchExecutor {
+
+    // Rows sent per executeBatch call when the caller has no better figure
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Writes every item in a single transaction on a pooled connection.
+     * @param sql the statement to run for each item
+     * @param items the items to write
+     * @param batchSize the number of rows sent per executeBatch call
+     * @param binder sets the statement's parameters for one item
+     * @param <T> the type of item being written
+     * @return a BatchResult with the status of each row
+     * @throws SQLException if a connection cannot be borrowed or a parameter cannot be set
+     */
+    public static <T> BatchResult execute(String sql, Collection<T> items, int batchSize, BatchBinder<T> binder)
+            throws SQLException {
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            return execute(connection, sql, items, batchSize, false, binder);
+        }
+    }
+
+    /**
+     * Writes every item in the caller's transaction, then commits it, or rolls it back if any row fails. The caller
+     * must already have turned off auto-commit, which lets it read or lock rows in the same transaction first.
+     * @param connection the connection whose transaction the rows are written in
+     * @param sql the statement to run for each item
+     * @param items the items to write
+     * @param batchSize the number of rows sent per executeBatch call
+     * @param returnGeneratedKeys true to collect the key the database generates for each inserted row
+     * @param binder sets the statement's parameters for one item
+     * @param <T> the type of item being written
+     * @return a BatchResult with the status of each row, and the generated keys if they were requested
+     * @throws SQLException if a parameter cannot be set or the transaction cannot be committed
+     */
+    public static <T> BatchResult execute(Connection connection, String sql, Collection<T> items, int batchSize,
+                                          boolean returnGeneratedKeys, BatchBinder<T> binder) throws SQLException {
+        int[] rowStatuses = new int[items.size()];
+        Arrays.fill(rowStatuses, BatchResult.NOT_EXECUTED);
+        int[] generatedKeys = returnGeneratedKeys ? new int[items.size()] : null;
+        int groupSize = Math.max(1, batchSize);
+
+        try (PreparedStatement ps = returnGeneratedKeys
+                ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(sql)) {
+
+            // Bind each row and send a group whenever it is full, or when the last row has been added
+            int row = 0;
+            int groupStart = 0;
+            for (T item : items) {
+                binder.bind(ps, item);
+                ps.addBatch();
+                row++;
+                if (row - groupStart == groupSize || row == rowStatuses.length) {
+                    executeGroup(ps, rowStatuses, generatedKeys, groupStart, row);
+                    groupStart = row;
+                }
+            }
+            connection.commit();
+            return new BatchResult(rowStatuses, generatedKeys, true, null);
+        } catch (BatchUpdateException e) {
+            connection.rollback();
+            return new BatchResult(rowStatuses, generatedKeys, false, e);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends one group of rows and records the status the driver reports for each of them.
+     * @param ps the statement holding the group
+     * @param rowStatuses the statuses of every row in the batch
+     * @param generatedKeys the generated keys of every row, or null if they were not requested
+     * @param from the position of the group's first row
+     * @param to the position after the group's last row
+     * @throws SQLException if the group fails, after its statuses have been recorded
+     */
+    private static void executeGroup(PreparedStatement ps, int[] rowStatuses, int[] generatedKeys, int from, int to)
+            throws SQLException {
+        try {
+            int[] counts = ps.executeBatch();
+            System.arraycopy(counts, 0, rowStatuses, from, Math.min(counts.length, to - from));
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            int reported = counts == null ? 0 : Math.min(counts.length, to - from);
+            if (reported > 0) {
+                System.arraycopy(counts, 0, rowStatuses, from, reported);
+            }
+
+            // A driver that stops at the first error only reports the rows before it
+            if (reported < to - from) {
+                rowStatuses[from + reported] = Statement.EXECUTE_FAILED;
+            }
+            throw e;
+        }
+
+        if (generatedKeys != null) {
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (int row = from; row < to && keys.next(); row++) {
+                    generatedKeys[row] = keys.getInt(1);
+                }
+            }
+        }
+    }
+}
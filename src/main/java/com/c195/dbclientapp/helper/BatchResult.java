@@ -0,0 +1,108 @@
+package com.c195.dbclientapp.helper;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a batched write run by BatchExecutor, with one status per row in the order the rows were given. A
+ * row's status is the update count the driver reported for it, Statement.SUCCESS_NO_INFO when the driver ran the row
+ * but could not say how many rows it changed, Statement.EXECUTE_FAILED when the row failed, or NOT_EXECUTED when the
+ * batch stopped before reaching it. The batch runs in one transaction, so if any row failed the whole transaction was
+ * rolled back and none of the rows were written, whatever their status.
+ */
+public class BatchResult {
+
+    // Status of a row the batch never reached because an earlier row failed
+    public static final int NOT_EXECUTED = Integer.MIN_VALUE;
+
+    private final int[] rowStatuses;
+    private final int[] generatedKeys;
+    private final boolean committed;
+    private final SQLException error;
+
+    /**
+     *
+     * @param rowStatuses
+     * @param generatedKeys
+     * @param committed
+     * @param error
+     */
+    public BatchResult(int[] rowStatuses, int[] generatedKeys, boolean committed, SQLException error) {
+        this.rowStatuses = rowStatuses;
+        this.generatedKeys = generatedKeys;
+        this.committed = committed;
+        this.error = error;
+    }
+
+    /**
+     *
+     * @return the number of rows in the batch
+     */
+    public int getRowCount() {
+        return rowStatuses.length;
+    }
+
+    /**
+     *
+     * @param row the position of the row in the collection that was written
+     * @return the status of the row
+     */
+    public int getRowStatus(int row) {
+        return rowStatuses[row];
+    }
+
+    /**
+     *
+     * @param row the position of the row in the collection that was written
+     * @return true if the driver ran the row without an error
+     */
+    public boolean isRowSucceeded(int row) {
+        return rowStatuses[row] >= 0 || rowStatuses[row] == Statement.SUCCESS_NO_INFO;
+    }
+
+    /**
+     *
+     * @return the positions of the rows that failed
+     */
+    public List<Integer> getFailedRows() {
+        List<Integer> failedRows = new ArrayList<>();
+        for (int row = 0; row < rowStatuses.length; row++) {
+            if (rowStatuses[row] == Statement.EXECUTE_FAILED) {
+                failedRows.add(row);
+            }
+        }
+        return failedRows;
+    }
+
+    /**
+     *
+     * @param row the position of the row in the collection that was written
+     * @return the key the database generated for the row, or 0 if keys were not requested or none was generated
+     */
+    public int getGeneratedKey(int row) {
+        return generatedKeys == null ? 0 : generatedKeys[row];
+    }
+
+    /**
+     *
+     * @return committed, true if every row succeeded and the transaction was committed
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     *
+     * @return error, the exception that stopped the batch, or null if it was committed
+     */
+    public SQLException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows=%d, committed=%b, failed=%s", rowStatuses.length, committed, getFailedRows());
+    }
+}
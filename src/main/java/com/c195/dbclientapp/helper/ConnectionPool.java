@@ -0,0 +1,407 @@
+package com.c195.dbclientapp.helper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of database connections. Callers borrow a connection with getConnection and return it by closing
+ * it. Idle connections are validated on borrow, evicted after an idle timeout, and retired after a maximum lifetime.
+ * Connections held longer than the leak detection threshold are reported together with the stack trace of the code
+ * that borrowed them.
+ */
+public class ConnectionPool {
+
+    // Connections returned more recently than this are handed out without a validation round-trip
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    // How often the housekeeper evicts idle connections and checks for leaks
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // One permit per connection that may be borrowed at the same time
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    // Borrowers waiting for an idle connection because the pool was full when they looked
+    private final AtomicInteger idleWaiters = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+
+    // Monitoring counters
+    private final LongAdder totalBorrows = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    private volatile boolean closed = false;
+
+    /**
+     *
+     * @param jdbcUrl the JDBC URL of the database
+     * @param userName the database user
+     * @param password the database password
+     * @param maxPoolSize the maximum number of open connections
+     * @param minIdle the number of idle connections kept open when the pool is quiet
+     * @param connectionTimeoutMillis how long getConnection waits before giving up
+     * @param idleTimeoutMillis how long a connection above minIdle may sit unused before it is closed
+     * @param maxLifetimeMillis how long a connection may live before it is retired, or 0 for no limit
+     * @param leakDetectionThresholdMillis how long a connection may be held before it is reported, or 0 to disable
+     * @param validationTimeoutSeconds how long a validation check may take
+     * @param statementCacheSize the number of prepared statements cached per connection, or 0 to disable caching
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int maxPoolSize, int minIdle,
+                          long connectionTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+                          long leakDetectionThresholdMillis, int validationTimeoutSeconds, int statementCacheSize) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.maxPoolSize = maxPoolSize;
+        this.minIdle = Math.min(minIdle, maxPoolSize);
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxPoolSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the minimum number of idle connections and starts the housekeeping task. Opening the first connections
+     * eagerly means a bad URL or password is reported at startup rather than on the first query.
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void start() throws SQLException {
+        fillToMinIdle();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none are idle and the pool is not full. The caller
+     * must close the returned connection to give it back, preferably with try-with-resources.
+     * @return a pooled Connection
+     * @throws SQLException if the pool is closed, no connection becomes available within the connection timeout, or
+     * a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMillis);
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw timeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate(deadline);
+            recordWait(System.nanoTime() - waitStart);
+
+            // Capture where the connection was borrowed so a leak can be traced back to its caller
+            Exception borrowStack = leakDetectionThresholdMillis > 0
+                    ? new Exception("Connection borrowed by thread " + Thread.currentThread().getName())
+                    : null;
+            Connection connection = pooled.borrow(borrowStack);
+            borrowedConnections.add(pooled);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     * @return the current PoolStats
+     */
+    public PoolStats getStats() {
+        long borrows = totalBorrows.sum();
+        double averageWaitMillis = borrows == 0 ? 0 : totalWaitNanos.sum() / (double) borrows / 1_000_000;
+        return new PoolStats(
+                borrowedConnections.size(),
+                idleConnections.size(),
+                permits.getQueueLength(),
+                borrows,
+                borrowTimeouts.sum(),
+                leaksDetected.sum(),
+                averageWaitMillis,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementCacheHits.sum(),
+                statementCacheMisses.sum(),
+                statementCacheEvictions.sum()
+        );
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeper. Connections that are still borrowed are closed as
+     * they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            retire(pooled);
+        }
+    }
+
+    /**
+     * Called when a borrowed connection proxy is closed. Resets the connection and puts it back at the head of the
+     * idle queue so that the most recently used (and most likely still valid) connection is reused first.
+     * @param pooled the connection being returned
+     */
+    void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        try {
+            pooled.reset();
+            if (closed || pooled.isExpired(System.currentTimeMillis(), maxLifetimeMillis)) {
+                retire(pooled);
+            } else {
+                idleConnections.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            retire(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection that passes validation, or opens a new one if there is room.
+     * @param deadline the System.nanoTime value after which to give up
+     * @return a usable PooledConnection
+     * @throws SQLException if no connection could be obtained before the deadline
+     */
+    private PooledConnection takeIdleOrCreate(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pooled = idleConnections.pollFirst();
+            if (pooled == null) {
+                PooledConnection created = tryCreateConnection();
+                if (created != null) {
+                    return created;
+                }
+
+                // The pool is full, so wait for a connection to be returned, or opened in place of one retired
+                idleWaiters.incrementAndGet();
+                try {
+
+                    // A connection retired before this waiter was counted opened no replacement, so look again
+                    created = tryCreateConnection();
+                    if (created != null) {
+                        return created;
+                    }
+                    pooled = idleConnections.pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a connection", e);
+                } finally {
+                    idleWaiters.decrementAndGet();
+                }
+                if (pooled == null) {
+                    throw timeout();
+                }
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            retire(pooled);
+        }
+    }
+
+    /**
+     * Validates an idle connection before it is handed out. Connections past their lifetime are rejected, and
+     * connections that have been idle for a while are checked with a round-trip to the server.
+     * @param pooled the connection to check
+     * @return true if the connection can be borrowed
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (pooled.isExpired(now, maxLifetimeMillis)) {
+            return false;
+        }
+        if (now - pooled.getLastReturnedAt() < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.getPhysical().isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a new physical connection if the pool has not reached its maximum size.
+     * @return the new connection, or null if the pool is full
+     * @throws SQLException if the driver fails to connect
+     */
+    private PooledConnection tryCreateConnection() throws SQLException {
+        int total;
+        do {
+            total = totalConnections.get();
+            if (total >= maxPoolSize) {
+                return null;
+            }
+        } while (!totalConnections.compareAndSet(total, total + 1));
+
+        try {
+            Connection physical = DriverManager.getConnection(jdbcUrl, userName, password);
+            StatementCache statementCache = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses,
+                            statementCacheEvictions)
+                    : null;
+            return new PooledConnection(this, physical, statementCache);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a physical connection and frees its slot in the pool. If borrowers are waiting for an idle connection,
+     * a new one is opened in its place on the housekeeper thread, since they would otherwise wait for a return that
+     * may never come.
+     * @param pooled the connection to close
+     */
+    private void retire(PooledConnection pooled) {
+        pooled.closePhysical();
+        totalConnections.decrementAndGet();
+        if (!closed && idleWaiters.get() > 0) {
+            try {
+                housekeeper.execute(this::replaceRetired);
+            } catch (RejectedExecutionException e) {
+
+                // The pool was closed meanwhile
+            }
+        }
+    }
+
+    /**
+     * Opens a connection for the borrowers waiting on the idle queue, if there is still room and still a waiter.
+     */
+    private void replaceRetired() {
+        if (closed || idleWaiters.get() == 0) {
+            return;
+        }
+        try {
+            PooledConnection created = tryCreateConnection();
+            if (created != null) {
+                idleConnections.offerFirst(created);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens idle connections until the pool holds at least minIdle of them.
+     * @throws SQLException if a connection cannot be opened
+     */
+    private void fillToMinIdle() throws SQLException {
+        while (!closed && idleConnections.size() < minIdle) {
+            PooledConnection created = tryCreateConnection();
+            if (created == null) {
+                return;
+            }
+            idleConnections.offerLast(created);
+        }
+    }
+
+    /**
+     * Periodic maintenance: closes connections that have been idle too long or reached their maximum lifetime,
+     * reports suspected leaks, and tops the pool back up to minIdle.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict idle connections, keeping at least minIdle open
+        int idleCount = idleConnections.size();
+        for (PooledConnection pooled : idleConnections) {
+            boolean expired = pooled.isExpired(now, maxLifetimeMillis);
+            boolean idleTooLong = idleCount > minIdle && now - pooled.getLastReturnedAt() > idleTimeoutMillis;
+            if ((expired || idleTooLong) && idleConnections.remove(pooled)) {
+                retire(pooled);
+                idleCount--;
+            }
+        }
+
+        // Report connections that have been borrowed for longer than the leak threshold
+        if (leakDetectionThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowedConnections) {
+                Exception borrowStack = pooled.getBorrowStack();
+                if (pooled.checkLeak(now, leakDetectionThresholdMillis) && borrowStack != null) {
+                    leaksDetected.increment();
+                    System.out.println("Possible connection leak: connection held for more than " +
+                            leakDetectionThresholdMillis + "ms");
+                    borrowStack.printStackTrace();
+                }
+            }
+        }
+
+        try {
+            fillToMinIdle();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the time a borrower waited for a connection.
+     * @param waitNanos the wait time in nanoseconds
+     */
+    private void recordWait(long waitNanos) {
+        totalBorrows.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Builds the exception thrown when no connection becomes available in time.
+     * @return an SQLTransientConnectionException describing the pool state
+     */
+    private SQLException timeout() {
+        borrowTimeouts.increment();
+        return new SQLTransientConnectionException("Timed out after " + connectionTimeoutMillis +
+                "ms waiting for a database connection (" + getStats() + ")");
+    }
+}
@@ -0,0 +1,257 @@
+package com.c195.dbclientapp.helper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The DataGenerator class fills an empty client_schedule database with synthetic rows for load testing and
+ * benchmarking. The same seed always produces the same rows. Appointments follow a working week: most fall on weekdays,
+ * they cluster around mid-morning and mid-afternoon within business hours Eastern time, most last half an hour or an
+ * hour, and a few busy customers have many appointments while most have few. Rows are written in chunks, each in its
+ * own transaction, so millions of rows can be generated without holding them all in memory.
+ */
+public abstract class DataGenerator {
+
+    public static final int DEFAULT_DIVISION_COUNT = 70;
+    public static final int DEFAULT_CONTACT_COUNT = 10;
+    public static final int DEFAULT_USER_COUNT = 5;
+    public static final int DEFAULT_CUSTOMER_COUNT = 1_000;
+    public static final int DEFAULT_APPOINTMENT_COUNT = 10_000;
+    public static final long DEFAULT_SEED = 42;
+
+    // Appointments start on one of the days from firstDay, for dayCount days
+    public static final LocalDate firstDay = LocalDate.of(2024, 1, 1);
+    public static final int dayCount = 3 * 365;
+
+    // Rows written per transaction
+    private static final int chunkSize = 10_000;
+
+    private static final ZoneId businessZone = ZoneId.of("America/New_York");
+    private static final LocalDateTime createDate = LocalDateTime.of(2023, 12, 1, 9, 0);
+    private static final String createdBy = "generator";
+
+    // The countries the application knows, and the share of the divisions each one gets
+    private static final String[] countries = {"U.S", "UK", "Canada"};
+    private static final double[] countryShares = {0.75, 0.06, 0.19};
+
+    private static final String[] types = {"Planning Session", "De-Briefing", "Follow-up", "Review", "Onboarding"};
+    private static final int[] typeWeights = {30, 15, 30, 15, 10};
+    private static final int[] durations = {15, 30, 45, 60, 90};
+    private static final int[] durationWeights = {20, 40, 10, 25, 5};
+    private static final String[] locations = {"Office", "Phone", "Video Call", "Client Site"};
+
+    /**
+     * Writes countries, divisions, contacts, users, customers and appointments into empty tables. The first two users
+     * are test/test and admin/admin, so the login screen works against the generated data.
+     * @param divisionCount the number of first level divisions, spread over the three countries
+     * @param contactCount the number of contacts
+     * @param userCount the number of users, at least 2
+     * @param customerCount the number of customers
+     * @param appointmentCount the number of appointments
+     * @param seed the seed for every random choice
+     * @throws SQLException if a chunk cannot be written
+     */
+    public static void generate(int divisionCount, int contactCount, int userCount, int customerCount,
+                                int appointmentCount, long seed) throws SQLException {
+        Random random = new Random(seed);
+        long started = System.nanoTime();
+
+        insert("INSERT INTO client_schedule.countries (Country_ID, Country, Create_Date, Created_By, Last_Update," +
+                " Last_Updated_By) VALUES (?, ?, ?, ?, ?, ?)", countries.length, (ps, id) -> {
+                    ps.setInt(1, id);
+                    ps.setString(2, countries[id - 1]);
+                    setAudit(ps, 3);
+                });
+
+        insert("INSERT INTO client_schedule.first_level_divisions (Division_ID, Division, Create_Date, Created_By," +
+                " Last_Update, Last_Updated_By, Country_ID) VALUES (?, ?, ?, ?, ?, ?, ?)", divisionCount, (ps, id) -> {
+                    ps.setInt(1, id);
+                    ps.setString(2, "Division " + id);
+                    setAudit(ps, 3);
+                    ps.setInt(7, countryOf(id, divisionCount));
+                });
+
+        insert("INSERT INTO client_schedule.contacts (Contact_ID, Contact_Name, Email) VALUES (?, ?, ?)",
+                contactCount, (ps, id) -> {
+                    ps.setInt(1, id);
+                    ps.setString(2, "Contact " + id);
+                    ps.setString(3, "contact" + id + "@example.com");
+                });
+
+        insert("INSERT INTO client_schedule.users (User_ID, User_Name, Password, Create_Date, Created_By," +
+                " Last_Update, Last_Updated_By) VALUES (?, ?, ?, ?, ?, ?, ?)", Math.max(2, userCount), (ps, id) -> {
+                    String name = id == 1 ? "test" : id == 2 ? "admin" : "user" + id;
+                    ps.setInt(1, id);
+                    ps.setString(2, name);
+                    ps.setString(3, id <= 2 ? name : "password");
+                    setAudit(ps, 4);
+                });
+
+        insert("INSERT INTO client_schedule.customers (Customer_ID, Customer_Name, Address, Postal_Code, Phone," +
+                " Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID)" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", customerCount, (ps, id) -> {
+                    ps.setInt(1, id);
+                    ps.setString(2, "Customer " + id);
+                    ps.setString(3, (1 + random.nextInt(9999)) + " Main Street");
+                    ps.setString(4, String.format("%05d", random.nextInt(100_000)));
+                    ps.setString(5, String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10_000)));
+                    ps.setObject(6, createDate);
+                    ps.setString(7, createdBy);
+                    ps.setObject(8, createDate);
+                    ps.setString(9, createdBy);
+                    ps.setInt(10, 1 + random.nextInt(divisionCount));
+                });
+
+        insert("INSERT INTO client_schedule.appointments (Appointment_ID, Title, Description, Location, Type, Start," +
+                " End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID)" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", appointmentCount, (ps, id) -> {
+                    String type = types[pickWeighted(random, typeWeights)];
+                    LocalDateTime startUtc = randomStartUtc(random);
+                    ps.setInt(1, id);
+                    ps.setString(2, type + " " + id);
+                    ps.setString(3, "Generated appointment");
+                    ps.setString(4, locations[random.nextInt(locations.length)]);
+                    ps.setString(5, type);
+                    ps.setObject(6, startUtc);
+                    ps.setObject(7, startUtc.plusMinutes(durations[pickWeighted(random, durationWeights)]));
+                    setAudit(ps, 8);
+                    ps.setInt(12, randomCustomer(random, customerCount));
+                    ps.setInt(13, 1 + random.nextInt(Math.max(2, userCount)));
+                    ps.setInt(14, 1 + random.nextInt(contactCount));
+                });
+
+        System.out.printf("Generated %d customers and %d appointments in %d ms%n", customerCount, appointmentCount,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Writes rows 1 to count in chunks, each chunk in its own transaction.
+     * @param sql the insert statement
+     * @param count the number of rows
+     * @param binder sets the parameters for the row with the given ID
+     * @throws SQLException if a chunk fails
+     */
+    private static void insert(String sql, int count, BatchBinder<Integer> binder) throws SQLException {
+        for (int from = 1; from <= count; from += chunkSize) {
+            BatchResult result = BatchExecutor.execute(sql, idRange(from, Math.min(count, from + chunkSize - 1)),
+                    BatchExecutor.DEFAULT_BATCH_SIZE, binder);
+            if (!result.isCommitted()) {
+                throw result.getError();
+            }
+        }
+    }
+
+    /**
+     *
+     * @param from the first ID
+     * @param to the last ID
+     * @return the IDs from and to inclusive, without storing them
+     */
+    private static List<Integer> idRange(int from, int to) {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return from + index;
+            }
+
+            @Override
+            public int size() {
+                return to - from + 1;
+            }
+        };
+    }
+
+    /**
+     * Sets the Create_Date, Created_By, Last_Update and Last_Updated_By parameters.
+     * @param ps the insert statement
+     * @param first the position of Create_Date
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void setAudit(PreparedStatement ps, int first) throws SQLException {
+        ps.setObject(first, createDate);
+        ps.setString(first + 1, createdBy);
+        ps.setObject(first + 2, createDate);
+        ps.setString(first + 3, createdBy);
+    }
+
+    /**
+     * Gives each country a contiguous run of divisions in proportion to its share.
+     * @param divisionId the division
+     * @param divisionCount the number of divisions
+     * @return the ID of the division's country
+     */
+    private static int countryOf(int divisionId, int divisionCount) {
+        double position = (divisionId - 0.5) / divisionCount;
+        double end = 0;
+        for (int i = 0; i < countryShares.length; i++) {
+            end += countryShares[i];
+            if (position < end) {
+                return i + 1;
+            }
+        }
+        return countryShares.length;
+    }
+
+    /**
+     * Picks a start time on a random day, a fifth as likely on a weekend, around 10:30 or 14:30 Eastern time, within
+     * business hours and on a quarter hour.
+     * @param random the source of random choices
+     * @return the start time in UTC
+     */
+    private static LocalDateTime randomStartUtc(Random random) {
+        LocalDate day;
+        do {
+            day = firstDay.plusDays(random.nextInt(dayCount));
+        } while (isWeekend(day) && random.nextInt(5) != 0);
+
+        double hour = random.nextBoolean() ? 10.5 + random.nextGaussian() * 1.5 : 14.5 + random.nextGaussian() * 2;
+        int quarter = (int) Math.round(Math.min(Math.max(hour, 8), 20.5) * 4);
+        LocalTime time = LocalTime.of(quarter / 4, (quarter % 4) * 15);
+        return day.atTime(time).atZone(businessZone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private static boolean isWeekend(LocalDate day) {
+        return day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Picks a customer so that low IDs are much more likely, giving a few busy customers and a long tail.
+     * @param random the source of random choices
+     * @param customerCount the number of customers
+     * @return a customer ID from 1 to customerCount
+     */
+    private static int randomCustomer(Random random, int customerCount) {
+        double skewed = random.nextDouble() * random.nextDouble();
+        return 1 + (int) (skewed * customerCount);
+    }
+
+    /**
+     *
+     * @param random the source of random choices
+     * @param weights the relative weight of each choice
+     * @return the position of the chosen weight
+     */
+    private static int pickWeighted(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
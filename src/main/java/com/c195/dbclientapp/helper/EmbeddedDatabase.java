@@ -0,0 +1,140 @@
+package com.c195.dbclientapp.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The EmbeddedDatabase class stands in for the MySQL server with an in-process H2 database in MySQL compatibility
+ * mode, so the application can be load tested and benchmarked without a server. It is selected by starting the
+ * application with -Ddbclientapp.datasource=embedded, which makes JDBC.openConnection open the pool on the embedded
+ * database instead. The client_schedule schema is created when the database is opened, and an empty database is filled
+ * by DataGenerator with the number of rows given by the dbclientapp.generator.* system properties.
+ */
+public abstract class EmbeddedDatabase {
+
+    // System properties read when the application opens the embedded database
+    public static final String datasourceProperty = "dbclientapp.datasource";
+    public static final String fileProperty = "dbclientapp.embedded.file";
+    private static final String generatorPrefix = "dbclientapp.generator.";
+
+    private static final String embeddedDatasource = "embedded";
+    private static final String schemaResource = "embedded-schema.sql";
+
+    // MySQL mode, kept open while the JVM runs, with the column names that are keywords in H2 treated as identifiers
+    private static final String urlOptions = ";MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=END,MONTH,START,TYPE,USER" +
+            ";INIT=CREATE SCHEMA IF NOT EXISTS client_schedule\\;SET SCHEMA client_schedule";
+    private static final String userName = "sa";
+    private static final String password = "";
+
+    /**
+     *
+     * @return true if the application was started with -Ddbclientapp.datasource=embedded
+     */
+    public static boolean isSelected() {
+        return embeddedDatasource.equalsIgnoreCase(System.getProperty(datasourceProperty));
+    }
+
+    /**
+     *
+     * @param name the name of the database
+     * @return the URL of an in-memory embedded database with that name
+     */
+    public static String inMemoryUrl(String name) {
+        return "jdbc:h2:mem:" + name + urlOptions;
+    }
+
+    /**
+     *
+     * @param path the path of the database file, without its extension
+     * @return the URL of an embedded database stored in that file, which keeps its rows between runs
+     */
+    public static String fileUrl(String path) {
+        return "jdbc:h2:file:" + path + urlOptions;
+    }
+
+    /**
+     * Opens the embedded database the system properties describe, and fills it if it is empty. The database is kept in
+     * memory unless dbclientapp.embedded.file names a file to keep it in.
+     * @throws SQLException if the schema cannot be created or the data cannot be generated
+     */
+    public static void open() throws SQLException {
+        String file = System.getProperty(fileProperty);
+        open(file == null ? inMemoryUrl("client_schedule") : fileUrl(file));
+        if (isEmpty()) {
+            DataGenerator.generate(
+                    Integer.getInteger(generatorPrefix + "divisions", DataGenerator.DEFAULT_DIVISION_COUNT),
+                    Integer.getInteger(generatorPrefix + "contacts", DataGenerator.DEFAULT_CONTACT_COUNT),
+                    Integer.getInteger(generatorPrefix + "users", DataGenerator.DEFAULT_USER_COUNT),
+                    Integer.getInteger(generatorPrefix + "customers", DataGenerator.DEFAULT_CUSTOMER_COUNT),
+                    Integer.getInteger(generatorPrefix + "appointments", DataGenerator.DEFAULT_APPOINTMENT_COUNT),
+                    Long.getLong(generatorPrefix + "seed", DataGenerator.DEFAULT_SEED));
+        }
+    }
+
+    /**
+     * Opens the connection pool on an embedded database and creates any missing tables.
+     * @param url the URL of the database, from inMemoryUrl or fileUrl
+     * @throws SQLException if the schema cannot be created
+     */
+    public static void open(String url) throws SQLException {
+        JDBC.openConnection(url, userName, password);
+        createSchema();
+    }
+
+    /**
+     * Drops every table and creates the schema again, empty.
+     * @throws SQLException if a statement fails
+     */
+    public static void recreateSchema() throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS client_schedule CASCADE");
+        }
+        createSchema();
+    }
+
+    /**
+     * Runs the schema script, which only creates what does not exist yet.
+     * @throws SQLException if the script cannot be read or a statement fails
+     */
+    private static void createSchema() throws SQLException {
+        String script;
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(schemaResource)) {
+            if (in == null) {
+                throw new SQLException("Schema script " + schemaResource + " not found");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Schema script " + schemaResource + " could not be read", e);
+        }
+
+        try (Connection connection = JDBC.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : script.split(";\\s*(\\R|$)")) {
+                String trimmed = sql.replaceAll("(?m)^\\s*--.*$", "").trim();
+                if (!trimmed.isEmpty()) {
+                    statement.execute(trimmed);
+                }
+            }
+            statement.execute("SET SCHEMA client_schedule");
+        }
+    }
+
+    /**
+     *
+     * @return true if there are no users, which is the case until the database has been filled
+     * @throws SQLException if a database access error occurs
+     */
+    private static boolean isEmpty() throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM client_schedule.users")) {
+            return rs.next() && rs.getInt(1) == 0;
+        }
+    }
+}
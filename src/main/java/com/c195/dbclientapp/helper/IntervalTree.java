@@ -0,0 +1,205 @@
+package com.c195.dbclientapp.helper;
+
+import java.util.List;
+
+/**
+ * An augmented AVL tree of half-open [start, end) intervals, each tagged with an int ID. Intervals are ordered by start
+ * and then ID, and every node records the largest end in its subtree, so a search can skip any subtree that ends
+ * before the interval being looked for. Insert and remove take O(log n), and finding the k intervals that overlap a
+ * query takes O(log n + k). Times are given as plain longs, typically epoch seconds. The tree is not thread-safe.
+ */
+public class IntervalTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds an interval to the tree. The caller is responsible for not adding the same start and ID twice.
+     * @param start the inclusive start of the interval
+     * @param end the exclusive end of the interval
+     * @param id the ID the interval belongs to
+     */
+    public void insert(long start, long end, int id) {
+        root = insert(root, start, end, id);
+        size++;
+    }
+
+    /**
+     * Removes the interval with the given start and ID, if the tree holds it.
+     * @param start the start the interval was inserted with
+     * @param id the ID the interval was inserted with
+     * @return true if an interval was removed
+     */
+    public boolean remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Collects the IDs of the intervals that overlap [start, end). Intervals that only touch the query at an end point
+     * do not overlap it.
+     * @param start the inclusive start of the query
+     * @param end the exclusive end of the query
+     * @param excludeId an ID to leave out of the results, such as the appointment being edited, or -1 for none
+     * @param results the list the overlapping IDs are added to
+     */
+    public void findOverlaps(long start, long end, int excludeId, List<Integer> results) {
+        findOverlaps(root, start, end, excludeId, results);
+    }
+
+    /**
+     *
+     * @return the number of intervals in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every node that could overlap the query, pruning on the subtree maximum end and the node start.
+     */
+    private static void findOverlaps(Node node, long start, long end, int excludeId, List<Integer> results) {
+        while (node != null && node.maxEnd > start) {
+            if (node.left != null && node.left.maxEnd > start) {
+                findOverlaps(node.left, start, end, excludeId, results);
+            }
+
+            // Every start in the right subtree is at least this one, so stop once this node starts too late
+            if (node.start >= end) {
+                return;
+            }
+            if (node.end > start && node.id != excludeId) {
+                results.add(node.id);
+            }
+            node = node.right;
+        }
+    }
+
+    private Node insert(Node node, long start, long end, int id) {
+        if (node == null) {
+            return new Node(start, end, id);
+        }
+        if (compare(start, id, node) < 0) {
+            node.left = insert(node.left, start, end, id);
+        } else {
+            node.right = insert(node.right, start, end, id);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            // Replace the node with its successor, the leftmost node of the right subtree
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+            size++;
+            node.right = remove(node.right, successor.start, successor.id);
+        }
+        return rebalance(node);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Integer.compare(id, node.id);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * A tree node holding one interval and the largest end in its subtree.
+     */
+    private static class Node {
+        private long start;
+        private long end;
+        private int id;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        /**
+         *
+         * @param start
+         * @param end
+         * @param id
+         */
+        Node(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+}
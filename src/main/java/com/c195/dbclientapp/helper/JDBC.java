@@ -1,12 +1,12 @@
 package com.c195.dbclientapp.helper;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 
 /**
- * The JDBC class is responsible for managing the connection to the MySQL database. It contains methods for opening
- * and closing the connection, as well as the necessary constants for constructing the JDBC URL, driver name, and
- * login credentials.
+ * The JDBC class is responsible for managing the connections to the MySQL database, or to its embedded stand-in. It
+ * owns the connection pool that every data access class borrows from, and contains methods for opening and closing the
+ * pool, as well as the necessary constants for constructing the JDBC URL, driver name, and login credentials.
  */
 public class JDBC {
 
@@ -15,21 +15,68 @@ public class JDBC {
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
     private static final String jdbcUrl = protocol + vendor + location + databaseName +
-            "?connectionTimeZone = SERVER"; // LOCAL
+            "?connectionTimeZone = SERVER" + // LOCAL
+            "&rewriteBatchedStatements=true"; // Send batched inserts as multi-row statements
     private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
     private static final String userName = "root"; // Username
     private static String password = "password"; // Password
-    public static Connection connection;  // Connection Interface
+
+    // Connection pool settings
+    private static final int maxPoolSize = 10; // Upper bound on open connections
+    private static final int minIdle = 2; // Connections kept open while the app is quiet
+    private static final long connectionTimeoutMillis = 30_000; // Max wait to borrow a connection
+    private static final long idleTimeoutMillis = 600_000; // Close connections above minIdle after 10 minutes idle
+    private static final long maxLifetimeMillis = 1_800_000; // Retire connections after 30 minutes
+    private static final long leakDetectionThresholdMillis = 60_000; // Report connections held over a minute
+    private static final int validationTimeoutSeconds = 5; // Max time for a validation round-trip
+    private static final int statementCacheSize = 64; // Prepared statements cached per connection
+
+    private static ConnectionPool pool; // Shared connection pool
 
     /**
-     * Opens a connection to the specified database using the predefined JDBC URL, driver, and login credentials.
-     * Prints a message to the console if the connection is successful.
+     * Opens the connection pool for the specified database using the predefined JDBC URL, driver, and login
+     * credentials. Prints a message to the console if the first connections are opened successfully. When the
+     * application is started with -Ddbclientapp.datasource=embedded, the pool is opened on an EmbeddedDatabase instead.
      */
     public static void openConnection()
     {
+        if (EmbeddedDatabase.isSelected()) {
+            try {
+                EmbeddedDatabase.open();
+            }
+            catch(SQLException e)
+            {
+                System.out.println("Error:" + e.getMessage());
+            }
+            return;
+        }
         try {
             Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
+        }
+        catch(ClassNotFoundException e)
+        {
+            System.out.println("Error:" + e.getMessage());
+            return;
+        }
+        openConnection(jdbcUrl, userName, password);
+    }
+
+    /**
+     * Opens the connection pool for another database, such as an in-process stand-in used for benchmarks, with the
+     * same pool settings. The database's driver must register itself with DriverManager. Prints a message to the
+     * console if the first connections are opened successfully.
+     * @param url the JDBC URL of the database
+     * @param user the user to log in as
+     * @param userPassword the user's password
+     */
+    public static void openConnection(String url, String user, String userPassword)
+    {
+        try {
+            pool = new ConnectionPool(url, user, userPassword, maxPoolSize, minIdle, connectionTimeoutMillis,
+                    idleTimeoutMillis, maxLifetimeMillis, leakDetectionThresholdMillis, validationTimeoutSeconds,
+                    statementCacheSize);
+            pool.start(); // Open the initial idle connections
+            QueryMonitor.start(); // Publish the query timings
             System.out.println("Connection successful!");
         }
         catch(Exception e)
@@ -39,13 +86,36 @@ public class JDBC {
     }
 
     /**
-     * Opens a connection to the MySQL database specified in the JDBC class. If the connection is successful, a message
-     * indicating so will be printed. If the connection fails, an error message with the exception message will be
-     * printed.
+     * Borrows a connection from the pool. The caller must close the connection to return it to the pool, which is
+     * best done with a try-with-resources block.
+     * @return a pooled Connection
+     * @throws SQLException if the pool has not been opened or no connection becomes available in time
+     */
+    public static Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Connection pool has not been opened");
+        }
+        return pool.getConnection();
+    }
+
+    /**
+     * Returns the current connection pool counters, such as the number of active and idle connections, the time
+     * spent waiting for a connection, and the prepared statement cache hit, miss and eviction counts.
+     * @return the current PoolStats, or null if the pool has not been opened
+     */
+    public static PoolStats getPoolStats() {
+        return pool == null ? null : pool.getStats();
+    }
+
+    /**
+     * Closes the connection pool specified in the JDBC class, after writing the query timings one last time. If the
+     * pool is closed successfully, a message indicating so will be printed. If closing fails, an error message with
+     * the exception message will be printed.
      */
     public static void closeConnection() {
         try {
-            connection.close();
+            QueryMonitor.stop();
+            pool.close();
             System.out.println("Connection closed!");
         }
         catch(Exception e)
@@ -0,0 +1,117 @@
+package com.c195.dbclientapp.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size latency histogram in the style of HdrHistogram. Values are recorded in microseconds into log-linear
+ * buckets: every power of two is split into sixteen equal buckets, so any percentile read back is within about six
+ * percent of the true value, from one microsecond up to hours, in under a thousand counters. Recording is lock-free
+ * and may be done from any thread.
+ */
+class LatencyHistogram {
+
+    // Each power of two is split into 2^subBucketBits buckets
+    private static final int subBucketBits = 4;
+    private static final int subBucketCount = 1 << subBucketBits;
+    private static final int bucketCount = subBucketCount + (63 - subBucketBits) * subBucketCount;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketCount);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one value.
+     * @param micros the latency in microseconds
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalMicros.add(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     *
+     * @return the number of values recorded
+     */
+    long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     *
+     * @return the sum of the values recorded, in microseconds
+     */
+    long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    /**
+     *
+     * @return the largest value recorded, in microseconds
+     */
+    long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall. The answer is the highest value
+     * that shares a bucket with the true percentile, and never more than the largest value recorded.
+     * @param fraction the percentile as a fraction, such as 0.99
+     * @return the percentile in microseconds, or 0 if nothing has been recorded
+     */
+    long getPercentileMicros(double fraction) {
+        long count = 0;
+        long[] snapshot = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     *
+     * @param value a value in microseconds
+     * @return the bucket the value is counted in
+     */
+    private static int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - subBucketBits)) - subBucketCount;
+        return subBucketCount + (exponent - subBucketBits) * subBucketCount + subBucket;
+    }
+
+    /**
+     *
+     * @param index a bucket
+     * @return the largest value counted in the bucket
+     */
+    private static long highestValueIn(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = (index - subBucketCount) / subBucketCount;
+        int subBucket = (index - subBucketCount) % subBucketCount;
+        long lowest = (long) (subBucketCount + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
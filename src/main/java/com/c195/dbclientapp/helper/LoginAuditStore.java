@@ -0,0 +1,581 @@
+package com.c195.dbclientapp.helper;
+
+import com.c195.dbclientapp.model.LoginAttempt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A queryable store of login attempts, kept next to the login activity file so audits do not have to scan the text
+ * log. Attempts are appended to a binary file of fixed-size records in time order, which is memory-mapped for reads.
+ * Two indexes find the records a query needs without reading the others: a sparse time index holding the time of
+ * every 256th record, which narrows a time range to a few pages before a binary search, and a per-username list of
+ * record numbers, which is saved when the store is closed and brought up to date from the records when it is opened.
+ * Usernames are stored once, in a dictionary file, and referred to by number; the dictionary is synced before the
+ * records, so a synced record never names a username lost in a crash. All methods are synchronized, so the writer
+ * thread can append while a screen queries.
+ */
+public class LoginAuditStore {
+
+    // Record layout: epoch second (8 bytes), username number (4 bytes), outcome (1 byte), padding (3 bytes)
+    private static final int recordSize = 16;
+    private static final int headerSize = 16;
+    private static final long magic = 0x4442434155444954L; // "DBCAUDIT"
+    private static final int version = 1;
+
+    // Every sparseStride-th record's time is kept in memory
+    private static final int sparseStride = 256;
+
+    // Records buffered before they are written in one call
+    private static final int writeBufferRecords = 4096;
+
+    private static final String recordsFileName = "attempts.dat";
+    private static final String usersFileName = "users.dat";
+    private static final String indexFileName = "users.idx";
+
+    // Text log lines look like "2023-05-01 12:00:00 - FAILED login for user: name"
+    private static final DateTimeFormatter lineTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String userMarker = " login for user: ";
+
+    private final Path directory;
+    private final boolean created;
+    private final FileChannel records;
+    private final FileChannel users;
+    private final DataOutputStream usersOut;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(writeBufferRecords * recordSize);
+
+    private final List<String> userNames = new ArrayList<>();
+    private final Map<String, Integer> userIds = new HashMap<>();
+    private final List<IntList> recordsByUser = new ArrayList<>();
+    private long[] sparseTimes = new long[64];
+
+    private MappedByteBuffer map;
+    private int recordCount;
+    private int writtenCount;
+    private long lastEpochSecond = Long.MIN_VALUE;
+    private boolean indexDirty = false;
+    private boolean usersUnsynced = false;
+
+    /**
+     * Opens the store in a directory, creating it if needed, and brings the indexes up to date.
+     * @param directory the directory holding the store's files
+     * @throws IOException if the files cannot be created or read
+     */
+    public LoginAuditStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path recordsFile = directory.resolve(recordsFileName);
+        created = !Files.exists(recordsFile);
+        records = FileChannel.open(recordsFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (records.size() < headerSize) {
+            ByteBuffer header = ByteBuffer.allocate(headerSize).putLong(magic).putInt(version).putInt(recordSize);
+            header.flip();
+            records.truncate(0);
+            records.write(header, 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            records.read(header, 0);
+            if (header.getLong(0) != magic || header.getInt(8) != version) {
+                records.close();
+                throw new IOException(recordsFile + " is not a login audit store");
+            }
+        }
+
+        // A record cut short by a crash is dropped
+        recordCount = (int) ((records.size() - headerSize) / recordSize);
+        records.truncate(headerSize + (long) recordCount * recordSize);
+        writtenCount = recordCount;
+
+        // A username cut short by a crash is dropped, so new names are not appended after it
+        long usersSize = readUsers();
+        users = FileChannel.open(directory.resolve(usersFileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        users.truncate(usersSize);
+        users.position(usersSize);
+        usersOut = new DataOutputStream(Channels.newOutputStream(users));
+        remap();
+        buildIndexes();
+    }
+
+    /**
+     *
+     * @return true if the store did not exist before it was opened, so it may need the text log imported
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    /**
+     *
+     * @return the number of attempts stored
+     */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * Adds an attempt. Attempts must be added in time order; one that is earlier than the last, because it was queued
+     * by another thread a moment later, is stored at the last attempt's time.
+     * @param attempt the login attempt
+     * @throws IOException if buffered records cannot be written
+     */
+    public synchronized void append(LoginAttempt attempt) throws IOException {
+        long epochSecond = Math.max(lastEpochSecond, attempt.getTime().toEpochSecond(ZoneOffset.UTC));
+        int userId = userIdOf(attempt.getUserName());
+        if (!writeBuffer.hasRemaining()) {
+            flush();
+        }
+        writeBuffer.putLong(epochSecond).putInt(userId).put((byte) (attempt.isSuccessful() ? 1 : 0))
+                .put((byte) 0).put((byte) 0).put((byte) 0);
+        index(recordCount, epochSecond, userId);
+        recordCount++;
+        indexDirty = true;
+    }
+
+    /**
+     * Imports the attempts in a text log, in the order they appear. Lines that are not login attempts are skipped.
+     * @param in the text log
+     * @return the number of attempts imported
+     * @throws IOException if the log cannot be read or the records cannot be written
+     */
+    public synchronized int importText(InputStream in) throws IOException {
+        int imported = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+                StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            LoginAttempt attempt = parseLine(line);
+            if (attempt != null) {
+                append(attempt);
+                imported++;
+            }
+        }
+        flush();
+        return imported;
+    }
+
+    /**
+     * Imports a login activity file and the segments rotated out of it, oldest first, so a store created after the
+     * application has been in use starts with the full history.
+     * @param activeFile the login activity file, such as login_activity.txt
+     * @return the number of attempts imported
+     * @throws IOException if a log cannot be read or the records cannot be written
+     */
+    public synchronized int importLog(Path activeFile) throws IOException {
+        int imported = 0;
+        for (Path segment : AuditLogArchiver.listSegments(activeFile)) {
+            try (InputStream in = segment.getFileName().toString().endsWith(".gz")
+                    ? new GZIPInputStream(Files.newInputStream(segment), 64 * 1024)
+                    : Files.newInputStream(segment)) {
+                imported += importText(in);
+            }
+        }
+        if (Files.exists(activeFile)) {
+            try (InputStream in = Files.newInputStream(activeFile)) {
+                imported += importText(in);
+            }
+        }
+        return imported;
+    }
+
+    /**
+     * Writes buffered records to the records file.
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (writeBuffer.position() == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        long position = headerSize + (long) writtenCount * recordSize;
+        while (writeBuffer.hasRemaining()) {
+            position += records.write(writeBuffer, position);
+        }
+        writeBuffer.clear();
+        writtenCount = recordCount;
+    }
+
+    /**
+     * Writes buffered records and syncs the username dictionary, then the records file, to disk.
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void sync() throws IOException {
+        flush();
+        if (usersUnsynced) {
+            users.force(false);
+            usersUnsynced = false;
+        }
+        records.force(false);
+    }
+
+    /**
+     * Finds the attempts matching every filter given, newest first.
+     * @param userName the username, or null for any user
+     * @param successful true for successful logins only, false for failed logins only, or null for both
+     * @param from the earliest time in UTC, inclusive, or null for no limit
+     * @param to the latest time in UTC, exclusive, or null for no limit
+     * @param limit the most attempts to return
+     * @return the matching attempts, newest first
+     * @throws IOException if buffered records cannot be written
+     */
+    public synchronized List<LoginAttempt> query(String userName, Boolean successful, LocalDateTime from,
+                                                 LocalDateTime to, int limit) throws IOException {
+        flush();
+        remap();
+        int first = from == null ? 0 : firstRecordAtOrAfter(from.toEpochSecond(ZoneOffset.UTC));
+        int end = to == null ? recordCount : firstRecordAtOrAfter(to.toEpochSecond(ZoneOffset.UTC));
+        List<LoginAttempt> matches = new ArrayList<>();
+
+        if (userName != null) {
+            Integer userId = userIds.get(userName);
+            if (userId == null) {
+                return matches;
+            }
+
+            // The user's record numbers are in order, so the time range is a contiguous run of them
+            IntList userRecords = recordsByUser.get(userId);
+            int start = userRecords.lowerBound(first);
+            for (int i = userRecords.lowerBound(end) - 1; i >= start && matches.size() < limit; i--) {
+                addIfMatches(matches, userRecords.get(i), successful);
+            }
+        } else {
+            for (int record = end - 1; record >= first && matches.size() < limit; record--) {
+                addIfMatches(matches, record, successful);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     *
+     * @return every username that has attempted to log in, in the order first seen
+     */
+    public synchronized List<String> getUserNames() {
+        return new ArrayList<>(userNames);
+    }
+
+    /**
+     * Writes buffered records, saves the per-username index and closes the files.
+     */
+    public synchronized void close() {
+        try {
+            sync();
+            if (indexDirty) {
+                writeIndex();
+            }
+            usersOut.close();
+            records.close();
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses one line of the text log.
+     * @param line the line
+     * @return the attempt, or null if the line is not a login attempt
+     */
+    public static LoginAttempt parseLine(String line) {
+        int marker = line.indexOf(userMarker);
+        if (line.length() < 19 || marker < 0) {
+            return null;
+        }
+        try {
+            LocalDateTime time = LocalDateTime.parse(line.substring(0, 19), lineTimeFormatter);
+            boolean successful = line.startsWith("SUCCESSFUL", 22);
+            return new LoginAttempt(time, line.substring(marker + userMarker.length()), successful);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds a record to the results if it has the requested outcome.
+     * @param matches the results
+     * @param record the record number
+     * @param successful the outcome wanted, or null for either
+     */
+    private void addIfMatches(List<LoginAttempt> matches, int record, Boolean successful) {
+        int offset = headerSize + record * recordSize;
+        boolean recordSuccessful = map.get(offset + 12) == 1;
+        if (successful != null && successful != recordSuccessful) {
+            return;
+        }
+        LocalDateTime time = LocalDateTime.ofEpochSecond(map.getLong(offset), 0, ZoneOffset.UTC);
+        matches.add(new LoginAttempt(time, userNames.get(map.getInt(offset + 8)), recordSuccessful));
+    }
+
+    /**
+     * Finds the first record at or after a time, using the sparse index to pick the block and a binary search of the
+     * mapped records within it.
+     * @param epochSecond the time
+     * @return the record number, or recordCount if every record is earlier
+     */
+    private int firstRecordAtOrAfter(long epochSecond) {
+        int blocks = (recordCount + sparseStride - 1) / sparseStride;
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sparseTimes[mid] < epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Every record before block low - 1 is earlier; the answer lies in block low - 1
+        int from = Math.max(0, (low - 1) * sparseStride);
+        int to = Math.min(recordCount, low * sparseStride);
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (map.getLong(headerSize + mid * recordSize) < epochSecond) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Maps the records written so far, if the file has grown since it was last mapped.
+     * @throws IOException if the file cannot be mapped
+     */
+    private void remap() throws IOException {
+        long size = headerSize + (long) writtenCount * recordSize;
+        if (map == null || map.capacity() != size) {
+            map = records.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Loads the saved per-username index and adds the records written since it was saved, or rebuilds it from every
+     * record if it is missing or does not match the records file. Builds the sparse time index as it goes. A record
+     * naming a username the dictionary lost in a crash is dropped with every record after it; the saved index never
+     * covers such a record, since it is discarded when it names more usernames than the dictionary holds.
+     * @throws IOException if the records cannot be read or dropped
+     */
+    private void buildIndexes() throws IOException {
+        int indexed = readIndex();
+        for (int i = 0; i < userNames.size(); i++) {
+            if (recordsByUser.size() <= i) {
+                recordsByUser.add(new IntList());
+            }
+        }
+        for (int record = 0; record < recordCount; record++) {
+            int offset = headerSize + record * recordSize;
+            int userId = map.getInt(offset + 8);
+            if (userId >= userNames.size()) {
+                System.out.println("Error:Dropping " + (recordCount - record) + " login attempts from record " +
+                        record + " whose username was not saved");
+                recordCount = record;
+                writtenCount = record;
+                records.truncate(headerSize + (long) record * recordSize);
+                remap();
+                break;
+            }
+            long epochSecond = map.getLong(offset);
+            if (record % sparseStride == 0) {
+                addSparseTime(record, epochSecond);
+            }
+            if (record >= indexed) {
+                recordsByUser.get(userId).add(record);
+                indexDirty = true;
+            }
+            lastEpochSecond = epochSecond;
+        }
+    }
+
+    /**
+     * Adds a new record to the in-memory indexes.
+     * @param record the record number
+     * @param epochSecond its time
+     * @param userId its username number
+     */
+    private void index(int record, long epochSecond, int userId) {
+        if (record % sparseStride == 0) {
+            addSparseTime(record, epochSecond);
+        }
+        recordsByUser.get(userId).add(record);
+        lastEpochSecond = epochSecond;
+    }
+
+    private void addSparseTime(int record, long epochSecond) {
+        int block = record / sparseStride;
+        if (block >= sparseTimes.length) {
+            sparseTimes = Arrays.copyOf(sparseTimes, sparseTimes.length * 2);
+        }
+        sparseTimes[block] = epochSecond;
+    }
+
+    /**
+     *
+     * @param userName a username
+     * @return its number, adding it to the dictionary if it is new
+     * @throws IOException if the dictionary cannot be written
+     */
+    private int userIdOf(String userName) throws IOException {
+        Integer userId = userIds.get(userName);
+        if (userId != null) {
+            return userId;
+        }
+        usersOut.writeUTF(userName);
+        usersUnsynced = true;
+        userNames.add(userName);
+        userIds.put(userName, userNames.size() - 1);
+        recordsByUser.add(new IntList());
+        return userNames.size() - 1;
+    }
+
+    /**
+     * Reads the username dictionary.
+     * @return the length of the complete usernames read, which is short of the file's length if the last was cut short
+     * @throws IOException if the dictionary cannot be read
+     */
+    private long readUsers() throws IOException {
+        Path usersFile = directory.resolve(usersFileName);
+        if (!Files.exists(usersFile)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(usersFile);
+        ByteArrayInputStream bytesIn = new ByteArrayInputStream(bytes);
+        long complete = 0;
+        try (DataInputStream in = new DataInputStream(bytesIn)) {
+            while (true) {
+                String userName = in.readUTF();
+                userIds.put(userName, userNames.size());
+                userNames.add(userName);
+                complete = bytes.length - bytesIn.available();
+            }
+        } catch (EOFException e) {
+            // End of the dictionary
+        }
+        return complete;
+    }
+
+    /**
+     * Reads the saved per-username index.
+     * @return the number of records it covers, or 0 if it is missing or does not match the records file
+     */
+    private int readIndex() {
+        Path indexFile = directory.resolve(indexFileName);
+        if (!Files.exists(indexFile)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(indexFile)))) {
+            int covered = in.readInt();
+            int users = in.readInt();
+            if (covered > recordCount || users > userNames.size()) {
+                return 0;
+            }
+            List<IntList> loaded = new ArrayList<>();
+            for (int user = 0; user < users; user++) {
+                IntList list = new IntList();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    list.add(in.readInt());
+                }
+                loaded.add(list);
+            }
+            recordsByUser.addAll(loaded);
+            return covered;
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Saves the per-username index, replacing the saved copy.
+     * @throws IOException if the index cannot be written
+     */
+    private void writeIndex() throws IOException {
+        Path temp = directory.resolve(indexFileName + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp)))) {
+            out.writeInt(recordCount);
+            out.writeInt(recordsByUser.size());
+            for (IntList list : recordsByUser) {
+                out.writeInt(list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    out.writeInt(list.get(i));
+                }
+            }
+        }
+        Files.move(temp, directory.resolve(indexFileName), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        indexDirty = false;
+    }
+
+    /**
+     * A growable list of ints in ascending order, for the record numbers of one username.
+     */
+    private static class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         *
+         * @param value a record number
+         * @return the position of the first value that is not less than it
+         */
+        int lowerBound(int value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
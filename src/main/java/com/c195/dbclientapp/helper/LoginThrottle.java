@@ -0,0 +1,379 @@
+package com.c195.dbclientapp.helper;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a login attempt may be checked against the database, so a scripted brute-force attack cannot turn
+ * into an unbounded stream of queries. An attempt is checked in memory, without locks, before the database is asked:
+ * <ul>
+ * <li>a username that failed too often within a sliding window is locked out, for a period that doubles with each
+ * further failure up to a maximum, and a successful login clears its failures;</li>
+ * <li>each username may be tried at a steady rate, with a small burst allowed;</li>
+ * <li>all usernames together may be tried at a higher steady rate, which caps the load an attack spread across many
+ * usernames can put on the database.</li>
+ * </ul>
+ * The rates are token buckets kept as a single theoretical arrival time each, updated by compare-and-set. Failures are
+ * counted in a ring of time slots, each a single long holding the slot's number and its count, so they too are
+ * updated by compare-and-set. A legitimate user typing a password therefore never waits. The locked-out usernames and
+ * the rejection counts can be watched through the com.c195.dbclientapp:type=LoginThrottle MXBean, which can also lift
+ * a lockout.
+ */
+public abstract class LoginThrottle {
+
+    // System properties read when the class is first used
+    public static final String globalRateProperty = "dbclientapp.login.global.per.second";
+    public static final String userRateProperty = "dbclientapp.login.user.per.minute";
+    public static final String failuresProperty = "dbclientapp.login.failures";
+    public static final String windowProperty = "dbclientapp.login.window.minutes";
+    public static final String lockoutProperty = "dbclientapp.login.lockout.seconds";
+    public static final String maxLockoutProperty = "dbclientapp.login.lockout.max.seconds";
+
+    private static final String objectName = "com.c195.dbclientapp:type=LoginThrottle";
+
+    // Attempts a username may make at once before its steady rate applies
+    private static final int userBurst = 5;
+
+    // The failure window is divided into this many slots, each a long holding the slot number and its count
+    private static final int windowSlots = 10;
+    private static final int countBits = 20;
+    private static final long countMask = (1L << countBits) - 1;
+
+    // Usernames tracked before those without failures are forgotten, and how often that is checked
+    private static final int maxTrackedUsers = 10_000;
+    private static final int cleanupEvery = 1024;
+
+    private static final long clockOrigin = System.nanoTime();
+
+    private static final long globalIntervalNanos = TimeUnit.SECONDS.toNanos(1) /
+            Math.max(1, Integer.getInteger(globalRateProperty, 20));
+    private static final long userIntervalNanos = TimeUnit.MINUTES.toNanos(1) /
+            Math.max(1, Integer.getInteger(userRateProperty, 10));
+    private static final int failureThreshold = Math.max(1, Integer.getInteger(failuresProperty, 5));
+    private static final long windowNanos = TimeUnit.MINUTES.toNanos(Math.max(1, Long.getLong(windowProperty, 15)));
+    private static final long slotNanos = windowNanos / windowSlots;
+    private static final long lockoutNanos = TimeUnit.SECONDS.toNanos(Long.getLong(lockoutProperty, 30));
+    private static final long maxLockoutNanos = TimeUnit.SECONDS.toNanos(Long.getLong(maxLockoutProperty, 900));
+
+    private static final RateLimit globalRate = new RateLimit(globalIntervalNanos,
+            2 * (int) (TimeUnit.SECONDS.toNanos(1) / globalIntervalNanos));
+    private static final Map<String, UserState> users = new ConcurrentHashMap<>();
+    private static final AtomicLong checks = new AtomicLong();
+    private static volatile int cleanupThreshold = maxTrackedUsers;
+
+    private static final LongAdder allowed = new LongAdder();
+    private static final LongAdder lockedOut = new LongAdder();
+    private static final LongAdder userRateLimited = new LongAdder();
+    private static final LongAdder globalRateLimited = new LongAdder();
+
+    private static boolean registered = false;
+
+    /**
+     * Registers the MXBean. Called when the application starts; calling it again has no effect.
+     */
+    public static synchronized void start() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Bean(), new ObjectName(objectName));
+            registered = true;
+        } catch (JMException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Decides whether a login attempt may go on to the database. An attempt that is allowed uses up one of the
+     * username's and one of the global tokens; one that is rejected uses up nothing.
+     * @param userName the username being tried
+     * @return 0 if the attempt may go on, otherwise the milliseconds to wait before trying again
+     */
+    public static long checkAttempt(String userName) {
+        long now = now();
+        if (checks.incrementAndGet() % cleanupEvery == 0 && users.size() > cleanupThreshold) {
+            forgetUsers(now);
+        }
+        UserState user = users.computeIfAbsent(key(userName), name -> new UserState());
+
+        long lockedFor = user.lockedUntilNanos.get() - now;
+        if (lockedFor > 0) {
+            lockedOut.increment();
+            return toRetryMillis(lockedFor);
+        }
+
+        // The username's own rate is checked first, so one username being hammered does not use up global tokens
+        long wait = user.rate.acquire(now);
+        if (wait > 0) {
+            userRateLimited.increment();
+            return toRetryMillis(wait);
+        }
+        wait = globalRate.acquire(now);
+        if (wait > 0) {
+            user.rate.release();
+            globalRateLimited.increment();
+            return toRetryMillis(wait);
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * Counts a failed login, locking the username out once it has failed too often within the window. Each failure
+     * past the limit doubles the lockout, up to the maximum.
+     * @param userName the username that failed
+     */
+    public static void recordFailure(String userName) {
+        long now = now();
+        UserState user = users.computeIfAbsent(key(userName), name -> new UserState());
+        int failures = user.addFailure(now);
+        if (failures >= failureThreshold) {
+            int doublings = Math.min(failures - failureThreshold, 30);
+            long lockout = lockoutNanos << doublings;
+            lockout = lockout < 0 || lockout > maxLockoutNanos ? maxLockoutNanos : lockout;
+            user.lockedUntilNanos.accumulateAndGet(now + lockout, Math::max);
+        }
+    }
+
+    /**
+     * Clears a username's failures and any lockout after a successful login.
+     * @param userName the username that logged in
+     */
+    public static void recordSuccess(String userName) {
+        UserState user = users.get(key(userName));
+        if (user != null) {
+            user.clear();
+        }
+    }
+
+    /**
+     *
+     * @param userName a username
+     * @return the milliseconds left on the username's lockout, or 0 if it is not locked out
+     */
+    public static long getLockoutMillis(String userName) {
+        UserState user = users.get(key(userName));
+        if (user == null) {
+            return 0;
+        }
+        long lockedFor = user.lockedUntilNanos.get() - now();
+        return lockedFor > 0 ? toRetryMillis(lockedFor) : 0;
+    }
+
+    /**
+     *
+     * @return the usernames that are locked out, each followed by the seconds left
+     */
+    public static List<String> getLockedOutUsers() {
+        long now = now();
+        List<String> locked = new ArrayList<>();
+        users.forEach((name, user) -> {
+            long lockedFor = user.lockedUntilNanos.get() - now;
+            if (lockedFor > 0) {
+                locked.add(name + " (" + TimeUnit.NANOSECONDS.toSeconds(lockedFor + 999_999_999) + " s)");
+            }
+        });
+        return locked;
+    }
+
+    /**
+     * Lifts a username's lockout and forgets its failures.
+     * @param userName the username
+     */
+    public static void unlock(String userName) {
+        recordSuccess(userName);
+    }
+
+    /**
+     *
+     * @return nanoseconds since the class was loaded, which unlike System.nanoTime is never negative
+     */
+    private static long now() {
+        return System.nanoTime() - clockOrigin;
+    }
+
+    /**
+     *
+     * @param userName a username as typed, possibly null
+     * @return the key it is tracked under
+     */
+    private static String key(String userName) {
+        return userName == null ? "" : userName;
+    }
+
+    /**
+     *
+     * @param nanos a wait in nanoseconds
+     * @return the wait in milliseconds, rounded up so it is never 0
+     */
+    private static long toRetryMillis(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos + 999_999));
+    }
+
+    /**
+     * Forgets usernames with no failures in the window and no lockout, so an attack that tries many different
+     * usernames cannot grow the map without bound; forgetting such a username only resets its rate, which the global
+     * rate still covers. If too many usernames are left, those that are not locked out are forgotten as well, and the
+     * next check waits until the map has doubled so the scan stays cheap however many remain.
+     * @param now the current time
+     */
+    private static synchronized void forgetUsers(long now) {
+        if (users.size() <= cleanupThreshold) {
+            return;
+        }
+        users.values().removeIf(user -> user.lockedUntilNanos.get() <= now && user.countFailures(now) == 0);
+        if (users.size() > maxTrackedUsers) {
+            users.values().removeIf(user -> user.lockedUntilNanos.get() <= now);
+        }
+        cleanupThreshold = Math.max(maxTrackedUsers, 2 * users.size());
+    }
+
+    /**
+     * A token bucket kept as the theoretical arrival time of the next attempt: each attempt moves it one interval
+     * later, and an attempt is allowed as long as it is no more than the burst ahead of the current time.
+     */
+    private static class RateLimit {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong arrivalNanos = new AtomicLong();
+
+        /**
+         *
+         * @param intervalNanos
+         * @param burst
+         */
+        RateLimit(long intervalNanos, int burst) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        }
+
+        /**
+         * Takes a token if one is available.
+         * @param now the current time
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        long acquire(long now) {
+            while (true) {
+                long arrival = arrivalNanos.get();
+                long next = Math.max(arrival, now);
+                long ahead = next - now;
+                if (ahead > toleranceNanos) {
+                    return ahead - toleranceNanos;
+                }
+                if (arrivalNanos.compareAndSet(arrival, next + intervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Gives back a token taken by an attempt that was then rejected for another reason.
+         */
+        void release() {
+            arrivalNanos.addAndGet(-intervalNanos);
+        }
+    }
+
+    /**
+     * What is tracked for one username: its rate, its recent failures and the end of its lockout.
+     */
+    private static class UserState {
+        private final RateLimit rate = new RateLimit(userIntervalNanos, userBurst);
+        private final AtomicLongArray failureSlots = new AtomicLongArray(windowSlots);
+        private final AtomicLong lockedUntilNanos = new AtomicLong();
+
+        /**
+         * Counts a failure in the current slot, starting the slot afresh if it last counted an earlier window.
+         * @param now the current time
+         * @return the number of failures within the window, including this one
+         */
+        int addFailure(long now) {
+            long slot = now / slotNanos;
+            int index = (int) (slot % windowSlots);
+            while (true) {
+                long packed = failureSlots.get(index);
+                long count = packed >>> countBits == slot ? packed & countMask : 0;
+                long next = slot << countBits | Math.min(count + 1, countMask);
+                if (failureSlots.compareAndSet(index, packed, next)) {
+                    break;
+                }
+            }
+
+            return countFailures(now);
+        }
+
+        /**
+         *
+         * @param now the current time
+         * @return the number of failures within the window
+         */
+        int countFailures(long now) {
+            long slot = now / slotNanos;
+            int failures = 0;
+            for (int i = 0; i < windowSlots; i++) {
+                long packed = failureSlots.get(i);
+                if (slot - (packed >>> countBits) < windowSlots) {
+                    failures += (int) (packed & countMask);
+                }
+            }
+            return failures;
+        }
+
+        /**
+         * Forgets the failures and lifts the lockout.
+         */
+        void clear() {
+            for (int i = 0; i < windowSlots; i++) {
+                failureSlots.set(i, 0);
+            }
+            lockedUntilNanos.set(0);
+        }
+    }
+
+    /**
+     * The MXBean registered with the platform MBean server, which reads through to the static methods.
+     */
+    private static class Bean implements LoginThrottleMXBean {
+
+        @Override
+        public List<String> getLockedOutUsers() {
+            return LoginThrottle.getLockedOutUsers();
+        }
+
+        @Override
+        public long getAllowedCount() {
+            return allowed.sum();
+        }
+
+        @Override
+        public long getLockedOutCount() {
+            return lockedOut.sum();
+        }
+
+        @Override
+        public long getUserRateLimitedCount() {
+            return userRateLimited.sum();
+        }
+
+        @Override
+        public long getGlobalRateLimitedCount() {
+            return globalRateLimited.sum();
+        }
+
+        @Override
+        public void unlock(String userName) {
+            LoginThrottle.unlock(userName);
+        }
+    }
+}
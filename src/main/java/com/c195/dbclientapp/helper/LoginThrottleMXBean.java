@@ -0,0 +1,47 @@
+package com.c195.dbclientapp.helper;
+
+import java.util.List;
+
+/**
+ * The management interface through which JMX clients such as JConsole watch the LoginThrottle. It is registered as
+ * com.c195.dbclientapp:type=LoginThrottle by LoginThrottle.start, which Main calls as the application starts, before
+ * the login screen is shown.
+ */
+public interface LoginThrottleMXBean {
+
+    /**
+     *
+     * @return the usernames that are locked out, each followed by the seconds left, such as "test (30 s)"
+     */
+    List<String> getLockedOutUsers();
+
+    /**
+     *
+     * @return the number of login attempts allowed through to the database
+     */
+    long getAllowedCount();
+
+    /**
+     *
+     * @return the number of attempts rejected because the username was locked out
+     */
+    long getLockedOutCount();
+
+    /**
+     *
+     * @return the number of attempts rejected because the username was tried too often
+     */
+    long getUserRateLimitedCount();
+
+    /**
+     *
+     * @return the number of attempts rejected because all usernames together were tried too often
+     */
+    long getGlobalRateLimitedCount();
+
+    /**
+     * Lifts a username's lockout and forgets its failures.
+     * @param userName the username
+     */
+    void unlock(String userName);
+}
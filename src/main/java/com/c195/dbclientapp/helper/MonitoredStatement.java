@@ -0,0 +1,281 @@
+package com.c195.dbclientapp.helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * The invocation handler behind a statement handed out by the pool while the QueryMonitor is enabled. It times each
+ * execute call, remembers the types of the parameters bound since the last execution so a slow query can be logged
+ * without its values, and counts the rows and bytes read through the ResultSets it returns. The counts are passed to
+ * the QueryMonitor when the ResultSet or the statement is closed, or the statement is run again, which is also when
+ * the execution's QueryEvent is committed to any running flight recording.
+ */
+class MonitoredStatement implements InvocationHandler {
+
+    private final Statement statement;
+    private final String preparedSql;
+
+    // Parameter types by position, starting at 1, for the execution being bound
+    private Class<?>[] parameterTypes;
+
+    // Results of the last execution not yet passed to the QueryMonitor
+    private String resultName;
+    private long pendingRows;
+    private long pendingBytes;
+    private QueryEvent pendingEvent;
+
+    /**
+     *
+     * @param statement
+     * @param preparedSql
+     */
+    private MonitoredStatement(Statement statement, String preparedSql) {
+        this.statement = statement;
+        this.preparedSql = preparedSql;
+    }
+
+    /**
+     *
+     * @param statement a prepared statement
+     * @param sql the SQL it was prepared with
+     * @return a PreparedStatement proxy that times its executions
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new MonitoredStatement(statement, sql));
+    }
+
+    /**
+     *
+     * @param statement a plain statement
+     * @return a Statement proxy that times its executions
+     */
+    static Statement wrap(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new MonitoredStatement(statement, null));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        switch (methodName) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Monitored" + statement;
+            case "close":
+                flush();
+                break;
+            case "clearParameters":
+                parameterTypes = null;
+                break;
+        }
+
+        if (methodName.startsWith("execute")) {
+            return execute(method, args);
+        }
+
+        // PreparedStatement setters take the parameter position first
+        if (methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer position) {
+            bind(position, methodName.equals("setNull") || args[1] == null ? null : args[1].getClass());
+        }
+
+        Object result = invokeStatement(method, args);
+        if (methodName.equals("getResultSet") && result instanceof ResultSet resultSet) {
+            return countRows(resultSet);
+        }
+        return result;
+    }
+
+    /**
+     * Runs an execute method, timing it and recording the rows it changed.
+     * @param method executeQuery, executeUpdate, execute, executeBatch or one of their large variants
+     * @param args the method's arguments, which for a plain Statement start with the SQL
+     * @return the method's result, with a ResultSet wrapped so its rows are counted
+     * @throws Throwable whatever the driver threw
+     */
+    private Object execute(Method method, Object[] args) throws Throwable {
+        flush();
+        String sql = preparedSql != null ? preparedSql
+                : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+        String name = QueryMonitor.nameOfCaller();
+        Class<?>[] boundTypes = parameterTypes;
+        if (!method.getName().equals("executeBatch")) {
+            parameterTypes = null;
+        }
+
+        QueryEvent event = new QueryEvent();
+        event.name = name;
+        event.sql = sql;
+        event.begin();
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = invokeStatement(method, args);
+            failed = false;
+            resultName = name;
+            pendingEvent = event;
+            if (result instanceof ResultSet resultSet) {
+                return countRows(resultSet);
+            }
+            pendingRows += changedRows(result);
+            return result;
+        } finally {
+            QueryMonitor.recordExecution(name, sql, System.nanoTime() - started, failed, boundTypes);
+            if (failed) {
+                event.failed = true;
+                event.commit();
+            }
+            if (method.getName().equals("executeBatch")) {
+                parameterTypes = null;
+            }
+        }
+    }
+
+    /**
+     * Passes the counts of the last execution to the QueryMonitor and commits its QueryEvent.
+     */
+    private void flush() {
+        if (resultName != null) {
+            QueryMonitor.recordResults(resultName, pendingRows, pendingBytes);
+            pendingEvent.rows = pendingRows;
+            pendingEvent.bytes = pendingBytes;
+            pendingEvent.commit();
+            pendingEvent = null;
+            resultName = null;
+            pendingRows = 0;
+            pendingBytes = 0;
+        }
+    }
+
+    /**
+     * Remembers the type of a bound parameter.
+     * @param position the parameter's position, starting at 1
+     * @param type the type of its value, or null for an SQL NULL
+     */
+    private void bind(int position, Class<?> type) {
+        if (position < 1) {
+            return;
+        }
+        if (parameterTypes == null) {
+            parameterTypes = new Class<?>[Math.max(position + 1, 8)];
+        } else if (position >= parameterTypes.length) {
+            parameterTypes = Arrays.copyOf(parameterTypes, Math.max(position + 1, parameterTypes.length * 2));
+        }
+        parameterTypes[position] = type == null ? Void.class : type;
+    }
+
+    /**
+     *
+     * @param result the result of executeUpdate, executeBatch or one of their large variants
+     * @return the number of rows changed, counting each batch entry whose count the driver did not report as one
+     */
+    private static long changedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(0, count);
+        }
+        if (result instanceof Long count) {
+            return Math.max(0, count);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     *
+     * @param resultSet a result set returned by the statement
+     * @return a ResultSet proxy that counts the rows and bytes read through it
+     */
+    private ResultSet countRows(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new CountingResultSet(resultSet));
+    }
+
+    private Object invokeStatement(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The invocation handler behind a ResultSet returned by a monitored statement. Each row moved to is counted, and
+     * each value read is counted at its length for text and binary columns, or eight bytes for anything else.
+     */
+    private class CountingResultSet implements InvocationHandler {
+
+        private final ResultSet resultSet;
+
+        /**
+         *
+         * @param resultSet
+         */
+        CountingResultSet(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Counting" + resultSet;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            String methodName = method.getName();
+            if (methodName.equals("next")) {
+                if ((Boolean) result) {
+                    pendingRows++;
+                }
+            } else if (methodName.equals("close")) {
+                flush();
+            } else if (methodName.startsWith("get") && args != null && args.length >= 1 && result != null) {
+                pendingBytes += sizeOf(result);
+            }
+            return result;
+        }
+
+        /**
+         *
+         * @param value a value read from a column
+         * @return its length for text and binary values, or eight bytes for anything else
+         */
+        private long sizeOf(Object value) {
+            if (value instanceof String text) {
+                return text.length();
+            }
+            if (value instanceof byte[] bytes) {
+                return bytes.length;
+            }
+            return 8;
+        }
+    }
+}
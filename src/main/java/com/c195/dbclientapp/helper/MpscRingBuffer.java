@@ -0,0 +1,109 @@
+package com.c195.dbclientapp.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue for many producer threads and a single consumer thread. Producers claim a slot by
+ * advancing the tail with a compare-and-set and then publish their item into it; the consumer reads slots in order,
+ * treating an empty slot as not yet published. Neither side ever blocks the other, so handing an item to a background
+ * thread costs a few atomic operations.
+ * @param <T> the type of item
+ */
+public class MpscRingBuffer<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+
+    // Position of the next slot a producer will claim
+    private final AtomicLong tail = new AtomicLong();
+
+    // Position of the next slot the consumer will read; only the consumer writes it
+    private volatile long head;
+
+    /**
+     *
+     * @param capacity the number of items the buffer can hold, rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * Adds an item, from any thread.
+     * @param item the item, which must not be null
+     * @return false if the buffer was full and the item was not added
+     */
+    public boolean offer(T item) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) (claimed & mask), item);
+        return true;
+    }
+
+    /**
+     * Removes the oldest item. Must only be called from the consumer thread.
+     * @return the item, or null if the buffer is empty or the oldest item has been claimed but not yet published
+     */
+    public T poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        T item = slots.get(index);
+        if (item == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = position + 1;
+        return item;
+    }
+
+    /**
+     * Removes up to limit items in order and hands each to the consumer. Must only be called from the consumer
+     * thread.
+     * @param consumer receives each item
+     * @param limit the most items to remove
+     * @return the number of items removed
+     */
+    public int drain(Consumer<T> consumer, int limit) {
+        int drained = 0;
+        T item;
+        while (drained < limit && (item = poll()) != null) {
+            consumer.accept(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     *
+     * @return the number of items ever claimed by producers, which counts items not yet published
+     */
+    public long getOfferedCount() {
+        return tail.get();
+    }
+
+    /**
+     *
+     * @return the number of items ever removed by the consumer
+     */
+    public long getConsumedCount() {
+        return head;
+    }
+
+    /**
+     *
+     * @return true if every item claimed by a producer has been removed
+     */
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+}
@@ -0,0 +1,152 @@
+package com.c195.dbclientapp.helper;
+
+/**
+ * An immutable snapshot of the connection pool counters, used for monitoring the pool managed by the JDBC class.
+ */
+public class PoolStats {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int threadsAwaiting;
+    private final long totalBorrows;
+    private final long borrowTimeouts;
+    private final long leaksDetected;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    /**
+     *
+     * @param activeConnections
+     * @param idleConnections
+     * @param threadsAwaiting
+     * @param totalBorrows
+     * @param borrowTimeouts
+     * @param leaksDetected
+     * @param averageWaitMillis
+     * @param maxWaitMillis
+     * @param statementCacheHits
+     * @param statementCacheMisses
+     * @param statementCacheEvictions
+     */
+    public PoolStats(int activeConnections, int idleConnections, int threadsAwaiting, long totalBorrows,
+                     long borrowTimeouts, long leaksDetected, double averageWaitMillis, double maxWaitMillis,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.threadsAwaiting = threadsAwaiting;
+        this.totalBorrows = totalBorrows;
+        this.borrowTimeouts = borrowTimeouts;
+        this.leaksDetected = leaksDetected;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    /**
+     *
+     * @return activeConnections, the number of connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     *
+     * @return idleConnections, the number of open connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     *
+     * @return activeConnections + idleConnections
+     */
+    public int getTotalConnections() {
+        return activeConnections + idleConnections;
+    }
+
+    /**
+     *
+     * @return threadsAwaiting, the number of threads blocked waiting for a connection
+     */
+    public int getThreadsAwaiting() {
+        return threadsAwaiting;
+    }
+
+    /**
+     *
+     * @return totalBorrows
+     */
+    public long getTotalBorrows() {
+        return totalBorrows;
+    }
+
+    /**
+     *
+     * @return borrowTimeouts
+     */
+    public long getBorrowTimeouts() {
+        return borrowTimeouts;
+    }
+
+    /**
+     *
+     * @return leaksDetected
+     */
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    /**
+     *
+     * @return averageWaitMillis, the mean time spent waiting to borrow a connection
+     */
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /**
+     *
+     * @return maxWaitMillis, the longest time spent waiting to borrow a connection
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     *
+     * @return statementCacheHits, the number of prepared statements reused from a connection's cache
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /**
+     *
+     * @return statementCacheMisses, the number of prepared statements that had to be prepared by the server
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    /**
+     *
+     * @return statementCacheEvictions, the number of cached statements closed to make room for newer ones
+     */
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, awaiting=%d, borrows=%d, timeouts=%d, leaks=%d," +
+                        " avgWait=%.3fms, maxWait=%.3fms, stmtHits=%d, stmtMisses=%d, stmtEvictions=%d",
+                activeConnections, idleConnections, threadsAwaiting, totalBorrows, borrowTimeouts, leaksDetected,
+                averageWaitMillis, maxWaitMillis, statementCacheHits, statementCacheMisses, statementCacheEvictions);
+    }
+}
@@ -0,0 +1,223 @@
+package com.c195.dbclientapp.helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wraps one physical database connection owned by the ConnectionPool. Each time the connection is borrowed a new
+ * proxy is handed out; closing the proxy returns the physical connection to the pool instead of closing it.
+ */
+class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastReturnedAt;
+    private volatile long borrowedAt;
+    private volatile Exception borrowStack;
+    private volatile boolean leakReported;
+
+    // Statements opened through the current proxy, closed on return if the caller forgot to
+    private final List<Statement> openStatements = new ArrayList<>();
+
+    /**
+     *
+     * @param pool the pool that owns this connection
+     * @param physical the underlying driver connection
+     * @param statementCache the prepared statement cache for this connection, or null to disable caching
+     */
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCache;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+    }
+
+    /**
+     *
+     * @return physical
+     */
+    Connection getPhysical() {
+        return physical;
+    }
+
+    /**
+     *
+     * @return lastReturnedAt
+     */
+    long getLastReturnedAt() {
+        return lastReturnedAt;
+    }
+
+    /**
+     *
+     * @return borrowStack, or null if leak detection is disabled
+     */
+    Exception getBorrowStack() {
+        return borrowStack;
+    }
+
+    /**
+     * Checks whether this connection has outlived the pool's maximum lifetime.
+     * @param now the current time in milliseconds
+     * @param maxLifetimeMillis the maximum lifetime, or 0 for no limit
+     * @return true if the connection should be retired
+     */
+    boolean isExpired(long now, long maxLifetimeMillis) {
+        return maxLifetimeMillis > 0 && now - createdAt > maxLifetimeMillis;
+    }
+
+    /**
+     * Marks this connection as borrowed and creates the proxy that the caller will use.
+     * @param borrowStack the captured stack of the borrowing thread, or null if leak detection is disabled
+     * @return a Connection proxy whose close method returns this connection to the pool
+     */
+    Connection borrow(Exception borrowStack) {
+        this.borrowedAt = System.currentTimeMillis();
+        this.borrowStack = borrowStack;
+        this.leakReported = false;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Lease());
+    }
+
+    /**
+     * Reports whether this connection has been held longer than the leak threshold. A leak is only reported once
+     * per borrow.
+     * @param now the current time in milliseconds
+     * @param thresholdMillis the leak detection threshold
+     * @return true the first time the threshold is exceeded for the current borrow
+     */
+    boolean checkLeak(long now, long thresholdMillis) {
+        if (leakReported || borrowStack == null || now - borrowedAt <= thresholdMillis) {
+            return false;
+        }
+        leakReported = true;
+        return true;
+    }
+
+    /**
+     * Restores the connection to a clean state before it goes back into the pool. Statements left open by the
+     * borrower are closed and any uncommitted transaction is rolled back.
+     * @throws SQLException if the connection could not be reset
+     */
+    void reset() throws SQLException {
+        synchronized (openStatements) {
+            for (Statement statement : openStatements) {
+                statement.close();
+            }
+            openStatements.clear();
+        }
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        borrowStack = null;
+        lastReturnedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the cached statements and the physical connection, ignoring any error since the connection is being
+     * discarded.
+     */
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * The invocation handler behind a single borrow. Once closed it refuses further calls, so a stale reference
+     * cannot use a connection that has since been handed to another thread.
+     */
+    private class Lease implements InvocationHandler {
+
+        private volatile boolean closed = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            // Route prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) through the statement cache
+            if (statementCache != null && method.getName().equals("prepareStatement")) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return track(monitor(statementCache.prepare((Connection) proxy, (String) args[0], -1),
+                            (String) args[0]));
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return track(monitor(statementCache.prepare((Connection) proxy, (String) args[0],
+                            (Integer) args[1]), (String) args[0]));
+                }
+            }
+
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof Statement statement) {
+                    return track(monitor(statement, args != null && args[0] instanceof String sql ? sql : null));
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Wraps a statement so the QueryMonitor times it, unless monitoring is turned off. Callable statements are
+         * left alone because the wrapper only implements PreparedStatement.
+         * @param statement the statement that was opened
+         * @param sql the SQL it was prepared with, or null for a plain Statement
+         * @return the statement to hand to the caller
+         */
+        private Statement monitor(Statement statement, String sql) {
+            if (!QueryMonitor.isEnabled() || statement instanceof CallableStatement) {
+                return statement;
+            }
+            return QueryMonitor.monitor(statement, sql);
+        }
+
+        /**
+         * Remembers a statement opened through this lease so it can be closed when the connection is returned.
+         * @param statement the statement that was opened
+         * @return the same statement
+         */
+        private <T extends Statement> T track(T statement) {
+            synchronized (openStatements) {
+                openStatements.add(statement);
+            }
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.c195.dbclientapp.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one statement run by a data access method. It lasts from the execute call until
+ * the results have been read and the statement closed, and is named like the QueryMonitor's timings. Bound parameter
+ * values are not recorded.
+ */
+@Name("com.c195.dbclientapp.Query")
+@Label("Query")
+@Category({"DBClientApp", "Database"})
+@Description("A statement executed and its results read")
+@StackTrace(false)
+class QueryEvent extends Event {
+
+    @Label("Query")
+    @Description("The class and method that ran the statement")
+    String name;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows read from the results, or changed by the statement")
+    long rows;
+
+    @Label("Bytes")
+    @Description("An estimate of the data read from the results")
+    @DataAmount
+    long bytes;
+
+    @Label("Failed")
+    boolean failed;
+}
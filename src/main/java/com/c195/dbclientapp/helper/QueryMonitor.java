@@ -0,0 +1,339 @@
+package com.c195.dbclientapp.helper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The QueryMonitor class times every statement run on a connection borrowed from the JDBC pool. Statements are named
+ * after the data access method that ran them, such as AppointmentAccess.getAllAppointments, and each name keeps a
+ * latency histogram with the number of rows and an estimate of the bytes its results returned. A query that runs
+ * longer than the slow query threshold is printed with its SQL and the types of its bound parameters, never their
+ * values. The timings can be read through the com.c195.dbclientapp:type=QueryMonitor MXBean, and are written to a
+ * file every minute when the application is started with -Ddbclientapp.querystats.file=path.
+ */
+public abstract class QueryMonitor {
+
+    // System properties read when the connection pool is opened
+    public static final String enabledProperty = "dbclientapp.querymonitor";
+    public static final String slowQueryProperty = "dbclientapp.slowquery.millis";
+    public static final String dumpFileProperty = "dbclientapp.querystats.file";
+    public static final String dumpIntervalProperty = "dbclientapp.querystats.seconds";
+
+    private static final String objectName = "com.c195.dbclientapp:type=QueryMonitor";
+    private static final long defaultSlowQueryMillis = 500;
+    private static final long defaultDumpIntervalSeconds = 60;
+
+    // Classes between the data access code and the driver, which are skipped when naming a query
+    private static final Set<String> plumbingClasses = Set.of(JDBC.class.getName(),
+            ConnectionPool.class.getName(), PooledConnection.class.getName(), StatementCache.class.getName(),
+            MonitoredStatement.class.getName(), QueryMonitor.class.getName(), BatchExecutor.class.getName());
+    private static final String applicationPackage = "com.c195.dbclientapp.";
+
+    private static final boolean enabled = !"false".equalsIgnoreCase(System.getProperty(enabledProperty));
+    private static volatile long slowQueryThresholdMillis = Long.getLong(slowQueryProperty, defaultSlowQueryMillis);
+
+    private static final Map<String, Metrics> metricsByName = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+    private static boolean registered = false;
+
+    /**
+     *
+     * @return false if the application was started with -Ddbclientapp.querymonitor=false
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers the MXBean and, if a dump file was named, starts writing the timings to it periodically. Called when
+     * the connection pool is opened; calling it again has no effect.
+     */
+    public static synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!registered) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(new Bean(), new ObjectName(objectName));
+                registered = true;
+            } catch (JMException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+
+        String file = System.getProperty(dumpFileProperty);
+        if (file != null && dumper == null) {
+            Path dumpFile = Paths.get(file);
+            long interval = Long.getLong(dumpIntervalProperty, defaultDumpIntervalSeconds);
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "query-monitor-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleWithFixedDelay(() -> dump(dumpFile), interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic dump, writing the timings one last time. Called when the connection pool is closed.
+     */
+    public static synchronized void stop() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            dump(Paths.get(System.getProperty(dumpFileProperty)));
+        }
+    }
+
+    /**
+     *
+     * @return the timings of every query run since the last reset, slowest total time first
+     */
+    public static List<QueryStats> getQueryStats() {
+        List<QueryStats> stats = new ArrayList<>();
+        for (Map.Entry<String, Metrics> entry : metricsByName.entrySet()) {
+            stats.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        stats.sort(Comparator.comparingDouble((QueryStats s) -> s.getMeanMillis() * s.getExecutions()).reversed());
+        return stats;
+    }
+
+    /**
+     *
+     * @return the execution time above which a query is logged as slow
+     */
+    public static long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    /**
+     *
+     * @param thresholdMillis the execution time above which a query is logged as slow
+     */
+    public static void setSlowQueryThresholdMillis(long thresholdMillis) {
+        slowQueryThresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Discards every timing recorded so far.
+     */
+    public static void reset() {
+        metricsByName.clear();
+    }
+
+    /**
+     * Writes the timings and the connection pool counters to a file, replacing what was there.
+     * @param file the file to write
+     */
+    public static void dump(Path file) {
+        StringBuilder report = new StringBuilder();
+        report.append("Query statistics at ")
+                .append(LocalDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .append(" UTC").append(System.lineSeparator());
+        report.append("Pool: ").append(JDBC.getPoolStats()).append(System.lineSeparator());
+        for (QueryStats stats : getQueryStats()) {
+            report.append(stats).append(System.lineSeparator());
+        }
+
+        try {
+            Path temp = Paths.get(file + ".tmp");
+            Files.writeString(temp, report);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Wraps a statement so that its executions are timed. Called by the pool for every statement it opens.
+     * @param statement the statement to wrap
+     * @param sql the SQL it was prepared with, or null for a plain Statement
+     * @return the statement to hand to the caller
+     */
+    static Statement monitor(Statement statement, String sql) {
+        return statement instanceof PreparedStatement preparedStatement
+                ? MonitoredStatement.wrap(preparedStatement, sql)
+                : MonitoredStatement.wrap(statement);
+    }
+
+    /**
+     * Names a query after the class and method outside the JDBC plumbing that is running it. The stack is walked on
+     * every execution, only as far as that frame, since the same SQL text can be run from more than one method.
+     * @return the query's name, such as AppointmentAccess.getAllAppointments
+     */
+    static String nameOfCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(applicationPackage))
+                .filter(frame -> !plumbingClasses.contains(outerClassName(frame.getClassName())))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                .orElse("unknown"));
+    }
+
+    /**
+     * Records one execution, printing it if it was slow.
+     * @param name the query's name
+     * @param sql the SQL text
+     * @param nanos how long the execution took
+     * @param failed true if it threw an SQLException
+     * @param parameterTypes the types of the bound parameters by position, starting at 1, with null for unset
+     * positions
+     */
+    static void recordExecution(String name, String sql, long nanos, boolean failed, Class<?>[] parameterTypes) {
+        Metrics metrics = metricsOf(name);
+        metrics.histogram.record(nanos / 1_000);
+        if (failed) {
+            metrics.errors.increment();
+        }
+        long millis = nanos / 1_000_000;
+        if (millis >= slowQueryThresholdMillis) {
+            metrics.slowExecutions.increment();
+            System.out.println("Slow query: " + name + " took " + millis + " ms: " +
+                    (sql == null ? "batch" : sql.replaceAll("\\s+", " ").trim()) + redact(parameterTypes));
+        }
+    }
+
+    /**
+     * Records the rows and bytes read from, or changed by, an execution.
+     * @param name the query's name
+     * @param rows the number of rows
+     * @param bytes the estimated number of bytes
+     */
+    static void recordResults(String name, long rows, long bytes) {
+        if (rows == 0 && bytes == 0) {
+            return;
+        }
+        Metrics metrics = metricsOf(name);
+        metrics.rows.add(rows);
+        metrics.bytes.add(bytes);
+    }
+
+    /**
+     *
+     * @param name the query's name
+     * @return the query's metrics, created the first time the name is seen
+     */
+    private static Metrics metricsOf(String name) {
+        Metrics metrics = metricsByName.get(name);
+        return metrics != null ? metrics : metricsByName.computeIfAbsent(name, key -> new Metrics());
+    }
+
+    /**
+     *
+     * @param parameterTypes the types of the bound parameters by position
+     * @return the positions and types of the parameters, such as " [1: Integer, 2: Timestamp]", without their values
+     */
+    private static String redact(Class<?>[] parameterTypes) {
+        if (parameterTypes == null) {
+            return "";
+        }
+        StringBuilder redacted = new StringBuilder();
+        for (int i = 1; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] != null) {
+                redacted.append(redacted.length() == 0 ? " [" : ", ")
+                        .append(i).append(": ")
+                        .append(parameterTypes[i] == Void.class ? "NULL" : parameterTypes[i].getSimpleName());
+            }
+        }
+        return redacted.length() == 0 ? "" : redacted.append("]").toString();
+    }
+
+    private static String outerClassName(String className) {
+        int inner = className.indexOf('$');
+        return inner < 0 ? className : className.substring(0, inner);
+    }
+
+    private static String simpleName(String className) {
+        String outer = outerClassName(className);
+        return outer.substring(outer.lastIndexOf('.') + 1);
+    }
+
+    /**
+     *
+     * @param methodName a method name, which for a lambda looks like lambda$getCountries$3
+     * @return the name of the method the lambda was written in, or the method name unchanged
+     */
+    private static String methodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            String enclosing = methodName.substring("lambda$".length());
+            int end = enclosing.indexOf('$');
+            return end < 0 ? enclosing : enclosing.substring(0, end);
+        }
+        return methodName;
+    }
+
+    /**
+     * The counters kept for one query name.
+     */
+    private static class Metrics {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder slowExecutions = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        /**
+         *
+         * @param name the query's name
+         * @return the counters as QueryStats
+         */
+        QueryStats snapshot(String name) {
+            long executions = histogram.getCount();
+            return new QueryStats(name, executions, errors.sum(), slowExecutions.sum(), rows.sum(), bytes.sum(),
+                    executions == 0 ? 0 : histogram.getTotalMicros() / (double) executions / 1_000,
+                    histogram.getPercentileMicros(0.50) / 1_000.0,
+                    histogram.getPercentileMicros(0.90) / 1_000.0,
+                    histogram.getPercentileMicros(0.99) / 1_000.0,
+                    histogram.getMaxMicros() / 1_000.0);
+        }
+    }
+
+    /**
+     * The MXBean registered with the platform MBean server, which reads through to the static methods.
+     */
+    private static class Bean implements QueryMonitorMXBean {
+
+        @Override
+        public List<QueryStats> getQueryStats() {
+            return QueryMonitor.getQueryStats();
+        }
+
+        @Override
+        public long getSlowQueryThresholdMillis() {
+            return QueryMonitor.getSlowQueryThresholdMillis();
+        }
+
+        @Override
+        public void setSlowQueryThresholdMillis(long thresholdMillis) {
+            QueryMonitor.setSlowQueryThresholdMillis(thresholdMillis);
+        }
+
+        @Override
+        public void reset() {
+            QueryMonitor.reset();
+        }
+    }
+}
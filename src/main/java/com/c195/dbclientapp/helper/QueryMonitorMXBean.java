@@ -0,0 +1,33 @@
+package com.c195.dbclientapp.helper;
+
+import java.util.List;
+
+/**
+ * The management interface through which JMX clients such as JConsole read the QueryMonitor's timings. It is
+ * registered as com.c195.dbclientapp:type=QueryMonitor when the connection pool is opened.
+ */
+public interface QueryMonitorMXBean {
+
+    /**
+     *
+     * @return the timings of every query run since the last reset
+     */
+    List<QueryStats> getQueryStats();
+
+    /**
+     *
+     * @return the execution time above which a query is logged as slow
+     */
+    long getSlowQueryThresholdMillis();
+
+    /**
+     *
+     * @param thresholdMillis the execution time above which a query is logged as slow
+     */
+    void setSlowQueryThresholdMillis(long thresholdMillis);
+
+    /**
+     * Discards every timing recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,144 @@
+package com.c195.dbclientapp.helper;
+
+/**
+ * An immutable snapshot of the timings recorded by the QueryMonitor for one logical query, which is named after the
+ * data access method that ran it.
+ */
+public class QueryStats {
+    private final String name;
+    private final long executions;
+    private final long errors;
+    private final long slowExecutions;
+    private final long rows;
+    private final long bytes;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    /**
+     *
+     * @param name
+     * @param executions
+     * @param errors
+     * @param slowExecutions
+     * @param rows
+     * @param bytes
+     * @param meanMillis
+     * @param p50Millis
+     * @param p90Millis
+     * @param p99Millis
+     * @param maxMillis
+     */
+    public QueryStats(String name, long executions, long errors, long slowExecutions, long rows, long bytes,
+                      double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+        this.name = name;
+        this.executions = executions;
+        this.errors = errors;
+        this.slowExecutions = slowExecutions;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     *
+     * @return name, the class and method that ran the query, such as AppointmentAccess.getAllAppointments
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     *
+     * @return executions, the number of times the query was run
+     */
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     *
+     * @return errors, the number of executions that threw an SQLException
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     *
+     * @return slowExecutions, the number of executions that took longer than the slow query threshold
+     */
+    public long getSlowExecutions() {
+        return slowExecutions;
+    }
+
+    /**
+     *
+     * @return rows, the number of rows read from the query's results, or changed by it
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     *
+     * @return bytes, an estimate of the data read from the query's results
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     *
+     * @return meanMillis
+     */
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    /**
+     *
+     * @return p50Millis, the median execution time
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     *
+     * @return p90Millis
+     */
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    /**
+     *
+     * @return p99Millis
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     *
+     * @return maxMillis
+     */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: executions=%d, errors=%d, slow=%d, rows=%d, bytes=%d, mean=%.3fms, p50=%.3fms," +
+                        " p90=%.3fms, p99=%.3fms, max=%.3fms",
+                name, executions, errors, slowExecutions, rows, bytes, meanMillis, p50Millis, p90Millis, p99Millis,
+                maxMillis);
+    }
+}
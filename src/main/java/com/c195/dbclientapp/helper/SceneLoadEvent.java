@@ -0,0 +1,58 @@
+package com.c195.dbclientapp.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for loading a screen from its FXML file. The event lasts from the start of parsing to
+ * the end of the controller's initialize method, and splits that time between the two, so a slow screen change can be
+ * told apart from slow queries, which are recorded as QueryEvents.
+ */
+@Name("com.c195.dbclientapp.SceneLoad")
+@Label("Scene Load")
+@Category({"DBClientApp", "UI"})
+@Description("An FXML file parsed and its controller initialized")
+@StackTrace(false)
+public class SceneLoadEvent extends Event {
+
+    @Label("FXML File")
+    String fxmlFile;
+
+    @Label("Controller")
+    String controller;
+
+    @Label("Parse Time")
+    @Description("Time spent parsing the FXML file and creating its nodes")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseTime;
+
+    @Label("Initialize Time")
+    @Description("Time spent in the controller's initialize method")
+    @Timespan(Timespan.NANOSECONDS)
+    long initializeTime;
+
+    /**
+     *
+     * @param fxmlFile the name of the FXML file being loaded
+     */
+    public SceneLoadEvent(String fxmlFile) {
+        this.fxmlFile = fxmlFile;
+    }
+
+    /**
+     * Records which controller was created and how the load time was split.
+     * @param controller the controller's class name, or null if the file has none
+     * @param parseTime the nanoseconds spent parsing
+     * @param initializeTime the nanoseconds spent in initialize
+     */
+    public void setTimes(String controller, long parseTime, long initializeTime) {
+        this.controller = controller;
+        this.parseTime = parseTime;
+        this.initializeTime = initializeTime;
+    }
+}
@@ -0,0 +1,73 @@
+package com.c195.dbclientapp.helper;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * The SessionRecording class runs a continuous Java Flight Recorder recording for the whole session when the
+ * application is started with -Ddbclientapp.jfr.file=path. The recording uses the JDK's low overhead default settings
+ * together with the application's own SceneLoad, TablePopulate and Query events, keeps only the most recent part of
+ * the session on disk, and is written to the file when the application exits.
+ */
+public abstract class SessionRecording {
+
+    // System properties read when the application starts
+    public static final String fileProperty = "dbclientapp.jfr.file";
+    public static final String maxAgeProperty = "dbclientapp.jfr.maxage.minutes";
+
+    private static final long defaultMaxAgeMinutes = 60;
+    private static final long maxSizeBytes = 250L * 1024 * 1024;
+
+    private static Recording recording;
+
+    /**
+     * Starts the recording if a file was named. Prints a message to the console if the recording could not be
+     * started.
+     */
+    public static synchronized void start() {
+        String file = System.getProperty(fileProperty);
+        if (file == null || recording != null) {
+            return;
+        }
+        try {
+            Recording session = new Recording(Configuration.getConfiguration("default"));
+            session.setName("DBClientApp session");
+            session.setToDisk(true);
+            session.setMaxAge(Duration.ofMinutes(Long.getLong(maxAgeProperty, defaultMaxAgeMinutes)));
+            session.setMaxSize(maxSizeBytes);
+            session.setDestination(Paths.get(file));
+            session.setDumpOnExit(true);
+            session.start();
+            recording = session;
+            System.out.println("Flight recording started: " + file);
+        }
+        catch(IOException | ParseException | IllegalStateException | SecurityException e)
+        {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the recording, which writes it to its file.
+     */
+    public static synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop();
+            System.out.println("Flight recording written: " + recording.getDestination());
+        }
+        catch(IllegalStateException e)
+        {
+            System.out.println("Error:" + e.getMessage());
+        }
+        recording.close();
+        recording = null;
+    }
+}
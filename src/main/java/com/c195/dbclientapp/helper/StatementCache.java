@@ -0,0 +1,219 @@
+package com.c195.dbclientapp.helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least-recently-used cache of prepared statements for one physical connection, keyed by SQL text. Statements handed
+ * out by the cache are proxies: closing one closes the ResultSets it opened, clears its parameters, restores any fetch
+ * size, row limit or timeout the caller set and puts the underlying statement back in the cache, so the next call with
+ * the same SQL skips the parse/prepare round-trip and starts from the same settings as a newly prepared statement.
+ */
+class StatementCache {
+
+    // Setters of per-use settings that a caller may change on a checked out statement
+    private static final Set<String> settingSetters = Set.of("setFetchSize", "setFetchDirection", "setMaxRows",
+            "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout");
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    // Idle statements in access order; a statement that is checked out is not in the map
+    private final LinkedHashMap<String, PreparedStatement> idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     *
+     * @param physical the physical connection the statements belong to
+     * @param maxSize the maximum number of idle statements kept
+     * @param hits counter incremented when a statement is reused
+     * @param misses counter incremented when a statement has to be prepared
+     * @param evictions counter incremented when the least recently used statement is closed to make room
+     */
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns a cached statement for the SQL text, or prepares a new one on a miss.
+     * @param connection the connection proxy that getConnection on the statement should return
+     * @param sql the SQL text
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS, or -1 if the caller did
+     * not ask for either
+     * @return a PreparedStatement proxy whose close method returns the statement to this cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == -1 ? sql : autoGeneratedKeys + ":" + sql;
+        PreparedStatement statement;
+        synchronized (idleStatements) {
+            statement = idleStatements.remove(key);
+        }
+        if (statement != null && !statement.isClosed()) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = autoGeneratedKeys == -1
+                    ? physical.prepareStatement(sql)
+                    : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new CachedStatement(connection, key, statement));
+    }
+
+    /**
+     * Closes every idle statement. Used when the physical connection is being discarded.
+     */
+    void clear() {
+        synchronized (idleStatements) {
+            for (PreparedStatement statement : idleStatements.values()) {
+                closeQuietly(statement);
+            }
+            idleStatements.clear();
+        }
+    }
+
+    /**
+     * Puts a statement back in the cache, closing the least recently used one if the cache is full.
+     * @param key the cache key
+     * @param statement the statement being returned
+     */
+    private void giveBack(String key, PreparedStatement statement) {
+        synchronized (idleStatements) {
+            // The same SQL may have been checked out twice; keep only one copy
+            PreparedStatement previous = idleStatements.put(key, statement);
+            if (previous != null) {
+                closeQuietly(previous);
+            }
+            if (idleStatements.size() > maxSize) {
+                Iterator<Map.Entry<String, PreparedStatement>> eldest = idleStatements.entrySet().iterator();
+                closeQuietly(eldest.next().getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Closes a statement, ignoring errors because it is being discarded.
+     * @param statement the statement to close
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * The invocation handler behind a single checkout of a cached statement.
+     */
+    private class CachedStatement implements InvocationHandler {
+
+        private final Connection connection;
+        private final String key;
+        private final PreparedStatement statement;
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean closed = false;
+
+        // The statement's settings before the caller first changed one, restored when it is given back
+        private int[] defaultSettings;
+
+        /**
+         *
+         * @param connection
+         * @param key
+         * @param statement
+         */
+        CachedStatement(Connection connection, String key, PreparedStatement statement) {
+            this.connection = connection;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + statement;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            if (defaultSettings == null && settingSetters.contains(method.getName())) {
+                defaultSettings = new int[]{statement.getFetchSize(), statement.getFetchDirection(),
+                        statement.getMaxRows(), statement.getMaxFieldSize(), statement.getQueryTimeout()};
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet resultSet) {
+                    resultSets.add(resultSet);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Closes every ResultSet the caller opened, restores the settings the caller changed and returns the statement
+         * to the cache. If the statement cannot be reset it is closed instead.
+         */
+        private void release() {
+            try {
+                for (ResultSet resultSet : resultSets) {
+                    resultSet.close();
+                }
+                resultSets.clear();
+                statement.clearParameters();
+                statement.clearBatch();
+                if (defaultSettings != null) {
+
+                    // The row limit goes first, as a driver may reject a fetch size larger than the limit
+                    statement.setMaxRows(defaultSettings[2]);
+                    statement.setFetchSize(defaultSettings[0]);
+                    statement.setFetchDirection(defaultSettings[1]);
+                    statement.setMaxFieldSize(defaultSettings[3]);
+                    statement.setQueryTimeout(defaultSettings[4]);
+                }
+                giveBack(key, statement);
+            } catch (SQLException e) {
+                closeQuietly(statement);
+            }
+        }
+    }
+}
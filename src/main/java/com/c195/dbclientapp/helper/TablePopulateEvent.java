@@ -0,0 +1,43 @@
+package com.c195.dbclientapp.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for handing loaded rows to a TableView on the JavaFX application thread. It lasts as
+ * long as the table takes to accept the rows, which is time the window cannot respond to the user.
+ */
+@Name("com.c195.dbclientapp.TablePopulate")
+@Label("Table Populate")
+@Category({"DBClientApp", "UI"})
+@Description("Rows handed to a TableView")
+@StackTrace(false)
+public class TablePopulateEvent extends Event {
+
+    @Label("Table")
+    @Description("The fx:id of the table")
+    String table;
+
+    @Label("Load")
+    @Description("The key of the load that read the rows")
+    String key;
+
+    @Label("Rows")
+    int rows;
+
+    /**
+     *
+     * @param table the fx:id of the table
+     * @param key the key of the load that read the rows
+     * @param rows the number of rows handed to the table
+     */
+    public TablePopulateEvent(String table, String key, int rows) {
+        this.table = table;
+        this.key = key;
+        this.rows = rows;
+    }
+}
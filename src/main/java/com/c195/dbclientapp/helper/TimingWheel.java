@@ -0,0 +1,172 @@
+package com.c195.dbclientapp.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel: a ring of buckets, one per tick, each holding a doubly-linked list of the timeouts that fall
+ * on that slot of the ring. A timeout further away than one turn of the ring also records how many whole turns are
+ * left before it is due. Scheduling and cancelling take constant time, and each tick visits a single bucket, so the
+ * cost of a tick does not depend on how many timeouts are pending further away. The wheel is not thread-safe and is
+ * meant to be owned by one thread, which schedules, cancels and advances it.
+ * @param <T> the type of item a timeout carries
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Timeout<T>[] buckets;
+
+    // The tick the wheel has advanced to; timeouts are never placed before it
+    private long currentTick;
+    private int size;
+
+    /**
+     *
+     * @param tickMillis the length of a tick, which is the precision of the deadlines
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     * @param startMillis the time the wheel starts at
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        int capacity = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        this.mask = capacity - 1;
+        this.buckets = (Timeout<T>[]) new Timeout[capacity];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item to expire at a deadline. A deadline that has already passed expires on the next tick.
+     * @param item the item
+     * @param deadlineMillis the time the item expires
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        long tick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(this, item, deadlineMillis);
+        timeout.rounds = (tick - currentTick - 1) / buckets.length;
+        timeout.bucket = (int) (tick & mask);
+        Timeout<T> head = buckets[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        buckets[timeout.bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to a time, passing every item whose deadline has been reached to the consumer in the order of
+     * their ticks.
+     * @param nowMillis the current time
+     * @param expired receives each expired item
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Expired items are handed over once the bucket has been walked, so the consumer may cancel or schedule
+            List<T> due = null;
+            Timeout<T> timeout = buckets[(int) (currentTick & mask)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.rounds == 0) {
+                    unlink(timeout);
+                    if (due == null) {
+                        due = new ArrayList<>();
+                    }
+                    due.add(timeout.item);
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            if (due != null) {
+                due.forEach(expired);
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the number of timeouts scheduled and not yet expired or cancelled
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes a timeout from its bucket.
+     * @param timeout the timeout
+     */
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.wheel = null;
+        size--;
+    }
+
+    /**
+     * An item scheduled on the wheel.
+     * @param <T> the type of item
+     */
+    public static class Timeout<T> {
+        private final T item;
+        private final long deadlineMillis;
+        private TimingWheel<T> wheel;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private long rounds;
+        private int bucket;
+
+        /**
+         *
+         * @param wheel
+         * @param item
+         * @param deadlineMillis
+         */
+        private Timeout(TimingWheel<T> wheel, T item, long deadlineMillis) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        /**
+         *
+         * @return the item
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         *
+         * @return the time the item expires
+         */
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Removes the timeout from the wheel so its item never expires. Has no effect if it has already expired or been
+         * cancelled. Must be called on the thread that owns the wheel.
+         */
+        public void cancel() {
+            if (wheel != null) {
+                wheel.unlink(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.c195.dbclientapp.helper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Converts UTC date-times read from the database to the user's local time zone. The offset in effect is cached together
+ * with the daylight saving transitions on either side of it, so converting a run of rows only consults the zone rules
+ * again when a row falls outside the cached window.
+ */
+public abstract class UtcConverter {
+
+    private static final ZoneRules rules = ZoneId.systemDefault().getRules();
+
+    // The offset and the range of epoch seconds it is valid for, replaced as a unit
+    private static volatile OffsetWindow window = new OffsetWindow(Long.MAX_VALUE, Long.MIN_VALUE, ZoneOffset.UTC);
+
+    /**
+     * Converts a UTC date-time to the user's local time zone.
+     * @param utc the date-time in UTC, may be null
+     * @return the same instant as a local date-time, or null if utc is null
+     */
+    public static LocalDateTime toLocal(LocalDateTime utc) {
+        if (utc == null) {
+            return null;
+        }
+        long epochSecond = utc.toEpochSecond(ZoneOffset.UTC);
+        OffsetWindow current = window;
+        if (epochSecond < current.validFrom || epochSecond >= current.validUntil) {
+            current = lookUp(epochSecond);
+            window = current;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, utc.getNano(), current.offset);
+    }
+
+    /**
+     * Looks up the offset in effect at an instant and the transitions bounding it.
+     * @param epochSecond the instant to look up
+     * @return a new OffsetWindow covering the instant
+     */
+    private static OffsetWindow lookUp(long epochSecond) {
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        ZoneOffset offset = rules.getOffset(instant);
+        if (rules.isFixedOffset()) {
+            return new OffsetWindow(Long.MIN_VALUE, Long.MAX_VALUE, offset);
+        }
+
+        // nextTransition is strictly after the instant, previousTransition is strictly before it
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        long validFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond();
+        long validUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond();
+        return new OffsetWindow(validFrom, validUntil, offset);
+    }
+
+    /**
+     * A zone offset and the half-open range of epoch seconds during which it applies.
+     */
+    private static class OffsetWindow {
+        private final long validFrom;
+        private final long validUntil;
+        private final ZoneOffset offset;
+
+        /**
+         *
+         * @param validFrom
+         * @param validUntil
+         * @param offset
+         */
+        OffsetWindow(long validFrom, long validUntil, ZoneOffset offset) {
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.offset = offset;
+        }
+    }
+}
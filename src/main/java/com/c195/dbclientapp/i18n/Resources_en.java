@@ -25,7 +25,8 @@ public class Resources_en extends ListResourceBundle {
                 {"An error occurred while trying to validate the user: ",
                         "An error occurred while trying to validate the user: "},
                 {"No Upcoming Appointments", "No Upcoming Appointments"},
-                {"Upcoming Appointment", "Upcoming Appointment"}
+                {"Upcoming Appointment", "Upcoming Appointment"},
+                {"Too many login attempts", "Too many login attempts. Try again in %d seconds."}
         };
     }
 }
@@ -25,7 +25,8 @@ public class Resources_fr extends ListResourceBundle {
                 {"An error occurred while trying to validate the user",
                         "Une erreur s'est produite lors de la tentative de validation de l'utilisateur"},
                 {"No Upcoming Appointments", "Aucun rendez-vous à venir"},
-                {"Upcoming Appointment", "Rendez-vous à venir"}
+                {"Upcoming Appointment", "Rendez-vous à venir"},
+                {"Too many login attempts", "Trop de tentatives de connexion. Réessayez dans %d secondes."}
         };
     }
 }
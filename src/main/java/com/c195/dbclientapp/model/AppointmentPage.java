@@ -0,0 +1,94 @@
+package com.c195.dbclientapp.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ *
+ * The AppointmentPage class represents one page of appointments read in (Start, Appointment_ID) order, together with
+ * the keys of its first and last rows. The keys hold the start times as stored in the database (UTC), so they can be
+ * passed straight back to AppointmentAccess to fetch the page before or after this one.
+ */
+public class AppointmentPage {
+    private final List<Appointment> appointments;
+    private final LocalDateTime firstStartUtc;
+    private final int firstAppointmentId;
+    private final LocalDateTime lastStartUtc;
+    private final int lastAppointmentId;
+    private final boolean hasMore;
+
+    /**
+     *
+     * @param appointments
+     * @param firstStartUtc
+     * @param firstAppointmentId
+     * @param lastStartUtc
+     * @param lastAppointmentId
+     * @param hasMore
+     */
+    public AppointmentPage(List<Appointment> appointments, LocalDateTime firstStartUtc, int firstAppointmentId,
+                           LocalDateTime lastStartUtc, int lastAppointmentId, boolean hasMore) {
+        this.appointments = appointments;
+        this.firstStartUtc = firstStartUtc;
+        this.firstAppointmentId = firstAppointmentId;
+        this.lastStartUtc = lastStartUtc;
+        this.lastAppointmentId = lastAppointmentId;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     *
+     * @return appointments, in ascending (Start, Appointment_ID) order
+     */
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    /**
+     *
+     * @return firstStartUtc, the stored start time of the first appointment
+     */
+    public LocalDateTime getFirstStartUtc() {
+        return firstStartUtc;
+    }
+
+    /**
+     *
+     * @return firstAppointmentId
+     */
+    public int getFirstAppointmentId() {
+        return firstAppointmentId;
+    }
+
+    /**
+     *
+     * @return lastStartUtc, the stored start time of the last appointment
+     */
+    public LocalDateTime getLastStartUtc() {
+        return lastStartUtc;
+    }
+
+    /**
+     *
+     * @return lastAppointmentId
+     */
+    public int getLastAppointmentId() {
+        return lastAppointmentId;
+    }
+
+    /**
+     *
+     * @return hasMore, true if further rows exist beyond this page in the direction it was read
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     *
+     * @return true if the page holds no appointments
+     */
+    public boolean isEmpty() {
+        return appointments.isEmpty();
+    }
+}
@@ -0,0 +1,60 @@
+package com.c195.dbclientapp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ *
+ The LoginAttempt class represents one entry of the login activity log, containing the time of the attempt in UTC,
+ the username that was entered, and whether the login succeeded.
+ */
+public class LoginAttempt {
+
+    private final LocalDateTime time;
+    private final String userName;
+    private final boolean successful;
+
+    /**
+     *
+     * @param time
+     * @param userName
+     * @param successful
+     */
+    public LoginAttempt(LocalDateTime time, String userName, boolean successful) {
+        this.time = time;
+        this.userName = userName;
+        this.successful = successful;
+    }
+
+    /**
+     *
+     * @return time, the time of the attempt in UTC
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     *
+     * @return userName
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     *
+     * @return successful
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     *
+     * @return "SUCCESSFUL" or "FAILED"
+     */
+    public String getOutcome() {
+        return successful ? "SUCCESSFUL" : "FAILED";
+    }
+
+}
@@ -2,9 +2,12 @@ module com.c195.dbclientapp {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires java.management;
+    requires jdk.jfr;
 
 
     opens com.c195.dbclientapp to javafx.fxml;
     opens com.c195.dbclientapp.model to javafx.base;
     exports com.c195.dbclientapp;
+    exports com.c195.dbclientapp.helper to java.management;
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+-- The client_schedule schema for the embedded stand-in database, in the subset of MySQL that H2 accepts in MySQL mode.
+-- Statements are separated by semicolons at the end of a line.
+
+CREATE SCHEMA IF NOT EXISTS client_schedule;
+
+CREATE TABLE IF NOT EXISTS client_schedule.countries (
+    Country_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Country VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.first_level_divisions (
+    Division_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Division VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Country_ID INT NOT NULL,
+    CONSTRAINT fk_country_id FOREIGN KEY (Country_ID) REFERENCES client_schedule.countries (Country_ID)
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.customers (
+    Customer_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Customer_Name VARCHAR(50),
+    Address VARCHAR(100),
+    Postal_Code VARCHAR(50),
+    Phone VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Division_ID INT NOT NULL,
+    CONSTRAINT fk_division_id FOREIGN KEY (Division_ID) REFERENCES client_schedule.first_level_divisions (Division_ID)
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.contacts (
+    Contact_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Contact_Name VARCHAR(50),
+    Email VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.users (
+    User_ID INT AUTO_INCREMENT PRIMARY KEY,
+    User_Name VARCHAR(50) UNIQUE,
+    Password TEXT,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.appointments (
+    Appointment_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME,
+    End DATETIME,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Customer_ID INT NOT NULL,
+    User_ID INT NOT NULL,
+    Contact_ID INT NOT NULL,
+    CONSTRAINT fk_customer_id FOREIGN KEY (Customer_ID) REFERENCES client_schedule.customers (Customer_ID),
+    CONSTRAINT fk_user_id FOREIGN KEY (User_ID) REFERENCES client_schedule.users (User_ID),
+    CONSTRAINT fk_contact_id FOREIGN KEY (Contact_ID) REFERENCES client_schedule.contacts (Contact_ID)
+);
+
+-- The same secondary indexes as sql/indexes.sql
+CREATE INDEX IF NOT EXISTS idx_appointments_start ON client_schedule.appointments (Start);
+CREATE INDEX IF NOT EXISTS idx_appointments_user_start ON client_schedule.appointments (User_ID, Start);
+CREATE INDEX IF NOT EXISTS idx_appointments_last_update ON client_schedule.appointments (Last_Update, Appointment_ID);
+
+-- The rollup tables of sql/rollups.sql
+CREATE TABLE IF NOT EXISTS client_schedule.appointment_rollups (
+    Granularity VARCHAR(5) NOT NULL,
+    Dimension VARCHAR(10) NOT NULL,
+    Bucket_Start DATETIME NOT NULL,
+    Dimension_Value VARCHAR(50) NOT NULL,
+    Total INT NOT NULL,
+    PRIMARY KEY (Granularity, Dimension, Bucket_Start, Dimension_Value)
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.appointment_rollup_rows (
+    Appointment_ID INT PRIMARY KEY,
+    Start DATETIME,
+    Type VARCHAR(50),
+    Contact_ID INT,
+    User_ID INT,
+    Customer_ID INT
+);
+
+CREATE TABLE IF NOT EXISTS client_schedule.rollup_state (
+    Name VARCHAR(50) PRIMARY KEY,
+    Watermark DATETIME,
+    Watermark_ID INT,
+    Checked_At DATETIME
+);
+
+INSERT IGNORE INTO client_schedule.rollup_state (Name) VALUES ('appointments');